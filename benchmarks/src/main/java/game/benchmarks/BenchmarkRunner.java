@@ -0,0 +1,37 @@
+package game.benchmarks;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ *
+ * <p>Entry point of the benchmarks jar. It takes the same arguments as the
+ * JMH runner, and always enables the GC profiler, so that every result comes
+ * with the allocation rate and the number of bytes allocated per operation.
+ *
+ * @author guidanoli
+ *
+ */
+public class BenchmarkRunner {
+
+	public static void main(String [] args) throws RunnerException, CommandLineOptionException, IOException {
+		CommandLineOptions cli = new CommandLineOptions(args);
+		if (cli.shouldHelp()) {
+			cli.showHelp();
+			return;
+		}
+		Runner runner = new Runner(new OptionsBuilder()
+				.parent(cli)
+				.addProfiler(GCProfiler.class)
+				.build());
+		if (cli.shouldList()) runner.list();
+		else runner.run();
+	}
+
+}
@@ -0,0 +1,129 @@
+package game.benchmarks;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import game.card.Card;
+import game.card.CardRank;
+
+/**
+ *
+ * <p>Benchmarks of the card primitives: equality, hashing, comparison and
+ * neighbourhood of cards and ranks, over pairs of random cards, as well as
+ * inserting a hand into a hash set and sorting it by {@link Card#compare(Card)}.
+ *
+ * <p>Hands are drawn from a shuffled deck with a fixed seed. Cards are either
+ * the shared instances (see {@link Card#valueOf}) or fresh ones, built through
+ * the constructor, whose fields are scattered across the heap.
+ *
+ * @author guidanoli
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardBenchmark {
+
+	@Param({"9", "13", "52"})
+	public int handSize;
+
+	@Param({"shared", "fresh"})
+	public String instances;
+
+	@Param({"42"})
+	public long seed;
+
+	private Card [] hand;
+	private Card [] others;
+	private CardRank [] ranks;
+	private CardRank [] otherRanks;
+	private Card [] sorted;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		Random random = new Random(seed);
+		hand = draw(random);
+		others = draw(random);
+		ranks = new CardRank[handSize];
+		otherRanks = new CardRank[handSize];
+		for (int i = 0; i < handSize; i++) {
+			ranks[i] = hand[i].getRank();
+			otherRanks[i] = others[i].getRank();
+		}
+		sorted = new Card[handSize];
+	}
+
+	private Card [] draw(Random random) {
+		Card [] deck = new Card[Card.NUM_OF_CODES];
+		for (int code = 0; code < deck.length; code++) {
+			Card card = Card.fromCode(code);
+			deck[code] = instances.equals("shared") ? card : new Card(card.getRank(), card.getSuit());
+		}
+		for (int i = deck.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			Card card = deck[i];
+			deck[i] = deck[j];
+			deck[j] = card;
+		}
+		return Arrays.copyOf(deck, handSize);
+	}
+
+	@Benchmark
+	public void cardEquals(Blackhole blackhole) {
+		for (int i = 0; i < handSize; i++) blackhole.consume(hand[i].equals(others[i]));
+	}
+
+	@Benchmark
+	public void cardHashCode(Blackhole blackhole) {
+		for (int i = 0; i < handSize; i++) blackhole.consume(hand[i].hashCode());
+	}
+
+	@Benchmark
+	public void cardCompare(Blackhole blackhole) {
+		for (int i = 0; i < handSize; i++) blackhole.consume(hand[i].compare(others[i]));
+	}
+
+	@Benchmark
+	public void cardIsNeighbour(Blackhole blackhole) {
+		for (int i = 0; i < handSize; i++) blackhole.consume(hand[i].isNeighbour(others[i]));
+	}
+
+	@Benchmark
+	public void rankCompare(Blackhole blackhole) {
+		for (int i = 0; i < handSize; i++) blackhole.consume(ranks[i].compare(otherRanks[i]));
+	}
+
+	@Benchmark
+	public HashSet<Card> hashSetInsertion() {
+		HashSet<Card> set = new HashSet<Card>();
+		for (Card card : hand) set.add(card);
+		return set;
+	}
+
+	@Benchmark
+	public Card [] sortHand() {
+		System.arraycopy(hand, 0, sorted, 0, handSize);
+		Arrays.sort(sorted, (a, b) -> a.compare(b));
+		return sorted;
+	}
+
+}
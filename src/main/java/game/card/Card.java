@@ -25,6 +25,25 @@ public class Card {
 	
 	/* auxiliary constants */
 	private final static int numOfSuits = CardSuit.values().length;
+	private final static int numOfRanks = CardRank.values().length;
+	
+	/**
+	 * Number of distinct card codes, ranging from 0 to {@code NUM_OF_CODES - 1}
+	 * @see #getCode()
+	 */
+	public final static int NUM_OF_CODES = numOfSuits * numOfRanks;
+	
+	/* one shared instance per card code */
+	private final static Card [] cardsByCode = new Card[NUM_OF_CODES];
+	
+	static {
+		for ( CardSuit suit : CardSuit.values() ) {
+			for ( CardRank rank : CardRank.values() ) {
+				Card card = new Card(rank, suit);
+				cardsByCode[card.getCode()] = card;
+			}
+		}
+	}
 	
 	/**
 	 * Constructs a card object
@@ -48,6 +67,48 @@ public class Card {
 	 */
 	public CardSuit getSuit() { return suit; }
 	
+	/**
+	 * <p>The card code is a compact identifier of the card, suitable
+	 * for indexing arrays and bitsets. Cards of the same suit have
+	 * consecutive codes, in ascending order of rank:
+	 * <p>{@code code = suit index * 13 + rank index - 1}
+	 * @return card's code, between 0 and {@link #NUM_OF_CODES} - 1
+	 * @see #fromCode(int)
+	 */
+	public int getCode() {
+		return getSuit().getIndex() * numOfRanks + getRank().getIndex() - 1;
+	}
+	
+	/**
+	 * @return bitset in which only the bit of index {@link #getCode()} is set
+	 */
+	public long getMask() {
+		return 1L << getCode();
+	}
+	
+	/**
+	 * Obtains the shared instance of a card, which saves
+	 * an allocation over the constructor
+	 * @param rank - card rank
+	 * @param suit - card suit
+	 * @return card of such rank and suit
+	 */
+	public static Card valueOf(CardRank rank, CardSuit suit) {
+		return cardsByCode[suit.getIndex() * numOfRanks + rank.getIndex() - 1];
+	}
+	
+	/**
+	 * Obtains the card identified by a card code
+	 * @param code - card code
+	 * @return card whose code is the one provided
+	 * @throws IllegalArgumentException if code is out of range
+	 * @see #getCode()
+	 */
+	public static Card fromCode(int code) {
+		if ( code < 0 || code >= NUM_OF_CODES ) throw new IllegalArgumentException("Invalid card code");
+		return cardsByCode[code];
+	}
+	
 	/**
 	 * @return string that identifies the card in text.
 	 * Each card has its unique name.
@@ -0,0 +1,238 @@
+package game.card;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * <p>A card list is an ordered list of cards, possibly repeated, kept as
+ * an array of card codes (see {@link Card#getCode()}), one byte each. Hence,
+ * unlike a list of card objects, it costs neither a box nor a node per card,
+ * and code on hot paths may go through the codes without touching any card
+ * object (see {@link #getCode(int)} and {@link #getMask()}).
+ *
+ * <p>Where a {@link List} of cards is expected, the list may be handled
+ * through {@link #asList()}, which maps codes to the shared card instances
+ * (see {@link Card#fromCode(int)}). Like the lists of the JDK, its iterators
+ * are fail-fast: they throw {@link java.util.ConcurrentModificationException}
+ * if cards are added or removed other than through them.
+ *
+ * @see Card
+ *
+ * @author guidanoli
+ *
+ */
+public class CardList {
+
+	private byte [] codes;
+	private int size = 0;
+	private ListView view = null;
+
+	/**
+	 * Constructs an empty card list
+	 */
+	public CardList() {
+		this(8);
+	}
+
+	/**
+	 * Constructs an empty card list
+	 * @param capacity - number of cards it holds before growing
+	 * @throws IllegalArgumentException if capacity is negative
+	 */
+	public CardList(int capacity) {
+		if ( capacity < 0 ) throw new IllegalArgumentException("Negative capacity");
+		codes = new byte[capacity];
+	}
+
+	/**
+	 * @return number of cards in the list
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return {@code true} if there are no cards in the list,
+	 * or {@code false} if else.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @param index - position in the list
+	 * @return code of the card at such position
+	 * @throws IndexOutOfBoundsException if there is no such position
+	 */
+	public int getCode(int index) {
+		checkIndex(index, size);
+		return codes[index];
+	}
+
+	/**
+	 * @param index - position in the list
+	 * @return card at such position
+	 * @throws IndexOutOfBoundsException if there is no such position
+	 */
+	public Card get(int index) {
+		return Card.fromCode(getCode(index));
+	}
+
+	/**
+	 * Appends a card to the end of the list
+	 * @param code - card code
+	 * @throws IllegalArgumentException if code is out of range
+	 */
+	public void addCode(int code) {
+		addCode(size, code);
+	}
+
+	/**
+	 * Inserts a card at a position, shifting the following ones
+	 * @param index - position in the list, up to its size
+	 * @param code - card code
+	 * @throws IndexOutOfBoundsException if there is no such position
+	 * @throws IllegalArgumentException if code is out of range
+	 */
+	public void addCode(int index, int code) {
+		checkIndex(index, size + 1);
+		checkCode(code);
+		if ( size == codes.length ) codes = Arrays.copyOf(codes, Math.max(8, size * 2));
+		System.arraycopy(codes, index, codes, index + 1, size - index);
+		codes[index] = (byte) code;
+		size++;
+		modified();
+	}
+
+	/**
+	 * Appends a card to the end of the list
+	 * @param card - card
+	 */
+	public void add(Card card) {
+		addCode(card.getCode());
+	}
+
+	/**
+	 * Removes the card at a position, shifting the following ones
+	 * @param index - position in the list
+	 * @return code of the card removed
+	 * @throws IndexOutOfBoundsException if there is no such position
+	 */
+	public int removeCode(int index) {
+		checkIndex(index, size);
+		int code = codes[index];
+		System.arraycopy(codes, index + 1, codes, index, size - index - 1);
+		size--;
+		modified();
+		return code;
+	}
+
+	/**
+	 * @param card - card
+	 * @return {@code true} if the card is in the list,
+	 * or {@code false} if else.
+	 */
+	public boolean contains(Card card) {
+		int code = card.getCode();
+		for ( int i = 0; i < size; i++ ) {
+			if ( codes[i] == code ) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Removes every card from the list
+	 */
+	public void clear() {
+		size = 0;
+		modified();
+	}
+
+	/**
+	 * @return bitset of the codes of the cards in the list
+	 */
+	public long getMask() {
+		long mask = 0;
+		for ( int i = 0; i < size; i++ ) mask |= 1L << codes[i];
+		return mask;
+	}
+
+	/**
+	 * Obtains a view of the card list as a list of cards. Changes to
+	 * the view are written through to the card list, and vice versa.
+	 * @return list of cards backed by the card list, which is
+	 * the same on every call
+	 */
+	public List<Card> asList() {
+		if ( view == null ) view = new ListView();
+		return view;
+	}
+
+	@Override
+	public String toString() {
+		return asList().toString();
+	}
+
+	/**
+	 * Counts a structural change in the view, so that its iterators fail fast
+	 */
+	private void modified() {
+		if ( view != null ) view.modified();
+	}
+
+	private static void checkIndex(int index, int bound) {
+		if ( index < 0 || index >= bound ) throw new IndexOutOfBoundsException("Index: " + index);
+	}
+
+	private static void checkCode(int code) {
+		if ( code < 0 || code >= Card.NUM_OF_CODES ) throw new IllegalArgumentException("Invalid card code");
+	}
+
+	/**
+	 * A list of cards backed by the card list, whose modification
+	 * count is bumped by every card added to or removed from it
+	 */
+	private final class ListView extends AbstractList<Card> implements RandomAccess {
+
+		void modified() {
+			modCount++;
+		}
+
+		@Override
+		public Card get(int index) {
+			return CardList.this.get(index);
+		}
+
+		@Override
+		public Card set(int index, Card card) {
+			checkIndex(index, size);
+			Card previous = Card.fromCode(codes[index]);
+			codes[index] = (byte) card.getCode();
+			return previous;
+		}
+
+		@Override
+		public void add(int index, Card card) {
+			addCode(index, card.getCode());
+		}
+
+		@Override
+		public Card remove(int index) {
+			return Card.fromCode(removeCode(index));
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return o instanceof Card && CardList.this.contains((Card) o);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+	}
+
+}
@@ -35,6 +35,9 @@ public enum CardRank {
 	private int index;
 	private String name;
 	
+	/* cached since values() copies the array on every call */
+	private final static CardRank [] ranks = values();
+	
 	CardRank(int index, String name) {
 		this.index = index;
 		this.name = name;
@@ -47,6 +50,18 @@ public enum CardRank {
 	 */
 	public int getIndex() { return index; }
 	
+	/**
+	 * Obtains the card rank of a given index
+	 * @param index - card rank index, from 1 to 13
+	 * @return card rank whose index is the one provided
+	 * @throws IllegalArgumentException if index is out of range
+	 * @see #getIndex()
+	 */
+	public static CardRank fromIndex(int index) {
+		if ( index < 1 || index > ranks.length ) throw new IllegalArgumentException("Invalid card rank index");
+		return ranks[index - 1];
+	}
+	
 	/**
 	 * @return string that identifies the card rank in text.
 	 * Each card rank has its unique name.
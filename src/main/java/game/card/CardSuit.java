@@ -20,6 +20,9 @@ public enum CardSuit {
 	private int index;
 	private String name;
 	
+	/* cached since values() copies the array on every call */
+	private final static CardSuit [] suits = values();
+	
 	CardSuit(int index, String name) {
 		this.index = index;
 		this.name = name;
@@ -35,6 +38,18 @@ public enum CardSuit {
 	 */
 	public int getIndex() { return index; }
 	
+	/**
+	 * Obtains the card suit of a given index
+	 * @param index - card suit index, from 0 to 3
+	 * @return card suit whose index is the one provided
+	 * @throws IllegalArgumentException if index is out of range
+	 * @see #getIndex()
+	 */
+	public static CardSuit fromIndex(int index) {
+		if ( index < 0 || index >= suits.length ) throw new IllegalArgumentException("Invalid card suit index");
+		return suits[index];
+	}
+	
 	/**
 	 * @return string that identifies the card suit in text.
 	 * Each card suit has its unique name.
@@ -0,0 +1,143 @@
+package game.engine;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ *
+ * <p>An agent player runs a {@link PlayerAgent} in a thread of its own,
+ * a virtual one by default (see {@link VirtualThreads}). Players that spend
+ * most of their time blocked, like bots that think or remote players that
+ * wait for their next move, can thus be written as plain loops, and idle
+ * ones only take the memory of a parked virtual thread.
+ *
+ * <p>When the game asks for a turn, the turn is handed to the agent and the
+ * game thread waits until the agent asks for the next one. Thus the moves of
+ * the agent, and whatever they change on the {@link game.table.CardSequenceTable},
+ * never overlap with the game thread.
+ *
+ * @author guidanoli
+ * @see PlayerAgent
+ *
+ */
+public class AgentPlayer implements Player, AutoCloseable {
+
+	private final static ThreadFactory defaultFactory = VirtualThreads.factory("player-agent-");
+
+	private final Thread thread;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition changed = lock.newCondition();
+
+	/* guarded by lock */
+	private Turn pending = null;
+	private boolean delivered = false;
+	private boolean stopped = false;
+	private Throwable failure = null;
+
+	/**
+	 * Starts an agent in a virtual thread, if the runtime has them,
+	 * or else in a daemon platform thread
+	 * @param agent - player agent
+	 */
+	public AgentPlayer(PlayerAgent agent) {
+		this(agent, defaultFactory);
+	}
+
+	/**
+	 * Starts an agent in a thread
+	 * @param agent - player agent
+	 * @param threadFactory - factory of the agent thread
+	 */
+	public AgentPlayer(PlayerAgent agent, ThreadFactory threadFactory) {
+		this.thread = threadFactory.newThread(() -> run(agent));
+		thread.start();
+	}
+
+	/**
+	 * Hands the turn to the agent and waits until it is over
+	 * @throws IllegalStateException if the agent has stopped
+	 * without finishing the turn
+	 */
+	public void playTurn(Turn turn) {
+		lock.lock();
+		try {
+			if (!stopped) {
+				pending = turn;
+				delivered = false;
+				changed.signalAll();
+				// uninterruptibly, so that the agent never plays while the game does
+				while (pending != null && !stopped) changed.awaitUninterruptibly();
+				pending = null;
+			}
+			if (stopped && !turn.isFinished()) throw new IllegalStateException("Player agent stopped", failure);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return {@code true} if the agent thread has stopped,
+	 * or {@code false} if else.
+	 */
+	public boolean isStopped() {
+		lock.lock();
+		try {
+			return stopped;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Stops the agent by interrupting its thread
+	 */
+	public void close() {
+		thread.interrupt();
+	}
+
+	/**
+	 * Body of the agent thread
+	 * @param agent - player agent
+	 */
+	private void run(PlayerAgent agent) {
+		Throwable thrown = null;
+		try {
+			agent.run(this::next);
+		} catch (InterruptedException e) {
+			// stopped on purpose
+		} catch (Throwable e) {
+			thrown = e;
+		} finally {
+			lock.lock();
+			try {
+				stopped = true;
+				failure = thrown;
+				changed.signalAll();
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Ends the turn delivered to the agent, if any, and waits for the next one
+	 * @see TurnSource#next()
+	 */
+	private Turn next() throws InterruptedException {
+		lock.lockInterruptibly();
+		try {
+			if (delivered) {
+				pending = null;
+				delivered = false;
+				changed.signalAll();
+			}
+			while (pending == null) changed.await();
+			delivered = true;
+			return pending;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+}
@@ -0,0 +1,114 @@
+package game.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import game.card.Card;
+
+/**
+ *
+ * <p>A card pile is a stack of cards faced down (the stock) or up (the
+ * discard pile). Cards are kept as an array of card codes, so that piles
+ * are cheap to build and shuffle. Only the {@link Game} moves cards in
+ * and out of a pile.
+ *
+ * @author guidanoli
+ *
+ */
+public class CardPile {
+
+	private final byte [] codes = new byte[Card.NUM_OF_CODES];
+	private int size = 0;
+
+	CardPile() {}
+
+	/**
+	 * @return number of cards in the pile
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return {@code true} if there are no cards in the pile,
+	 * or {@code false} if else.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return card on the top of the pile, or {@code null} if it is empty
+	 */
+	public Card peek() {
+		return size == 0 ? null : Card.fromCode(codes[size - 1]);
+	}
+
+	/**
+	 * @return cards in the pile, from the bottom to the top
+	 */
+	public List<Card> getCards() {
+		List<Card> cards = new ArrayList<Card>(size);
+		for (int i = 0; i < size; i++) cards.add(Card.fromCode(codes[i]));
+		return cards;
+	}
+
+	/**
+	 * @return bitset of the codes of the cards in the pile
+	 */
+	public long getMask() {
+		long mask = 0;
+		for (int i = 0; i < size; i++) mask |= 1L << codes[i];
+		return mask;
+	}
+
+	void push(Card card) {
+		codes[size++] = (byte) card.getCode();
+	}
+
+	/**
+	 * @return card taken from the top of the pile
+	 * @throws IllegalStateException if the pile is empty
+	 */
+	Card pop() {
+		if (size == 0) throw new IllegalStateException("Empty card pile");
+		return Card.fromCode(codes[--size]);
+	}
+
+	/**
+	 * Fills the pile with every card, in random order
+	 * @param random - source of randomness
+	 */
+	void fillShuffled(Random random) {
+		for (int code = 0; code < codes.length; code++) codes[code] = (byte) code;
+		size = codes.length;
+		shuffle(random);
+	}
+
+	/**
+	 * Moves every card but the top one to another pile, in random order
+	 * @param pile - card pile
+	 * @param random - source of randomness
+	 */
+	void moveUnderTop(CardPile pile, Random random) {
+		if (size < 2) return;
+		int moved = size - 1;
+		System.arraycopy(codes, 0, pile.codes, pile.size, moved);
+		codes[0] = codes[moved];
+		size = 1;
+		pile.size += moved;
+		pile.shuffle(random);
+	}
+
+	/* Fisher-Yates shuffle */
+	private void shuffle(Random random) {
+		for (int i = size - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			byte code = codes[i];
+			codes[i] = codes[j];
+			codes[j] = code;
+		}
+	}
+
+}
@@ -0,0 +1,192 @@
+package game.engine;
+
+import game.card.Card;
+import game.sequence.CardSequence;
+
+/**
+ *
+ * <p>A card tracker keeps what a player (the observer) knows about where
+ * each card is. For every player, it holds the cards it definitely has,
+ * those it definitely lacks, and those it may or may not have.
+ *
+ * <p>A player definitely has the cards the observer saw it take from the
+ * discard pile and not yet play, and definitely lacks the cards on the table,
+ * in the discard pile, in the hand of the observer, and those another player
+ * definitely has. The observer knows its whole hand.
+ *
+ * <p>Cards are kept as bitsets of card codes, which are updated on every
+ * move (see {@link GameListener}), thus every query costs a few bit operations,
+ * no matter how long the game has been going.
+ *
+ * @author guidanoli
+ * @see Game#addListener(GameListener)
+ *
+ */
+public class CardTracker implements GameListener {
+
+	/**
+	 * Bitset of the codes of every card
+	 */
+	public final static long DECK = -1L >>> (Long.SIZE - Card.NUM_OF_CODES);
+
+	private final int observer;
+	private final long [] has;
+	private final int [] handSizes;
+	private long held = 0;
+	private long table = 0;
+	private long discarded = 0;
+	private final byte [] discardPile = new byte[Card.NUM_OF_CODES];
+	private int discardPileSize = 0;
+
+	/**
+	 * Constructs a card tracker from the current state of a game,
+	 * and adds it as a listener of the game
+	 * @param game - game
+	 * @param observer - position in the turn order of the observer
+	 * @throws IllegalArgumentException if there is no such player
+	 */
+	public CardTracker(Game game, int observer) {
+		int players = game.getPlayerCount();
+		if (observer < 0 || observer >= players) throw new IllegalArgumentException("Unknown player");
+		this.observer = observer;
+		this.has = new long[players];
+		this.handSizes = new int[players];
+		for (int i = 0; i < players; i++) handSizes[i] = game.getHand(i).size();
+		has[observer] = game.getHand(observer).getMask();
+		held = has[observer];
+		for (CardSequence sequence : game.getTable()) table |= sequence.getMask();
+		for (Card card : game.getDiscardPile().getCards()) push(card);
+		game.addListener(this);
+	}
+
+	public void cardDrawnFromStock(int player, Card card) {
+		handSizes[player]++;
+		if (player == observer) take(player, card.getMask());
+	}
+
+	public void cardDrawnFromDiscardPile(int player, Card card) {
+		handSizes[player]++;
+		discardPileSize--;
+		discarded &= ~card.getMask();
+		take(player, card.getMask());
+	}
+
+	public void cardsMelded(int player, long cards) {
+		handSizes[player] -= Long.bitCount(cards);
+		release(player, cards);
+		table |= cards;
+	}
+
+	public void cardDiscarded(int player, Card card) {
+		handSizes[player]--;
+		release(player, card.getMask());
+		push(card);
+	}
+
+	public void stockRefilled() {
+		if (discardPileSize == 0) return;
+		discardPile[0] = discardPile[discardPileSize - 1];
+		discardPileSize = 1;
+		discarded = 1L << discardPile[0];
+	}
+
+	private void take(int player, long cards) {
+		has[player] |= cards;
+		held |= cards;
+	}
+
+	private void release(int player, long cards) {
+		has[player] &= ~cards;
+		held &= ~cards;
+	}
+
+	private void push(Card card) {
+		discardPile[discardPileSize++] = (byte) card.getCode();
+		discarded |= card.getMask();
+	}
+
+	/**
+	 * @return position in the turn order of the observer
+	 */
+	public int getObserver() {
+		return observer;
+	}
+
+	/**
+	 * @return number of players
+	 */
+	public int getPlayerCount() {
+		return has.length;
+	}
+
+	/**
+	 * @param player - position of a player in the turn order
+	 * @return number of cards in the hand of such player
+	 */
+	public int getHandSize(int player) {
+		return handSizes[player];
+	}
+
+	/**
+	 * @param player - position of a player in the turn order
+	 * @return bitset of the codes of the cards such player definitely has
+	 */
+	public long getKnownCards(int player) {
+		return has[player];
+	}
+
+	/**
+	 * @param player - position of a player in the turn order
+	 * @return bitset of the codes of the cards such player definitely lacks
+	 */
+	public long getLackingCards(int player) {
+		if (player == observer) return DECK & ~has[player];
+		return table | discarded | (held & ~has[player]);
+	}
+
+	/**
+	 * @param player - position of a player in the turn order
+	 * @return bitset of the codes of the cards such player may or may not have
+	 */
+	public long getUnknownCards(int player) {
+		if (player == observer) return 0;
+		return getUnseenCards();
+	}
+
+	/**
+	 * @return bitset of the codes of the cards whose place the observer does
+	 * not know, each in the hand of some other player or in the stock
+	 */
+	public long getUnseenCards() {
+		return DECK & ~(table | discarded | held);
+	}
+
+	/**
+	 * @return bitset of the codes of the cards on the table
+	 */
+	public long getTableCards() {
+		return table;
+	}
+
+	/**
+	 * @return bitset of the codes of the cards in the discard pile
+	 */
+	public long getDiscardedCards() {
+		return discarded;
+	}
+
+	/**
+	 * Estimates the probability of a player having a card, assuming every
+	 * card not seen by the observer is equally likely to be anywhere it could be
+	 * @param player - position of a player in the turn order
+	 * @param card - card
+	 * @return probability of such player having the card
+	 */
+	public double getProbability(int player, Card card) {
+		long mask = card.getMask();
+		if ((has[player] & mask) != 0) return 1;
+		if ((getUnknownCards(player) & mask) == 0) return 0;
+		return (double) (handSizes[player] - Long.bitCount(has[player])) / Long.bitCount(getUnseenCards());
+	}
+
+}
@@ -0,0 +1,285 @@
+package game.engine;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import game.card.Card;
+import game.sequence.CardSequence;
+import game.table.CardSequenceTable;
+
+/**
+ *
+ * <p>A game of rummy between a number of {@link Player} objects, played on
+ * a {@link CardSequenceTable} with a single deck. Each player is dealt a hand,
+ * the next card starts the discard pile, and the remaining cards make up the
+ * stock. Players then take turns in order (see {@link Turn}), until one of
+ * them goes out by emptying its hand.
+ *
+ * <p>Whenever the stock runs out, every card of the discard pile but the
+ * top one is shuffled into the stock. The game ends without a winner if
+ * there are still no cards to draw, or once the maximum number of turns
+ * is reached (see {@link #setMaxTurns(int)}).
+ *
+ * <p>The engine is headless and single-threaded: it has no dependency on
+ * any user interface, and the randomness of a game comes solely from the
+ * {@link Random} object it is given, thus games with the same seed and
+ * the same deterministic players are the same.
+ *
+ * @author guidanoli
+ * @see Player
+ * @see GameResult
+ *
+ */
+public class Game {
+
+	/**
+	 * Number of cards dealt to each player by default
+	 */
+	public final static int DEFAULT_HAND_SIZE = 9;
+
+	/**
+	 * Maximum number of turns of a game by default
+	 */
+	public final static int DEFAULT_MAX_TURNS = 1000;
+
+	private final Player [] players;
+	private final Hand [] hands;
+	private final Random random;
+	private final CardSequenceTable table = new CardSequenceTable((card) -> {});
+	private final CardPile stock = new CardPile();
+	private final CardPile discardPile = new CardPile();
+	private int maxTurns = DEFAULT_MAX_TURNS;
+	private int currentPlayer = 0;
+	private int turns = 0;
+	private GameResult result = null;
+	private final ArrayList<GameListener> listeners = new ArrayList<GameListener>();
+
+	/**
+	 * Constructs a game, dealing {@link #DEFAULT_HAND_SIZE} cards to each player
+	 * @param players - players, in turn order
+	 * @param random - source of randomness for shuffling
+	 * @throws IllegalArgumentException if there are too few or too many players
+	 */
+	public Game(List<? extends Player> players, Random random) {
+		this(players, DEFAULT_HAND_SIZE, random);
+	}
+
+	/**
+	 * Constructs a game, dealing the cards
+	 * @param players - players, in turn order
+	 * @param handSize - number of cards dealt to each player
+	 * @param random - source of randomness for shuffling
+	 * @throws IllegalArgumentException if there are too few players,
+	 * or if there are not enough cards to deal
+	 */
+	public Game(List<? extends Player> players, int handSize, Random random) {
+		if (players.size() < 2) throw new IllegalArgumentException("Too few players");
+		if (handSize < 1 || players.size() * handSize + 2 > Card.NUM_OF_CODES) {
+			throw new IllegalArgumentException("Not enough cards to deal");
+		}
+		this.players = players.toArray(new Player[players.size()]);
+		this.hands = new Hand[this.players.length];
+		this.random = random;
+		stock.fillShuffled(random);
+		for (int i = 0; i < hands.length; i++) {
+			hands[i] = new Hand();
+			for (int j = 0; j < handSize; j++) hands[i].add(stock.pop());
+		}
+		discardPile.push(stock.pop());
+	}
+
+	/**
+	 * Constructs a game from a position, e.g. to simulate how it may go on
+	 * @param players - players, in turn order
+	 * @param currentPlayer - position in the turn order of the player to play next
+	 * @param hands - bitset of the codes of the cards in each hand
+	 * @param table - snapshot of the table (see {@link CardSequenceTable#writeTo}),
+	 * read from its current position
+	 * @param stock - codes of the cards in the stock, from the bottom to the top
+	 * @param discardPile - codes of the cards in the discard pile, from the bottom to the top
+	 * @param random - source of randomness for shuffling
+	 * @throws IllegalArgumentException if there are too few players, if there is not
+	 * a hand per player, or if the cards do not make up exactly one deck
+	 */
+	public Game(List<? extends Player> players, int currentPlayer, long [] hands, ByteBuffer table,
+			byte [] stock, byte [] discardPile, Random random) {
+		if (players.size() < 2) throw new IllegalArgumentException("Too few players");
+		if (hands.length != players.size()) throw new IllegalArgumentException("Not a hand per player");
+		if (currentPlayer < 0 || currentPlayer >= hands.length) throw new IllegalArgumentException("Unknown player");
+		this.players = players.toArray(new Player[players.size()]);
+		this.hands = new Hand[hands.length];
+		this.random = random;
+		this.currentPlayer = currentPlayer;
+		this.table.readFrom(table);
+		long deck = 0;
+		int count = 0;
+		for (CardSequence sequence : this.table) {
+			deck |= sequence.getMask();
+			count += sequence.size();
+		}
+		for (int i = 0; i < hands.length; i++) {
+			this.hands[i] = new Hand();
+			for (long mask = hands[i]; mask != 0; mask &= mask - 1) {
+				this.hands[i].add(Card.fromCode(Long.numberOfTrailingZeros(mask)));
+			}
+			deck |= hands[i];
+			count += Long.bitCount(hands[i]);
+		}
+		for (byte code : stock) {
+			this.stock.push(Card.fromCode(code));
+			deck |= 1L << code;
+		}
+		for (byte code : discardPile) {
+			this.discardPile.push(Card.fromCode(code));
+			deck |= 1L << code;
+		}
+		count += stock.length + discardPile.length;
+		if (count != Card.NUM_OF_CODES || Long.bitCount(deck) != Card.NUM_OF_CODES) {
+			throw new IllegalArgumentException("Cards do not make up one deck");
+		}
+	}
+
+	/**
+	 * Sets the number of turns after which the game ends without a winner
+	 * @param maxTurns - maximum number of turns
+	 * @throws IllegalArgumentException if it is not positive
+	 */
+	public void setMaxTurns(int maxTurns) {
+		if (maxTurns < 1) throw new IllegalArgumentException("Non-positive maximum number of turns");
+		this.maxTurns = maxTurns;
+	}
+
+	/**
+	 * Adds a listener, which is notified of every move from then on
+	 * @param listener - game listener
+	 */
+	public void addListener(GameListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Removes a listener
+	 * @param listener - game listener
+	 * @return {@code true} if the listener was removed,
+	 * or {@code false} if else.
+	 */
+	public boolean removeListener(GameListener listener) {
+		return listeners.remove(listener);
+	}
+
+	/**
+	 * @return listeners of the game
+	 */
+	List<GameListener> getListeners() {
+		return listeners;
+	}
+
+	/**
+	 * Plays turns until the game is over
+	 * @return result of the game
+	 * @throws IllegalStateException if a player does not finish its turn
+	 */
+	public GameResult play() {
+		while (playTurn());
+		return result;
+	}
+
+	/**
+	 * Plays the turn of the current player
+	 * @return {@code true} if a turn was played and the game is not over,
+	 * or {@code false} if else.
+	 * @throws IllegalStateException if the player does not finish its turn
+	 */
+	public boolean playTurn() {
+		if (result != null) return false;
+		if (stock.isEmpty()) {
+			discardPile.moveUnderTop(stock, random);
+			if (stock.isEmpty()) {
+				end(-1);
+				return false;
+			}
+			for (GameListener listener : listeners) listener.stockRefilled();
+		}
+		Turn turn = new Turn(this, currentPlayer);
+		players[currentPlayer].playTurn(turn);
+		if (!turn.isFinished()) throw new IllegalStateException("Turn was not finished");
+		turns++;
+		if (hands[currentPlayer].isEmpty()) end(currentPlayer);
+		else if (turns >= maxTurns) end(-1);
+		currentPlayer = (currentPlayer + 1) % players.length;
+		return result == null;
+	}
+
+	private void end(int winner) {
+		int [] handSizes = new int[hands.length];
+		for (int i = 0; i < hands.length; i++) handSizes[i] = hands[i].size();
+		result = new GameResult(winner, turns, handSizes);
+	}
+
+	/**
+	 * @return {@code true} if the game is over, or {@code false} if else.
+	 */
+	public boolean isOver() {
+		return result != null;
+	}
+
+	/**
+	 * @return result of the game, or {@code null} if it is not over
+	 */
+	public GameResult getResult() {
+		return result;
+	}
+
+	/**
+	 * @return number of players
+	 */
+	public int getPlayerCount() {
+		return players.length;
+	}
+
+	/**
+	 * @return position in the turn order of the player to play next
+	 */
+	public int getCurrentPlayer() {
+		return currentPlayer;
+	}
+
+	/**
+	 * @return number of turns played
+	 */
+	public int getTurnCount() {
+		return turns;
+	}
+
+	/**
+	 * @param player - position of a player in the turn order
+	 * @return hand of such player
+	 */
+	public Hand getHand(int player) {
+		return hands[player];
+	}
+
+	/**
+	 * @return card sequence table
+	 */
+	public CardSequenceTable getTable() {
+		return table;
+	}
+
+	/**
+	 * @return stock, from which cards are drawn faced down
+	 */
+	public CardPile getStock() {
+		return stock;
+	}
+
+	/**
+	 * @return discard pile, whose top card can be drawn
+	 */
+	public CardPile getDiscardPile() {
+		return discardPile;
+	}
+
+}
@@ -0,0 +1,54 @@
+package game.engine;
+
+import game.card.Card;
+
+/**
+ *
+ * <p>A game listener is notified of every move made in a {@link Game},
+ * after it is made, from the thread that plays the game.
+ *
+ * <p>Events carry every card that was moved, even those drawn from the stock,
+ * which only the player who drew them may see. Thus a listener that models
+ * what a player knows must ignore the cards other players drew from the stock.
+ *
+ * @author guidanoli
+ * @see Game#addListener(GameListener)
+ * @see CardTracker
+ *
+ */
+public interface GameListener {
+
+	/**
+	 * A card was drawn from the stock
+	 * @param player - position of the player in the turn order
+	 * @param card - card drawn
+	 */
+	public void cardDrawnFromStock(int player, Card card);
+
+	/**
+	 * A card was drawn from the discard pile
+	 * @param player - position of the player in the turn order
+	 * @param card - card drawn
+	 */
+	public void cardDrawnFromDiscardPile(int player, Card card);
+
+	/**
+	 * Cards from the hand of a player were melded onto the table
+	 * @param player - position of the player in the turn order
+	 * @param cards - bitset of the codes of the cards melded
+	 */
+	public void cardsMelded(int player, long cards);
+
+	/**
+	 * A card was discarded
+	 * @param player - position of the player in the turn order
+	 * @param card - card discarded
+	 */
+	public void cardDiscarded(int player, Card card);
+
+	/**
+	 * Every card of the discard pile but the top one was shuffled into the stock
+	 */
+	public void stockRefilled();
+
+}
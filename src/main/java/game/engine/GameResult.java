@@ -0,0 +1,61 @@
+package game.engine;
+
+/**
+ *
+ * <p>A game result tells how a {@link Game} ended: either a player went
+ * out by emptying its hand, or no player did before the stock ran out
+ * or before the maximum number of turns was reached.
+ *
+ * @author guidanoli
+ * @see Game#getResult()
+ *
+ */
+public class GameResult {
+
+	private final int winner;
+	private final int turns;
+	private final int [] handSizes;
+
+	GameResult(int winner, int turns, int [] handSizes) {
+		this.winner = winner;
+		this.turns = turns;
+		this.handSizes = handSizes;
+	}
+
+	/**
+	 * @return {@code true} if a player went out, or {@code false} if else.
+	 */
+	public boolean hasWinner() {
+		return winner != -1;
+	}
+
+	/**
+	 * @return position of the player that went out in the turn order,
+	 * or -1 if no player did
+	 */
+	public int getWinner() {
+		return winner;
+	}
+
+	/**
+	 * @return number of turns played
+	 */
+	public int getTurnCount() {
+		return turns;
+	}
+
+	/**
+	 * @param player - position of a player in the turn order
+	 * @return number of cards left in the hand of such player
+	 */
+	public int getHandSize(int player) {
+		return handSizes[player];
+	}
+
+	@Override
+	public String toString() {
+		return hasWinner() ? String.format("Player %d won after %d turns", winner, turns)
+				: String.format("No winner after %d turns", turns);
+	}
+
+}
@@ -0,0 +1,80 @@
+package game.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import game.card.Card;
+
+/**
+ *
+ * <p>A hand holds the cards of a player, as a bitset of card codes
+ * (see {@link Card#getCode()}), thus it never holds two equal cards.
+ * Only the {@link Game} moves cards in and out of a hand.
+ *
+ * @author guidanoli
+ *
+ */
+public class Hand {
+
+	private long mask = 0;
+
+	Hand() {}
+
+	/**
+	 * @return number of cards in the hand
+	 */
+	public int size() {
+		return Long.bitCount(mask);
+	}
+
+	/**
+	 * @return {@code true} if there are no cards in the hand,
+	 * or {@code false} if else.
+	 */
+	public boolean isEmpty() {
+		return mask == 0;
+	}
+
+	/**
+	 * @param card - card
+	 * @return {@code true} if the card is in the hand,
+	 * or {@code false} if else.
+	 */
+	public boolean contains(Card card) {
+		return (mask & card.getMask()) != 0;
+	}
+
+	/**
+	 * @return bitset of the codes of the cards in the hand
+	 */
+	public long getMask() {
+		return mask;
+	}
+
+	/**
+	 * @return cards in the hand, in ascending order of code
+	 */
+	public List<Card> getCards() {
+		List<Card> cards = new ArrayList<Card>(size());
+		for (long m = mask; m != 0; m &= m - 1) cards.add(Card.fromCode(Long.numberOfTrailingZeros(m)));
+		return cards;
+	}
+
+	void add(Card card) {
+		mask |= card.getMask();
+	}
+
+	void remove(Card card) {
+		mask &= ~card.getMask();
+	}
+
+	void removeAll(long cards) {
+		mask &= ~cards;
+	}
+
+	@Override
+	public String toString() {
+		return getCards().toString();
+	}
+
+}
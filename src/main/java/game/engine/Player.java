@@ -0,0 +1,24 @@
+package game.engine;
+
+/**
+ *
+ * <p>A player decides the moves of its turns in a {@link Game}. Each turn,
+ * it must draw a card, may meld cards from its hand onto the table, and must
+ * then discard a card, unless it has no cards left (see {@link Turn}).
+ *
+ * <p>Players are called from the thread that plays the game, and must not
+ * keep the turn object once the turn is over.
+ *
+ * @author guidanoli
+ * @see Turn
+ *
+ */
+public interface Player {
+
+	/**
+	 * Plays a turn, returning once it is over
+	 * @param turn - turn of the player
+	 */
+	public void playTurn(Turn turn);
+
+}
@@ -0,0 +1,26 @@
+package game.engine;
+
+/**
+ *
+ * <p>A player agent plays the turns of a player in its own thread, written as
+ * a plain loop that blocks whenever it needs to (e.g. waiting for a remote
+ * player's next move, or thinking). It is run by an {@link AgentPlayer},
+ * which hands it the turns one at a time.
+ *
+ * <p>An agent is typically written as follows:
+ * <p>{@code while (true) { Turn turn = turns.next(); ... turn.discard(card); }}
+ *
+ * @author guidanoli
+ * @see AgentPlayer
+ *
+ */
+public interface PlayerAgent {
+
+	/**
+	 * Plays turns until the agent is stopped
+	 * @param turns - source of the turns of the player
+	 * @throws InterruptedException if the agent is stopped while blocked
+	 */
+	public void run(TurnSource turns) throws InterruptedException;
+
+}
@@ -0,0 +1,69 @@
+package game.engine;
+
+import java.util.List;
+
+import game.card.Card;
+import game.solver.SearchBudget;
+import game.solver.TableSolution;
+import game.solver.TableSolver;
+
+/**
+ *
+ * <p>A solver player plays greedily through a {@link TableSolver}: it draws
+ * from the discard pile only if it can meld the card on its top, melds as
+ * many cards as it can, and discards its highest card.
+ *
+ * <p>Each search is bounded by the same {@link SearchBudget}, thus the
+ * player is deterministic if the budget is a number of nodes.
+ *
+ * @author guidanoli
+ *
+ */
+public class SolverPlayer implements Player {
+
+	private final SearchBudget budget;
+
+	/**
+	 * Constructs a solver player
+	 * @param budget - budget of each search
+	 */
+	public SolverPlayer(SearchBudget budget) {
+		this.budget = budget;
+	}
+
+	public void playTurn(Turn turn) {
+		Card drawn = drawAndMeld(turn, budget);
+		if (turn.isFinished()) return;
+		Card discarded = null;
+		for (Card card : turn.getHand().getCards()) {
+			if (card.equals(drawn) && turn.getHand().size() > 1) continue;
+			if (discarded == null || card.compareRanks(discarded) >= 0) discarded = card;
+		}
+		turn.discard(discarded);
+	}
+
+	/**
+	 * Draws from the discard pile if the card on its top can be melded, or
+	 * from the stock if else, and then melds as many cards as it can. The turn
+	 * is finished afterwards if the whole hand was melded.
+	 * @param turn - turn, before drawing
+	 * @param budget - budget of each search
+	 * @return card drawn from the discard pile, or {@code null} if drawn from the stock
+	 */
+	public static Card drawAndMeld(Turn turn, SearchBudget budget) {
+		Card top = turn.getTopOfDiscardPile();
+		Card drawn = null;
+		if (top != null) {
+			List<Card> cards = turn.getHand().getCards();
+			cards.add(top);
+			if (new TableSolver(turn.getTable(), cards).solve(budget).getPlayedCards().contains(top)) {
+				drawn = turn.drawFromDiscardPile();
+			}
+		}
+		if (drawn == null) turn.drawFromStock();
+		TableSolution solution = new TableSolver(turn.getTable(), turn.getHand().getCards()).solve(budget);
+		if (solution.isFound() && solution.getPlayedCount() > 0) turn.meld(solution.getSequences());
+		return drawn;
+	}
+
+}
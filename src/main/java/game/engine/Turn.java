@@ -0,0 +1,222 @@
+package game.engine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import game.card.Card;
+import game.sequence.CardSequence;
+import game.table.CardSequenceTable;
+
+/**
+ *
+ * <p>A turn is what a {@link Player} is given to play its moves, in order:
+ * <ol>
+ * <li>draw a card, either from the stock ({@link #drawFromStock()}) or from
+ * the discard pile ({@link #drawFromDiscardPile()})</li>
+ * <li>meld cards from the hand onto the table as many times as wanted
+ * ({@link #meld(Collection)}), which ends the turn if the hand is left empty</li>
+ * <li>discard a card ({@link #discard(Card)}), which ends the turn</li>
+ * </ol>
+ *
+ * <p>Moves are checked before being made, thus an illegal move throws an
+ * exception and leaves the game as it was.
+ *
+ * @author guidanoli
+ * @see Game
+ *
+ */
+public class Turn {
+
+	private final Game game;
+	private final int player;
+	private final Hand hand;
+	private boolean drawn = false;
+	private boolean finished = false;
+	private Card drawnFromDiscardPile = null;
+
+	Turn(Game game, int player) {
+		this.game = game;
+		this.player = player;
+		this.hand = game.getHand(player);
+	}
+
+	/**
+	 * @return position of the player in the turn order
+	 */
+	public int getPlayerIndex() {
+		return player;
+	}
+
+	/**
+	 * @return number of players in the game
+	 */
+	public int getPlayerCount() {
+		return game.getPlayerCount();
+	}
+
+	/**
+	 * @param player - position of a player in the turn order
+	 * @return number of cards in the hand of such player
+	 */
+	public int getHandSize(int player) {
+		return game.getHand(player).size();
+	}
+
+	/**
+	 * @return hand of the player
+	 */
+	public Hand getHand() {
+		return hand;
+	}
+
+	/**
+	 * @return card sequence table, which must only be changed
+	 * through {@link #meld(Collection)}
+	 */
+	public CardSequenceTable getTable() {
+		return game.getTable();
+	}
+
+	/**
+	 * @return card on the top of the discard pile, or {@code null} if there is none
+	 */
+	public Card getTopOfDiscardPile() {
+		return game.getDiscardPile().peek();
+	}
+
+	/**
+	 * @return discard pile, whose cards are seen by every player
+	 */
+	public CardPile getDiscardPile() {
+		return game.getDiscardPile();
+	}
+
+	/**
+	 * @return number of cards in the stock
+	 */
+	public int getStockSize() {
+		return game.getStock().size();
+	}
+
+	/**
+	 * @return {@code true} if the player has drawn a card this turn,
+	 * or {@code false} if else.
+	 */
+	public boolean hasDrawn() {
+		return drawn;
+	}
+
+	/**
+	 * @return {@code true} if the turn is over, or {@code false} if else.
+	 */
+	public boolean isFinished() {
+		return finished;
+	}
+
+	/**
+	 * Draws the card on the top of the stock
+	 * @return card drawn
+	 * @throws IllegalStateException if a card was already drawn this turn
+	 */
+	public Card drawFromStock() {
+		checkDraw();
+		Card card = game.getStock().pop();
+		hand.add(card);
+		drawn = true;
+		for (GameListener listener : game.getListeners()) listener.cardDrawnFromStock(player, card);
+		return card;
+	}
+
+	/**
+	 * Draws the card on the top of the discard pile, which then
+	 * cannot be discarded this turn, unless it is the last card in the hand
+	 * @return card drawn
+	 * @throws IllegalStateException if a card was already drawn this turn,
+	 * or if the discard pile is empty
+	 */
+	public Card drawFromDiscardPile() {
+		checkDraw();
+		Card card = game.getDiscardPile().pop();
+		hand.add(card);
+		drawn = true;
+		drawnFromDiscardPile = card;
+		for (GameListener listener : game.getListeners()) listener.cardDrawnFromDiscardPile(player, card);
+		return card;
+	}
+
+	/**
+	 * Rearranges the table into new card sequences, which hold every card
+	 * on the table plus some cards from the hand. Only the card sequences that
+	 * changed are removed from or added to the table, thus its operation
+	 * listeners are notified of the changes alone. The turn ends if no cards
+	 * are left in the hand.
+	 * @param sequences - stable card sequences, which are added to the table
+	 * unless the table already holds the same ones
+	 * @throws IllegalStateException if no card was drawn yet, or if the turn is over
+	 * @throws IllegalArgumentException if a card sequence is unstable, if a card
+	 * is repeated, if a card on the table is missing, or if a card is not in the hand
+	 */
+	public void meld(Collection<CardSequence> sequences) {
+		checkPlay();
+		long melded = 0;
+		for (CardSequence sequence : sequences) {
+			if (!sequence.isStable()) throw new IllegalArgumentException("Unstable card sequence");
+			long mask = sequence.getMask();
+			if ((melded & mask) != 0) throw new IllegalArgumentException("Repeated card");
+			melded |= mask;
+		}
+		CardSequenceTable table = game.getTable();
+		ArrayList<CardSequence> previous = new ArrayList<CardSequence>(table.size());
+		long onTable = 0;
+		for (CardSequence sequence : table) {
+			previous.add(sequence);
+			onTable |= sequence.getMask();
+		}
+		if ((onTable & ~melded) != 0) throw new IllegalArgumentException("Card missing from the table");
+		long played = melded & ~onTable;
+		if ((played & ~hand.getMask()) != 0) throw new IllegalArgumentException("Card not in hand");
+		table.checkpoint();
+		ArrayList<CardSequence> kept = new ArrayList<CardSequence>(previous.size());
+		for (CardSequence sequence : previous) {
+			if (sequences.contains(sequence)) kept.add(sequence);
+			else table.removeSequence(sequence);
+		}
+		for (CardSequence sequence : sequences) {
+			if (!kept.remove(sequence)) table.addSequence(sequence); // unless kept with the same cards
+		}
+		if (!table.validateDirty()) throw new IllegalStateException("Unstable table");
+		hand.removeAll(played);
+		if (hand.isEmpty()) finished = true;
+		for (GameListener listener : game.getListeners()) listener.cardsMelded(player, played);
+	}
+
+	/**
+	 * Discards a card from the hand, which ends the turn
+	 * @param card - card in the hand
+	 * @throws IllegalStateException if no card was drawn yet, or if the turn is over
+	 * @throws IllegalArgumentException if the card is not in the hand,
+	 * or if it was drawn from the discard pile this turn and is not the last one
+	 */
+	public void discard(Card card) {
+		checkPlay();
+		if (!hand.contains(card)) throw new IllegalArgumentException("Card not in hand");
+		if (card.equals(drawnFromDiscardPile) && hand.size() > 1) {
+			throw new IllegalArgumentException("Card drawn from the discard pile");
+		}
+		hand.remove(card);
+		game.getDiscardPile().push(card);
+		finished = true;
+		for (GameListener listener : game.getListeners()) listener.cardDiscarded(player, card);
+	}
+
+	private void checkDraw() {
+		if (finished) throw new IllegalStateException("Turn is over");
+		if (drawn) throw new IllegalStateException("Card already drawn");
+	}
+
+	private void checkPlay() {
+		if (finished) throw new IllegalStateException("Turn is over");
+		if (!drawn) throw new IllegalStateException("No card drawn");
+	}
+
+}
@@ -0,0 +1,20 @@
+package game.engine;
+
+/**
+ *
+ * <p>A turn source hands the turns of a player over to its {@link PlayerAgent}.
+ *
+ * @author guidanoli
+ * @see AgentPlayer
+ *
+ */
+public interface TurnSource {
+
+	/**
+	 * Ends the current turn, if any, and waits for the next one
+	 * @return next turn of the player
+	 * @throws InterruptedException if the agent is stopped while waiting
+	 */
+	public Turn next() throws InterruptedException;
+
+}
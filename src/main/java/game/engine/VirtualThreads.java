@@ -0,0 +1,74 @@
+package game.engine;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *
+ * <p>Access to virtual threads, which are cheap enough to have one per
+ * blocked player. The project still compiles for older JDKs, thus virtual
+ * threads are looked up when the class is loaded, and thread factories
+ * fall back to daemon platform threads when the runtime lacks them.
+ *
+ * @author guidanoli
+ *
+ */
+public final class VirtualThreads {
+
+	/* Thread.ofVirtual, Thread.Builder.name and Thread.Builder.factory, or null if unsupported */
+	private final static Method ofVirtual;
+	private final static Method name;
+	private final static Method factory;
+
+	static {
+		Method o = null, n = null, f = null;
+		try {
+			o = Thread.class.getMethod("ofVirtual");
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			n = builderClass.getMethod("name", String.class, long.class);
+			f = builderClass.getMethod("factory");
+			o.invoke(null); // throws if they are a preview feature not enabled
+		} catch (ReflectiveOperationException e) {
+			o = null; // runtime without virtual threads
+		}
+		ofVirtual = o;
+		name = n;
+		factory = f;
+	}
+
+	private VirtualThreads() {}
+
+	/**
+	 * @return {@code true} if the runtime has virtual threads,
+	 * or {@code false} if else.
+	 */
+	public static boolean isSupported() {
+		return ofVirtual != null;
+	}
+
+	/**
+	 * Creates a thread factory that names its threads with a prefix followed
+	 * by a counter, starting at 1
+	 * @param prefix - prefix of the thread names
+	 * @return factory of virtual threads, or of daemon platform threads
+	 * if the runtime has no virtual threads
+	 */
+	public static ThreadFactory factory(String prefix) {
+		if (ofVirtual != null) {
+			try {
+				// builders are mutable, thus each factory gets its own
+				return (ThreadFactory) factory.invoke(name.invoke(ofVirtual.invoke(null), prefix, 1L));
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException("Cannot create virtual threads", e);
+			}
+		}
+		AtomicInteger threads = new AtomicInteger();
+		return (runnable) -> {
+			Thread thread = new Thread(runnable, prefix + threads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+}
@@ -0,0 +1,281 @@
+package game.host;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import game.engine.Game;
+import game.engine.VirtualThreads;
+import game.table.CardSequenceTable;
+
+/**
+ *
+ * <p>A game host owns many {@link Game} objects and runs the commands
+ * submitted to them (e.g. playing a turn, or reading the table).
+ *
+ * <p>Each game is an actor: its commands are queued in its own mailbox and
+ * run one at a time, in submission order, by whichever worker thread picks
+ * the game up. Thus the state of a game, its {@link CardSequenceTable}
+ * included, is only touched by one thread at a time and needs no locks.
+ * A worker runs at most {@code maxBatchSize} commands of a game before
+ * moving on, so that busy games do not starve the others.
+ *
+ * <p>Workers are either a fixed pool owned by the host, or any executor
+ * given to the builder, such as one that starts a virtual thread per batch
+ * (see {@link Builder#virtualThreads()}). Idle games take no thread at all,
+ * only their mailbox.
+ *
+ * <p>For sizing purposes, the host reports the queue depth of each game and
+ * the latency of the commands, per game and overall (see {@link LatencyStats}).
+ *
+ * @author guidanoli
+ *
+ */
+public class GameHost implements Closeable {
+
+	/* Builder */
+
+	public static class Builder {
+
+		private int workers = Runtime.getRuntime().availableProcessors();
+		private Executor executor = null;
+		private int maxBatchSize = 64;
+
+		public Builder() {} // can instantiate directly
+		public static Builder newInstance() { return new Builder(); } // or indirectly
+
+		public Builder workers(int workers) { this.workers = workers; return this; }
+		public Builder executor(Executor executor) { this.executor = executor; return this; }
+		public Builder maxBatchSize(int size) { this.maxBatchSize = size; return this; }
+
+		/**
+		 * Runs each batch of commands in a new virtual thread, so that games
+		 * whose commands block (e.g. waiting on an {@link game.engine.AgentPlayer})
+		 * do not hold a worker. If the runtime has no virtual threads, the host
+		 * keeps its fixed pool of workers, since a platform thread per batch
+		 * would not be bounded.
+		 * @return this builder
+		 * @see VirtualThreads
+		 */
+		public Builder virtualThreads() {
+			if (!VirtualThreads.isSupported()) return this;
+			ThreadFactory factory = VirtualThreads.factory("game-host-");
+			this.executor = (task) -> factory.newThread(task).start();
+			return this;
+		}
+
+		/**
+		 * Builds the game host, starting its worker pool unless
+		 * an executor was given
+		 * @return game host
+		 * @throws IllegalArgumentException if the number of workers
+		 * or the batch size is not positive
+		 */
+		public GameHost build() {
+			if (maxBatchSize <= 0) throw new IllegalArgumentException("Non-positive batch size");
+			if (executor != null) return new GameHost(executor, null, maxBatchSize);
+			if (workers <= 0) throw new IllegalArgumentException("Non-positive number of workers");
+			AtomicInteger threads = new AtomicInteger();
+			ExecutorService pool = Executors.newFixedThreadPool(workers, (runnable) -> {
+				Thread thread = new Thread(runnable, "game-host-" + threads.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+			return new GameHost(pool, pool, maxBatchSize);
+		}
+
+	}
+
+	/**
+	 * A game and the mailbox of its commands
+	 */
+	private final class Actor implements Runnable {
+
+		final Game game;
+		final ConcurrentLinkedQueue<Runnable> mailbox = new ConcurrentLinkedQueue<Runnable>();
+		final AtomicInteger depth = new AtomicInteger();
+		final AtomicBoolean scheduled = new AtomicBoolean();
+		final LatencyStats latency = new LatencyStats();
+
+		Actor(Game game) {
+			this.game = game;
+		}
+
+		void enqueue(Runnable command) {
+			depth.incrementAndGet();
+			mailbox.add(command);
+			schedule();
+		}
+
+		void schedule() {
+			if (!scheduled.compareAndSet(false, true)) return;
+			try {
+				executor.execute(this);
+			} catch (RejectedExecutionException e) {
+				run(); // the workers are shutting down
+			}
+		}
+
+		public void run() {
+			while (true) {
+				for (int i = 0; i < maxBatchSize; i++) {
+					Runnable command = mailbox.poll();
+					if (command == null) break;
+					depth.decrementAndGet();
+					command.run();
+				}
+				scheduled.set(false);
+				// a command may have arrived after the last poll
+				if (mailbox.isEmpty() || !scheduled.compareAndSet(false, true)) return;
+				try {
+					executor.execute(this);
+					return;
+				} catch (RejectedExecutionException e) {
+					// the workers are shutting down, thus keeps running on this one
+				}
+			}
+		}
+
+	}
+
+	private final Executor executor;
+	private final ExecutorService ownedPool;
+	private final int maxBatchSize;
+	private final ConcurrentHashMap<Long, Actor> actors = new ConcurrentHashMap<Long, Actor>();
+	private final AtomicLong nextGameId = new AtomicLong();
+	private final LatencyStats latency = new LatencyStats();
+	private volatile boolean closed = false;
+
+	private GameHost(Executor executor, ExecutorService ownedPool, int maxBatchSize) {
+		this.executor = executor;
+		this.ownedPool = ownedPool;
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	/**
+	 * Hands a game over to the host, which must be the only one
+	 * to touch it from now on
+	 * @param game - game
+	 * @return game identifier
+	 * @throws IllegalStateException if the host is closed
+	 */
+	public long addGame(Game game) {
+		checkOpen();
+		long gameId = nextGameId.incrementAndGet();
+		actors.put(gameId, new Actor(game));
+		return gameId;
+	}
+
+	/**
+	 * Stops routing commands to a game. The commands already
+	 * submitted to it are still run.
+	 * @param gameId - game identifier
+	 * @return {@code true} if the game was hosted, or {@code false} if else.
+	 */
+	public boolean removeGame(long gameId) {
+		return actors.remove(gameId) != null;
+	}
+
+	/**
+	 * Submits a command to a game, to be run after the
+	 * commands already submitted to it
+	 * @param gameId - game identifier
+	 * @param command - function of the game
+	 * @return future that completes with the result of the command, or
+	 * exceptionally with whatever the command threw
+	 * @throws IllegalArgumentException if the game is not hosted
+	 * @throws IllegalStateException if the host is closed
+	 */
+	public <T> CompletableFuture<T> submit(long gameId, Function<? super Game, ? extends T> command) {
+		checkOpen();
+		Actor actor = actors.get(gameId);
+		if (actor == null) throw new IllegalArgumentException("Unknown game " + gameId);
+		CompletableFuture<T> future = new CompletableFuture<T>();
+		long submitted = System.nanoTime();
+		actor.enqueue(() -> {
+			T result = null;
+			Throwable failure = null;
+			try {
+				result = command.apply(actor.game);
+			} catch (Throwable e) {
+				failure = e;
+			}
+			// recorded before completing, so that the caller sees it
+			long elapsed = System.nanoTime() - submitted;
+			actor.latency.record(elapsed);
+			latency.record(elapsed);
+			if (failure == null) future.complete(result);
+			else future.completeExceptionally(failure);
+		});
+		return future;
+	}
+
+	/**
+	 * @return number of games hosted
+	 */
+	public int getGameCount() {
+		return actors.size();
+	}
+
+	/**
+	 * @param gameId - game identifier
+	 * @return number of commands of the game waiting to be run
+	 * @throws IllegalArgumentException if the game is not hosted
+	 */
+	public int getQueueDepth(long gameId) {
+		return actorOf(gameId).depth.get();
+	}
+
+	/**
+	 * @param gameId - game identifier
+	 * @return latency statistics of the commands of the game
+	 * @throws IllegalArgumentException if the game is not hosted
+	 */
+	public LatencyStats getLatency(long gameId) {
+		return actorOf(gameId).latency;
+	}
+
+	/**
+	 * @return latency statistics of the commands of every game
+	 */
+	public LatencyStats getLatency() {
+		return latency;
+	}
+
+	/**
+	 * Stops accepting commands and, if the host owns its worker pool,
+	 * waits for the commands already submitted to be run
+	 */
+	public void close() {
+		closed = true;
+		if (ownedPool == null) return;
+		ownedPool.shutdown();
+		try {
+			ownedPool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private Actor actorOf(long gameId) {
+		Actor actor = actors.get(gameId);
+		if (actor == null) throw new IllegalArgumentException("Unknown game " + gameId);
+		return actor;
+	}
+
+	private void checkOpen() {
+		if (closed) throw new IllegalStateException("Game host is closed");
+	}
+
+}
@@ -0,0 +1,63 @@
+package game.host;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ * <p>Latency statistics of the commands run by a {@link GameHost}, measured
+ * from the moment a command is submitted until it completes, thus including
+ * the time it waits in the queue of its game.
+ *
+ * <p>Statistics are updated by the worker threads and can be read from any
+ * thread, without locks.
+ *
+ * @author guidanoli
+ *
+ */
+public class LatencyStats {
+
+	private final LongAdder count = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+	LatencyStats() {}
+
+	void record(long nanos) {
+		count.increment();
+		totalNanos.add(nanos);
+		maxNanos.accumulate(nanos);
+	}
+
+	/**
+	 * @return number of commands completed
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * @param unit - time unit
+	 * @return mean latency of the commands completed, or zero if there are none
+	 */
+	public long getMean(TimeUnit unit) {
+		long n = count.sum();
+		return n == 0 ? 0 : unit.convert(totalNanos.sum() / n, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * @param unit - time unit
+	 * @return highest latency of the commands completed, or zero if there are none
+	 */
+	public long getMax(TimeUnit unit) {
+		return unit.convert(maxNanos.get(), TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d commands, mean %d us, max %d us", getCount(),
+				getMean(TimeUnit.MICROSECONDS), getMax(TimeUnit.MICROSECONDS));
+	}
+
+}
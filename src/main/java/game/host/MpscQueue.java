@@ -0,0 +1,90 @@
+package game.host;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ *
+ * <p>A bounded lock-free queue for many producers and a single consumer.
+ * Each slot of the ring carries a sequence number, which tells producers
+ * whether the slot is free and the consumer whether it is filled, thus
+ * producers only contend on claiming a position and the consumer never
+ * contends at all.
+ *
+ * @author guidanoli
+ *
+ */
+final class MpscQueue<E> {
+
+	private final AtomicReferenceArray<E> elements;
+	private final AtomicLongArray sequences;
+	private final int mask;
+	private final AtomicLong tail = new AtomicLong();
+	private volatile long head = 0; // only written by the consumer
+
+	/**
+	 * Constructs an empty queue
+	 * @param capacity - minimum number of elements, rounded up to a power of two
+	 */
+	MpscQueue(int capacity) {
+		int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+		this.elements = new AtomicReferenceArray<E>(size);
+		this.sequences = new AtomicLongArray(size);
+		this.mask = size - 1;
+		for (int i = 0; i < size; i++) sequences.set(i, i);
+	}
+
+	/**
+	 * Adds an element to the tail, from any thread
+	 * @param element - element
+	 * @return {@code true} if it was added, or {@code false} if the queue is full
+	 */
+	boolean offer(E element) {
+		long position;
+		int index;
+		while (true) {
+			position = tail.get();
+			index = (int) position & mask;
+			long sequence = sequences.get(index);
+			if (sequence == position) {
+				if (tail.compareAndSet(position, position + 1)) break;
+			} else if (sequence < position) {
+				return false; // the slot still holds an element of the previous lap
+			}
+		}
+		elements.lazySet(index, element);
+		sequences.lazySet(index, position + 1); // publishes the element
+		return true;
+	}
+
+	/**
+	 * Removes the element at the head, from the consumer thread only
+	 * @return element, or {@code null} if the queue is empty
+	 */
+	E poll() {
+		long position = head;
+		int index = (int) position & mask;
+		if (sequences.get(index) != position + 1) return null;
+		E element = elements.get(index);
+		elements.lazySet(index, null);
+		sequences.lazySet(index, position + mask + 1); // frees the slot for the next lap
+		head = position + 1;
+		return element;
+	}
+
+	/**
+	 * @return number of elements, which may be stale by the time it is read
+	 */
+	int size() {
+		return (int) Math.max(0, tail.get() - head);
+	}
+
+	/**
+	 * @return {@code true} if there are no elements, or {@code false} if else.
+	 */
+	boolean isEmpty() {
+		return size() == 0;
+	}
+
+}
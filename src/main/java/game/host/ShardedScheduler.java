@@ -0,0 +1,504 @@
+package game.host;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import game.engine.Game;
+import game.table.CardSequenceTable;
+
+/**
+ *
+ * <p>A sharded scheduler pins each {@link Game} to one of a fixed number of
+ * shards, each one an event loop run by a single thread of its own (one per
+ * core by default). A game's commands always run on the thread of its shard,
+ * so its {@link CardSequenceTable}, hands and listeners stay in the caches of
+ * one core and need no locks.
+ *
+ * <p>Commands reach a shard through a bounded lock-free queue with many
+ * producers (see {@link MpscQueue}). A full queue makes submitters outside of
+ * the shards wait, while shards hand each other work through a separate
+ * unbounded queue, so that two event loops never wait on each other.
+ *
+ * <p>Games can be moved to another shard between two commands (see
+ * {@link #moveGame(long, int)}). Commands submitted after a move is requested
+ * go straight to the new shard, which holds them back until the old shard has
+ * run the commands submitted before, thus every submitter sees its commands
+ * run in order. A command picks its shard and enters its queue under the lock
+ * of its game, which a move takes as well, so no command can slip behind a move. The scheduler reports how unevenly games are spread across
+ * shards (see {@link #getImbalance()}) and can even them out
+ * (see {@link #rebalance()}).
+ *
+ * @author guidanoli
+ * @see GameHost
+ *
+ */
+public class ShardedScheduler implements Closeable {
+
+	/* Builder */
+
+	public static class Builder {
+
+		private int shards = Runtime.getRuntime().availableProcessors();
+		private int queueCapacity = 1 << 14;
+
+		public Builder() {} // can instantiate directly
+		public static Builder newInstance() { return new Builder(); } // or indirectly
+
+		public Builder shards(int shards) { this.shards = shards; return this; }
+		public Builder queueCapacity(int capacity) { this.queueCapacity = capacity; return this; }
+
+		/**
+		 * Builds the scheduler and starts the thread of each shard
+		 * @return sharded scheduler
+		 * @throws IllegalArgumentException if the number of shards
+		 * or the queue capacity is not positive
+		 */
+		public ShardedScheduler build() {
+			if (shards <= 0) throw new IllegalArgumentException("Non-positive number of shards");
+			if (queueCapacity <= 0) throw new IllegalArgumentException("Non-positive queue capacity");
+			return new ShardedScheduler(shards, queueCapacity);
+		}
+
+	}
+
+	/**
+	 * A hosted game and where it runs
+	 */
+	private final static class Slot {
+
+		final Game game;
+		/* shard to which commands are submitted, written under the slot */
+		volatile int route;
+		/* shard that runs the commands, or -1 while moving */
+		volatile int owner;
+		/* commands that reached the new shard before the game did, touched by it only */
+		final ArrayDeque<Task> waiting = new ArrayDeque<Task>();
+		/* completes once the game arrives at its latest shard, guarded by the slot */
+		CompletableFuture<Void> arrival = new CompletableFuture<Void>();
+		/* number of commands submitted so far, guarded by the slot */
+		long submitted = 0;
+		/* number of commands run so far, touched by the owner only */
+		long ran = 0;
+		/* move that reached the old shard before the commands submitted ahead of it, touched by the owner only */
+		Task departure = null;
+
+		Slot(Game game, int shard) {
+			this.game = game;
+			this.route = shard;
+			this.owner = -1;
+		}
+
+	}
+
+	/**
+	 * A command of a game, the departure of a game, which runs after a number
+	 * of its commands, or the arrival of a moved game if there is no command
+	 */
+	private final static class Task {
+
+		final Slot slot;
+		final Runnable command;
+		final CompletableFuture<Void> arrival;
+		final long after; // commands to run before a departure, or -1
+
+		Task(Slot slot, Runnable command) {
+			this(slot, command, -1);
+		}
+
+		Task(Slot slot, Runnable command, long after) {
+			this.slot = slot;
+			this.command = command;
+			this.arrival = null;
+			this.after = after;
+		}
+
+		Task(Slot slot, CompletableFuture<Void> arrival) {
+			this.slot = slot;
+			this.command = null;
+			this.arrival = arrival;
+			this.after = -1;
+		}
+
+	}
+
+	/**
+	 * An event loop with its thread and queues
+	 */
+	private final class Shard implements Runnable {
+
+		final int index;
+		final Thread thread;
+		final MpscQueue<Task> queue;
+		final ConcurrentLinkedQueue<Task> handoffs = new ConcurrentLinkedQueue<Task>();
+		volatile boolean sleeping = false;
+		volatile int games = 0; // only written by the shard thread
+		final AtomicInteger routed = new AtomicInteger(); // games whose commands come here
+		final AtomicLong commands = new AtomicLong();
+
+		Shard(int index, int queueCapacity) {
+			this.index = index;
+			this.queue = new MpscQueue<Task>(queueCapacity);
+			this.thread = new Thread(this, "game-shard-" + index);
+			thread.setDaemon(true);
+		}
+
+		/**
+		 * Enqueues a task submitted from outside of the shards,
+		 * waiting while the queue is full
+		 */
+		void submit(Task task) {
+			while (!offer(task)) {
+				if (closed) throw new IllegalStateException("Scheduler is closed");
+				Thread.yield();
+			}
+		}
+
+		/**
+		 * Tries to enqueue a task, without waiting
+		 * @return {@code true} if the task was enqueued, or
+		 * {@code false} if the queue is full
+		 */
+		boolean offer(Task task) {
+			if (currentShard() != null) {
+				handoff(task); // an event loop must never wait
+				return true;
+			}
+			if (!queue.offer(task)) return false;
+			wake();
+			return true;
+		}
+
+		/**
+		 * Enqueues a task from another shard
+		 */
+		void handoff(Task task) {
+			handoffs.add(task);
+			wake();
+		}
+
+		void wake() {
+			if (sleeping) LockSupport.unpark(thread);
+		}
+
+		public void run() {
+			while (!closed || !queue.isEmpty() || !handoffs.isEmpty() || moving.get() > 0) {
+				Task task = handoffs.poll();
+				if (task == null) task = queue.poll();
+				if (task != null) {
+					dispatch(task);
+					continue;
+				}
+				sleeping = true;
+				if (queue.isEmpty() && handoffs.isEmpty() && (!closed || moving.get() > 0)) LockSupport.park(this);
+				sleeping = false;
+			}
+		}
+
+		void dispatch(Task task) {
+			Slot slot = task.slot;
+			if (task.command == null) {
+				// the game arrived from its old shard
+				slot.owner = index;
+				games++;
+				moving.decrementAndGet();
+				while (!slot.waiting.isEmpty()) runCommand(slot.waiting.poll());
+				task.arrival.complete(null); // no other move may start while the commands held back run
+			} else if (task.after != -1) {
+				// the game leaves once the commands submitted before have run
+				if (slot.ran == task.after) task.command.run();
+				else slot.departure = task;
+			} else if (slot.owner == index) {
+				runCommand(task);
+			} else if (slot.route == index) {
+				slot.waiting.add(task); // the game is still on its way
+			} else {
+				shards[slot.route].handoff(task); // submitted before the game moved
+			}
+		}
+
+		void runCommand(Task task) {
+			Slot slot = task.slot;
+			commands.incrementAndGet();
+			task.command.run();
+			slot.ran++;
+			Task departure = slot.departure;
+			if (departure != null && slot.ran == departure.after) {
+				slot.departure = null;
+				departure.command.run();
+			}
+		}
+
+	}
+
+	private final Shard [] shards;
+	private final Map<Long, Slot> slots = new ConcurrentHashMap<Long, Slot>();
+	private final AtomicLong nextGameId = new AtomicLong();
+	private final AtomicInteger moving = new AtomicInteger(); // games on their way to a shard
+	private volatile boolean closed = false;
+
+	private ShardedScheduler(int shardCount, int queueCapacity) {
+		this.shards = new Shard[shardCount];
+		for (int i = 0; i < shardCount; i++) shards[i] = new Shard(i, queueCapacity);
+		for (Shard shard : shards) shard.thread.start();
+	}
+
+	/**
+	 * Hands a game over to the scheduler, which pins it to the shard
+	 * with the fewest games
+	 * @param game - game, which must not be touched by anyone else from now on
+	 * @return game identifier
+	 * @throws IllegalStateException if the scheduler is closed
+	 */
+	public long addGame(Game game) {
+		checkOpen();
+		int shard = 0;
+		for (int i = 1; i < shards.length; i++) {
+			if (shards[i].routed.get() < shards[shard].routed.get()) shard = i;
+		}
+		shards[shard].routed.incrementAndGet();
+		long gameId = nextGameId.incrementAndGet();
+		Slot slot = new Slot(game, shard);
+		slots.put(gameId, slot);
+		moving.incrementAndGet();
+		shards[shard].submit(new Task(slot, slot.arrival)); // counted once it arrives
+		return gameId;
+	}
+
+	/**
+	 * Stops routing commands to a game. The commands already
+	 * submitted to it are still run.
+	 * @param gameId - game identifier
+	 * @return {@code true} if the game was scheduled, or {@code false} if else.
+	 */
+	public boolean removeGame(long gameId) {
+		Slot slot = slots.remove(gameId);
+		if (slot == null) return false;
+		shards[slot.route].routed.decrementAndGet();
+		submit(slot, () -> shards[slot.owner].games--);
+		return true;
+	}
+
+	/**
+	 * Submits a command to a game, to be run on the thread of its shard
+	 * after the commands already submitted to it. Waits while the queue
+	 * of the shard is full.
+	 * @param gameId - game identifier
+	 * @param command - function of the game
+	 * @return future that completes with the result of the command, or
+	 * exceptionally with whatever the command threw
+	 * @throws IllegalArgumentException if the game is not scheduled
+	 * @throws IllegalStateException if the scheduler is closed
+	 */
+	public <T> CompletableFuture<T> submit(long gameId, Function<? super Game, ? extends T> command) {
+		checkOpen();
+		Slot slot = slotOf(gameId);
+		CompletableFuture<T> future = new CompletableFuture<T>();
+		submit(slot, () -> {
+			try {
+				future.complete(command.apply(slot.game));
+			} catch (Throwable e) {
+				future.completeExceptionally(e);
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * Enqueues a command to the shard to which the game is routed,
+	 * waiting outside of the lock of the game while the queue is full
+	 */
+	private void submit(Slot slot, Runnable command) {
+		Task task = new Task(slot, command);
+		while (true) {
+			synchronized (slot) {
+				if (shards[slot.route].offer(task)) {
+					slot.submitted++;
+					return;
+				}
+			}
+			if (closed) throw new IllegalStateException("Scheduler is closed");
+			Thread.yield();
+		}
+	}
+
+	/**
+	 * Moves a game to another shard, after the commands already submitted to it
+	 * and after the moves already requested
+	 * @param gameId - game identifier
+	 * @param shard - index of the new shard
+	 * @return future that completes once the game runs on the new shard
+	 * @throws IllegalArgumentException if the game is not scheduled,
+	 * or if there is no such shard
+	 * @throws IllegalStateException if the scheduler is closed
+	 */
+	public CompletableFuture<Void> moveGame(long gameId, int shard) {
+		checkOpen();
+		if (shard < 0 || shard >= shards.length) throw new IllegalArgumentException("Unknown shard " + shard);
+		Slot slot = slotOf(gameId);
+		synchronized (slot) {
+			// a game on its way cannot be moved yet
+			slot.arrival = slot.arrival.thenCompose((v) -> startMove(slot, shard));
+			return slot.arrival;
+		}
+	}
+
+	/**
+	 * Moves a game that has arrived at its shard
+	 * @param slot - game slot
+	 * @param shard - index of the new shard
+	 * @return future that completes once the game runs on the new shard
+	 */
+	private CompletableFuture<Void> startMove(Slot slot, int shard) {
+		CompletableFuture<Void> arrival = new CompletableFuture<Void>();
+		synchronized (slot) {
+			int from = slot.route;
+			if (from == shard) {
+				arrival.complete(null);
+				return arrival;
+			}
+			moving.incrementAndGet();
+			shards[from].routed.decrementAndGet();
+			shards[shard].routed.incrementAndGet();
+			slot.route = shard; // new commands go straight to the new shard
+			// the departure may overtake commands still queued, thus it waits for them to run
+			shards[from].handoff(new Task(slot, () -> {
+				slot.owner = -1;
+				shards[from].games--;
+				shards[shard].handoff(new Task(slot, arrival));
+			}, slot.submitted));
+		}
+		return arrival;
+	}
+
+	/**
+	 * Moves games from the shards with the most games to the ones with
+	 * the fewest, until they differ by one game at most
+	 * @return number of games moved
+	 * @throws IllegalStateException if the scheduler is closed
+	 */
+	public int rebalance() {
+		checkOpen();
+		int [] counts = new int[shards.length];
+		List<List<Long>> games = new ArrayList<List<Long>>(shards.length);
+		for (int i = 0; i < shards.length; i++) games.add(new ArrayList<Long>());
+		for (Map.Entry<Long, Slot> entry : slots.entrySet()) {
+			int shard = entry.getValue().route;
+			counts[shard]++;
+			games.get(shard).add(entry.getKey());
+		}
+		int moved = 0;
+		while (true) {
+			int most = 0, fewest = 0;
+			for (int i = 1; i < shards.length; i++) {
+				if (counts[i] > counts[most]) most = i;
+				if (counts[i] < counts[fewest]) fewest = i;
+			}
+			if (counts[most] - counts[fewest] <= 1) return moved;
+			List<Long> from = games.get(most);
+			moveGame(from.remove(from.size() - 1), fewest);
+			counts[most]--;
+			counts[fewest]++;
+			moved++;
+		}
+	}
+
+	/**
+	 * @return number of shards
+	 */
+	public int getShardCount() {
+		return shards.length;
+	}
+
+	/**
+	 * @param gameId - game identifier
+	 * @return index of the shard to which commands of the game are submitted
+	 * @throws IllegalArgumentException if the game is not scheduled
+	 */
+	public int getShardOf(long gameId) {
+		return slotOf(gameId).route;
+	}
+
+	/**
+	 * @param shard - index of the shard
+	 * @return number of games run by the shard
+	 */
+	public int getGameCount(int shard) {
+		return shards[shard].games;
+	}
+
+	/**
+	 * @param shard - index of the shard
+	 * @return number of commands run by the shard so far
+	 */
+	public long getCommandCount(int shard) {
+		return shards[shard].commands.get();
+	}
+
+	/**
+	 * @param shard - index of the shard
+	 * @return number of tasks waiting in the queue of the shard
+	 */
+	public int getQueueDepth(int shard) {
+		return shards[shard].queue.size();
+	}
+
+	/**
+	 * @return ratio between the number of games of the busiest shard and the
+	 * mean number of games per shard, which is 1 if games are spread evenly
+	 * (or if there are none)
+	 */
+	public double getImbalance() {
+		int total = 0, most = 0;
+		for (Shard shard : shards) {
+			total += shard.games;
+			most = Math.max(most, shard.games);
+		}
+		return total == 0 ? 1 : most * (double) shards.length / total;
+	}
+
+	/**
+	 * Stops accepting commands and waits for the shards
+	 * to run the ones already submitted
+	 */
+	public void close() {
+		closed = true;
+		for (Shard shard : shards) LockSupport.unpark(shard.thread);
+		try {
+			for (Shard shard : shards) shard.thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return shard whose thread is the current one, or {@code null} if none
+	 */
+	private Shard currentShard() {
+		Thread thread = Thread.currentThread();
+		for (Shard shard : shards) {
+			if (shard.thread == thread) return shard;
+		}
+		return null;
+	}
+
+	private Slot slotOf(long gameId) {
+		Slot slot = slots.get(gameId);
+		if (slot == null) throw new IllegalArgumentException("Unknown game " + gameId);
+		return slot;
+	}
+
+	private void checkOpen() {
+		if (closed) throw new IllegalStateException("Scheduler is closed");
+	}
+
+}
@@ -0,0 +1,225 @@
+package game.journal;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import game.table.CardSequenceTable;
+
+/**
+ *
+ * <p>A game archive reader scans an archive written by {@link GameArchiveWriter}
+ * one game at a time. Blocks are read whole and decoded from memory, and games
+ * that are not replayed are skipped without decoding their moves, thus scanning
+ * an archive is bound by reading it rather than by decoding it.
+ *
+ * @author guidanoli
+ * @see GameArchiveWriter
+ *
+ */
+public class GameArchiveReader implements Closeable {
+
+	private final InputStream in;
+	private final Inflater inflater;
+	private byte [] block = new byte[GameArchiveWriter.BLOCK_SIZE];
+	private int blockLength = 0;
+	private byte [] stored;
+	private int position = 0;
+	private int gameEnd = 0;
+	private long gameId;
+	private int moveCount;
+	private boolean positioned = false;
+
+	/* scratch record, so that moves are applied as journal records */
+	private final ByteBuffer record = ByteBuffer.allocate(JournalRecord.SIZE);
+
+	private GameArchiveReader(InputStream in, boolean compressed) {
+		this.in = in;
+		this.inflater = compressed ? new Inflater() : null;
+		this.stored = compressed ? new byte[GameArchiveWriter.BLOCK_SIZE] : null;
+	}
+
+	/**
+	 * Opens an archive from an input stream
+	 * @param in - input stream, which is closed along with the reader
+	 * @return game archive reader, positioned before the first game
+	 * @throws IOException if the header cannot be read
+	 * @throws IllegalArgumentException if the stream is not an archive
+	 */
+	public static GameArchiveReader open(InputStream in) throws IOException {
+		byte [] header = new byte[6];
+		readFully(in, header, header.length);
+		int magic = (header[0] & 0xFF) << 24 | (header[1] & 0xFF) << 16 | (header[2] & 0xFF) << 8 | header[3] & 0xFF;
+		if (magic != GameArchiveWriter.MAGIC) throw new IllegalArgumentException("Not a game archive");
+		if (header[4] != GameArchiveWriter.VERSION) throw new IllegalArgumentException("Unsupported archive version");
+		return new GameArchiveReader(in, (header[5] & GameArchiveWriter.COMPRESSED) != 0);
+	}
+
+	/**
+	 * Moves to the next game, skipping whatever is left of the current one
+	 * @return {@code true} if there is a next game, or {@code false} at the
+	 * end of the archive
+	 * @throws IOException if a block cannot be read
+	 */
+	public boolean nextGame() throws IOException {
+		position = gameEnd;
+		if (position == blockLength && !readBlock()) {
+			positioned = false;
+			return false;
+		}
+		gameId = getVarint();
+		moveCount = (int) getVarint();
+		int length = (int) getVarint();
+		gameEnd = position + length;
+		positioned = true;
+		return true;
+	}
+
+	/**
+	 * @return identifier of the current game
+	 * @throws IllegalStateException if there is no current game
+	 */
+	public long getGameId() {
+		checkPositioned();
+		return gameId;
+	}
+
+	/**
+	 * @return number of moves of the current game
+	 * @throws IllegalStateException if there is no current game
+	 */
+	public int getMoveCount() {
+		checkPositioned();
+		return moveCount;
+	}
+
+	/**
+	 * Rebuilds the final table of the current game, by loading its
+	 * starting table and applying every move
+	 * @param table - card sequence table, whose sequences are replaced
+	 * @throws IllegalStateException if there is no current game, or if the
+	 * game was already replayed, or if the archive is corrupted
+	 */
+	public void replay(CardSequenceTable table) {
+		checkPositioned();
+		positioned = false;
+		int tableLength = (int) getVarint();
+		table.readFrom(ByteBuffer.wrap(block, position, tableLength));
+		position += tableLength;
+		for (int i = 0; i < moveCount; i++) {
+			int op = (int) getVarint();
+			int index = 0, arg = 0;
+			long mask = 0;
+			switch (op & 7) {
+			case JournalRecord.ADD_SEQUENCE:
+				int code = 0;
+				for (int count = (int) getVarint(); count > 0; count--) {
+					code += (int) getVarint();
+					mask |= 1L << code;
+				}
+				break;
+			case JournalRecord.REMOVE_SEQUENCE:
+				index = (int) getVarint();
+				break;
+			case JournalRecord.ADD_CARD:
+			case JournalRecord.REMOVE_CARD:
+			case JournalRecord.SPLIT:
+				index = (int) getVarint();
+				arg = (int) getVarint();
+				break;
+			}
+			JournalRecord.write(record, 0, (byte) (op & 7), (byte) (op >>> 3), index, arg, mask);
+			JournalRecord.apply(table, record, 0);
+		}
+		if (position != gameEnd) throw new IllegalStateException("Corrupted game archive");
+	}
+
+	/**
+	 * Closes the input stream
+	 * @throws IOException if the stream cannot be closed
+	 */
+	public void close() throws IOException {
+		if (inflater != null) inflater.end();
+		in.close();
+	}
+
+	private void checkPositioned() {
+		if (!positioned) throw new IllegalStateException("No current game");
+	}
+
+	/**
+	 * Reads the next block into memory, decompressing it if needed
+	 * @return {@code true} if a block was read, or {@code false} at the
+	 * end of the archive
+	 * @throws IOException if the block cannot be read or decompressed
+	 */
+	private boolean readBlock() throws IOException {
+		int first = in.read();
+		if (first < 0) return false;
+		int rawLength = (int) readVarint(in, first);
+		int storedLength = (int) readVarint(in, in.read());
+		if (block.length < rawLength) block = new byte[rawLength];
+		if (inflater == null) {
+			readFully(in, block, storedLength);
+		} else {
+			if (stored.length < storedLength) stored = new byte[storedLength];
+			readFully(in, stored, storedLength);
+			inflater.reset();
+			inflater.setInput(stored, 0, storedLength);
+			try {
+				if (inflater.inflate(block, 0, rawLength) != rawLength) throw new IOException("Corrupted game archive");
+			} catch (DataFormatException e) {
+				throw new IOException("Corrupted game archive", e);
+			}
+		}
+		blockLength = rawLength;
+		position = 0;
+		gameEnd = 0;
+		return true;
+	}
+
+	/**
+	 * Reads a varint from the current block
+	 * @return number
+	 * @see GameArchiveWriter#putVarint(byte[], int, long)
+	 */
+	private long getVarint() {
+		long value = 0;
+		for (int shift = 0; ; shift += 7) {
+			byte b = block[position++];
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) return value;
+		}
+	}
+
+	/**
+	 * Reads a varint from a stream
+	 * @param in - input stream
+	 * @param first - first byte of the varint, already read
+	 * @return number
+	 * @throws EOFException if the stream ends within the varint
+	 */
+	private static long readVarint(InputStream in, int first) throws IOException {
+		long value = 0;
+		int b = first;
+		for (int shift = 0; ; shift += 7) {
+			if (b < 0) throw new EOFException("Truncated game archive");
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) return value;
+			b = in.read();
+		}
+	}
+
+	private static void readFully(InputStream in, byte [] buffer, int length) throws IOException {
+		for (int offset = 0; offset < length; ) {
+			int read = in.read(buffer, offset, length - offset);
+			if (read < 0) throw new EOFException("Truncated game archive");
+			offset += read;
+		}
+	}
+
+}
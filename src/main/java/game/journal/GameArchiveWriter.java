@@ -0,0 +1,260 @@
+package game.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import game.card.Card;
+import game.sequence.CardSequence;
+import game.table.CardSequenceTable;
+import game.table.CardSequenceTableOperationListener;
+
+/**
+ *
+ * <p>A game archive writer stores the table history of finished games
+ * compactly, for long-term keeping and analytics. Instead of a table state
+ * per move, a game is stored as its starting table (a snapshot, see
+ * {@link CardSequenceTable#writeTo}) followed by its table moves, each one
+ * encoded as the difference it makes to the table. Card codes, sequence
+ * positions and counts are written as varints, so most moves take two or
+ * three bytes.
+ *
+ * <p>Only the table is archived: the hands, the order of the stock and the
+ * draws and discards of a game are not, thus an archived game can be replayed
+ * up to its final table, but not dealt and played again.
+ *
+ * <p>An archive starts with a header (magic number, format version and flags)
+ * followed by blocks of whole games. Each block is made of its raw length,
+ * its stored length and its bytes, which are compressed through {@link Deflater}
+ * if compression is enabled. Each game is made of its identifier, its number
+ * of moves, its length, its starting table and its moves, thus readers can skip
+ * games without decoding them.
+ *
+ * <p>Moves are recorded by registering the writer as an operation listener of
+ * the table between {@link #beginGame(long, CardSequenceTable)} and
+ * {@link #endGame()}.
+ *
+ * @author guidanoli
+ * @see GameArchiveReader
+ *
+ */
+public class GameArchiveWriter implements CardSequenceTableOperationListener, Closeable {
+
+	/**
+	 * Magic number that opens every archive
+	 */
+	public final static int MAGIC = 0x52415243; // "RARC"
+
+	/**
+	 * Version of the archive format
+	 */
+	public final static byte VERSION = 1;
+
+	/**
+	 * Flag of archives whose blocks are compressed
+	 */
+	public final static byte COMPRESSED = 1;
+
+	/**
+	 * Number of raw bytes after which a block is written
+	 */
+	public final static int BLOCK_SIZE = 1 << 16;
+
+	private final OutputStream out;
+	private final Deflater deflater;
+	private byte [] block = new byte[BLOCK_SIZE];
+	private int blockLength = 0;
+	private byte [] compressed;
+	private byte [] game = new byte[256];
+	private int gameLength = 0;
+	private long gameId;
+	private int moveCount;
+	private boolean recording = false;
+
+	private GameArchiveWriter(OutputStream out, boolean compress) {
+		this.out = out;
+		this.deflater = compress ? new Deflater() : null;
+		this.compressed = compress ? new byte[BLOCK_SIZE] : null;
+	}
+
+	/**
+	 * Starts an archive on an output stream
+	 * @param out - output stream, which is closed along with the writer
+	 * @param compress - whether blocks are compressed
+	 * @return game archive writer
+	 * @throws IOException if the header cannot be written
+	 */
+	public static GameArchiveWriter open(OutputStream out, boolean compress) throws IOException {
+		out.write(new byte[] {
+				(byte) (MAGIC >>> 24), (byte) (MAGIC >>> 16), (byte) (MAGIC >>> 8), (byte) MAGIC,
+				VERSION, compress ? COMPRESSED : 0 });
+		return new GameArchiveWriter(out, compress);
+	}
+
+	/**
+	 * Starts recording the table history of a game from the current
+	 * state of its table
+	 * @param gameId - game identifier
+	 * @param table - card sequence table as the game starts
+	 * @throws IllegalStateException if another game is being recorded
+	 */
+	public void beginGame(long gameId, CardSequenceTable table) {
+		if (recording) throw new IllegalStateException("A game is already being recorded");
+		recording = true;
+		this.gameId = gameId;
+		moveCount = 0;
+		gameLength = 0;
+		int tableLength = table.snapshotSize();
+		putVarint(tableLength);
+		ensureGameCapacity(tableLength);
+		table.writeTo(ByteBuffer.wrap(game, gameLength, tableLength));
+		gameLength += tableLength;
+	}
+
+	/**
+	 * Finishes recording the current game, writing a block if it is full
+	 * @throws IOException if a block cannot be written
+	 * @throws IllegalStateException if no game is being recorded
+	 */
+	public void endGame() throws IOException {
+		checkRecording();
+		recording = false;
+		int headerLength = 3 * 10; // at most three varints
+		if (blockLength + headerLength + gameLength > block.length) {
+			block = Arrays.copyOf(block, Math.max(block.length * 2, blockLength + headerLength + gameLength));
+		}
+		blockLength = putVarint(block, blockLength, gameId);
+		blockLength = putVarint(block, blockLength, moveCount);
+		blockLength = putVarint(block, blockLength, gameLength);
+		System.arraycopy(game, 0, block, blockLength, gameLength);
+		blockLength += gameLength;
+		if (blockLength >= BLOCK_SIZE) writeBlock();
+	}
+
+	/**
+	 * Writes the games recorded so far and closes the output stream.
+	 * A game still being recorded is discarded.
+	 * @throws IOException if the last block cannot be written or if the
+	 * stream cannot be closed
+	 */
+	public void close() throws IOException {
+		try {
+			if (blockLength > 0) writeBlock();
+		} finally {
+			if (deflater != null) deflater.end();
+			out.close();
+		}
+	}
+
+	public void sequenceAdded(CardSequence sequence) {
+		long mask = sequence.getMask();
+		putMove(JournalRecord.ADD_SEQUENCE | JournalRecord.typeOf(sequence) << 3);
+		putVarint(Long.bitCount(mask));
+		int previous = 0;
+		for (; mask != 0; mask &= mask - 1) {
+			int code = Long.numberOfTrailingZeros(mask);
+			putVarint(code - previous); // codes ascend, thus deltas are small
+			previous = code;
+		}
+	}
+
+	public void sequenceRemoved(int index) {
+		putMove(JournalRecord.REMOVE_SEQUENCE);
+		putVarint(index);
+	}
+
+	public void cardAdded(int index, Card card) {
+		putMove(JournalRecord.ADD_CARD);
+		putVarint(index);
+		putVarint(card.getCode());
+	}
+
+	public void cardRemoved(int index, Card card) {
+		putMove(JournalRecord.REMOVE_CARD);
+		putVarint(index);
+		putVarint(card.getCode());
+	}
+
+	public void sequenceSplit(int index, int cardIndex) {
+		putMove(JournalRecord.SPLIT);
+		putVarint(index);
+		putVarint(cardIndex);
+	}
+
+	public void tableCleared() {
+		putMove(JournalRecord.CLEAR);
+	}
+
+	/**
+	 * Starts a move of the current game
+	 * @param op - operation code, with the card sequence type on bits 3 onwards
+	 * @throws IllegalStateException if no game is being recorded
+	 */
+	private void putMove(int op) {
+		checkRecording();
+		moveCount++;
+		putVarint(op);
+	}
+
+	private void checkRecording() {
+		if (!recording) throw new IllegalStateException("No game is being recorded");
+	}
+
+	private void putVarint(long value) {
+		ensureGameCapacity(10);
+		gameLength = putVarint(game, gameLength, value);
+	}
+
+	private void ensureGameCapacity(int length) {
+		if (gameLength + length > game.length) {
+			game = Arrays.copyOf(game, Math.max(game.length * 2, gameLength + length));
+		}
+	}
+
+	/**
+	 * Compresses the block if needed and writes it to the output stream
+	 * @throws IOException if the block cannot be written
+	 */
+	private void writeBlock() throws IOException {
+		byte [] stored = block;
+		int storedLength = blockLength;
+		if (deflater != null) {
+			deflater.reset();
+			deflater.setInput(block, 0, blockLength);
+			deflater.finish();
+			storedLength = 0;
+			while (!deflater.finished()) {
+				if (storedLength == compressed.length) compressed = Arrays.copyOf(compressed, compressed.length * 2);
+				storedLength += deflater.deflate(compressed, storedLength, compressed.length - storedLength);
+			}
+			stored = compressed;
+		}
+		byte [] header = new byte[20];
+		int headerLength = putVarint(header, 0, blockLength);
+		headerLength = putVarint(header, headerLength, storedLength);
+		out.write(header, 0, headerLength);
+		out.write(stored, 0, storedLength);
+		blockLength = 0;
+	}
+
+	/**
+	 * Writes a non-negative number as a varint: seven bits per byte, least
+	 * significant first, with the highest bit set on every byte but the last
+	 * @param buffer - byte array with room for ten bytes from the offset
+	 * @param offset - offset in the array
+	 * @param value - number
+	 * @return offset after the varint
+	 */
+	static int putVarint(byte [] buffer, int offset, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer[offset++] = (byte) (value | 0x80);
+			value >>>= 7;
+		}
+		buffer[offset++] = (byte) value;
+		return offset;
+	}
+
+}
@@ -0,0 +1,373 @@
+package game.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import game.table.CardSequenceTable;
+import game.table.CardSequenceTableOperationListener;
+
+/**
+ *
+ * <p>A group commit journal is a durable journal shared by many games. Instead
+ * of forcing every record to the disk on its own, records submitted by all games
+ * are gathered into batches by a single writer thread, and each batch is written
+ * and forced to the disk at once. Thus, throughput grows with the number of games
+ * rather than being capped by the rate at which the disk can be forced.
+ *
+ * <p>A batch is committed once it reaches the maximum batch size, or once its
+ * oldest record has waited for the maximum latency, whichever comes first.
+ * Every record has a completion future, which completes once the record is
+ * durable, so a game only has to wait when it needs to (e.g. at the end of a turn).
+ * Should the writer thread be interrupted, the journal stops accepting records
+ * and fails the futures of those it did not commit.
+ *
+ * <p>Each game writes through a {@link GameJournal}, which is an operation listener
+ * of its {@link CardSequenceTable}. The file holds a {@link #HEADER_SIZE}-byte
+ * header followed by {@link #FRAME_SIZE}-byte frames: the game identifier and
+ * a {@link JournalRecord}.
+ *
+ * @author guidanoli
+ * @see TableJournal
+ *
+ */
+public class GroupCommitJournal implements Closeable {
+
+	/**
+	 * Magic number that opens every group commit journal file
+	 */
+	public final static int MAGIC = 0x5247434A; // "RGCJ"
+
+	/**
+	 * Version of the group commit journal format
+	 */
+	public final static int VERSION = 1;
+
+	/**
+	 * Number of bytes of the header
+	 */
+	public final static int HEADER_SIZE = 16;
+
+	/**
+	 * Number of bytes of a frame: game identifier and record
+	 */
+	public final static int FRAME_SIZE = 8 + JournalRecord.SIZE;
+
+	/* Builder */
+
+	public static class Builder {
+
+		private Path path = null;
+		private int maxBatchSize = 1024;
+		private long maxLatency = TimeUnit.MILLISECONDS.toNanos(2);
+
+		public Builder() {} // can instantiate directly
+		public static Builder newInstance() { return new Builder(); } // or indirectly
+
+		public Builder path(Path path) { this.path = path; return this; }
+		public Builder maxBatchSize(int size) { this.maxBatchSize = size; return this; }
+		public Builder maxLatency(long latency, TimeUnit unit) { this.maxLatency = unit.toNanos(latency); return this; }
+
+		/**
+		 * Opens the journal file for appending and starts the writer thread
+		 * @return group commit journal
+		 * @throws IOException if the file cannot be opened
+		 * @throws IllegalArgumentException if path is unspecified, the batch
+		 * size is not positive or the latency is negative
+		 */
+		public GroupCommitJournal build() throws IOException {
+			if (path == null) throw new IllegalArgumentException("Undefined journal path");
+			if (maxBatchSize <= 0) throw new IllegalArgumentException("Non-positive batch size");
+			if (maxLatency < 0) throw new IllegalArgumentException("Negative latency");
+			return new GroupCommitJournal(path, maxBatchSize, maxLatency);
+		}
+
+	}
+
+	/**
+	 * A frame waiting to be committed
+	 */
+	private final static class Frame {
+
+		final ByteBuffer bytes = ByteBuffer.allocate(FRAME_SIZE);
+		final CompletableFuture<Void> future = new CompletableFuture<Void>();
+
+	}
+
+	/* marks the end of the submissions */
+	private final static Frame endOfStream = new Frame();
+
+	private final FileChannel channel;
+	private final int maxBatchSize;
+	private final long maxLatency;
+	private final BlockingQueue<Frame> queue = new LinkedBlockingQueue<Frame>();
+	private final Thread writer;
+	/* submitters share it, so that no frame is queued once the writer stops */
+	private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+	private boolean closed = false;
+	private boolean stopped = false;
+
+	/* writer thread state */
+	private final ByteBuffer batchBuffer;
+	private long commits = 0;
+	private long frames = 0;
+	private IOException failure = null;
+
+	private GroupCommitJournal(Path path, int maxBatchSize, long maxLatency) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.maxBatchSize = maxBatchSize;
+		this.maxLatency = maxLatency;
+		this.batchBuffer = ByteBuffer.allocateDirect(maxBatchSize * FRAME_SIZE);
+		try {
+			if (channel.size() == 0) {
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				header.putInt(MAGIC).putInt(VERSION).putInt(FRAME_SIZE).putInt(0).flip();
+				while (header.hasRemaining()) channel.write(header, header.position());
+				channel.force(true);
+			} else {
+				checkHeader(channel);
+			}
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+		long size = channel.size();
+		channel.position(size - (size - HEADER_SIZE) % FRAME_SIZE); // drops torn frames
+		this.writer = new Thread(this::writeBatches, "group-commit-journal");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Submits a record of a game
+	 * @param gameId - game identifier
+	 * @param op - operation code
+	 * @param type - card sequence type
+	 * @param index - position of the card sequence on the table
+	 * @param arg - card code or split index
+	 * @param mask - bitset of card codes
+	 * @return future that completes once the record is durable, or completes
+	 * exceptionally if the record could not be written
+	 * @throws IllegalStateException if the journal is closed, or if its
+	 * writer thread was interrupted
+	 * @see JournalRecord#write
+	 */
+	public CompletableFuture<Void> submit(long gameId, byte op, byte type, int index, int arg, long mask) {
+		Frame frame = new Frame();
+		frame.bytes.putLong(0, gameId);
+		JournalRecord.write(frame.bytes, 8, op, type, index, arg, mask);
+		closeLock.readLock().lock();
+		try {
+			if (closed || stopped) throw new IllegalStateException("Journal is closed");
+			queue.add(frame);
+		} finally {
+			closeLock.readLock().unlock();
+		}
+		return frame.future;
+	}
+
+	/**
+	 * Creates a journal for a game, to be registered as an operation
+	 * listener of the game's table
+	 * @param gameId - game identifier
+	 * @return game journal
+	 * @see CardSequenceTable#addOperationListener(CardSequenceTableOperationListener)
+	 */
+	public GameJournal forGame(long gameId) {
+		return new GameJournal(gameId);
+	}
+
+	/**
+	 * @return number of batches committed so far
+	 */
+	public synchronized long getCommitCount() {
+		return commits;
+	}
+
+	/**
+	 * @return number of records committed so far
+	 */
+	public synchronized long getRecordCount() {
+		return frames;
+	}
+
+	/**
+	 * Stops accepting records, commits the ones already submitted
+	 * and closes the journal file
+	 * @throws IOException if the file cannot be closed, or if a batch
+	 * could not be committed
+	 */
+	public void close() throws IOException {
+		closeLock.writeLock().lock();
+		try {
+			if (closed) return;
+			closed = true;
+			queue.add(endOfStream);
+		} finally {
+			closeLock.writeLock().unlock();
+		}
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		channel.close();
+		if (failure != null) throw failure;
+	}
+
+	/**
+	 * Body of the writer thread: gathers frames into batches and commits them
+	 */
+	private void writeBatches() {
+		ArrayList<Frame> batch = new ArrayList<Frame>(maxBatchSize);
+		boolean ended = false;
+		while (!ended) {
+			try {
+				Frame first = queue.take();
+				if (first == endOfStream) break;
+				batch.add(first);
+				long deadline = System.nanoTime() + maxLatency;
+				while (batch.size() < maxBatchSize) {
+					Frame next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+					if (next == null) break;
+					if (next == endOfStream) {
+						ended = true;
+						break;
+					}
+					batch.add(next);
+				}
+			} catch (InterruptedException e) {
+				ended = true;
+			}
+			commit(batch);
+			batch.clear();
+		}
+		closeLock.writeLock().lock();
+		try {
+			stopped = true;
+		} finally {
+			closeLock.writeLock().unlock();
+		}
+		for (Frame frame; (frame = queue.poll()) != null; ) {
+			// left behind by an interrupted writer
+			if (frame != endOfStream) frame.future.completeExceptionally(new IllegalStateException("Journal is closed"));
+		}
+	}
+
+	/**
+	 * Writes a batch of frames, forces them to the disk and completes their futures
+	 * @param batch - frames to be committed
+	 */
+	private void commit(ArrayList<Frame> batch) {
+		if (batch.isEmpty()) return;
+		if (failure == null) {
+			batchBuffer.clear();
+			for (Frame frame : batch) {
+				frame.bytes.clear();
+				batchBuffer.put(frame.bytes);
+			}
+			batchBuffer.flip();
+			try {
+				while (batchBuffer.hasRemaining()) channel.write(batchBuffer);
+				channel.force(false);
+			} catch (IOException e) {
+				failure = e;
+			}
+		}
+		if (failure != null) {
+			for (Frame frame : batch) frame.future.completeExceptionally(failure);
+			return;
+		}
+		synchronized (this) {
+			commits++;
+			frames += batch.size();
+		}
+		for (Frame frame : batch) frame.future.complete(null);
+	}
+
+	/**
+	 * Applies the records of a game to a table, in the order they were committed
+	 * @param path - path of the group commit journal file
+	 * @param gameId - game identifier
+	 * @param table - card sequence table in the state the game started
+	 * @return number of records applied
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalArgumentException if the file is not a group commit journal
+	 * @throws IllegalStateException if the journal does not match the table
+	 */
+	public static long replay(Path path, long gameId, CardSequenceTable table) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			checkHeader(channel);
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			long applied = 0;
+			for (int offset = HEADER_SIZE; offset + FRAME_SIZE <= buffer.capacity(); offset += FRAME_SIZE) {
+				if (buffer.getLong(offset) != gameId) continue;
+				JournalRecord.apply(table, buffer, offset + 8);
+				applied++;
+			}
+			return applied;
+		}
+	}
+
+	/**
+	 * Checks the header of a group commit journal file
+	 * @param channel - file channel
+	 * @throws IOException if the header cannot be read
+	 * @throws IllegalArgumentException if the header is not valid
+	 */
+	private static void checkHeader(FileChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		while (header.hasRemaining() && channel.read(header, header.position()) > 0);
+		if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+			throw new IllegalArgumentException("Not a group commit journal");
+		}
+		if (header.getInt(4) != VERSION || header.getInt(8) != FRAME_SIZE) {
+			throw new IllegalArgumentException("Unsupported journal version");
+		}
+	}
+
+	/**
+	 *
+	 * <p>A game journal submits the operations requested to the table
+	 * of a game to the group commit journal. It keeps the completion
+	 * future of the last record, so that the game can wait until all
+	 * of its records are durable.
+	 *
+	 * <p>Like the table, it must be confined to the game's thread.
+	 *
+	 */
+	public class GameJournal implements JournalRecordListener {
+
+		private final long gameId;
+		private CompletableFuture<Void> lastCommit = CompletableFuture.completedFuture(null);
+
+		private GameJournal(long gameId) {
+			this.gameId = gameId;
+		}
+
+		/**
+		 * @return future that completes once every record submitted
+		 * so far by this game is durable (records are committed in order)
+		 */
+		public CompletableFuture<Void> lastCommit() {
+			return lastCommit;
+		}
+
+		public void record(byte op, byte type, int index, int arg, long mask) {
+			lastCommit = submit(gameId, op, type, index, arg, mask);
+		}
+
+	}
+
+}
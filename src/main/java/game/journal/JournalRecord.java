@@ -0,0 +1,134 @@
+package game.journal;
+
+import java.nio.ByteBuffer;
+
+import game.card.Card;
+import game.sequence.CardSequence;
+import game.sequence.CardSequenceBuilder;
+import game.sequence.types.SuitCardSequenceType;
+import game.table.CardSequenceTable;
+
+/**
+ *
+ * <p>A journal record is the fixed-size binary form of an operation
+ * requested to a {@link CardSequenceTable}. Every record takes
+ * {@link #SIZE} bytes, laid out as follows:
+ * <ul>
+ * <li>byte 0 - operation code (never zero, so that a zeroed record marks
+ * the end of a journal)</li>
+ * <li>byte 1 - card sequence type, for {@link #ADD_SEQUENCE}</li>
+ * <li>bytes 2 and 3 - position of the card sequence on the table</li>
+ * <li>byte 4 - card code (see {@link Card#getCode()}) or split index</li>
+ * <li>bytes 5 to 7 - reserved</li>
+ * <li>bytes 8 to 15 - bitset of card codes, for {@link #ADD_SEQUENCE}</li>
+ * </ul>
+ *
+ * @author guidanoli
+ * @see TableJournal
+ *
+ */
+public final class JournalRecord {
+
+	/**
+	 * Number of bytes of a record
+	 */
+	public final static int SIZE = 16;
+
+	/* operation codes */
+	public final static byte ADD_SEQUENCE = 1;
+	public final static byte REMOVE_SEQUENCE = 2;
+	public final static byte ADD_CARD = 3;
+	public final static byte REMOVE_CARD = 4;
+	public final static byte SPLIT = 5;
+	public final static byte CLEAR = 6;
+
+	/* card sequence types */
+	public final static byte RUN = 0;
+	public final static byte SET = 1;
+
+	private JournalRecord() {}
+
+	/**
+	 * Writes a record at an absolute offset of a buffer through plain puts,
+	 * which do not order the bytes of the record for other threads: one must
+	 * only read the record after it is published, e.g. through the
+	 * position of a {@link TableJournal}.
+	 * @param buffer - byte buffer
+	 * @param offset - offset of the record in the buffer
+	 * @param op - operation code
+	 * @param type - card sequence type
+	 * @param index - position of the card sequence on the table
+	 * @param arg - card code or split index
+	 * @param mask - bitset of card codes
+	 */
+	public static void write(ByteBuffer buffer, int offset, byte op, byte type, int index, int arg, long mask) {
+		buffer.put(offset + 1, type);
+		buffer.putShort(offset + 2, (short) index);
+		buffer.put(offset + 4, (byte) arg);
+		buffer.put(offset + 5, (byte) 0);
+		buffer.putShort(offset + 6, (short) 0);
+		buffer.putLong(offset + 8, mask);
+		buffer.put(offset, op);
+	}
+
+	/**
+	 * @param buffer - byte buffer
+	 * @param offset - offset of the record in the buffer
+	 * @return operation code of the record, or zero if there is no record
+	 */
+	public static byte getOp(ByteBuffer buffer, int offset) {
+		return buffer.get(offset);
+	}
+
+	/**
+	 * @param sequence - card sequence
+	 * @return card sequence type, either {@link #RUN} or {@link #SET}
+	 */
+	public static byte typeOf(CardSequence sequence) {
+		return sequence.isOfType(SuitCardSequenceType.class) ? SET : RUN;
+	}
+
+	/**
+	 * Applies the operation of a record to a table
+	 * @param table - card sequence table in the state the operation was requested
+	 * @param buffer - byte buffer
+	 * @param offset - offset of the record in the buffer
+	 * @throws IllegalStateException if the operation cannot be applied, which means
+	 * the table is not in the same state as when the operation was requested
+	 */
+	public static void apply(CardSequenceTable table, ByteBuffer buffer, int offset) {
+		byte op = buffer.get(offset);
+		int index = buffer.getShort(offset + 2) & 0xFFFF;
+		int arg = buffer.get(offset + 4) & 0xFF;
+		boolean applied;
+		try {
+			switch (op) {
+			case ADD_SEQUENCE:
+				applied = table.addSequence(CardSequenceBuilder.fromMask(buffer.get(offset + 1) == SET, buffer.getLong(offset + 8)));
+				break;
+			case REMOVE_SEQUENCE:
+				applied = table.removeSequence(table.getSequence(index));
+				break;
+			case ADD_CARD:
+				applied = table.addCard(table.getSequence(index), Card.fromCode(arg));
+				break;
+			case REMOVE_CARD:
+				applied = table.removeCard(table.getSequence(index), Card.fromCode(arg));
+				break;
+			case SPLIT:
+				applied = table.split(table.getSequence(index), arg);
+				break;
+			case CLEAR:
+				table.clearTable();
+				applied = true;
+				break;
+			default:
+				throw new IllegalStateException("Unknown journal operation " + op);
+			}
+		} catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+			throw new IllegalStateException("Journal does not match table", e);
+		}
+		if (!applied) throw new IllegalStateException("Journal does not match table");
+	}
+
+}
@@ -0,0 +1,53 @@
+package game.journal;
+
+import game.card.Card;
+import game.sequence.CardSequence;
+import game.table.CardSequenceTableOperationListener;
+
+/**
+ *
+ * <p>A journal record listener is an operation listener that encodes every
+ * operation requested to a table as the fields of a {@link JournalRecord},
+ * so that journals only have to handle records.
+ *
+ * @author guidanoli
+ * @see JournalRecord#write
+ *
+ */
+public interface JournalRecordListener extends CardSequenceTableOperationListener {
+
+	/**
+	 * An operation was encoded as a record
+	 * @param op - operation code
+	 * @param type - card sequence type
+	 * @param index - position of the card sequence on the table
+	 * @param arg - card code or split index
+	 * @param mask - bitset of card codes
+	 */
+	public void record(byte op, byte type, int index, int arg, long mask);
+
+	public default void sequenceAdded(CardSequence sequence) {
+		record(JournalRecord.ADD_SEQUENCE, JournalRecord.typeOf(sequence), 0, 0, sequence.getMask());
+	}
+
+	public default void sequenceRemoved(int index) {
+		record(JournalRecord.REMOVE_SEQUENCE, (byte) 0, index, 0, 0);
+	}
+
+	public default void cardAdded(int index, Card card) {
+		record(JournalRecord.ADD_CARD, (byte) 0, index, card.getCode(), 0);
+	}
+
+	public default void cardRemoved(int index, Card card) {
+		record(JournalRecord.REMOVE_CARD, (byte) 0, index, card.getCode(), 0);
+	}
+
+	public default void sequenceSplit(int index, int cardIndex) {
+		record(JournalRecord.SPLIT, (byte) 0, index, cardIndex, 0);
+	}
+
+	public default void tableCleared() {
+		record(JournalRecord.CLEAR, (byte) 0, 0, 0, 0);
+	}
+
+}
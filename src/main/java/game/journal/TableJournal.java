@@ -0,0 +1,172 @@
+package game.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import game.table.CardSequenceTable;
+
+/**
+ *
+ * <p>A table journal is an append-only audit trail of the operations requested
+ * to a {@link CardSequenceTable}. Once registered as an operation listener of the
+ * table, it appends a fixed-size {@link JournalRecord} per operation to a file
+ * mapped in memory through {@link FileChannel#map}, thus appending costs no
+ * system call. The mapping grows as needed.
+ *
+ * <p>A journal file starts with a {@link #HEADER_SIZE}-byte header (magic number,
+ * format version and record size) followed by the records. The end of the
+ * journal is marked by the first zeroed record.
+ *
+ * <p>Records reach the disk whenever the operating system flushes the mapping,
+ * or when {@link #force()} is called.
+ *
+ * @author guidanoli
+ * @see TableJournalReader
+ *
+ */
+public class TableJournal implements JournalRecordListener, Closeable {
+
+	/**
+	 * Magic number that opens every journal file
+	 */
+	public final static int MAGIC = 0x524A4E4C; // "RJNL"
+
+	/**
+	 * Version of the journal format
+	 */
+	public final static int VERSION = 1;
+
+	/**
+	 * Number of bytes of the header, which is a multiple of the record size
+	 */
+	public final static int HEADER_SIZE = 16;
+
+	/* initial number of records mapped */
+	private final static int initialCapacity = 4096;
+
+	private final FileChannel channel;
+	private MappedByteBuffer buffer;
+	private volatile long position; // published once a record is written in full
+
+	private TableJournal(FileChannel channel) throws IOException {
+		this.channel = channel;
+		long size = Math.max(channel.size(), HEADER_SIZE + (long) initialCapacity * JournalRecord.SIZE);
+		this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+		if (buffer.getInt(0) == 0) {
+			buffer.putInt(0, MAGIC);
+			buffer.putInt(4, VERSION);
+			buffer.putInt(8, JournalRecord.SIZE);
+		} else {
+			checkHeader(buffer);
+		}
+		while (offsetOf(position) < buffer.capacity() && JournalRecord.getOp(buffer, (int) offsetOf(position)) != 0) {
+			position++;
+		}
+	}
+
+	/**
+	 * Opens a journal file for appending, creating it if needed
+	 * @param path - path of the journal file
+	 * @return table journal positioned after its last record
+	 * @throws IOException if the file cannot be opened or mapped
+	 * @throws IllegalArgumentException if the file is not a journal
+	 */
+	public static TableJournal open(Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			return new TableJournal(channel);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads the number of records in the journal, which is published after
+	 * each record is written, thus the records before it can be read by any thread
+	 * @return number of records in the journal
+	 */
+	public long getPosition() {
+		return position;
+	}
+
+	/**
+	 * Appends a record to the journal, growing the mapping if needed
+	 * @param op - operation code
+	 * @param type - card sequence type
+	 * @param index - position of the card sequence on the table
+	 * @param arg - card code or split index
+	 * @param mask - bitset of card codes
+	 * @throws UncheckedIOException if the mapping cannot grow
+	 * @see JournalRecord#write
+	 */
+	public void append(byte op, byte type, int index, int arg, long mask) {
+		long offset = offsetOf(position);
+		if (offset + JournalRecord.SIZE > buffer.capacity()) grow();
+		JournalRecord.write(buffer, (int) offset, op, type, index, arg, mask);
+		position++;
+	}
+
+	/**
+	 * Forces the records appended so far to be written to the disk
+	 */
+	public void force() {
+		buffer.force();
+	}
+
+	/**
+	 * Forces the records to the disk and closes the journal file
+	 * @throws IOException if the file cannot be closed
+	 */
+	public void close() throws IOException {
+		force();
+		channel.close();
+	}
+
+	public void record(byte op, byte type, int index, int arg, long mask) {
+		append(op, type, index, arg, mask);
+	}
+
+	/**
+	 * Doubles the size of the mapping
+	 */
+	private void grow() {
+		long size = (long) buffer.capacity() * 2;
+		if (size > Integer.MAX_VALUE) throw new IllegalStateException("Journal is full");
+		try {
+			buffer.force();
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @param position - record number
+	 * @return offset of the record in the file
+	 */
+	static long offsetOf(long position) {
+		return HEADER_SIZE + position * JournalRecord.SIZE;
+	}
+
+	/**
+	 * Checks the header of a journal file
+	 * @param buffer - byte buffer mapping the start of the file
+	 * @throws IllegalArgumentException if the header is not valid
+	 */
+	static void checkHeader(MappedByteBuffer buffer) {
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IllegalArgumentException("Not a table journal");
+		}
+		if (buffer.getInt(4) != VERSION || buffer.getInt(8) != JournalRecord.SIZE) {
+			throw new IllegalArgumentException("Unsupported journal version");
+		}
+	}
+
+}
@@ -0,0 +1,163 @@
+package game.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import game.table.CardSequenceTable;
+
+/**
+ *
+ * <p>A table journal reader rebuilds a {@link CardSequenceTable} from a journal
+ * written by {@link TableJournal}, by applying each record to the table
+ * in order. Records are read straight from a read-only mapping of the file.
+ *
+ * <p>Besides replaying a finished journal, it can follow a journal that is
+ * still being written (e.g. to mirror a live game) through the
+ * {@link #tail(CardSequenceTable, long, TimeUnit)} method. The reader has no
+ * happens-before edge with the writer: it takes a record as written once its
+ * operation code is not zero, and the Java memory model does not guarantee that
+ * the rest of the record is visible by then. Readers in the same process that
+ * need such guarantee must replay no further than {@link TableJournal#getPosition()}
+ * (see {@link #replay(CardSequenceTable, long)}).
+ *
+ * @author guidanoli
+ * @see TableJournal
+ *
+ */
+public class TableJournalReader implements Closeable {
+
+	/* interval between two polls of the journal in tail mode */
+	private final static long pollInterval = TimeUnit.MICROSECONDS.toNanos(100);
+
+	private final FileChannel channel;
+	private MappedByteBuffer buffer;
+	private long position;
+
+	private TableJournalReader(FileChannel channel) throws IOException {
+		this.channel = channel;
+		this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		TableJournal.checkHeader(buffer);
+	}
+
+	/**
+	 * Opens a journal file for reading, positioned at its first record
+	 * @param path - path of the journal file
+	 * @return table journal reader
+	 * @throws IOException if the file cannot be opened or mapped
+	 * @throws IllegalArgumentException if the file is not a journal
+	 */
+	public static TableJournalReader open(Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			return new TableJournalReader(channel);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return number of records read so far
+	 */
+	public long getPosition() {
+		return position;
+	}
+
+	/**
+	 * Moves to a record, so that the next one read is the one at such position
+	 * @param position - record number
+	 * @throws IllegalArgumentException if position is negative
+	 */
+	public void seek(long position) {
+		if (position < 0) throw new IllegalArgumentException("Negative journal position");
+		this.position = position;
+	}
+
+	/**
+	 * Checks whether the journal holds a record, mapping the file again if it has grown
+	 * @param position - record number
+	 * @return {@code true} if there is a record at such position, or {@code false} if else.
+	 * @throws UncheckedIOException if the file cannot be mapped again
+	 */
+	public boolean hasRecord(long position) {
+		if (position < 0) return false;
+		long offset = TableJournal.offsetOf(position);
+		if (offset + JournalRecord.SIZE > buffer.capacity()) {
+			try {
+				long size = channel.size();
+				if (offset + JournalRecord.SIZE > size) return false;
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return JournalRecord.getOp(buffer, (int) offset) != 0;
+	}
+
+	/**
+	 * Applies every record available from the current position onwards
+	 * @param table - card sequence table in the state of the current position
+	 * @return number of records applied
+	 * @throws IllegalStateException if the journal does not match the table
+	 * @throws UncheckedIOException if the file cannot be mapped again
+	 */
+	public long replay(CardSequenceTable table) {
+		return replay(table, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Applies the records available from the current position up to a given one,
+	 * e.g. the position of a journal being written by another thread
+	 * @param table - card sequence table in the state of the current position
+	 * @param end - position after the last record to apply
+	 * @return number of records applied
+	 * @throws IllegalStateException if the journal does not match the table
+	 * @throws UncheckedIOException if the file cannot be mapped again
+	 * @see TableJournal#getPosition()
+	 */
+	public long replay(CardSequenceTable table, long end) {
+		long start = position;
+		while (position < end && hasRecord(position)) {
+			JournalRecord.apply(table, buffer, (int) TableJournal.offsetOf(position));
+			position++;
+		}
+		return position - start;
+	}
+
+	/**
+	 * Waits for records to be appended to the journal, applying them as soon as
+	 * they are available. Returns once some records are applied, or on timeout.
+	 * @param table - card sequence table in the state of the current position
+	 * @param timeout - maximum time to wait for a record
+	 * @param unit - time unit of the timeout
+	 * @return number of records applied, which is zero on timeout
+	 * @throws InterruptedException if the thread is interrupted while waiting
+	 * @throws IllegalStateException if the journal does not match the table
+	 */
+	public long tail(CardSequenceTable table, long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		while (true) {
+			long applied = replay(table);
+			if (applied > 0) return applied;
+			if (System.nanoTime() - deadline >= 0) return 0;
+			LockSupport.parkNanos(pollInterval);
+			if (Thread.interrupted()) throw new InterruptedException();
+		}
+	}
+
+	/**
+	 * Closes the journal file
+	 * @throws IOException if the file cannot be closed
+	 */
+	public void close() throws IOException {
+		channel.close();
+	}
+
+}
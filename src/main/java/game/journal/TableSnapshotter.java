@@ -0,0 +1,220 @@
+package game.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import game.table.CardSequenceTable;
+
+/**
+ *
+ * <p>A table snapshotter periodically saves a binary snapshot of a
+ * {@link CardSequenceTable} (see {@link CardSequenceTable#writeTo(ByteBuffer)})
+ * along with the position of its {@link TableJournal}, so that recovering the
+ * table only requires loading the latest snapshot and replaying the journal
+ * records appended after it (see {@link #recover(Path, Path, CardSequenceTable)}).
+ *
+ * <p>A snapshot is taken every so many operations, or once some time has passed
+ * since the last one, whichever comes first. Taking it is a short consistent
+ * cut on the game thread, which forces the journal to the disk and copies the
+ * table into a compact buffer. Forcing the journal first ensures that a snapshot
+ * never refers to records that a crash could lose. The buffer is then written to
+ * the disk by an executor, without blocking the table. Each snapshot replaces
+ * the previous one atomically, thus a crash never leaves a torn snapshot behind.
+ *
+ * <p>The snapshotter must be registered as an operation listener of the table
+ * after the journal, so that the journal position already accounts for the
+ * operation that triggered the snapshot.
+ *
+ * @author guidanoli
+ * @see TableJournal
+ *
+ */
+public class TableSnapshotter implements JournalRecordListener {
+
+	/**
+	 * Magic number that opens every snapshot file
+	 */
+	public final static int MAGIC = 0x52534E50; // "RSNP"
+
+	/**
+	 * Version of the snapshot file format
+	 */
+	public final static int VERSION = 1;
+
+	/**
+	 * Number of bytes of the header: magic number, version and journal position
+	 */
+	public final static int HEADER_SIZE = 16;
+
+	/* writes snapshots when no executor is given */
+	private final static ExecutorService defaultExecutor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "table-snapshotter");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/* Builder */
+
+	public static class Builder {
+
+		private CardSequenceTable table = null;
+		private TableJournal journal = null;
+		private Path path = null;
+		private long maxOperations = 1024;
+		private long maxInterval = TimeUnit.SECONDS.toNanos(10);
+		private Executor executor = defaultExecutor;
+
+		public Builder() {} // can instantiate directly
+		public static Builder newInstance() { return new Builder(); } // or indirectly
+
+		public Builder table(CardSequenceTable table) { this.table = table; return this; }
+		public Builder journal(TableJournal journal) { this.journal = journal; return this; }
+		public Builder path(Path path) { this.path = path; return this; }
+		public Builder maxOperations(long count) { this.maxOperations = count; return this; }
+		public Builder maxInterval(long interval, TimeUnit unit) { this.maxInterval = unit.toNanos(interval); return this; }
+		public Builder executor(Executor executor) { this.executor = executor; return this; }
+
+		/**
+		 * Builds the snapshotter, which still has to be registered as an
+		 * operation listener of the table
+		 * @return table snapshotter
+		 * @throws IllegalArgumentException if table, journal, path or executor
+		 * are unspecified, or if the number of operations or the interval are
+		 * not positive
+		 */
+		public TableSnapshotter build() {
+			if (table == null) throw new IllegalArgumentException("Undefined table");
+			if (journal == null) throw new IllegalArgumentException("Undefined journal");
+			if (path == null) throw new IllegalArgumentException("Undefined snapshot path");
+			if (executor == null) throw new IllegalArgumentException("Undefined executor");
+			if (maxOperations <= 0) throw new IllegalArgumentException("Non-positive number of operations");
+			if (maxInterval <= 0) throw new IllegalArgumentException("Non-positive interval");
+			return new TableSnapshotter(this);
+		}
+
+	}
+
+	private final CardSequenceTable table;
+	private final TableJournal journal;
+	private final Path path;
+	private final Path temporaryPath;
+	private final long maxOperations;
+	private final long maxInterval;
+	private final Executor executor;
+
+	private long operations = 0;
+	private long lastSnapshotTime = System.nanoTime();
+	private CompletableFuture<Void> lastSnapshot = CompletableFuture.completedFuture(null);
+
+	private TableSnapshotter(Builder builder) {
+		this.table = builder.table;
+		this.journal = builder.journal;
+		this.path = builder.path;
+		this.temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+		this.maxOperations = builder.maxOperations;
+		this.maxInterval = builder.maxInterval;
+		this.executor = builder.executor;
+	}
+
+	/**
+	 * Forces the journal to the disk, takes a snapshot of the table right away
+	 * and schedules it to be written. Snapshots are written in the order they are taken.
+	 * @return future that completes once the snapshot is on the disk, or
+	 * completes exceptionally if it could not be written
+	 */
+	public CompletableFuture<Void> snapshot() {
+		journal.force(); // the snapshot may only refer to durable records
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + table.snapshotSize());
+		buffer.putInt(MAGIC).putInt(VERSION).putLong(journal.getPosition());
+		table.writeTo(buffer);
+		buffer.flip();
+		operations = 0;
+		lastSnapshotTime = System.nanoTime();
+		lastSnapshot = lastSnapshot
+				.exceptionally(e -> null) // a failed snapshot does not hold back the next ones
+				.thenRunAsync(() -> write(buffer), executor);
+		return lastSnapshot;
+	}
+
+	/**
+	 * @return future of the latest snapshot taken
+	 * @see #snapshot()
+	 */
+	public CompletableFuture<Void> lastSnapshot() {
+		return lastSnapshot;
+	}
+
+	/**
+	 * Rebuilds a table from its latest snapshot, if any, and the journal records
+	 * appended after it. If there is no snapshot, the whole journal is replayed.
+	 * @param snapshot - path of the snapshot file
+	 * @param journal - path of the journal file
+	 * @param table - empty card sequence table
+	 * @return number of journal records replayed
+	 * @throws IOException if a file cannot be read
+	 * @throws IllegalArgumentException if a file is not a snapshot or a journal
+	 * @throws IllegalStateException if the journal does not match the snapshot,
+	 * or if it holds fewer records than the snapshot accounts for
+	 */
+	public static long recover(Path snapshot, Path journal, CardSequenceTable table) throws IOException {
+		long position = 0;
+		if (Files.exists(snapshot)) {
+			ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(snapshot));
+			if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+				throw new IllegalArgumentException("Not a table snapshot");
+			}
+			if (buffer.getInt() != VERSION) throw new IllegalArgumentException("Unsupported snapshot version");
+			position = buffer.getLong();
+			table.readFrom(buffer);
+		}
+		try (TableJournalReader reader = TableJournalReader.open(journal)) {
+			if (position > 0 && !reader.hasRecord(position - 1)) {
+				throw new IllegalStateException("Journal is behind the snapshot");
+			}
+			reader.seek(position);
+			return reader.replay(table);
+		}
+	}
+
+	/**
+	 * Counts an operation and takes a snapshot if it is due
+	 */
+	public void record(byte op, byte type, int index, int arg, long mask) {
+		if (++operations >= maxOperations || System.nanoTime() - lastSnapshotTime >= maxInterval) {
+			snapshot();
+		}
+	}
+
+	/**
+	 * Writes a snapshot to a temporary file and then moves it over the previous one
+	 * @param buffer - snapshot bytes
+	 * @throws UncheckedIOException if the snapshot cannot be written
+	 */
+	private void write(ByteBuffer buffer) {
+		try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) channel.write(buffer);
+			channel.force(true);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		try {
+			Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
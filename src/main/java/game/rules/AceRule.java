@@ -0,0 +1,25 @@
+package game.rules;
+
+/**
+ *
+ * <p>An ace rule tells where the ace may go in a run
+ * of cards of the same suit.
+ *
+ * @author guidanoli
+ * @see VariantRules
+ *
+ */
+public enum AceRule {
+
+	/**
+	 * The ace only goes before the two, as in {@code A-2-3}
+	 */
+	LOW,
+
+	/**
+	 * The ace goes either before the two or after the king, as in
+	 * {@code A-2-3} or {@code Q-K-A}, but not both (no wrapping around)
+	 */
+	LOW_OR_HIGH;
+
+}
@@ -0,0 +1,169 @@
+package game.rules;
+
+import java.lang.reflect.Constructor;
+
+import game.card.Card;
+import game.card.CardRank;
+
+/**
+ *
+ * <p>A meld classifier tells whether bitsets of card codes (see
+ * {@link Card#getCode()}) are valid runs, valid sets, or neither,
+ * as told by the {@link RuleTables} of a variant.
+ *
+ * <p>Candidates are classified in batches, over arrays of bitsets, without
+ * building any card sequence. Each candidate is split into its four 13-bit
+ * suit fields, from which the masks of its ranks and of its suits are
+ * computed with bitwise operations only (SWAR), and then looked up in the
+ * rule tables. The loop has no data-dependent branches, so its cost does
+ * not depend on how candidates are mixed.
+ *
+ * <p>On Java 17 or later, with the {@code jdk.incubator.vector} module added
+ * (e.g. {@code --add-modules jdk.incubator.vector}), batches are classified
+ * through the Vector API instead, a whole vector of candidates at a time.
+ * Otherwise, or if the platform has no vectors of many longs, the SWAR loop
+ * is used.
+ *
+ * <p>Classifiers are immutable and can be shared between threads.
+ *
+ * @author guidanoli
+ *
+ */
+public final class MeldClassifier {
+
+	/**
+	 * Neither a run nor a set
+	 */
+	public final static byte INVALID = 0;
+
+	/**
+	 * Cards of the same suit and consecutive ranks
+	 */
+	public final static byte RUN = 1;
+
+	/**
+	 * Cards of the same rank and distinct suits
+	 */
+	public final static byte SET = 2;
+
+	/* auxiliary constants */
+	private final static int numOfRanks = CardRank.values().length;
+	private final static long suitMask = RuleTables.SUIT_MASK;
+
+	/**
+	 * A classifier of batches of candidates
+	 */
+	interface Batch {
+		void classify(long [] cards, int from, int to, byte [] kinds);
+	}
+
+	/* constructor of the classifier that uses the Vector API, or null if it cannot be loaded */
+	private final static Constructor<?> vectorConstructor = findVectorConstructor();
+
+	private final RuleTables rules;
+	private final Batch vector;
+
+	/**
+	 * Constructs a meld classifier
+	 * @param rules - rule tables of the variant
+	 */
+	public MeldClassifier(RuleTables rules) {
+		this.rules = rules;
+		this.vector = newVectorClassifier(rules);
+	}
+
+	/**
+	 * @return constructor of the classifier that uses the Vector API,
+	 * or {@code null} before Java 17 or without the incubator module
+	 */
+	private static Constructor<?> findVectorConstructor() {
+		try {
+			Class<?> type = Class.forName("game.rules.VectorMeldClassifier");
+			return type.getDeclaredConstructor(RuleTables.class, MeldClassifier.class);
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return classifier that uses the Vector API, or {@code null} if it is not available
+	 */
+	private Batch newVectorClassifier(RuleTables rules) {
+		if (vectorConstructor == null) return null;
+		try {
+			return (Batch) vectorConstructor.newInstance(rules, this);
+		} catch (ReflectiveOperationException e) {
+			return null; // e.g. no vector of many longs
+		}
+	}
+
+	/**
+	 * @return {@code true} if batches are classified through the Vector API,
+	 * or {@code false} if through the SWAR loop
+	 */
+	boolean isVectorized() {
+		return vector != null;
+	}
+
+	/**
+	 * @param cards - bitset of card codes
+	 * @return {@link #RUN}, {@link #SET} or {@link #INVALID}
+	 * (which is also the case of bits that are not card codes)
+	 */
+	public byte classify(long cards) {
+		long s0 = cards & suitMask;
+		long s1 = cards >>> numOfRanks & suitMask;
+		long s2 = cards >>> 2 * numOfRanks & suitMask;
+		long s3 = cards >>> 3 * numOfRanks & suitMask;
+		int ranks = (int) (s0 | s1 | s2 | s3);
+		/* bit i is set if suit i has cards, since (x | -x) is negative for x != 0 */
+		int suits = (int) ((s0 | -s0) >>> 63 | (s1 | -s1) >>> 63 << 1 | (s2 | -s2) >>> 63 << 2 | (s3 | -s3) >>> 63 << 3);
+		int singleSuit = (suits & (suits - 1)) == 0 ? 1 : 0;
+		int singleRank = (ranks & (ranks - 1)) == 0 ? 1 : 0;
+		int run = singleSuit & (rules.isRun(ranks) ? 1 : 0);
+		int set = singleRank & (rules.isSet(suits) ? 1 : 0);
+		/* no bit above the last card code may be set */
+		long extra = cards >>> Card.NUM_OF_CODES;
+		int valid = (int) ((extra | -extra) >>> 63) ^ 1;
+		return (byte) ((run * RUN | set * SET) * valid);
+	}
+
+	/**
+	 * Classifies a batch of candidates
+	 * @param cards - bitsets of card codes
+	 * @param from - position of the first candidate
+	 * @param to - position after the last candidate
+	 * @param kinds - array in which the kind of each candidate is written,
+	 * at the same position
+	 * @throws ArrayIndexOutOfBoundsException if a position is out of either array
+	 */
+	public void classify(long [] cards, int from, int to, byte [] kinds) {
+		if (vector == null) {
+			for (int i = from; i < to; i++) kinds[i] = classify(cards[i]);
+		} else if (from < to) {
+			if (from < 0 || to > cards.length || to > kinds.length) {
+				throw new ArrayIndexOutOfBoundsException("Batch out of the arrays");
+			}
+			vector.classify(cards, from, to, kinds);
+		}
+	}
+
+	/**
+	 * Copies the valid melds of a batch of candidates, in order
+	 * @param cards - bitsets of card codes
+	 * @param count - number of candidates, from the first one
+	 * @param melds - array of at least {@code count} elements
+	 * @return number of valid melds written at the beginning of {@code melds}
+	 */
+	public int filter(long [] cards, int count, long [] melds) {
+		int valid = 0;
+		for (int i = 0; i < count; i++) {
+			int kind = classify(cards[i]);
+			/* always written, only kept if valid, that is, if kind is 1 or 2 */
+			melds[valid] = cards[i];
+			valid += (kind | kind >>> 1) & 1;
+		}
+		return valid;
+	}
+
+}
@@ -0,0 +1,227 @@
+package game.rules;
+
+import java.util.ArrayList;
+
+import game.card.Card;
+import game.card.CardRank;
+import game.card.CardSuit;
+import game.scoring.PointTable;
+
+/**
+ *
+ * <p>Rule tables are the compiled form of {@link VariantRules}: every
+ * decision that depends on the variant is answered by looking a table up,
+ * so that code consuming them never branches on the variant.
+ *
+ * <p>Cards are handled as bitsets of card codes (see {@link Card#getCode()}),
+ * thus the tables describe the melds of a single deck without jokers,
+ * which is the deck of every variant.
+ *
+ * <p>Tables are:
+ * <ul>
+ * <li>which 13-bit masks of ranks of a suit (bit 0 is the ace) make up a run</li>
+ * <li>which 4-bit masks of suits of a rank make up a set</li>
+ * <li>for each rank, the masks of the runs that contain it</li>
+ * <li>every meld of a deck, and, for each card code, the melds that contain it</li>
+ * </ul>
+ *
+ * <p>Arrays returned by the getters are shared and must not be changed.
+ *
+ * @author guidanoli
+ * @see VariantRules#compile()
+ *
+ */
+public final class RuleTables {
+
+	/* auxiliary constants */
+	private final static int numOfSuits = CardSuit.values().length;
+	private final static int numOfRanks = CardRank.values().length;
+
+	/**
+	 * Bitset of the ranks of a suit
+	 */
+	public final static int SUIT_MASK = (1 << numOfRanks) - 1;
+
+	private final VariantRules rules;
+	private final long [] runTable = new long[(1 << numOfRanks) / Long.SIZE];
+	private final int setTable;
+	private final int [][] runsByRank = new int[numOfRanks][];
+	private final int [] setSuits;
+	private final long [] melds;
+	private final long [][] meldsByCard = new long[Card.NUM_OF_CODES][];
+
+	RuleTables(VariantRules rules) {
+		this.rules = rules;
+		int minSize = rules.getMinMeldSize();
+		/* a run is a window of consecutive ranks, where the ace may also
+		 * follow the king, but cannot be in the window twice; windows
+		 * of every rank are the same from any first rank, thus only the
+		 * one starting at the ace is taken */
+		int positions = rules.getAceRule() == AceRule.LOW_OR_HIGH ? numOfRanks + 1 : numOfRanks;
+		ArrayList<Integer> runs = new ArrayList<Integer>();
+		for (int first = 0; first < positions; first++) {
+			int run = 0;
+			int length = first == 0 ? numOfRanks : numOfRanks - 1;
+			for (int last = first; last < positions && last - first < length; last++) {
+				run |= 1 << (last % numOfRanks);
+				if (last - first + 1 >= minSize) runs.add(run);
+			}
+		}
+		for (int run : runs) runTable[run >>> 6] |= 1L << run;
+		for (int rank = 0; rank < numOfRanks; rank++) {
+			int count = 0;
+			for (int run : runs) if ((run & (1 << rank)) != 0) count++;
+			runsByRank[rank] = new int[count];
+			count = 0;
+			for (int run : runs) if ((run & (1 << rank)) != 0) runsByRank[rank][count++] = run;
+		}
+		int setTable = 0, count = 0;
+		for (int suits = 0; suits < (1 << numOfSuits); suits++) {
+			if (Integer.bitCount(suits) >= minSize) {
+				setTable |= 1 << suits;
+				count++;
+			}
+		}
+		this.setTable = setTable;
+		this.setSuits = new int[count];
+		for (int suits = 0, i = 0; suits < (1 << numOfSuits); suits++) {
+			if ((setTable & (1 << suits)) != 0) setSuits[i++] = suits;
+		}
+		ArrayList<Long> melds = new ArrayList<Long>();
+		for (int suit = 0; suit < numOfSuits; suit++) {
+			for (int run : runs) melds.add((long) run << (suit * numOfRanks));
+		}
+		for (int rank = 0; rank < numOfRanks; rank++) {
+			for (int suits : setSuits) melds.add(spreadSuits(suits) << rank);
+		}
+		this.melds = new long[melds.size()];
+		for (int i = 0; i < this.melds.length; i++) this.melds[i] = melds.get(i);
+		for (int code = 0; code < Card.NUM_OF_CODES; code++) {
+			count = 0;
+			for (long meld : this.melds) if ((meld & (1L << code)) != 0) count++;
+			meldsByCard[code] = new long[count];
+			count = 0;
+			for (long meld : this.melds) if ((meld & (1L << code)) != 0) meldsByCard[code][count++] = meld;
+		}
+	}
+
+	/**
+	 * @param suits - bitset of suit indexes
+	 * @return bitset of the aces of such suits
+	 */
+	public static long spreadSuits(int suits) {
+		long cards = 0;
+		for (int suit = 0; suits != 0; suit++, suits >>>= 1) {
+			if ((suits & 1) != 0) cards |= 1L << (suit * numOfRanks);
+		}
+		return cards;
+	}
+
+	/**
+	 * @return rules compiled into these tables
+	 */
+	public VariantRules getRules() {
+		return rules;
+	}
+
+	/**
+	 * @return least number of cards of a meld
+	 */
+	public int getMinMeldSize() {
+		return rules.getMinMeldSize();
+	}
+
+	/**
+	 * @return least sum of the points of the initial meld
+	 */
+	public int getOpeningThreshold() {
+		return rules.getOpeningThreshold();
+	}
+
+	/**
+	 * @return points of each card
+	 */
+	public PointTable getPoints() {
+		return rules.getPoints();
+	}
+
+	/**
+	 * @param ranks - bitset of rank indexes minus one (bit 0 is the ace)
+	 * @return {@code true} if cards of such ranks and the same suit
+	 * make up a run, or {@code false} if else.
+	 */
+	public boolean isRun(int ranks) {
+		return (runTable[ranks >>> 6] & (1L << ranks)) != 0;
+	}
+
+	/**
+	 * @param suits - bitset of suit indexes
+	 * @return {@code true} if cards of such suits and the same rank
+	 * make up a set, or {@code false} if else.
+	 */
+	public boolean isSet(int suits) {
+		return (setTable & (1 << suits)) != 0;
+	}
+
+	/**
+	 * @param cards - bitset of card codes
+	 * @return {@code true} if the cards make up a meld, or {@code false} if else.
+	 */
+	public boolean isMeld(long cards) {
+		if (cards == 0) return false;
+		int low = Long.numberOfTrailingZeros(cards);
+		int shift = low - low % numOfRanks;
+		if ((cards & ~((long) SUIT_MASK << shift)) == 0) return isRun((int) (cards >>> shift));
+		int rank = low % numOfRanks;
+		long aces = cards >>> rank;
+		if ((aces & ~spreadSuits((1 << numOfSuits) - 1)) != 0) return false;
+		int suits = 0;
+		for (int suit = 0; suit < numOfSuits; suit++) suits |= (int) (aces >>> (suit * numOfRanks) & 1) << suit;
+		return isSet(suits);
+	}
+
+	/**
+	 * @return bit table of {@link #isRun(int)}, indexed by the mask of ranks
+	 */
+	long [] getRunTable() {
+		return runTable;
+	}
+
+	/**
+	 * @return bit table of {@link #isSet(int)}, indexed by the mask of suits
+	 */
+	int getSetTable() {
+		return setTable;
+	}
+
+	/**
+	 * @param rank - rank index minus one (0 is the ace)
+	 * @return bitsets of the ranks of the runs that contain such rank
+	 */
+	public int [] getRunsWith(int rank) {
+		return runsByRank[rank];
+	}
+
+	/**
+	 * @return bitsets of the suits of every set
+	 */
+	public int [] getSetSuits() {
+		return setSuits;
+	}
+
+	/**
+	 * @return bitsets of the codes of the cards of every meld
+	 */
+	public long [] getMelds() {
+		return melds;
+	}
+
+	/**
+	 * @param code - card code
+	 * @return bitsets of the codes of the cards of the melds that contain such card
+	 */
+	public long [] getMeldsWith(int code) {
+		return meldsByCard[code];
+	}
+
+}
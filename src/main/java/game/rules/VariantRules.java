@@ -0,0 +1,146 @@
+package game.rules;
+
+import game.card.CardRank;
+import game.scoring.PointTable;
+
+/**
+ *
+ * <p>Variant rules describe a variant of the game: the least number of
+ * cards of a meld, where the ace goes in a run, the least number of points
+ * of the initial meld, and the points of each card. Every variant is played
+ * with a single deck without jokers.
+ *
+ * <p>Rules are only a description. They are compiled into lookup tables
+ * (see {@link #compile()}), which is what the solver and scoring consume,
+ * so that the hot paths never branch on the variant. The card sequences on
+ * a table always follow {@link #CLASSIC} (see {@link game.sequence.CardSequence#isStable()}).
+ *
+ * <p>Rules are immutable and can be shared between threads.
+ *
+ * @author guidanoli
+ * @see RuleTables
+ *
+ */
+public final class VariantRules {
+
+	/* Builder */
+
+	public static class Builder {
+
+		private String name = "Custom";
+		private int minMeldSize = 3;
+		private AceRule aceRule = AceRule.LOW;
+		private int openingThreshold = 0;
+		private PointTable points = PointTable.STANDARD;
+
+		public Builder() {} // can instantiate directly
+		public static Builder newInstance() { return new Builder(); } // or indirectly
+
+		public Builder name(String name) { this.name = name; return this; }
+		public Builder minMeldSize(int size) { this.minMeldSize = size; return this; }
+		public Builder aceRule(AceRule rule) { this.aceRule = rule; return this; }
+		public Builder openingThreshold(int points) { this.openingThreshold = points; return this; }
+		public Builder points(PointTable points) { this.points = points; return this; }
+
+		/**
+		 * @return variant rules
+		 * @throws IllegalArgumentException if the least meld size is not between 2
+		 * and 13, or if the opening threshold is negative
+		 */
+		public VariantRules build() {
+			if (minMeldSize < 2 || minMeldSize > CardRank.values().length) {
+				throw new IllegalArgumentException("Invalid least meld size");
+			}
+			if (openingThreshold < 0) throw new IllegalArgumentException("Negative opening threshold");
+			if (aceRule == null || points == null) throw new IllegalArgumentException("Missing rule");
+			return new VariantRules(this);
+		}
+
+	}
+
+	/**
+	 * Rules of this project: runs and sets of 3 or more cards,
+	 * ace low, and no opening threshold
+	 */
+	public final static VariantRules CLASSIC = Builder.newInstance()
+			.name("Classic")
+			.build();
+
+	/**
+	 * Rummy 500: the ace goes low or high and is worth 15 points,
+	 * tens and face cards are worth 10 points, and the others 5 points
+	 */
+	public final static VariantRules RUMMY_500 = Builder.newInstance()
+			.name("Rummy 500")
+			.aceRule(AceRule.LOW_OR_HIGH)
+			.points(PointTable.byRank(15, 5, 5, 5, 5, 5, 5, 5, 5, 10, 10, 10, 10))
+			.build();
+
+	private final String name;
+	private final int minMeldSize;
+	private final AceRule aceRule;
+	private final int openingThreshold;
+	private final PointTable points;
+	private volatile RuleTables tables = null;
+
+	private VariantRules(Builder builder) {
+		this.name = builder.name;
+		this.minMeldSize = builder.minMeldSize;
+		this.aceRule = builder.aceRule;
+		this.openingThreshold = builder.openingThreshold;
+		this.points = builder.points;
+	}
+
+	/**
+	 * Compiles the rules into lookup tables. Tables are compiled on the
+	 * first call only, and shared by the later ones.
+	 * @return rule tables
+	 */
+	public RuleTables compile() {
+		RuleTables tables = this.tables;
+		if (tables == null) this.tables = tables = new RuleTables(this);
+		return tables;
+	}
+
+	/**
+	 * @return name of the variant
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return least number of cards of a meld
+	 */
+	public int getMinMeldSize() {
+		return minMeldSize;
+	}
+
+	/**
+	 * @return where the ace goes in a run
+	 */
+	public AceRule getAceRule() {
+		return aceRule;
+	}
+
+	/**
+	 * @return least sum of the points of the initial meld of a player,
+	 * or zero if there is no such threshold
+	 */
+	public int getOpeningThreshold() {
+		return openingThreshold;
+	}
+
+	/**
+	 * @return points of each card
+	 */
+	public PointTable getPoints() {
+		return points;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+
+}
@@ -0,0 +1,170 @@
+package game.scoring;
+
+import game.card.CardRank;
+import game.card.CardSuit;
+import game.rules.RuleTables;
+import game.rules.VariantRules;
+
+/**
+ *
+ * <p>A deadwood calculator finds the least number of points (see
+ * {@link PointTable}) of the cards of a hand that cannot be part of any meld,
+ * when the hand is split into runs (cards of the same suit and consecutive
+ * ranks) and sets (cards of the same rank), as told by the {@link RuleTables}
+ * of a variant.
+ *
+ * <p>On construction, the least deadwood of every combination of ranks of
+ * each suit is computed as if there were only runs, by dynamic programming
+ * over the 13-bit masks of ranks, and kept in a table. The deadwood of a hand
+ * is then the least, among the few ways of taking sets out of it, of the sum
+ * of four table lookups, one per suit. Thus it is cheap enough to evaluate
+ * every possible discard on every turn of a simulation.
+ *
+ * <p>Calculators are immutable and can be shared between threads.
+ *
+ * @author guidanoli
+ *
+ */
+public final class DeadwoodCalculator {
+
+	/* auxiliary constants */
+	private final static int numOfSuits = CardSuit.values().length;
+	private final static int numOfRanks = CardRank.values().length;
+	private final static int suitMask = RuleTables.SUIT_MASK;
+
+	/**
+	 * Bitset of the cards of the lowest rank ({@link CardRank#ACE}) of every suit
+	 */
+	private final static long rankMask = RuleTables.spreadSuits((1 << numOfSuits) - 1);
+
+	private final PointTable points;
+	private final int minSize;
+
+	/**
+	 * For each bitset of suits, the bitset of the aces of the sets
+	 * whose suits it holds, as given by {@link RuleTables#spreadSuits(int)}
+	 */
+	private final long [][] setsBySuits = new long[1 << numOfSuits][];
+
+	/**
+	 * For each suit, the least deadwood of each mask of ranks (bit 0 is the
+	 * ace) when melding runs only
+	 */
+	private final int [][] runDeadwood = new int[numOfSuits][1 << numOfRanks];
+
+	/**
+	 * Constructs a deadwood calculator for the classic rules, filling its tables
+	 * @param points - points of each card
+	 * @see VariantRules#CLASSIC
+	 */
+	public DeadwoodCalculator(PointTable points) {
+		this(VariantRules.Builder.newInstance().points(points).build().compile());
+	}
+
+	/**
+	 * Constructs a deadwood calculator, filling its tables
+	 * @param rules - rule tables of the variant
+	 */
+	public DeadwoodCalculator(RuleTables rules) {
+		this.points = rules.getPoints();
+		this.minSize = rules.getMinMeldSize();
+		for (int suits = 0; suits < setsBySuits.length; suits++) {
+			int count = 0;
+			for (int set : rules.getSetSuits()) if ((set & ~suits) == 0) count++;
+			setsBySuits[suits] = new long[count];
+			count = 0;
+			for (int set : rules.getSetSuits()) {
+				if ((set & ~suits) == 0) setsBySuits[suits][count++] = RuleTables.spreadSuits(set);
+			}
+		}
+		for (int suit = 0; suit < numOfSuits; suit++) {
+			int [] table = runDeadwood[suit];
+			int base = suit * numOfRanks;
+			/* removing cards from a mask always makes it smaller,
+			 * thus every mask depends on masks already computed */
+			for (int mask = 1; mask <= suitMask; mask++) {
+				int low = Integer.numberOfTrailingZeros(mask);
+				int best = points.getPoints(base + low) + table[mask & (mask - 1)];
+				for (int run : rules.getRunsWith(low)) {
+					if ((run & ~mask) == 0) best = Math.min(best, table[mask & ~run]);
+				}
+				table[mask] = best;
+			}
+		}
+	}
+
+	/**
+	 * @return points of each card
+	 */
+	public PointTable getPointTable() {
+		return points;
+	}
+
+	/**
+	 * @param hand - bitset of the codes of the cards in a hand
+	 * @return least sum of the points of the cards left out of melds
+	 */
+	public int getDeadwood(long hand) {
+		return setDeadwood(hand, 0, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Evaluates every discard from a hand
+	 * @param hand - bitset of the codes of the cards in a hand
+	 * @param deadwood - array of at least 52 elements, whose element of
+	 * each card code in the hand is set to the least deadwood of the hand
+	 * without such card
+	 * @return code of the card whose discard leaves the least deadwood,
+	 * or -1 if the hand is empty
+	 */
+	public int getDeadwoodByDiscard(long hand, int [] deadwood) {
+		int best = -1;
+		for (long cards = hand; cards != 0; cards &= cards - 1) {
+			int code = Long.numberOfTrailingZeros(cards);
+			deadwood[code] = getDeadwood(hand & ~(1L << code));
+			if (best == -1 || deadwood[code] < deadwood[best]) best = code;
+		}
+		return best;
+	}
+
+	/**
+	 * @param hand - bitset of the codes of the cards in a hand
+	 * @return sum of the points of the cards in the hand, as a penalty
+	 * for the cards left when a round ends
+	 */
+	public int getPenalty(long hand) {
+		return points.getPoints(hand);
+	}
+
+	/**
+	 * Takes sets of the ranks from the given one up out of the hand,
+	 * in every possible way, and melds the remaining cards into runs
+	 * @param hand - bitset of the cards not yet melded
+	 * @param rank - index of the rank from which to take sets, from 0
+	 * @param bound - least deadwood found so far
+	 * @return least deadwood
+	 */
+	private int setDeadwood(long hand, int rank, int bound) {
+		for (; rank < numOfRanks && bound > 0; rank++) {
+			long same = hand & (rankMask << rank);
+			if (Long.bitCount(same) < minSize) continue;
+			int suits = 0;
+			for (int suit = 0; suit < numOfSuits; suit++) {
+				suits |= (int) (same >>> (suit * numOfRanks + rank) & 1) << suit;
+			}
+			for (long set : setsBySuits[suits]) {
+				bound = Math.min(bound, setDeadwood(hand & ~(set << rank), rank + 1, bound));
+			}
+		}
+		return Math.min(bound, runDeadwood(hand));
+	}
+
+	private int runDeadwood(long hand) {
+		int sum = 0;
+		for (int suit = 0; suit < numOfSuits; suit++) {
+			sum += runDeadwood[suit][(int) (hand >>> (suit * numOfRanks)) & suitMask];
+		}
+		return sum;
+	}
+
+}
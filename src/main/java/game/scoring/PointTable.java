@@ -0,0 +1,100 @@
+package game.scoring;
+
+import java.util.Arrays;
+
+import game.card.Card;
+import game.card.CardRank;
+
+/**
+ *
+ * <p>A point table tells how many points each card is worth in a
+ * variant of the game, indexed by card code (see {@link Card#getCode()}),
+ * thus looking a card up costs a single array access.
+ *
+ * <p>Point tables are immutable and can be shared between threads.
+ *
+ * @author guidanoli
+ * @see DeadwoodCalculator
+ *
+ */
+public final class PointTable {
+
+	/* auxiliary constants */
+	private final static int numOfRanks = CardRank.values().length;
+
+	/**
+	 * Aces are worth 1 point, face cards 10 points,
+	 * and the other cards their rank index
+	 */
+	public final static PointTable STANDARD = byRank(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 10, 10, 10);
+
+	private final int [] points;
+
+	private PointTable(int [] points) {
+		this.points = points;
+	}
+
+	/**
+	 * Constructs a point table in which cards of the same rank are worth the same
+	 * @param points - points of each rank, from {@link CardRank#ACE} to {@link CardRank#KING}
+	 * @return point table
+	 * @throws IllegalArgumentException if there are not 13 points,
+	 * or if any of them is negative
+	 */
+	public static PointTable byRank(int... points) {
+		if (points.length != numOfRanks) throw new IllegalArgumentException("Not a point per rank");
+		int [] byCode = new int[Card.NUM_OF_CODES];
+		for (int code = 0; code < byCode.length; code++) byCode[code] = points[code % numOfRanks];
+		return byCode(byCode);
+	}
+
+	/**
+	 * Constructs a point table
+	 * @param points - points of each card, indexed by card code
+	 * @return point table
+	 * @throws IllegalArgumentException if there are not 52 points,
+	 * or if any of them is negative
+	 */
+	public static PointTable byCode(int... points) {
+		if (points.length != Card.NUM_OF_CODES) throw new IllegalArgumentException("Not a point per card");
+		for (int point : points) if (point < 0) throw new IllegalArgumentException("Negative points");
+		return new PointTable(points.clone());
+	}
+
+	/**
+	 * @param code - card code
+	 * @return points of the card
+	 */
+	public int getPoints(int code) {
+		return points[code];
+	}
+
+	/**
+	 * @param card - card
+	 * @return points of the card
+	 */
+	public int getPoints(Card card) {
+		return points[card.getCode()];
+	}
+
+	/**
+	 * @param cards - bitset of card codes
+	 * @return sum of the points of the cards
+	 */
+	public int getPoints(long cards) {
+		int sum = 0;
+		for (; cards != 0; cards &= cards - 1) sum += points[Long.numberOfTrailingZeros(cards)];
+		return sum;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof PointTable && Arrays.equals(points, ((PointTable) o).points);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(points);
+	}
+
+}
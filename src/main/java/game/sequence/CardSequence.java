@@ -7,6 +7,8 @@ import java.util.StringJoiner;
 import java.util.function.Consumer;
 
 import game.card.Card;
+import game.rules.RuleTables;
+import game.rules.VariantRules;
 import game.sequence.types.CardSequenceType;
 
 /**
@@ -36,6 +38,9 @@ import game.sequence.types.CardSequenceType;
  */
 public class CardSequence implements Iterable<Card> {
 	
+	/* rules that the card sequences on a table follow */
+	private final static RuleTables rules = VariantRules.CLASSIC.compile();
+	
 	private Set<CardSequenceListener> listeners = new HashSet<CardSequenceListener>();
 	private CardSequenceType type;
 	
@@ -71,6 +76,28 @@ public class CardSequence implements Iterable<Card> {
 		return added;
 	}
 	
+	/**
+	 * Checks whether a card can be added, without adding it
+	 * @param card - card in question
+	 * @return {@code true} if card can be added and
+	 * {@code false} if card cannot be added
+	 * @see #addCard(Card)
+	 */
+	public boolean canAdd(Card card) {
+		return type.canAdd(card);
+	}
+	
+	/**
+	 * Checks whether a card can be removed, without removing it
+	 * @param card - card in question
+	 * @return {@code true} if card can be removed and
+	 * {@code false} if card cannot be removed
+	 * @see #removeCard(Card)
+	 */
+	public boolean canRemove(Card card) {
+		return type.canRemove(card);
+	}
+	
 	/**
 	 * Removes a card to the sequence if possible
 	 * @param card - card to be removed
@@ -125,10 +152,21 @@ public class CardSequence implements Iterable<Card> {
 	
 	/**
 	 * @return {@code true} if card sequence is stable, that is,
-	 * has 3 or more cards and does not present an invalid state
+	 * its cards make up a meld under the {@link VariantRules#CLASSIC} rules
+	 * @see RuleTables#isMeld(long)
 	 */
 	public boolean isStable() {
-		return size() >= 3;
+		return rules.isMeld(getMask());
+	}
+	
+	/**
+	 * Checks the type of the card sequence, which cannot change
+	 * @param typeClass - card sequence type class
+	 * @return {@code true} if card sequence is of such type
+	 * @see CardSequenceType
+	 */
+	public boolean isOfType(Class<? extends CardSequenceType> typeClass) {
+		return typeClass.isInstance(type);
 	}
 	
 	/**
@@ -137,6 +175,14 @@ public class CardSequence implements Iterable<Card> {
 	public int size() {
 		return type.size();
 	}
+	
+	/**
+	 * @return bitset of the codes of the cards in the sequence
+	 * @see Card#getCode()
+	 */
+	public long getMask() {
+		return type.getMask();
+	}
 		
 	/**
 	 * @return iterator that iterates through all of the card
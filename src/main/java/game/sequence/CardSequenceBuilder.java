@@ -6,6 +6,8 @@ import java.util.function.Supplier;
 
 import game.card.Card;
 import game.sequence.types.CardSequenceType;
+import game.sequence.types.RankCardSequenceType;
+import game.sequence.types.SuitCardSequenceType;
 
 /**
  * A card sequence builder is responsible for building 
@@ -102,5 +104,22 @@ public class CardSequenceBuilder {
 		for ( CardSequenceListener listener : listeners ) cardSequence.addListener(listener);
 		return cardSequence;
 	}
+	
+	/**
+	 * Builds a card sequence from the codes of its cards, even if unstable
+	 * @param set - whether it is a set ({@code true}) or a run ({@code false})
+	 * @param mask - bitset of card codes
+	 * @return unstable or stable card sequence
+	 * @throws IllegalArgumentException if the cards do not make up
+	 * a card sequence of such type
+	 * @see CardSequence#getMask()
+	 */
+	public static CardSequence fromMask(boolean set, long mask) {
+		CardSequenceBuilder builder = new CardSequenceBuilder().allowInstability(true);
+		if ( set ) builder.setType(() -> new SuitCardSequenceType());
+		else builder.setType(() -> new RankCardSequenceType());
+		for ( ; mask != 0; mask &= mask - 1 ) builder.addCard(Card.fromCode(Long.numberOfTrailingZeros(mask)));
+		return builder.build();
+	}
 		
 }
@@ -98,4 +98,15 @@ public interface CardSequenceType {
 	 */
 	public int size();
 	
+	/**
+	 * @return bitset of the codes of the cards in the sequence
+	 * @see Card#getCode()
+	 */
+	public default long getMask() {
+		long mask = 0;
+		Iterator<Card> iterator = getSequenceIterator();
+		while( iterator.hasNext() ) mask |= iterator.next().getMask();
+		return mask;
+	}
+	
 }
\ No newline at end of file
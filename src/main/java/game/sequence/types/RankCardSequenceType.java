@@ -3,23 +3,24 @@ package game.sequence.types;
 import java.util.*;
 
 import game.card.Card;
+import game.card.CardList;
 import game.sequence.CardSequenceBuilder;
 
 public class RankCardSequenceType implements CardSequenceType {
 	
-	private LinkedList<Card> sequence = new LinkedList<Card>();
+	private CardList sequence = new CardList();
 		
 	public CardSequenceBuilder add(Card card) {
 		if ( sequence.isEmpty() ) {
 			sequence.add(card);
 		} else {
-			Card firstCard = sequence.getFirst();
+			Card firstCard = sequence.get(0);
 			int index = card.compareRanks(firstCard);
 			int size = sequence.size();
 			if ( index <= 0 ) {
-				sequence.addFirst(card);
+				sequence.addCode(0, card.getCode());
 			} else if ( index >= size ) {
-				sequence.addLast(card);
+				sequence.add(card);
 			} else {
 				CardSequenceBuilder builder = split(index);
 				sequence.add(card);
@@ -31,14 +32,14 @@ public class RankCardSequenceType implements CardSequenceType {
 	
 	public boolean canAdd(Card card) {
 		if ( sequence.isEmpty() ) return true;
-		Card first = sequence.getFirst(); 
+		Card first = sequence.get(0); 
 		if ( !first.equalSuits(card) ) return false;
-		Card last = sequence.getLast();
+		Card last = sequence.get(sequence.size() - 1);
 		if ( first.compareRanks(card) < -1 && 
 			last.compareRanks(card) > 1 ) {
 			return true; // card is in the middle
 		}
-		if ( !sequence.contains(card) && // contains(Object) makes use of equals
+		if ( !sequence.contains(card) && // contains(Card) compares card codes
 			(first.isNeighbour(card) || last.isNeighbour(card)) ) {
 			return true; // card is in one of the corners
 		}
@@ -51,7 +52,7 @@ public class RankCardSequenceType implements CardSequenceType {
 		if ( canSplit(index) ) {
 			builder = split(index+1);
 		}
-		sequence.remove(index);
+		sequence.removeCode(index);
 		return builder;
 	}
 	
@@ -65,7 +66,7 @@ public class RankCardSequenceType implements CardSequenceType {
 	 */
 	private int getIndex(Card card) {
 		if ( sequence.isEmpty() ) return -1;
-		Card firstCard = sequence.getFirst();
+		Card firstCard = sequence.get(0);
 		if ( !firstCard.equalSuits(card) ) return -1;
 		int index = card.compareRanks(firstCard);
 		if ( index < 0 || index >= size() ) return -1;
@@ -77,8 +78,8 @@ public class RankCardSequenceType implements CardSequenceType {
 		CardSequenceBuilder builder = new CardSequenceBuilder()
 				.setType(() -> new RankCardSequenceType());
 		for ( int i = index; i < size; i++ ) {
-			Card removedCard = sequence.remove(index);
-			builder.addCard(removedCard);
+			int removedCode = sequence.removeCode(index);
+			builder.addCard(Card.fromCode(removedCode));
 		}
 		return builder;
 	}
@@ -88,7 +89,7 @@ public class RankCardSequenceType implements CardSequenceType {
 	}
 	
 	public Iterator<Card> getSequenceIterator() {
-		return sequence.iterator();
+		return sequence.asList().iterator();
 	}
 
 	public boolean addCardSet(Set<Card> cardSet) {
@@ -116,4 +117,9 @@ public class RankCardSequenceType implements CardSequenceType {
 		return sequence.size();
 	}
 	
+	@Override
+	public long getMask() {
+		return sequence.getMask();
+	}
+	
 }
@@ -28,6 +28,7 @@ import game.sequence.CardSequenceBuilder;
 public class SuitCardSequenceType implements CardSequenceType, Comparator<Card> {
 
 	private SortedSet<Card> sequence = new TreeSet<Card>(this);
+	private long mask = 0;
 	
 	public boolean canAdd(Card card) {
 		if (sequence.isEmpty()) return true;
@@ -45,7 +46,7 @@ public class SuitCardSequenceType implements CardSequenceType, Comparator<Card>
 	}
 	
 	public CardSequenceBuilder add(Card card) {
-		sequence.add(card);
+		if (sequence.add(card)) mask |= card.getMask();
 		return null;
 	}
 
@@ -64,7 +65,7 @@ public class SuitCardSequenceType implements CardSequenceType, Comparator<Card>
 	}
 
 	public CardSequenceBuilder remove(Card card) {
-		sequence.remove(card);
+		if (sequence.remove(card)) mask &= ~card.getMask();
 		return null;
 	}
 
@@ -85,6 +86,11 @@ public class SuitCardSequenceType implements CardSequenceType, Comparator<Card>
 		return sequence.size();
 	}
 
+	@Override
+	public long getMask() {
+		return mask;
+	}
+
 	public int compare(Card first, Card second) {
 		return first.compare(second);
 	}
@@ -0,0 +1,311 @@
+package game.sim;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import game.card.Card;
+import game.engine.CardTracker;
+import game.engine.Game;
+import game.engine.GameResult;
+import game.engine.Player;
+import game.engine.SolverPlayer;
+import game.engine.Turn;
+import game.sequence.CardSequence;
+import game.solver.SearchBudget;
+import game.table.CardSequenceTable;
+import game.util.SplitMix64;
+
+/**
+ *
+ * <p>A Monte Carlo player chooses which card to discard by simulation.
+ * It draws and melds like a {@link SolverPlayer}, and then, for each card
+ * it may discard, plays many games from the resulting position to the end
+ * (rollouts), keeping the card whose rollouts it won most often.
+ *
+ * <p>Since the player cannot see the hands of its opponents nor the stock,
+ * each rollout deals the cards it has not seen (those not in its hand,
+ * on the table or in the discard pile) at random, consistently with the
+ * number of cards in each hand and with what the player saw of them, if
+ * it is given a {@link CardTracker}. Every player of a rollout is a solver
+ * player bounded by the rollout budget.
+ *
+ * <p>The table is written once per decision into a binary snapshot (see
+ * {@link CardSequenceTable#writeTo(ByteBuffer)}), from which every rollout
+ * reads its own table, thus rollouts never share nor copy card sequences.
+ * Rollouts are spread across a number of workers, which take them from a
+ * shared counter, in round-robin over the candidate cards.
+ *
+ * <p>Each decision is bounded by a maximum number of rollouts, by an
+ * optional thinking time, and by an optional rate of rollouts per second,
+ * at which rollouts are started. The player measures how many rollouts
+ * it runs per second of thinking (see {@link #getThroughput()}).
+ * If there is no thinking time, the player is deterministic for a given
+ * seed, no matter the number of workers.
+ *
+ * @author guidanoli
+ *
+ */
+public class MonteCarloPlayer implements Player {
+
+	/* Builder */
+
+	public static class Builder {
+
+		private long seed = 0;
+		private int rollouts = 256;
+		private long thinkTime = 0;
+		private double rolloutRate = 0;
+		private int rolloutTurns = 200;
+		private SearchBudget rolloutBudget = SearchBudget.nodes(500);
+		private int parallelism = Runtime.getRuntime().availableProcessors();
+		private Executor executor = ForkJoinPool.commonPool();
+
+		public Builder() {} // can instantiate directly
+		public static Builder newInstance() { return new Builder(); } // or indirectly
+
+		public Builder seed(long seed) { this.seed = seed; return this; }
+		public Builder rollouts(int rollouts) { this.rollouts = rollouts; return this; }
+		public Builder thinkTime(long time, TimeUnit unit) { this.thinkTime = unit.toNanos(time); return this; }
+		public Builder rolloutRate(double perSecond) { this.rolloutRate = perSecond; return this; }
+		public Builder rolloutTurns(int turns) { this.rolloutTurns = turns; return this; }
+		public Builder rolloutBudget(SearchBudget budget) { this.rolloutBudget = budget; return this; }
+		public Builder parallelism(int parallelism) { this.parallelism = parallelism; return this; }
+		public Builder executor(Executor executor) { this.executor = executor; return this; }
+
+		/**
+		 * @return Monte Carlo player
+		 * @throws IllegalArgumentException if the number of rollouts, the number of
+		 * turns of a rollout or the parallelism is not positive, or if the thinking
+		 * time or the rate of rollouts is negative
+		 */
+		public MonteCarloPlayer build() {
+			if (rollouts <= 0) throw new IllegalArgumentException("Non-positive number of rollouts");
+			if (rolloutTurns <= 0) throw new IllegalArgumentException("Non-positive number of turns");
+			if (parallelism <= 0) throw new IllegalArgumentException("Non-positive parallelism");
+			if (thinkTime < 0) throw new IllegalArgumentException("Negative thinking time");
+			if (!(rolloutRate >= 0)) throw new IllegalArgumentException("Negative rate of rollouts");
+			return new MonteCarloPlayer(this);
+		}
+
+	}
+
+	private final long seed;
+	private final int rollouts;
+	private final long thinkTime;
+	private final double rolloutRate;
+	private final int rolloutTurns;
+	private final SearchBudget rolloutBudget;
+	private final int parallelism;
+	private final Executor executor;
+	private final Player rolloutPlayer;
+	private final AtomicLong rolloutCount = new AtomicLong();
+	private final AtomicLong thinkingNanos = new AtomicLong();
+	private long decisions = 0;
+	private CardTracker tracker = null;
+
+	private MonteCarloPlayer(Builder builder) {
+		this.seed = builder.seed;
+		this.rollouts = builder.rollouts;
+		this.thinkTime = builder.thinkTime;
+		this.rolloutRate = builder.rolloutRate;
+		this.rolloutTurns = builder.rolloutTurns;
+		this.rolloutBudget = builder.rolloutBudget;
+		this.parallelism = builder.parallelism;
+		this.executor = builder.executor;
+		this.rolloutPlayer = new SolverPlayer(builder.rolloutBudget);
+	}
+
+	public void playTurn(Turn turn) {
+		Card drawn = SolverPlayer.drawAndMeld(turn, rolloutBudget);
+		if (turn.isFinished()) return;
+		List<Card> candidates = new ArrayList<Card>();
+		for (Card card : turn.getHand().getCards()) {
+			if (card.equals(drawn) && turn.getHand().size() > 1) continue;
+			candidates.add(card);
+		}
+		/* ties are broken in favour of discarding higher cards */
+		candidates.sort((a, b) -> b.compareRanks(a));
+		turn.discard(candidates.size() == 1 ? candidates.get(0) : choose(turn, candidates));
+	}
+
+	/**
+	 * Runs rollouts for every candidate card
+	 * @param turn - turn, after melding
+	 * @param candidates - cards that may be discarded
+	 * @return card whose rollouts scored best
+	 */
+	private Card choose(Turn turn, List<Card> candidates) {
+		Decision decision = new Decision(turn, candidates, SplitMix64.derive(seed, decisions++));
+		long start = System.nanoTime();
+		decision.start = start;
+		List<CompletableFuture<Void>> workers = new ArrayList<CompletableFuture<Void>>();
+		for (int i = 1; i < parallelism; i++) workers.add(CompletableFuture.runAsync(decision::work, executor));
+		decision.work();
+		try {
+			for (CompletableFuture<Void> worker : workers) worker.join();
+		} catch (CompletionException e) {
+			throw new IllegalStateException("Rollout failed", e.getCause());
+		}
+		thinkingNanos.addAndGet(System.nanoTime() - start);
+		rolloutCount.addAndGet(decision.done.get());
+		Card best = candidates.get(0);
+		double bestScore = -1;
+		for (int i = 0; i < candidates.size(); i++) {
+			long count = decision.counts.get(i);
+			double score = count == 0 ? 0 : (double) decision.scores.get(i) / count;
+			if (score > bestScore) {
+				best = candidates.get(i);
+				bestScore = score;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Sets the card tracker of the player, from which rollouts deal
+	 * each opponent the cards it is known to have
+	 * @param tracker - card tracker observed by the player, or {@code null}
+	 */
+	public void setTracker(CardTracker tracker) {
+		this.tracker = tracker;
+	}
+
+	/**
+	 * @return number of rollouts run so far
+	 */
+	public long getRolloutCount() {
+		return rolloutCount.get();
+	}
+
+	/**
+	 * @param unit - time unit
+	 * @return time spent running rollouts so far
+	 */
+	public long getThinkingTime(TimeUnit unit) {
+		return unit.convert(thinkingNanos.get(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * @return number of rollouts run per second of thinking,
+	 * or zero if none were run
+	 */
+	public double getThroughput() {
+		long nanos = thinkingNanos.get();
+		return nanos == 0 ? 0 : rolloutCount.get() * 1e9 / nanos;
+	}
+
+	/**
+	 * What the player knows when choosing a card to discard, shared by
+	 * the workers, which account for the rollouts of each candidate
+	 */
+	private final class Decision {
+
+		final int player;
+		final int [] handSizes;
+		final long hand;
+		final long [] known;
+		final byte [] table;
+		final byte [] discardPile;
+		final byte [] hidden;
+		final Card [] candidates;
+		final long seed;
+		final AtomicInteger next = new AtomicInteger();
+		final AtomicInteger done = new AtomicInteger();
+		final AtomicLongArray scores, counts;
+		long start;
+
+		Decision(Turn turn, List<Card> candidates, long seed) {
+			this.player = turn.getPlayerIndex();
+			this.handSizes = new int[turn.getPlayerCount()];
+			for (int i = 0; i < handSizes.length; i++) handSizes[i] = turn.getHandSize(i);
+			this.hand = turn.getHand().getMask();
+			this.known = new long[handSizes.length];
+			if (tracker != null) {
+				if (tracker.getObserver() != player) throw new IllegalStateException("Card tracker of another player");
+				for (int i = 0; i < known.length; i++) if (i != player) known[i] = tracker.getKnownCards(i);
+			}
+			CardSequenceTable table = turn.getTable();
+			ByteBuffer buffer = ByteBuffer.allocate(table.snapshotSize());
+			table.writeTo(buffer);
+			this.table = buffer.array();
+			long seen = hand | turn.getDiscardPile().getMask();
+			for (long cards : known) seen |= cards;
+			for (CardSequence sequence : table) seen |= sequence.getMask();
+			List<Card> pile = turn.getDiscardPile().getCards();
+			this.discardPile = new byte[pile.size() + 1];
+			for (int i = 0; i < pile.size(); i++) discardPile[i] = (byte) pile.get(i).getCode();
+			long unseen = CardTracker.DECK & ~seen;
+			this.hidden = new byte[Long.bitCount(unseen)];
+			for (int i = 0; unseen != 0; i++, unseen &= unseen - 1) hidden[i] = (byte) Long.numberOfTrailingZeros(unseen);
+			this.candidates = candidates.toArray(new Card[candidates.size()]);
+			this.seed = seed;
+			this.scores = new AtomicLongArray(this.candidates.length);
+			this.counts = new AtomicLongArray(this.candidates.length);
+		}
+
+		void work() {
+			long deadline = start + thinkTime;
+			for (int i; (i = next.getAndIncrement()) < rollouts; ) {
+				if (rolloutRate > 0) {
+					long due = start + (long) ((i + 1) * 1e9 / rolloutRate);
+					if (thinkTime > 0 && due - deadline >= 0) return;
+					for (long wait; (wait = due - System.nanoTime()) > 0; ) LockSupport.parkNanos(wait);
+				}
+				if (thinkTime > 0 && System.nanoTime() - deadline >= 0) return;
+				int candidate = i % candidates.length;
+				scores.addAndGet(candidate, rollout(candidates[candidate], new Random(SplitMix64.derive(seed, i))));
+				counts.incrementAndGet(candidate);
+				done.incrementAndGet();
+			}
+		}
+
+		/**
+		 * Plays a game to the end after discarding a card
+		 * @param card - card discarded
+		 * @param random - source of randomness of the rollout
+		 * @return 2 if the player wins, 1 if nobody wins, or 0 if else
+		 */
+		int rollout(Card card, Random random) {
+			byte [] cards = hidden.clone();
+			for (int i = cards.length - 1; i > 0; i--) {
+				int j = random.nextInt(i + 1);
+				byte code = cards[i];
+				cards[i] = cards[j];
+				cards[j] = code;
+			}
+			long [] hands = new long[handSizes.length];
+			int dealt = 0;
+			for (int p = 0; p < hands.length; p++) {
+				if (p == player) {
+					hands[p] = hand & ~card.getMask();
+					continue;
+				}
+				hands[p] = known[p];
+				for (int j = Long.bitCount(known[p]); j < handSizes[p]; j++) hands[p] |= 1L << cards[dealt++];
+			}
+			byte [] pile = discardPile.clone();
+			pile[pile.length - 1] = (byte) card.getCode();
+			Player [] players = new Player[hands.length];
+			Arrays.fill(players, rolloutPlayer);
+			Game game = new Game(Arrays.asList(players), (player + 1) % hands.length, hands,
+					ByteBuffer.wrap(table), Arrays.copyOfRange(cards, dealt, cards.length), pile, random);
+			game.setMaxTurns(rolloutTurns);
+			GameResult result = game.play();
+			return result.getWinner() == player ? 2 : result.hasWinner() ? 0 : 1;
+		}
+
+	}
+
+}
@@ -0,0 +1,46 @@
+package game.sim;
+
+import java.util.function.LongFunction;
+
+import game.engine.Player;
+
+/**
+ *
+ * <p>A strategy is a named way of playing, which creates a new {@link Player}
+ * for each game of a {@link Tournament}. Players must be deterministic given
+ * their seed, so that every game can be reproduced from its own seed and the
+ * identifiers of the strategies.
+ *
+ * @author guidanoli
+ * @see Tournament
+ *
+ */
+public interface Strategy {
+
+	/**
+	 * @return identifier of the strategy
+	 */
+	public String getId();
+
+	/**
+	 * Creates a player for a game
+	 * @param seed - seed of any randomness of the player
+	 * @return player
+	 */
+	public Player newPlayer(long seed);
+
+	/**
+	 * Creates a strategy from a factory of players
+	 * @param id - identifier of the strategy
+	 * @param factory - function from seed to player
+	 * @return strategy
+	 */
+	public static Strategy of(String id, LongFunction<? extends Player> factory) {
+		return new Strategy() {
+			public String getId() { return id; }
+			public Player newPlayer(long seed) { return factory.apply(seed); }
+			public String toString() { return id; }
+		};
+	}
+
+}
@@ -0,0 +1,183 @@
+package game.sim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import game.engine.Game;
+import game.engine.GameResult;
+import game.engine.Player;
+import game.util.SplitMix64;
+
+/**
+ *
+ * <p>A tournament plays many games between a number of {@link Strategy}
+ * objects on the headless engine, to compare how well they play. Every
+ * strategy takes a seat in every game, and seats rotate from one game to
+ * the next, so that no strategy always plays first.
+ *
+ * <p>Game {@code i} of a tournament is played with seed {@code firstSeed + i},
+ * from which the deck and the seeds of the players are derived. Thus any game
+ * can be reproduced on its own from its seed and the identifiers of the
+ * strategies (see {@link #replay(long)}), no matter how the tournament ran.
+ *
+ * <p>Seeds are split into ranges and spread across a work-stealing pool.
+ * Each task counts the results of its range on its own, and results are
+ * merged as tasks join, thus threads never contend while playing.
+ *
+ * @author guidanoli
+ * @see TournamentResult
+ *
+ */
+public class Tournament {
+
+	/* Builder */
+
+	public static class Builder {
+
+		private List<Strategy> strategies = new ArrayList<Strategy>();
+		private long games = 1000;
+		private long firstSeed = 0;
+		private int handSize = Game.DEFAULT_HAND_SIZE;
+		private int maxTurns = Game.DEFAULT_MAX_TURNS;
+		private int parallelism = Runtime.getRuntime().availableProcessors();
+
+		public Builder() {} // can instantiate directly
+		public static Builder newInstance() { return new Builder(); } // or indirectly
+
+		public Builder strategy(Strategy strategy) { this.strategies.add(strategy); return this; }
+		public Builder games(long games) { this.games = games; return this; }
+		public Builder firstSeed(long seed) { this.firstSeed = seed; return this; }
+		public Builder handSize(int size) { this.handSize = size; return this; }
+		public Builder maxTurns(int turns) { this.maxTurns = turns; return this; }
+		public Builder parallelism(int parallelism) { this.parallelism = parallelism; return this; }
+
+		/**
+		 * @return tournament
+		 * @throws IllegalArgumentException if there are fewer than two strategies,
+		 * if the number of games is negative, or if the parallelism or the
+		 * maximum number of turns is not positive
+		 */
+		public Tournament build() {
+			if (strategies.size() < 2) throw new IllegalArgumentException("Too few strategies");
+			if (games < 0) throw new IllegalArgumentException("Negative number of games");
+			if (maxTurns <= 0) throw new IllegalArgumentException("Non-positive maximum number of turns");
+			if (parallelism <= 0) throw new IllegalArgumentException("Non-positive parallelism");
+			return new Tournament(this);
+		}
+
+	}
+
+	/* number of games below which a range is not split */
+	private final static long leafSize = 64;
+
+	private final Strategy [] strategies;
+	private final String [] strategyIds;
+	private final long games;
+	private final long firstSeed;
+	private final int handSize;
+	private final int maxTurns;
+	private final int parallelism;
+
+	private Tournament(Builder builder) {
+		this.strategies = builder.strategies.toArray(new Strategy[builder.strategies.size()]);
+		this.strategyIds = new String[strategies.length];
+		for (int i = 0; i < strategies.length; i++) strategyIds[i] = strategies[i].getId();
+		this.games = builder.games;
+		this.firstSeed = builder.firstSeed;
+		this.handSize = builder.handSize;
+		this.maxTurns = builder.maxTurns;
+		this.parallelism = builder.parallelism;
+	}
+
+	/**
+	 * Plays every game of the tournament
+	 * @return results of the tournament
+	 * @throws IllegalArgumentException if there are not enough cards
+	 * to deal to every strategy
+	 */
+	public TournamentResult run() {
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			return pool.invoke(new Range(firstSeed, firstSeed + games));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Rebuilds a game of the tournament, ready to be played
+	 * @param seed - seed of the game
+	 * @return game, before its first turn
+	 */
+	public Game replay(long seed) {
+		int seats = strategies.length;
+		int rotation = seatRotation(seed);
+		Player [] players = new Player[seats];
+		for (int i = 0; i < seats; i++) players[(i + rotation) % seats] = strategies[i].newPlayer(playerSeed(seed, i));
+		Game game = new Game(Arrays.asList(players), handSize, new Random(seed));
+		game.setMaxTurns(maxTurns);
+		return game;
+	}
+
+	/**
+	 * @param seed - seed of a game
+	 * @param seat - position of a player in the turn order, or -1
+	 * @return index of the strategy that sat there, or -1
+	 */
+	public int strategyAt(long seed, int seat) {
+		if (seat == -1) return -1;
+		return Math.floorMod(seat - seatRotation(seed), strategies.length);
+	}
+
+	private int seatRotation(long seed) {
+		return (int) Math.floorMod(seed, (long) strategies.length);
+	}
+
+	/**
+	 * Derives the seed of a player from the seed of the game,
+	 * so that the two are unrelated
+	 * @param seed - seed of the game
+	 * @param strategy - index of the strategy of the player
+	 * @return seed of the player
+	 */
+	private static long playerSeed(long seed, int strategy) {
+		return SplitMix64.derive(seed, strategy);
+	}
+
+	/**
+	 * A range of seeds, split in halves until small enough
+	 */
+	@SuppressWarnings("serial")
+	private final class Range extends RecursiveTask<TournamentResult> {
+
+		final long from, to;
+
+		Range(long from, long to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected TournamentResult compute() {
+			if (to - from > leafSize) {
+				long middle = from + (to - from) / 2;
+				Range left = new Range(from, middle);
+				left.fork();
+				TournamentResult right = new Range(middle, to).compute();
+				return right.merge(left.join());
+			}
+			TournamentResult result = new TournamentResult(strategyIds);
+			for (long seed = from; seed < to; seed++) {
+				GameResult game = replay(seed).play();
+				result.add(game, strategyAt(seed, game.getWinner()));
+			}
+			return result;
+		}
+
+	}
+
+}
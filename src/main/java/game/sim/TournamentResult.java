@@ -0,0 +1,116 @@
+package game.sim;
+
+import java.util.StringJoiner;
+
+import game.engine.GameResult;
+
+/**
+ *
+ * <p>Outcome of a {@link Tournament}: how many games each strategy won,
+ * how many games had no winner, and how long games lasted.
+ *
+ * <p>Results are accumulated separately by each task of the tournament
+ * and merged once the tasks are done, thus counting never contends.
+ *
+ * @author guidanoli
+ *
+ */
+public class TournamentResult {
+
+	private final String [] strategies;
+	private final long [] wins;
+	private long games = 0;
+	private long draws = 0;
+	private long turns = 0;
+
+	TournamentResult(String [] strategies) {
+		this.strategies = strategies;
+		this.wins = new long[strategies.length];
+	}
+
+	/**
+	 * Accounts for a finished game
+	 * @param result - game result
+	 * @param winner - index of the winning strategy, or -1 if none
+	 */
+	void add(GameResult result, int winner) {
+		games++;
+		turns += result.getTurnCount();
+		if (winner == -1) draws++;
+		else wins[winner]++;
+	}
+
+	/**
+	 * Accounts for the games of another result
+	 * @param other - result of the same strategies
+	 * @return this result
+	 */
+	TournamentResult merge(TournamentResult other) {
+		games += other.games;
+		draws += other.draws;
+		turns += other.turns;
+		for (int i = 0; i < wins.length; i++) wins[i] += other.wins[i];
+		return this;
+	}
+
+	/**
+	 * @return number of games played
+	 */
+	public long getGames() {
+		return games;
+	}
+
+	/**
+	 * @return number of games without a winner
+	 */
+	public long getDraws() {
+		return draws;
+	}
+
+	/**
+	 * @return total number of turns of every game
+	 */
+	public long getTurns() {
+		return turns;
+	}
+
+	/**
+	 * @return number of strategies
+	 */
+	public int getStrategyCount() {
+		return strategies.length;
+	}
+
+	/**
+	 * @param strategy - index of the strategy
+	 * @return identifier of the strategy
+	 */
+	public String getStrategyId(int strategy) {
+		return strategies[strategy];
+	}
+
+	/**
+	 * @param strategy - index of the strategy
+	 * @return number of games won by the strategy
+	 */
+	public long getWins(int strategy) {
+		return wins[strategy];
+	}
+
+	/**
+	 * @param strategy - index of the strategy
+	 * @return fraction of the games won by the strategy, or zero if none were played
+	 */
+	public double getWinRate(int strategy) {
+		return games == 0 ? 0 : (double) wins[strategy] / games;
+	}
+
+	@Override
+	public String toString() {
+		StringJoiner joiner = new StringJoiner(", ", String.format("%d games: ", games), "");
+		for (int i = 0; i < strategies.length; i++) joiner.add(String.format("%s won %d", strategies[i], wins[i]));
+		joiner.add(String.format("%d draws", draws));
+		return joiner.toString();
+	}
+
+}
@@ -0,0 +1,253 @@
+package game.solver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import game.card.Card;
+import game.util.SplitMix64;
+
+/**
+ *
+ * <p>An endgame tablebase holds the solutions of small positions, each one
+ * the cards on a table and the cards in a hand, so that the {@link TableSolver}
+ * does not solve them again every time they come up. Tablebases are built
+ * offline by an {@link EndgameTablebaseGenerator} and mapped into memory.
+ *
+ * <p>Positions are stored in canonical form. Hand cards that cannot be played
+ * are dropped, since the solver drops them as well. Then, since melds do not
+ * depend on the suits but on whether they are equal, nor on the ranks but on
+ * whether they are consecutive, suits are sorted by their cards and ranks are
+ * shifted down until the lowest one is the ace. Solutions are mapped back to
+ * the suits and ranks of the position looked up.
+ *
+ * <p>The file starts with a header, followed by a directory that maps the
+ * highest bits of the hash of a canonical position to the first entry with
+ * such bits. Entries follow, sorted by hash, from the start of a page: the
+ * hash, the cards on the table, the cards in the hand and the cards played
+ * from the hand, 8 bytes each. Buckets are about half a page long, thus a
+ * lookup searches the entries of one page (seldom two), through the directory,
+ * which is read into the heap when the tablebase is opened.
+ *
+ * @author guidanoli
+ * @see EndgameTablebaseGenerator
+ *
+ */
+public class EndgameTablebase {
+
+	/**
+	 * Magic number that opens every tablebase file
+	 */
+	public final static int MAGIC = 0x52454754; // "REGT"
+
+	/**
+	 * Version of the tablebase file format
+	 */
+	public final static int VERSION = 1;
+
+	/**
+	 * Value returned by {@link #lookup(long, long)} for positions not in the tablebase
+	 */
+	public final static long NOT_FOUND = -1;
+
+	/* file layout */
+	final static int HEADER_SIZE = 32;
+	final static int PAGE_SIZE = 4096;
+	final static int ENTRY_SIZE = 32;
+	final static int BUCKET_SIZE = PAGE_SIZE / ENTRY_SIZE / 2;
+
+	private final static int suitBits = 13;
+	private final static int suitMask = (1 << suitBits) - 1;
+
+	private final ByteBuffer entries;
+	private final int [] directory;
+	private final int directoryBits;
+	private final int count;
+	private final int maxMelds;
+	private final int maxTableCards;
+	private final int maxHandCards;
+
+	private EndgameTablebase(ByteBuffer buffer) {
+		if (buffer.getInt(0) != MAGIC) throw new IllegalArgumentException("Not an endgame tablebase");
+		if (buffer.getInt(4) != VERSION) throw new IllegalArgumentException("Unsupported tablebase version");
+		long count = buffer.getLong(8);
+		this.directoryBits = buffer.getInt(16);
+		this.maxMelds = buffer.getInt(20);
+		this.maxTableCards = buffer.getInt(24);
+		this.maxHandCards = buffer.getInt(28);
+		if (directoryBits < 0 || directoryBits > 24 || count < 0
+				|| entriesOffset(directoryBits) + count * ENTRY_SIZE != buffer.capacity()) {
+			throw new IllegalArgumentException("Malformed tablebase");
+		}
+		this.count = (int) count;
+		this.directory = new int[(1 << directoryBits) + 1];
+		for (int i = 0; i < directory.length; i++) directory[i] = buffer.getInt(HEADER_SIZE + i * 4);
+		buffer.position((int) entriesOffset(directoryBits));
+		this.entries = buffer.slice();
+	}
+
+	/**
+	 * Maps a tablebase file into memory
+	 * @param path - path of the tablebase file
+	 * @return endgame tablebase
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalArgumentException if the file is not a tablebase,
+	 * or of an unsupported version
+	 */
+	public static EndgameTablebase open(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Not an endgame tablebase");
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new EndgameTablebase(buffer);
+		}
+	}
+
+	/**
+	 * Looks up the cards from the hand played by the best rearrangement
+	 * of the table (see {@link TableSolver})
+	 * @param tableMask - bitset of the codes of the cards on the table
+	 * @param handMask - bitset of the codes of the cards in hand
+	 * @return bitset of the codes of the cards played from the hand,
+	 * or {@link #NOT_FOUND} if the position is not in the tablebase
+	 */
+	public long lookup(long tableMask, long handMask) {
+		handMask = TableSolver.playableCards(MeldIndex.CLASSIC, tableMask, handMask);
+		if (Long.bitCount(tableMask) > maxTableCards || Long.bitCount(handMask) > maxHandCards) return NOT_FOUND;
+		long [] canonical = new long[2];
+		int transform = canonicalize(tableMask, handMask, canonical);
+		long hash = hash(canonical[0], canonical[1]);
+		int bucket = bucketOf(hash, directoryBits);
+		int low = directory[bucket], high = directory[bucket + 1];
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (Long.compareUnsigned(entries.getLong(middle * ENTRY_SIZE), hash) < 0) low = middle + 1;
+			else high = middle;
+		}
+		for (int i = low; i < count; i++) {
+			int position = i * ENTRY_SIZE;
+			if (entries.getLong(position) != hash) break;
+			if (entries.getLong(position + 8) == canonical[0] && entries.getLong(position + 16) == canonical[1]) {
+				return restore(entries.getLong(position + 24), transform);
+			}
+		}
+		return NOT_FOUND;
+	}
+
+	/**
+	 * @return number of positions in the tablebase
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * @return maximum number of melds on the table of a position
+	 */
+	public int getMaxMelds() {
+		return maxMelds;
+	}
+
+	/**
+	 * @return maximum number of cards on the table of a position
+	 */
+	public int getMaxTableCards() {
+		return maxTableCards;
+	}
+
+	/**
+	 * @return maximum number of playable cards in the hand of a position
+	 */
+	public int getMaxHandCards() {
+		return maxHandCards;
+	}
+
+	/**
+	 * @param directoryBits - number of hash bits of the directory
+	 * @return offset of the first entry, at the start of a page
+	 */
+	static long entriesOffset(int directoryBits) {
+		long end = HEADER_SIZE + 4L * ((1 << directoryBits) + 1);
+		return (end + PAGE_SIZE - 1) / PAGE_SIZE * PAGE_SIZE;
+	}
+
+	static int bucketOf(long hash, int directoryBits) {
+		return directoryBits == 0 ? 0 : (int) (hash >>> (Long.SIZE - directoryBits));
+	}
+
+	/**
+	 * Hashes a canonical position, through the finalizer of SplitMix64
+	 * @param tableMask - bitset of the codes of the cards on the table
+	 * @param handMask - bitset of the codes of the cards in hand
+	 * @return hash of the position
+	 */
+	static long hash(long tableMask, long handMask) {
+		return SplitMix64.mix(SplitMix64.mix(tableMask) + handMask);
+	}
+
+	/**
+	 * Puts a position in canonical form: ranks are shifted down until the lowest
+	 * one is the ace, and suits are sorted by the ranks of the cards on the table
+	 * and then by the ranks of the cards in hand
+	 * @param tableMask - bitset of the codes of the cards on the table
+	 * @param handMask - bitset of the codes of the cards in hand
+	 * @param canonical - array that receives the canonical table and hand
+	 * @return transform that maps the canonical position back (see {@link #restore(long, int)})
+	 */
+	static int canonicalize(long tableMask, long handMask, long [] canonical) {
+		long union = tableMask | handMask;
+		int shift = 0;
+		if (union != 0) {
+			shift = suitBits;
+			for (int suit = 0; suit < Card.NUM_OF_CODES / suitBits; suit++) {
+				int ranks = (int) (union >>> (suit * suitBits)) & suitMask;
+				if (ranks != 0) shift = Math.min(shift, Integer.numberOfTrailingZeros(ranks));
+			}
+		}
+		long [] keys = new long[Card.NUM_OF_CODES / suitBits];
+		for (int suit = 0; suit < keys.length; suit++) {
+			long table = (tableMask >>> (suit * suitBits) & suitMask) >>> shift;
+			long hand = (handMask >>> (suit * suitBits) & suitMask) >>> shift;
+			keys[suit] = (table << suitBits | hand) << 2 | suit;
+		}
+		for (int i = 1; i < keys.length; i++) {
+			long key = keys[i];
+			int j = i;
+			for (; j > 0 && keys[j - 1] > key; j--) keys[j] = keys[j - 1];
+			keys[j] = key;
+		}
+		long table = 0, hand = 0;
+		int transform = shift;
+		for (int i = 0; i < keys.length; i++) {
+			long ranks = keys[i] >>> 2;
+			table |= (ranks >>> suitBits) << (i * suitBits);
+			hand |= (ranks & suitMask) << (i * suitBits);
+			transform |= (int) (keys[i] & 3) << (4 + 2 * i);
+		}
+		canonical[0] = table;
+		canonical[1] = hand;
+		return transform;
+	}
+
+	/**
+	 * Maps cards of a canonical position back to the position it came from
+	 * @param mask - bitset of the codes of cards in canonical form
+	 * @param transform - transform returned by {@link #canonicalize(long, long, long[])}
+	 * @return bitset of the codes of the cards
+	 */
+	static long restore(long mask, int transform) {
+		int shift = transform & 0xF;
+		long restored = 0;
+		for (int i = 0; i < Card.NUM_OF_CODES / suitBits; i++) {
+			long ranks = (mask >>> (i * suitBits) & suitMask) << shift;
+			int suit = transform >>> (4 + 2 * i) & 3;
+			restored |= ranks << (suit * suitBits);
+		}
+		return restored;
+	}
+
+}
@@ -0,0 +1,337 @@
+package game.solver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+import game.card.Card;
+
+/**
+ *
+ * <p>An endgame tablebase generator enumerates every small position, solves
+ * it once with the {@link TableSolver} and writes the solutions to a file,
+ * which is then mapped into memory by {@link EndgameTablebase#open(Path)}.
+ *
+ * <p>A position is small if its table is made up of a few melds, with a few
+ * cards in total, and if there are few playable cards in its hand. Positions
+ * are put in canonical form (see {@link EndgameTablebase}) and deduplicated
+ * before being solved, thus each one is solved only once.
+ *
+ * <p>Positions are enumerated and solved in parallel, in ranges split in halves
+ * until small enough, on a pool with as many threads as the given parallelism.
+ *
+ * @author guidanoli
+ * @see EndgameTablebase
+ *
+ */
+public class EndgameTablebaseGenerator {
+
+	/* entries enumerated or solved by a single task */
+	private final static int leafSize = 64;
+
+	/* record layout */
+	private final static int recordSize = 4;
+	private final static int hashField = 0;
+	private final static int tableField = 1;
+	private final static int handField = 2;
+	private final static int playedField = 3;
+
+	private final static MeldIndex meldIndex = MeldIndex.CLASSIC;
+
+	/* Builder */
+
+	public static class Builder {
+
+		private int maxMelds = 2;
+		private int maxTableCards = 6;
+		private int maxHandCards = 2;
+		private int parallelism = Runtime.getRuntime().availableProcessors();
+
+		public Builder() {} // can instantiate directly
+		public static Builder newInstance() { return new Builder(); } // or indirectly
+
+		public Builder maxMelds(int maxMelds) { this.maxMelds = maxMelds; return this; }
+		public Builder maxTableCards(int maxTableCards) { this.maxTableCards = maxTableCards; return this; }
+		public Builder maxHandCards(int maxHandCards) { this.maxHandCards = maxHandCards; return this; }
+		public Builder parallelism(int parallelism) { this.parallelism = parallelism; return this; }
+
+		/**
+		 * @return endgame tablebase generator
+		 * @throws IllegalArgumentException if the maximum number of melds or of
+		 * cards is negative, or if the parallelism is not positive
+		 */
+		public EndgameTablebaseGenerator build() {
+			if (maxMelds < 0) throw new IllegalArgumentException("Negative number of melds");
+			if (maxTableCards < 0 || maxHandCards < 0) throw new IllegalArgumentException("Negative number of cards");
+			if (parallelism <= 0) throw new IllegalArgumentException("Non-positive parallelism");
+			return new EndgameTablebaseGenerator(this);
+		}
+
+	}
+
+	private final int maxMelds;
+	private final int maxTableCards;
+	private final int maxHandCards;
+	private final int parallelism;
+
+	private EndgameTablebaseGenerator(Builder builder) {
+		this.maxMelds = builder.maxMelds;
+		this.maxTableCards = builder.maxTableCards;
+		this.maxHandCards = builder.maxHandCards;
+		this.parallelism = builder.parallelism;
+	}
+
+	/**
+	 * Generates the tablebase and writes it to a file, replacing it if it exists
+	 * @param path - path of the tablebase file
+	 * @return number of positions in the tablebase
+	 * @throws IOException if the file cannot be written
+	 * @throws IllegalStateException if there are too many positions for a file
+	 */
+	public int generate(Path path) throws IOException {
+		long [] tables = enumerateTables();
+		long [][] positions = new long[tables.length][];
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		long [] records;
+		int count;
+		try {
+			pool.invoke(new Range(0, tables.length, (i) -> positions[i] = enumeratePositions(tables[i])));
+			records = merge(positions);
+			count = deduplicate(records);
+			long [] solved = records;
+			pool.invoke(new Range(0, count, (i) -> {
+				int record = i * recordSize;
+				TableSolver solver = new TableSolver(solved[record + tableField], solved[record + handField], meldIndex);
+				solved[record + playedField] = solver.solve().getPlayedMask();
+			}));
+		} finally {
+			pool.shutdown();
+		}
+		write(path, records, count);
+		return count;
+	}
+
+	/**
+	 * @return bitsets of the codes of the cards of every table made up of
+	 * at most {@link #maxMelds} melds and {@link #maxTableCards} cards
+	 */
+	private long [] enumerateTables() {
+		HashSet<Long> tables = new HashSet<Long>();
+		addTables(tables, 0, 0, 0);
+		long [] array = new long[tables.size()];
+		int i = 0;
+		for (long table : tables) array[i++] = table;
+		Arrays.sort(array);
+		return array;
+	}
+
+	private void addTables(HashSet<Long> tables, long table, int melds, int first) {
+		tables.add(table);
+		if (melds == maxMelds) return;
+		for (int i = first; i < meldIndex.size(); i++) {
+			long meld = meldIndex.getCards(i);
+			if ((table & meld) != 0 || Long.bitCount(table | meld) > maxTableCards) continue;
+			addTables(tables, table | meld, melds + 1, i + 1);
+		}
+	}
+
+	/**
+	 * Enumerates the hands of at most {@link #maxHandCards} cards, all of them
+	 * playable, that go with a table
+	 * @param table - bitset of the codes of the cards on the table
+	 * @return canonical tables and hands, in pairs
+	 */
+	private long [] enumeratePositions(long table) {
+		Positions positions = new Positions(table);
+		positions.addHands(0, 0, 0);
+		return Arrays.copyOf(positions.pairs, positions.size);
+	}
+
+	/**
+	 * The positions of a table, enumerated by adding cards
+	 * to the hand in ascending order of code
+	 */
+	private final class Positions {
+
+		final long table;
+		final long [] canonical = new long[2];
+		long [] pairs = new long[64];
+		int size = 0;
+
+		Positions(long table) {
+			this.table = table;
+		}
+
+		void addHands(long hand, int cards, int first) {
+			if (TableSolver.playableCards(meldIndex, table, hand) == hand) {
+				EndgameTablebase.canonicalize(table, hand, canonical);
+				if (size + 2 > pairs.length) pairs = Arrays.copyOf(pairs, pairs.length * 2);
+				pairs[size++] = canonical[0];
+				pairs[size++] = canonical[1];
+			}
+			if (cards == maxHandCards) return;
+			for (int code = first; code < Card.NUM_OF_CODES; code++) {
+				long mask = 1L << code;
+				if ((table & mask) == 0) addHands(hand | mask, cards + 1, code + 1);
+			}
+		}
+
+	}
+
+	/**
+	 * Gathers the positions of every table into records, with their hashes
+	 * @param positions - canonical tables and hands, in pairs, of each table
+	 * @return records
+	 * @throws IllegalStateException if there are too many positions for a file
+	 */
+	private static long [] merge(long [][] positions) {
+		long total = 0;
+		for (long [] pairs : positions) total += pairs.length / 2;
+		if (total * EndgameTablebase.ENTRY_SIZE > Integer.MAX_VALUE / 2) {
+			throw new IllegalStateException("Too many positions");
+		}
+		long [] records = new long[(int) total * recordSize];
+		int record = 0;
+		for (long [] pairs : positions) {
+			for (int i = 0; i < pairs.length; i += 2, record += recordSize) {
+				records[record + hashField] = EndgameTablebase.hash(pairs[i], pairs[i + 1]);
+				records[record + tableField] = pairs[i];
+				records[record + handField] = pairs[i + 1];
+			}
+		}
+		return records;
+	}
+
+	/**
+	 * Sorts records by hash, table and hand, and drops repeated ones
+	 * @param records - records
+	 * @return number of distinct records, moved to the start of the array
+	 */
+	private static int deduplicate(long [] records) {
+		int total = records.length / recordSize;
+		sort(records, 0, total - 1);
+		int count = 0;
+		for (int i = 0; i < total; i++) {
+			if (count > 0 && compare(records, count - 1, i) == 0) continue;
+			System.arraycopy(records, i * recordSize, records, count * recordSize, recordSize);
+			count++;
+		}
+		return count;
+	}
+
+	private static int compare(long [] records, int i, int j) {
+		int a = i * recordSize, b = j * recordSize;
+		int c = Long.compareUnsigned(records[a + hashField], records[b + hashField]);
+		if (c == 0) c = Long.compare(records[a + tableField], records[b + tableField]);
+		if (c == 0) c = Long.compare(records[a + handField], records[b + handField]);
+		return c;
+	}
+
+	private static void swap(long [] records, int i, int j) {
+		for (int field = 0; field < recordSize; field++) {
+			long value = records[i * recordSize + field];
+			records[i * recordSize + field] = records[j * recordSize + field];
+			records[j * recordSize + field] = value;
+		}
+	}
+
+	/* quicksort of the records from low to high, inclusive, with three-way
+	 * partitions, since positions often repeat */
+	private static void sort(long [] records, int low, int high) {
+		while (low < high) {
+			swap(records, low, (low + high) >>> 1);
+			int lt = low, gt = high, i = low + 1;
+			while (i <= gt) {
+				int c = compare(records, i, lt);
+				if (c < 0) swap(records, i++, lt++);
+				else if (c > 0) swap(records, i, gt--);
+				else i++;
+			}
+			if (lt - low < high - gt) {
+				sort(records, low, lt - 1);
+				low = gt + 1;
+			} else {
+				sort(records, gt + 1, high);
+				high = lt - 1;
+			}
+		}
+	}
+
+	/**
+	 * Writes the header, the directory and the sorted records to a file
+	 */
+	private void write(Path path, long [] records, int count) throws IOException {
+		int directoryBits = 0;
+		while (directoryBits < 24 && count >>> directoryBits > EndgameTablebase.BUCKET_SIZE) directoryBits++;
+		int [] directory = new int[(1 << directoryBits) + 1];
+		for (int bucket = 0, i = 0; bucket < directory.length; bucket++) {
+			while (i < count && EndgameTablebase.bucketOf(records[i * recordSize + hashField], directoryBits) < bucket) i++;
+			directory[bucket] = i;
+		}
+		int offset = (int) EndgameTablebase.entriesOffset(directoryBits);
+		ByteBuffer buffer = ByteBuffer.allocate(offset);
+		buffer.putInt(EndgameTablebase.MAGIC);
+		buffer.putInt(EndgameTablebase.VERSION);
+		buffer.putLong(count);
+		buffer.putInt(directoryBits);
+		buffer.putInt(maxMelds);
+		buffer.putInt(maxTableCards);
+		buffer.putInt(maxHandCards);
+		for (int first : directory) buffer.putInt(first);
+		buffer.clear();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			while (buffer.hasRemaining()) channel.write(buffer);
+			buffer = ByteBuffer.allocate(EndgameTablebase.PAGE_SIZE * 16);
+			for (int i = 0; i < count; i++) {
+				if (buffer.remaining() < EndgameTablebase.ENTRY_SIZE) {
+					buffer.flip();
+					while (buffer.hasRemaining()) channel.write(buffer);
+					buffer.clear();
+				}
+				int record = i * recordSize;
+				buffer.putLong(records[record + hashField]);
+				buffer.putLong(records[record + tableField]);
+				buffer.putLong(records[record + handField]);
+				buffer.putLong(records[record + playedField]);
+			}
+			buffer.flip();
+			while (buffer.hasRemaining()) channel.write(buffer);
+		}
+	}
+
+	/**
+	 * A range of indexes, split in halves until small enough
+	 */
+	@SuppressWarnings("serial")
+	private final static class Range extends RecursiveAction {
+
+		final int from, to;
+		final IntConsumer body;
+
+		Range(int from, int to, IntConsumer body) {
+			this.from = from;
+			this.to = to;
+			this.body = body;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > leafSize) {
+				int middle = from + (to - from) / 2;
+				invokeAll(new Range(from, middle, body), new Range(middle, to, body));
+				return;
+			}
+			for (int i = from; i < to; i++) body.accept(i);
+		}
+
+	}
+
+}
@@ -0,0 +1,152 @@
+package game.solver;
+
+import java.util.Arrays;
+
+import game.card.Card;
+import game.card.CardRank;
+import game.rules.RuleTables;
+import game.rules.VariantRules;
+
+/**
+ *
+ * <p>A meld index enumerates every valid meld of a single deck once, so that
+ * searches never generate candidate melds themselves. Each meld is identified
+ * by its position in the index, and carries the bitset of the codes of its
+ * cards (see {@link Card#getCode()}) and its points.
+ *
+ * <p>Melds are kept in parallel arrays, sorted by the code of their lowest card.
+ * Thus the melds contained in a hand are found by subset tests over the
+ * contiguous range of melds of each card of the hand (see {@link #findMelds}).
+ * The melds that contain a card are those of the inverted list of the rule
+ * tables (see {@link RuleTables#getMeldsWith(int)}), which is shared rather
+ * than built again.
+ *
+ * <p>Indexes are immutable and can be shared between threads. Arrays returned
+ * by the getters are shared and must not be changed.
+ *
+ * @author guidanoli
+ * @see RuleTables
+ *
+ */
+public final class MeldIndex {
+
+	/* auxiliary constants */
+	private final static int numOfRanks = CardRank.values().length;
+	private final static long suitMask = (1L << numOfRanks) - 1;
+
+	/**
+	 * Index of every meld of the classic rules: every run of 3 to 13 cards
+	 * of each suit and every set of 3 or 4 suits of each rank
+	 * @see VariantRules#CLASSIC
+	 */
+	public final static MeldIndex CLASSIC = new MeldIndex(VariantRules.CLASSIC.compile());
+
+	private final RuleTables rules;
+	private final long [] cards;
+	private final int [] points;
+
+	/**
+	 * For each card code, the position of the first meld whose lowest card
+	 * has such code, followed by the number of melds
+	 */
+	private final int [] firstByLowest = new int[Card.NUM_OF_CODES + 1];
+
+	/**
+	 * Constructs the index of the melds of a variant
+	 * @param rules - rule tables of the variant
+	 */
+	public MeldIndex(RuleTables rules) {
+		this.rules = rules;
+		long [] melds = rules.getMelds();
+		/* sorting by the lowest card first keeps the order of the rules otherwise */
+		Long [] sorted = new Long[melds.length];
+		for (int i = 0; i < melds.length; i++) sorted[i] = melds[i];
+		Arrays.sort(sorted, (a, b) -> Long.numberOfTrailingZeros(a) - Long.numberOfTrailingZeros(b));
+		this.cards = new long[melds.length];
+		this.points = new int[melds.length];
+		for (int i = 0; i < cards.length; i++) {
+			cards[i] = sorted[i];
+			points[i] = rules.getPoints().getPoints(cards[i]);
+			firstByLowest[Long.numberOfTrailingZeros(cards[i]) + 1]++;
+		}
+		for (int code = 0; code < Card.NUM_OF_CODES; code++) firstByLowest[code + 1] += firstByLowest[code];
+	}
+
+	/**
+	 * @return rule tables of the variant
+	 */
+	public RuleTables getRules() {
+		return rules;
+	}
+
+	/**
+	 * @return number of melds
+	 */
+	public int size() {
+		return cards.length;
+	}
+
+	/**
+	 * @param meld - position of a meld in the index
+	 * @return bitset of the codes of the cards of the meld
+	 */
+	public long getCards(int meld) {
+		return cards[meld];
+	}
+
+	/**
+	 * @param meld - position of a meld in the index
+	 * @return sum of the points of the cards of the meld
+	 */
+	public int getPoints(int meld) {
+		return points[meld];
+	}
+
+	/**
+	 * @param meld - position of a meld in the index
+	 * @return {@code true} if meld is a run (cards of the same suit), or
+	 * {@code false} if it is a set (cards of the same rank)
+	 */
+	public boolean isRun(int meld) {
+		return isRun(cards[meld]);
+	}
+
+	/**
+	 * @param code - card code
+	 * @return bitsets of the codes of the cards of the melds that contain such card
+	 * @see RuleTables#getMeldsWith(int)
+	 */
+	public long [] getMeldsWith(int code) {
+		return rules.getMeldsWith(code);
+	}
+
+	/**
+	 * Finds every meld made up of cards of a hand
+	 * @param hand - bitset of the codes of the cards in a hand
+	 * @param melds - array long enough to hold the positions of the melds
+	 * (at most {@link #size()})
+	 * @return number of melds found, whose positions are written,
+	 * in ascending order, at the beginning of the array
+	 */
+	public int findMelds(long hand, int [] melds) {
+		int count = 0;
+		for (long mask = hand; mask != 0; mask &= mask - 1) {
+			int code = Long.numberOfTrailingZeros(mask);
+			for (int i = firstByLowest[code]; i < firstByLowest[code + 1]; i++) {
+				if ((cards[i] & ~hand) == 0) melds[count++] = i;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @param meld - bitset of a valid meld
+	 * @return {@code true} if meld is a run (cards of the same suit), or
+	 * {@code false} if it is a set (cards of the same rank)
+	 */
+	static boolean isRun(long meld) {
+		int shift = Long.numberOfTrailingZeros(meld) / numOfRanks * numOfRanks;
+		return (meld & ~(suitMask << shift)) == 0;
+	}
+
+}
@@ -0,0 +1,159 @@
+package game.solver;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import game.card.Card;
+import game.rules.RuleTables;
+import game.rules.VariantRules;
+import game.scoring.PointTable;
+
+/**
+ *
+ * <p>An opening checker tells whether a hand can make the initial meld
+ * of a player, which in many variants must be worth at least a number of
+ * points (e.g. 30) and be made up of cards from the hand alone, and with
+ * which melds. Melds, points and the threshold are those of the
+ * {@link RuleTables} of a variant.
+ *
+ * <p>The search picks, at each node, the card worth the most points among
+ * those that still belong to some meld, and either melds it in each of the
+ * melds that contain it (see {@link RuleTables#getMeldsWith(int)}) or leaves
+ * it in the hand. A branch is pruned as soon as the points already melded plus the
+ * points of every card that could still be melded fall short of the
+ * threshold, so that hands of 14 to 20 cards are answered in a few dozen
+ * nodes at most, well within a budget of microseconds. The search stops at
+ * the first opening found.
+ *
+ * <p>Melds with the ace after the king (see {@link game.rules.AceRule}) are
+ * not card sequences of this project, thus they are only given as bitsets
+ * (see {@link OpeningSolution#getMelds()}).
+ *
+ * <p>Checkers are immutable and can be shared between threads.
+ *
+ * @author guidanoli
+ * @see OpeningSolution
+ *
+ */
+public class OpeningChecker {
+
+	private final RuleTables rules;
+	private final PointTable points;
+	private final int threshold;
+
+	/**
+	 * Constructs an opening checker for the classic rules
+	 * @param points - points of each card
+	 * @param threshold - least sum of the points of the initial meld
+	 * @throws IllegalArgumentException if the threshold is negative
+	 * @see VariantRules#CLASSIC
+	 */
+	public OpeningChecker(PointTable points, int threshold) {
+		this(VariantRules.Builder.newInstance().points(points).openingThreshold(threshold).build().compile());
+	}
+
+	/**
+	 * Constructs an opening checker
+	 * @param rules - rule tables of the variant
+	 */
+	public OpeningChecker(RuleTables rules) {
+		this.rules = rules;
+		this.points = rules.getPoints();
+		this.threshold = rules.getOpeningThreshold();
+	}
+
+	/**
+	 * @return least sum of the points of the initial meld
+	 */
+	public int getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * Checks whether a hand can open
+	 * @param hand - cards in the hand
+	 * @param budget - deadline and/or maximum number of nodes
+	 * @return melds of the opening, if found before the budget ran out
+	 * @throws IllegalArgumentException if a card is repeated
+	 */
+	public OpeningSolution check(Collection<Card> hand, SearchBudget budget) {
+		long mask = 0;
+		for ( Card card : hand ) {
+			if ( (mask & card.getMask()) != 0 ) throw new IllegalArgumentException("Repeated card");
+			mask |= card.getMask();
+		}
+		return check(mask, budget);
+	}
+
+	/**
+	 * Checks whether a hand can open
+	 * @param hand - bitset of the codes of the cards in the hand
+	 * @param budget - deadline and/or maximum number of nodes
+	 * @return melds of the opening, if found before the budget ran out
+	 */
+	public OpeningSolution check(long hand, SearchBudget budget) {
+		Search search = new Search(budget);
+		boolean found = search.search(hand, 0);
+		if ( !found ) return new OpeningSolution(null, 0, !search.stopped, search.nodes, 0);
+		long [] melds = Arrays.copyOf(search.path, search.depth);
+		long played = 0;
+		for ( long meld : melds ) played |= meld;
+		return new OpeningSolution(melds, played, true, search.nodes, points.getPoints(played));
+	}
+
+	/**
+	 * State of a single search
+	 */
+	private final class Search {
+
+		final SearchBudget budget;
+		final long [] path = new long[Card.NUM_OF_CODES / rules.getMinMeldSize()];
+		int depth = 0;
+		long nodes = 0;
+		boolean stopped = false;
+
+		Search(SearchBudget budget) {
+			this.budget = budget;
+		}
+
+		/**
+		 * @param available - bitset of the cards that may still be melded
+		 * @param melded - sum of the points of the melds in {@link #path}
+		 * @return {@code true} if an opening was found (and left in {@link #path}),
+		 * or {@code false} if else.
+		 */
+		boolean search(long available, int melded) {
+			if ( melded >= threshold && depth > 0 ) return true;
+			if ( budget.isExhausted(++nodes) ) {
+				stopped = true;
+				return false;
+			}
+			long usable = 0;
+			int best = -1, bestPoints = -1;
+			for ( long mask = available; mask != 0; mask &= mask - 1 ) {
+				int code = Long.numberOfTrailingZeros(mask);
+				for ( long meld : rules.getMeldsWith(code) ) {
+					if ( (meld & ~available) == 0 ) {
+						usable |= 1L << code;
+						if ( points.getPoints(code) > bestPoints ) {
+							best = code;
+							bestPoints = points.getPoints(code);
+						}
+						break;
+					}
+				}
+			}
+			if ( best == -1 || melded + points.getPoints(usable) < threshold ) return false;
+			for ( long meld : rules.getMeldsWith(best) ) {
+				if ( (meld & ~usable) != 0 ) continue;
+				path[depth++] = meld;
+				if ( search(usable & ~meld, melded + points.getPoints(meld)) ) return true;
+				depth--;
+				if ( stopped ) return false;
+			}
+			return search(usable & ~(1L << best), melded); // card stays in hand
+		}
+
+	}
+
+}
@@ -0,0 +1,41 @@
+package game.solver;
+
+/**
+ *
+ * <p>An opening solution is the outcome of an {@link OpeningChecker}
+ * search: melds made up of cards from the hand alone whose points add up
+ * to at least the threshold of the initial meld.
+ *
+ * <p>It is found if the hand can open. It is optimal if the answer is
+ * certain, that is, if the hand can open, or if the search proved that
+ * it cannot before the budget ran out.
+ *
+ * @author guidanoli
+ * @see OpeningChecker
+ *
+ */
+public class OpeningSolution extends TableSolution {
+
+	private final int points;
+
+	/**
+	 * Constructs an opening solution
+	 * @param melds - bitsets of the melds, or {@code null} if the hand cannot open
+	 * @param playedMask - bitset of the cards melded
+	 * @param optimal - whether the answer is certain
+	 * @param nodes - number of nodes visited by the search
+	 * @param points - sum of the points of the cards melded
+	 */
+	OpeningSolution(long [] melds, long playedMask, boolean optimal, long nodes, int points) {
+		super(melds, playedMask, optimal, nodes);
+		this.points = points;
+	}
+
+	/**
+	 * @return sum of the points of the cards melded
+	 */
+	public int getPoints() {
+		return points;
+	}
+
+}
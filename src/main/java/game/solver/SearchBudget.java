@@ -0,0 +1,90 @@
+package game.solver;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ * <p>A search budget bounds how long a search may run, either by a
+ * deadline (in terms of {@link System#nanoTime()}), by a maximum number
+ * of visited nodes, or by both. A search that exhausts its budget
+ * stops and answers with the best result found so far.
+ *
+ * <p>Budgets are immutable and can be shared between searches.
+ *
+ * @author guidanoli
+ *
+ */
+public final class SearchBudget {
+
+	/* how many nodes are visited between two clock readings */
+	private final static long clockInterval = 1024;
+
+	private final static SearchBudget unlimited = new SearchBudget(false, 0, Long.MAX_VALUE);
+
+	private final boolean hasDeadline;
+	private final long deadline;
+	private final long maxNodes;
+
+	private SearchBudget(boolean hasDeadline, long deadline, long maxNodes) {
+		this.hasDeadline = hasDeadline;
+		this.deadline = deadline;
+		this.maxNodes = maxNodes;
+	}
+
+	/**
+	 * @return budget that never runs out
+	 */
+	public static SearchBudget unlimited() {
+		return unlimited;
+	}
+
+	/**
+	 * @param deadline - instant, as given by {@link System#nanoTime()},
+	 * after which the search must stop
+	 * @return budget bounded by the deadline
+	 */
+	public static SearchBudget deadline(long deadline) {
+		return new SearchBudget(true, deadline, Long.MAX_VALUE);
+	}
+
+	/**
+	 * @param timeout - maximum duration of the search, counting from now
+	 * @param unit - time unit of the timeout
+	 * @return budget bounded by the deadline {@code now + timeout}
+	 */
+	public static SearchBudget timeout(long timeout, TimeUnit unit) {
+		return deadline(System.nanoTime() + unit.toNanos(timeout));
+	}
+
+	/**
+	 * @param maxNodes - maximum number of nodes visited by the search
+	 * @return budget bounded by the number of nodes
+	 * @throws IllegalArgumentException if {@code maxNodes} is negative
+	 */
+	public static SearchBudget nodes(long maxNodes) {
+		return unlimited().withNodes(maxNodes);
+	}
+
+	/**
+	 * @param maxNodes - maximum number of nodes visited by the search
+	 * @return budget with the same deadline as this one, also bounded
+	 * by the number of nodes
+	 * @throws IllegalArgumentException if {@code maxNodes} is negative
+	 */
+	public SearchBudget withNodes(long maxNodes) {
+		if ( maxNodes < 0 ) throw new IllegalArgumentException("Negative node budget");
+		return new SearchBudget(hasDeadline, deadline, maxNodes);
+	}
+
+	/**
+	 * Checks whether the budget has run out. The clock is only read
+	 * once every few nodes, so calling it on every node is cheap.
+	 * @param nodes - number of nodes visited so far
+	 * @return {@code true} if the search must stop, or {@code false} if else.
+	 */
+	public boolean isExhausted(long nodes) {
+		if ( nodes >= maxNodes ) return true;
+		return hasDeadline && nodes % clockInterval == 0 && System.nanoTime() - deadline >= 0;
+	}
+
+}
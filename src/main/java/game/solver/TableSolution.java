@@ -0,0 +1,134 @@
+package game.solver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import game.card.Card;
+import game.rules.VariantRules;
+import game.sequence.CardSequence;
+import game.sequence.CardSequenceBuilder;
+import game.sequence.types.RankCardSequenceType;
+import game.sequence.types.SuitCardSequenceType;
+
+/**
+ *
+ * <p>A table solution is the outcome of a {@link TableSolver} search:
+ * a rearrangement of all of the cards on the table, plus some of the
+ * cards in hand, into stable card sequences.
+ *
+ * <p>Besides the rearrangement itself, it tells whether the search could
+ * prove that no other rearrangement plays more cards from the hand.
+ *
+ * @author guidanoli
+ * @see TableSolver
+ *
+ */
+public class TableSolution {
+
+	private final long [] melds;
+	private final long playedMask;
+	private final boolean optimal;
+	private final long nodes;
+
+	/**
+	 * Constructs a table solution
+	 * @param melds - bitsets of the melds of the rearrangement,
+	 * or {@code null} if no rearrangement was found
+	 * @param playedMask - bitset of the cards played from hand
+	 * @param optimal - whether the search was exhaustive
+	 * @param nodes - number of nodes visited by the search
+	 */
+	TableSolution(long [] melds, long playedMask, boolean optimal, long nodes) {
+		this.melds = melds;
+		this.playedMask = playedMask;
+		this.optimal = optimal;
+		this.nodes = nodes;
+	}
+
+	/**
+	 * @return {@code true} if a valid rearrangement was found,
+	 * or {@code false} if else (in which case the table cannot be
+	 * rearranged, or the budget ran out before any was found).
+	 */
+	public boolean isFound() {
+		return melds != null;
+	}
+
+	/**
+	 * @return {@code true} if the search proved that no rearrangement
+	 * plays more cards from the hand (or that there is no rearrangement
+	 * at all), or {@code false} if the budget ran out before.
+	 */
+	public boolean isOptimal() {
+		return optimal;
+	}
+
+	/**
+	 * @return number of search nodes visited
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @return number of cards played from the hand
+	 */
+	public int getPlayedCount() {
+		return Long.bitCount(playedMask);
+	}
+
+	/**
+	 * @return bitset of the codes of the cards played from the hand
+	 */
+	long getPlayedMask() {
+		return playedMask;
+	}
+
+	/**
+	 * @return cards played from the hand, in ascending order of code
+	 */
+	public Set<Card> getPlayedCards() {
+		Set<Card> played = new LinkedHashSet<Card>();
+		for ( long mask = playedMask; mask != 0; mask &= mask - 1 ) {
+			played.add(Card.fromCode(Long.numberOfTrailingZeros(mask)));
+		}
+		return played;
+	}
+
+	/**
+	 * @return bitsets of the codes of the cards of each meld,
+	 * or an empty array if no rearrangement was found
+	 */
+	public long [] getMelds() {
+		return melds == null ? new long[0] : melds.clone();
+	}
+
+	/**
+	 * Builds the stable card sequences of the rearrangement. Each call
+	 * builds new card sequence objects, without listeners. Card sequences
+	 * follow the {@link VariantRules#CLASSIC} rules, thus melds that only other
+	 * rules allow, such as runs with a high ace under {@link VariantRules#RUMMY_500},
+	 * cannot be built: their bitsets are still given by {@link #getMelds()}.
+	 * @return card sequences, or an empty list if no rearrangement was found
+	 * @throws IllegalArgumentException if a meld is not a card sequence
+	 * under the classic rules
+	 */
+	public List<CardSequence> getSequences() {
+		if ( melds == null ) return Collections.emptyList();
+		List<CardSequence> sequences = new ArrayList<CardSequence>(melds.length);
+		for ( long meld : melds ) {
+			CardSequenceBuilder builder = new CardSequenceBuilder();
+			if ( MeldIndex.isRun(meld) ) builder.setType(() -> new RankCardSequenceType());
+			else builder.setType(() -> new SuitCardSequenceType());
+			for ( long mask = meld; mask != 0; mask &= mask - 1 ) {
+				builder.addCard(Card.fromCode(Long.numberOfTrailingZeros(mask)));
+			}
+			sequences.add(builder.build());
+		}
+		return sequences;
+	}
+
+}
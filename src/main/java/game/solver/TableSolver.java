@@ -0,0 +1,226 @@
+package game.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+import game.card.Card;
+import game.sequence.CardSequence;
+import game.table.CardSequenceTable;
+
+/**
+ *
+ * <p>A table solver searches for rearrangements of the cards on a
+ * {@link CardSequenceTable} that also play cards from a player's hand.
+ * Every card on the table must remain on the table, and every card
+ * sequence of the rearrangement must be stable. The best rearrangement
+ * is the one that plays the most cards from the hand.
+ *
+ * <p>The search is <i>anytime</i>: it is bounded by a {@link SearchBudget}
+ * and, when the budget runs out, it answers with the best rearrangement
+ * found so far. To that end, it deepens iteratively on the number of cards
+ * played from the hand, starting from the current arrangement of the table
+ * (when it is stable). Only when every depth has been searched exhaustively
+ * is the solution reported as optimal.
+ *
+ * <p>Cards are handled as bitsets of card codes, thus the table and the
+ * hand must not hold two equal cards. Melds are those of a {@link MeldIndex},
+ * which is the one of the classic rules unless another one is given. Melds
+ * with the ace after the king (see {@link game.rules.AceRule}) are not card
+ * sequences of this project, thus they are only given as bitsets
+ * (see {@link TableSolution#getMelds()}).
+ *
+ * @author guidanoli
+ * @see TableSolution
+ *
+ */
+public class TableSolver {
+
+	private final MeldIndex meldIndex;
+	private final long tableMask;
+	private final long handMask;
+	private final long [] currentMelds;
+
+	/* search state, with room for as many melds as a single deck holds */
+	private final long [] path;
+	private int depth;
+	private long nodes;
+	private boolean stopped;
+	private SearchBudget budget;
+
+	/**
+	 * Constructs a table solver. The cards on the table and in the hand
+	 * are read at construction time, so later changes are not seen.
+	 * @param table - card sequence table
+	 * @param hand - cards in the player's hand
+	 * @throws IllegalArgumentException if a card is repeated
+	 * @see MeldIndex#CLASSIC
+	 */
+	public TableSolver(CardSequenceTable table, Collection<Card> hand) {
+		this(table, hand, MeldIndex.CLASSIC);
+	}
+
+	/**
+	 * Constructs a table solver. The cards on the table and in the hand
+	 * are read at construction time, so later changes are not seen.
+	 * @param table - card sequence table
+	 * @param hand - cards in the player's hand
+	 * @param meldIndex - index of the melds of the variant
+	 * @throws IllegalArgumentException if a card is repeated
+	 */
+	public TableSolver(CardSequenceTable table, Collection<Card> hand, MeldIndex meldIndex) {
+		long tableMask = 0;
+		ArrayList<Long> currentMelds = new ArrayList<Long>(table.size());
+		for ( CardSequence sequence : table ) {
+			long meld = sequence.getMask();
+			if ( (tableMask & meld) != 0 ) throw new IllegalArgumentException("Repeated card");
+			tableMask |= meld;
+			currentMelds.add(meld);
+		}
+		long handMask = 0;
+		for ( Card card : hand ) handMask = addCard(handMask, card);
+		if ( (tableMask & handMask) != 0 ) throw new IllegalArgumentException("Repeated card");
+		this.meldIndex = meldIndex;
+		this.path = new long[Card.NUM_OF_CODES / meldIndex.getRules().getMinMeldSize()];
+		this.tableMask = tableMask;
+		this.handMask = playableCards(meldIndex, tableMask, handMask);
+		if ( table.isStable() ) {
+			this.currentMelds = new long[currentMelds.size()];
+			for ( int i = 0; i < this.currentMelds.length; i++ ) {
+				this.currentMelds[i] = currentMelds.get(i);
+			}
+		} else {
+			this.currentMelds = null;
+		}
+	}
+
+	/**
+	 * Constructs a table solver from bitsets of card codes, e.g. for
+	 * positions that are not on a table yet. The cards on the table
+	 * are not taken to be arranged in any way.
+	 * @param tableMask - bitset of cards on the table
+	 * @param handMask - bitset of cards in hand
+	 * @param meldIndex - index of the melds of the variant
+	 * @throws IllegalArgumentException if a card is repeated
+	 */
+	TableSolver(long tableMask, long handMask, MeldIndex meldIndex) {
+		if ( (tableMask & handMask) != 0 ) throw new IllegalArgumentException("Repeated card");
+		this.meldIndex = meldIndex;
+		this.path = new long[Card.NUM_OF_CODES / meldIndex.getRules().getMinMeldSize()];
+		this.tableMask = tableMask;
+		this.handMask = playableCards(meldIndex, tableMask, handMask);
+		this.currentMelds = null;
+	}
+
+	/**
+	 * Searches for the best rearrangement without any bound
+	 * @return optimal solution
+	 * @see #solve(SearchBudget)
+	 */
+	public TableSolution solve() {
+		return solve(SearchBudget.unlimited());
+	}
+
+	/**
+	 * Searches for the best rearrangement within a budget
+	 * @param budget - deadline and/or maximum number of nodes
+	 * @return best solution found before the budget ran out
+	 */
+	public TableSolution solve(SearchBudget budget) {
+		this.budget = budget;
+		nodes = 0;
+		stopped = false;
+		long [] bestMelds = currentMelds;
+		long bestPlayed = 0;
+		int handSize = Long.bitCount(handMask);
+		for ( int played = 0; played <= handSize && !stopped; played++ ) {
+			depth = 0;
+			if ( search(tableMask, handMask, played) ) {
+				bestMelds = Arrays.copyOf(path, depth);
+				bestPlayed = 0;
+				for ( long meld : bestMelds ) bestPlayed |= meld & handMask;
+			}
+		}
+		boolean playsWholeHand = bestMelds != null && Long.bitCount(bestPlayed) == handSize;
+		return new TableSolution(bestMelds, bestPlayed, !stopped || playsWholeHand, nodes);
+	}
+
+	/**
+	 * Searches for a partition of the required cards and exactly {@code remaining}
+	 * optional cards into melds. Always covers the lowest required card first, so
+	 * that each partition is visited only once.
+	 * @param required - bitset of cards that must be covered
+	 * @param optional - bitset of cards that may be covered
+	 * @param remaining - number of optional cards yet to be covered
+	 * @return {@code true} if a partition was found (and left in {@link #path}),
+	 * or {@code false} if else.
+	 */
+	private boolean search(long required, long optional, int remaining) {
+		if ( budget.isExhausted(++nodes) ) {
+			stopped = true;
+			return false;
+		}
+		if ( Long.bitCount(optional) < remaining ) return false;
+		if ( required == 0 ) {
+			if ( remaining == 0 ) return true;
+			int code = Long.numberOfTrailingZeros(optional);
+			for ( long meld : meldIndex.getMeldsWith(code) ) {
+				int size = Long.bitCount(meld);
+				if ( (meld & ~optional) != 0 || size > remaining ) continue;
+				path[depth++] = meld;
+				if ( search(0, optional & ~meld, remaining - size) ) return true;
+				depth--;
+				if ( stopped ) return false;
+			}
+			return search(0, optional & ~(1L << code), remaining); // card stays in hand
+		}
+		int code = Long.numberOfTrailingZeros(required);
+		long available = required | optional;
+		for ( long meld : meldIndex.getMeldsWith(code) ) {
+			if ( (meld & ~available) != 0 ) continue;
+			int used = Long.bitCount(meld & optional);
+			if ( used > remaining ) continue;
+			path[depth++] = meld;
+			if ( search(required & ~meld, optional & ~meld, remaining - used) ) return true;
+			depth--;
+			if ( stopped ) return false;
+		}
+		return false;
+	}
+
+	/**
+	 * Discards hand cards that do not belong to any meld made up of
+	 * cards from the table and from the hand
+	 * @param meldIndex - index of the melds of the variant
+	 * @param tableMask - bitset of cards on the table
+	 * @param handMask - bitset of cards in hand
+	 * @return bitset of hand cards that could be played
+	 */
+	static long playableCards(MeldIndex meldIndex, long tableMask, long handMask) {
+		long available = tableMask | handMask;
+		long playable = 0;
+		for ( long mask = handMask; mask != 0; mask &= mask - 1 ) {
+			int code = Long.numberOfTrailingZeros(mask);
+			for ( long meld : meldIndex.getMeldsWith(code) ) {
+				if ( (meld & ~available) == 0 ) {
+					playable |= 1L << code;
+					break;
+				}
+			}
+		}
+		return playable;
+	}
+
+	/**
+	 * @param mask - bitset of cards
+	 * @param card - card to be added
+	 * @return bitset with the card added
+	 * @throws IllegalArgumentException if card is already in the bitset
+	 */
+	private static long addCard(long mask, Card card) {
+		long cardMask = card.getMask();
+		if ( (mask & cardMask) != 0 ) throw new IllegalArgumentException("Repeated card");
+		return mask | cardMask;
+	}
+
+}
@@ -1,11 +1,21 @@
 package game.table;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.Set;
 
 import game.card.Card;
+import game.card.CardRank;
+import game.card.CardSuit;
 import game.sequence.CardSequence;
+import game.sequence.CardSequenceBuilder;
 import game.sequence.CardSequenceListener;
+import game.sequence.types.RankCardSequenceType;
+import game.sequence.types.SuitCardSequenceType;
 
 /**
  * 
@@ -24,6 +34,26 @@ import game.sequence.CardSequenceListener;
  * delegated to an observer that implements the {@link CardSequenceTableListener}
  * interface. 
  * 
+ * <p>A turn can be validated without re-checking every card sequence on the
+ * table: after a {@link #checkpoint()}, the table keeps track of the card
+ * sequences created, mutated or split through its own methods
+ * ({@link #addCard(CardSequence, Card)}, {@link #removeCard(CardSequence, Card)},
+ * {@link #split(CardSequence, int)} and {@link #addSequence(CardSequence)}),
+ * and {@link #validateDirty()} re-checks only those.
+ * 
+ * <p>Every operation requested to the table through its public methods is
+ * notified, once successful, to the {@link CardSequenceTableOperationListener}
+ * objects registered through {@link #addOperationListener(CardSequenceTableOperationListener)}.
+ * Card sequences are identified in these events by their position on the table,
+ * which is deterministic: new card sequences are always appended to the end.
+ * 
+ * <p>The state of the table can be saved to and loaded from a compact binary
+ * snapshot through {@link #writeTo(ByteBuffer)} and {@link #readFrom(ByteBuffer)}.
+ * A snapshot consists of a header (magic number, format version and number of
+ * card sequences) followed by a 2-byte record for each card sequence: either a
+ * suit and an interval of ranks (for {@link RankCardSequenceType}), or a rank
+ * and a mask of suits (for {@link SuitCardSequenceType}).
+ * 
  * @author guidanoli
  * @see CardSequence
  * @see CardSequenceTableListener
@@ -31,6 +61,24 @@ import game.sequence.CardSequenceListener;
  */
 public class CardSequenceTable implements Iterable<CardSequence> {
 
+	/**
+	 * Magic number that opens every snapshot
+	 */
+	public final static short SNAPSHOT_MAGIC = 0x5254; // "RT"
+	
+	/**
+	 * Version of the snapshot format written by {@link #writeTo(ByteBuffer)}
+	 */
+	public final static byte SNAPSHOT_VERSION = 1;
+	
+	/* snapshot layout */
+	private final static int snapshotHeaderSize = 5;
+	private final static int snapshotRecordSize = 2;
+	private final static int suitRecordTag = 0x80;
+	private final static int numOfRanks = CardRank.values().length;
+	private final static int numOfSuits = CardSuit.values().length;
+	private final static long rankMask = (1L << numOfRanks) - 1;
+
 	/**
 	 * The list that contains all of the card sequences currently
 	 * in the table.
@@ -42,6 +90,27 @@ public class CardSequenceTable implements Iterable<CardSequence> {
 	 * card sequence table (e.g. card being removed)
 	 */
 	private CardSequenceTableListener tableListener;
+	
+	/**
+	 * Whether changes are being tracked since a checkpoint
+	 */
+	private boolean tracking = false;
+	
+	/**
+	 * The card sequences created, mutated or split since the last checkpoint
+	 */
+	private Set<CardSequence> dirtySequences = Collections.newSetFromMap(new IdentityHashMap<CardSequence, Boolean>());
+	
+	/**
+	 * The cards taken from the table since the last checkpoint
+	 * and not yet put back
+	 */
+	private ArrayList<Card> takenCards = new ArrayList<Card>();
+	
+	/**
+	 * The listeners notified of every operation requested to the table
+	 */
+	private ArrayList<CardSequenceTableOperationListener> operationListeners = new ArrayList<CardSequenceTableOperationListener>();
 		
 	/**
 	 * The listener that handles events within the scope of the
@@ -51,7 +120,7 @@ public class CardSequenceTable implements Iterable<CardSequence> {
 		
 		public void cardSequenceIsEmpty(CardSequence cardSequence) {
 			// if a card sequence is empty, it must be removed
-			CardSequenceTable.this.removeSequence(cardSequence);
+			CardSequenceTable.this.removeSequence(indexOf(cardSequence));
 		}
 		
 		public void cardSequenceAdded(CardSequence cardSequence) {
@@ -60,8 +129,13 @@ public class CardSequenceTable implements Iterable<CardSequence> {
 		}
 		
 		public void cardRemovedFromSequence(Card card) {
-			// delegates the event to the CardSequenceTableListener
-			CardSequenceTable.this.tableListener.cardRemoved(card);
+			if (tracking) {
+				// holds the event until the turn is validated
+				takenCards.add(card);
+			} else {
+				// delegates the event to the CardSequenceTableListener
+				CardSequenceTable.this.tableListener.cardRemoved(card);
+			}
 		}
 		
 	};
@@ -83,7 +157,9 @@ public class CardSequenceTable implements Iterable<CardSequence> {
 	 * or {@code false} if else.
 	 */
 	public boolean addSequence(CardSequence sequence) {
-		return addSequence(sequence, false);
+		if (!addSequence(sequence, false)) return false;
+		for (CardSequenceTableOperationListener listener : operationListeners) listener.sequenceAdded(sequence);
+		return true;
 	}
 	
 	/**
@@ -96,30 +172,298 @@ public class CardSequenceTable implements Iterable<CardSequence> {
 	 */
 	private boolean addSequence(CardSequence sequence, boolean allowUnstability) {
 		if (!allowUnstability && !sequence.isStable()) return false;
-		for (CardSequence seq : this) if (seq == sequence) return false; // no duplicates
+		if (contains(sequence)) return false; // no duplicates
 		sequence.addListener(thisListener);
 		cardSequenceList.add(sequence);
+		if (tracking) {
+			dirtySequences.add(sequence);
+			for (Card card : sequence) takenCards.remove(card); // cards put back
+		}
 		return true;
 	}
 	
 	/**
 	 * Tries to remove a card sequence from the table.
+	 * After a checkpoint, its cards are taken from the table.
 	 * @param sequence - card sequence to be removed
 	 * @return {@code true} if card sequence could be removed,
 	 * or {@code false} if else.
 	 */
 	public boolean removeSequence(CardSequence sequence) {
-		boolean exists = cardSequenceList.contains(sequence);
-		if (!exists) return false; // cannot remove an inexistent card sequence
-		cardSequenceList.remove(sequence);
+		int index = cardSequenceList.indexOf(sequence); // makes use of equals
+		if (index == -1) return false; // cannot remove an inexistent card sequence
+		if (tracking) {
+			// its cards are taken from the table as well
+			for (Card card : cardSequenceList.get(index)) takenCards.add(card);
+		}
+		removeSequence(index);
+		for (CardSequenceTableOperationListener listener : operationListeners) listener.sequenceRemoved(index);
 		return true;
 	}
 	
+	/**
+	 * Removes a sequence from the table.
+	 * @param index - position of the card sequence on the table,
+	 * or -1, in which case nothing is done
+	 */
+	private void removeSequence(int index) {
+		if (index == -1) return;
+		dirtySequences.remove(cardSequenceList.remove(index));
+	}
+	
+	/**
+	 * Tries to add a card to a card sequence on the table.
+	 * After a checkpoint, the card sequence is marked as dirty.
+	 * @param sequence - card sequence on the table
+	 * @param card - card to be added
+	 * @return {@code true} if card could be added,
+	 * or {@code false} if else.
+	 * @see CardSequence#addCard(Card)
+	 */
+	public boolean addCard(CardSequence sequence, Card card) {
+		int index = indexOf(sequence);
+		if (index == -1) return false;
+		if (!sequence.addCard(card)) return false;
+		if (tracking) {
+			dirtySequences.add(sequence);
+			takenCards.remove(card); // card put back
+		}
+		for (CardSequenceTableOperationListener listener : operationListeners) listener.cardAdded(index, card);
+		return true;
+	}
+	
+	/**
+	 * Tries to remove a card from a card sequence on the table.
+	 * After a checkpoint, the card sequence is marked as dirty.
+	 * @param sequence - card sequence on the table
+	 * @param card - card to be removed
+	 * @return {@code true} if card could be removed,
+	 * or {@code false} if else.
+	 * @see CardSequence#removeCard(Card)
+	 */
+	public boolean removeCard(CardSequence sequence, Card card) {
+		int index = indexOf(sequence);
+		if (index == -1) return false;
+		if (!sequence.removeCard(card)) return false;
+		if (tracking && sequence.size() > 0) dirtySequences.add(sequence); // empty ones leave the table
+		for (CardSequenceTableOperationListener listener : operationListeners) listener.cardRemoved(index, card);
+		return true;
+	}
+	
+	/**
+	 * Tries to split a card sequence on the table.
+	 * After a checkpoint, both card sequences are marked as dirty.
+	 * @param sequence - card sequence on the table
+	 * @param index - index of the first card of the second sequence
+	 * @return {@code true} if card sequence could be split,
+	 * or {@code false} if else.
+	 * @see CardSequence#split(int)
+	 */
+	public boolean split(CardSequence sequence, int index) {
+		int sequenceIndex = indexOf(sequence);
+		if (sequenceIndex == -1) return false;
+		if (!sequence.split(index)) return false;
+		if (tracking) dirtySequences.add(sequence);
+		for (CardSequenceTableOperationListener listener : operationListeners) listener.sequenceSplit(sequenceIndex, index);
+		return true;
+	}
+	
+	/**
+	 * Registers a listener to be notified of every operation
+	 * requested to the table from now on
+	 * @param listener - card sequence table operation listener
+	 */
+	public void addOperationListener(CardSequenceTableOperationListener listener) {
+		operationListeners.add(listener);
+	}
+	
+	/**
+	 * Unregisters a listener of operations requested to the table
+	 * @param listener - card sequence table operation listener
+	 * @return {@code true} if listener was registered,
+	 * or {@code false} if else.
+	 */
+	public boolean removeOperationListener(CardSequenceTableOperationListener listener) {
+		return operationListeners.remove(listener);
+	}
+	
+	/**
+	 * Starts tracking the changes made to the table, forgetting
+	 * about any changes tracked before. Until the next successful
+	 * {@link #validateDirty()}, the cards removed from sequences
+	 * are not reported to the {@link CardSequenceTableListener}.
+	 */
+	public void checkpoint() {
+		tracking = true;
+		dirtySequences.clear();
+		takenCards.clear();
+	}
+	
+	/**
+	 * <p>Checks whether the card sequences created, mutated or split since
+	 * the last checkpoint are stable, which is enough for the whole table
+	 * to be stable if it was so at the checkpoint.
+	 * <p>If they are, the cards taken from the table and never put back are
+	 * reported through {@link CardSequenceTableListener#cardRemoved(Card)}
+	 * and tracking stops until the next checkpoint.
+	 * <p>Without a checkpoint, it checks every card sequence on the table.
+	 * @return {@code true} if the dirty card sequences are stable,
+	 * or {@code false} if else.
+	 * @see #checkpoint()
+	 * @see #isStable()
+	 */
+	public boolean validateDirty() {
+		if (!tracking) return isStable();
+		for (CardSequence sequence : dirtySequences) {
+			if (!sequence.isStable()) {
+				return false;
+			}
+		}
+		tracking = false;
+		dirtySequences.clear();
+		for (Card card : takenCards) tableListener.cardRemoved(card);
+		takenCards.clear();
+		return true;
+	}
+	
+	/**
+	 * @return number of bytes taken by a snapshot of the table
+	 * in its current state
+	 * @see #writeTo(ByteBuffer)
+	 */
+	public int snapshotSize() {
+		return snapshotHeaderSize + snapshotRecordSize * size();
+	}
+	
+	/**
+	 * Writes a binary snapshot of the table at the current position
+	 * of the buffer, advancing it by {@link #snapshotSize()} bytes.
+	 * @param buffer - byte buffer with enough remaining space
+	 * @throws java.nio.BufferOverflowException if there is not enough space
+	 * @throws IllegalStateException if a card sequence cannot be encoded
+	 * @see #readFrom(ByteBuffer)
+	 */
+	public void writeTo(ByteBuffer buffer) {
+		if (size() > 0xFFFF) throw new IllegalStateException("Too many card sequences");
+		buffer.putShort(SNAPSHOT_MAGIC);
+		buffer.put(SNAPSHOT_VERSION);
+		buffer.putShort((short) size());
+		for (CardSequence sequence : this) {
+			int record = recordOf(sequence);
+			buffer.put((byte) (record >>> 8));
+			buffer.put((byte) record);
+		}
+	}
+	
+	/**
+	 * Encodes a card sequence as a snapshot record, from the bitset
+	 * of its cards, without going through them
+	 * @param sequence - card sequence
+	 * @return record, with its first byte in the higher bits
+	 * @throws IllegalStateException if the card sequence cannot be encoded
+	 * @see #writeTo(ByteBuffer)
+	 */
+	static int recordOf(CardSequence sequence) {
+		long mask = sequence.getMask();
+		if (sequence.isOfType(SuitCardSequenceType.class)) {
+			int rank = 0, suits = 0;
+			for (int suit = 0; suit < numOfSuits; suit++) {
+				long ranks = mask >>> suit * numOfRanks & rankMask;
+				if (ranks == 0) continue;
+				rank = Long.numberOfTrailingZeros(ranks) + 1;
+				suits |= 1 << suit;
+			}
+			return (suitRecordTag | rank) << 8 | suits;
+		} else if (sequence.isOfType(RankCardSequenceType.class)) {
+			int suit = 0, first = 0, last = 0;
+			if (mask != 0) {
+				int lowest = Long.numberOfTrailingZeros(mask);
+				int highest = 63 - Long.numberOfLeadingZeros(mask);
+				suit = lowest / numOfRanks;
+				first = lowest % numOfRanks + 1;
+				last = highest % numOfRanks + 1;
+				if (highest / numOfRanks != suit || last - first + 1 != sequence.size()) {
+					throw new IllegalStateException("Card sequence is not an interval of ranks");
+				}
+			}
+			return suit << 8 | first << 4 | last;
+		} else {
+			throw new IllegalStateException("Unknown card sequence type");
+		}
+	}
+	
+	/**
+	 * Replaces the card sequences on the table by the ones of a binary
+	 * snapshot read from the current position of the buffer. Card sequences
+	 * are restored even if unstable. No card is reported as removed,
+	 * and no operation listener is notified. If the snapshot cannot be
+	 * read, the table is left as it was.
+	 * @param buffer - byte buffer positioned at a snapshot
+	 * @throws java.nio.BufferUnderflowException if the snapshot is truncated
+	 * @throws IllegalArgumentException if the snapshot is malformed or
+	 * of an unsupported version
+	 * @see #writeTo(ByteBuffer)
+	 */
+	public void readFrom(ByteBuffer buffer) {
+		if (buffer.getShort() != SNAPSHOT_MAGIC) throw new IllegalArgumentException("Not a table snapshot");
+		if (buffer.get() != SNAPSHOT_VERSION) throw new IllegalArgumentException("Unsupported snapshot version");
+		int count = buffer.getShort() & 0xFFFF;
+		/* decodes every record before touching the table, which is kept if the snapshot is malformed */
+		ArrayList<CardSequence> sequences = new ArrayList<CardSequence>(count);
+		for (int i = 0; i < count; i++) {
+			int head = buffer.get() & 0xFF;
+			int body = buffer.get() & 0xFF;
+			CardSequenceBuilder builder = new CardSequenceBuilder().allowInstability(true);
+			try {
+				if ((head & suitRecordTag) != 0) {
+					CardRank rank = CardRank.fromIndex(head & ~suitRecordTag);
+					builder.setType(() -> new SuitCardSequenceType());
+					for (int suit = 0; body != 0; suit++, body >>>= 1) {
+						if ((body & 1) != 0) builder.addCard(Card.valueOf(rank, CardSuit.fromIndex(suit)));
+					}
+				} else {
+					CardSuit suit = CardSuit.fromIndex(head);
+					builder.setType(() -> new RankCardSequenceType());
+					for (int rank = body >>> 4; rank != 0 && rank <= (body & 0xF); rank++) {
+						builder.addCard(Card.valueOf(CardRank.fromIndex(rank), suit));
+					}
+				}
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Malformed snapshot record", e);
+			}
+			sequences.add(builder.build());
+		}
+		setSequences(sequences);
+	}
+	
+	/**
+	 * Replaces the card sequences on the table, in the given order.
+	 * Card sequences are kept even if unstable. No card is reported
+	 * as removed, and no operation listener is notified.
+	 * @param sequences - card sequences
+	 * @see TableDiff#apply(CardSequenceTable)
+	 */
+	void setSequences(Iterable<CardSequence> sequences) {
+		clearSequences();
+		tracking = false;
+		takenCards.clear();
+		for (CardSequence sequence : sequences) addSequence(sequence, true);
+	}
+
 	/**
 	 * Clears the card sequence table from all card sequences.
 	 */
 	public void clearTable() {
+		clearSequences();
+		for (CardSequenceTableOperationListener listener : operationListeners) listener.tableCleared();
+	}
+	
+	/**
+	 * Removes all card sequences from the table.
+	 */
+	private void clearSequences() {
 		cardSequenceList = new LinkedList<CardSequence>();
+		dirtySequences.clear();
 	}
 	
 	/**
@@ -137,6 +481,38 @@ public class CardSequenceTable implements Iterable<CardSequence> {
 		return cardSequenceList.isEmpty();
 	}
 	
+	/**
+	 * @param sequence - card sequence
+	 * @return {@code true} if this very card sequence is on the table,
+	 * or {@code false} if else.
+	 */
+	public boolean contains(CardSequence sequence) {
+		return indexOf(sequence) != -1;
+	}
+	
+	/**
+	 * @param sequence - card sequence
+	 * @return position of this very card sequence on the table,
+	 * or -1 if it is not on the table
+	 */
+	public int indexOf(CardSequence sequence) {
+		int index = 0;
+		for (CardSequence seq : this) {
+			if (seq == sequence) return index;
+			index++;
+		}
+		return -1;
+	}
+	
+	/**
+	 * @param index - position of the card sequence on the table
+	 * @return card sequence at such position
+	 * @throws IndexOutOfBoundsException if there is no such position
+	 */
+	public CardSequence getSequence(int index) {
+		return cardSequenceList.get(index);
+	}
+	
 	/**
 	 * Checks whether there is an unstable card sequence on the table.
 	 * @return {@code true} if there isn't, or {@code false} if there is.
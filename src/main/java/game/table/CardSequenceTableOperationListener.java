@@ -0,0 +1,66 @@
+package game.table;
+
+import game.card.Card;
+import game.sequence.CardSequence;
+
+/**
+ * 
+ * <p>An operation listener is notified of every successful operation requested
+ * to a {@link CardSequenceTable} through its public methods, after it is done.
+ * Card sequences are identified by their position on the table before the operation.
+ * 
+ * <p>Changes that follow from an operation (e.g. a card sequence created by a split,
+ * or an empty card sequence leaving the table) are not notified on their own, since
+ * applying the same operations to a table in the same state leads to the same changes.
+ * 
+ * @author guidanoli
+ * @see CardSequenceTable#addOperationListener(CardSequenceTableOperationListener)
+ *
+ */
+public interface CardSequenceTableOperationListener {
+
+	/**
+	 * A card sequence was added to the end of the table
+	 * @param sequence - card sequence added
+	 * @see CardSequenceTable#addSequence(CardSequence)
+	 */
+	public void sequenceAdded(CardSequence sequence);
+	
+	/**
+	 * A card sequence was removed from the table
+	 * @param index - position of the removed card sequence
+	 * @see CardSequenceTable#removeSequence(CardSequence)
+	 */
+	public void sequenceRemoved(int index);
+	
+	/**
+	 * A card was added to a card sequence on the table
+	 * @param index - position of the card sequence
+	 * @param card - card added
+	 * @see CardSequenceTable#addCard(CardSequence, Card)
+	 */
+	public void cardAdded(int index, Card card);
+	
+	/**
+	 * A card was removed from a card sequence on the table
+	 * @param index - position of the card sequence
+	 * @param card - card removed
+	 * @see CardSequenceTable#removeCard(CardSequence, Card)
+	 */
+	public void cardRemoved(int index, Card card);
+	
+	/**
+	 * A card sequence on the table was split
+	 * @param index - position of the card sequence
+	 * @param cardIndex - index of the first card of the new card sequence
+	 * @see CardSequenceTable#split(CardSequence, int)
+	 */
+	public void sequenceSplit(int index, int cardIndex);
+	
+	/**
+	 * The table was cleared
+	 * @see CardSequenceTable#clearTable()
+	 */
+	public void tableCleared();
+	
+}
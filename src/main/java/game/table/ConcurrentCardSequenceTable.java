@@ -0,0 +1,363 @@
+package game.table;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import game.card.Card;
+import game.sequence.CardSequence;
+import game.sequence.CardSequenceListener;
+
+/**
+ *
+ * <p>A concurrent card sequence table is a variant of the {@link CardSequenceTable}
+ * that can be read by many threads while others mutate it.
+ *
+ * <p>Readers never block: every card sequence on the table has its cards published
+ * as an immutable list after each change, and iterating through the table yields
+ * these lists from a copy-on-write snapshot. Each list is consistent on its own,
+ * but a reader may observe two card sequences at different moments of a
+ * multi-sequence operation.
+ *
+ * <p>Writers lock only the card sequences they touch. Locks are striped: each card
+ * sequence is assigned one of a fixed number of locks when it enters the table.
+ * Operations on two card sequences (such as {@link #moveCard(CardSequence, CardSequence, Card)})
+ * acquire both locks in ascending stripe order, thus cannot deadlock.
+ *
+ * <p>Card sequences must be mutated through this class only. Reading their
+ * cards directly (e.g. by iterating through them) is not thread-safe; use
+ * {@link #getCards(CardSequence)} or {@link #iterator()} instead.
+ *
+ * @author guidanoli
+ * @see CardSequenceTable
+ *
+ */
+public class ConcurrentCardSequenceTable implements Iterable<List<Card>> {
+
+	/**
+	 * A card sequence on the table and its published state
+	 */
+	private final static class Entry {
+
+		final CardSequence sequence;
+		final int stripe;
+		volatile List<Card> cards;
+		volatile boolean stable;
+
+		Entry(CardSequence sequence, int stripe) {
+			this.sequence = sequence;
+			this.stripe = stripe;
+			publish();
+		}
+
+		/**
+		 * Publishes the current state of the card sequence.
+		 * Must be called while holding the stripe lock.
+		 */
+		void publish() {
+			ArrayList<Card> cards = new ArrayList<Card>(sequence.size());
+			for (Card card : sequence) cards.add(card);
+			this.cards = Collections.unmodifiableList(cards);
+			this.stable = sequence.isStable();
+		}
+
+	}
+
+	/* default number of lock stripes */
+	private final static int defaultConcurrencyLevel = 16;
+
+	private final CopyOnWriteArrayList<Entry> entries = new CopyOnWriteArrayList<Entry>();
+	private final ReentrantLock [] stripes;
+	private final AtomicInteger nextStripe = new AtomicInteger();
+	private final CardSequenceTableListener tableListener;
+
+	/* whether the current thread is moving a card between sequences */
+	private final ThreadLocal<Boolean> moving = ThreadLocal.withInitial(() -> false);
+
+	/**
+	 * The listener that handles events within the scope of the
+	 * card sequence table (e.g. sequences being added/removed).
+	 * Always called by a thread holding the lock of the card
+	 * sequence that fired the event.
+	 */
+	private final CardSequenceListener thisListener = new CardSequenceListener() {
+
+		public void cardSequenceIsEmpty(CardSequence cardSequence) {
+			Entry entry = getEntry(cardSequence);
+			if (entry != null) entries.remove(entry);
+		}
+
+		public void cardSequenceAdded(CardSequence cardSequence) {
+			// new card sequences inherit this listener from the builder
+			entries.add(newEntry(cardSequence));
+		}
+
+		public void cardRemovedFromSequence(Card card) {
+			// a card being moved does not leave the table
+			if (!moving.get()) tableListener.cardRemoved(card);
+		}
+
+	};
+
+	/**
+	 * Constructs a concurrent card sequence table with the default
+	 * number of lock stripes
+	 * @param tableListener - observer that will capture events that
+	 * cannot be handled by the card sequence table class
+	 */
+	public ConcurrentCardSequenceTable(CardSequenceTableListener tableListener) {
+		this(tableListener, defaultConcurrencyLevel);
+	}
+
+	/**
+	 * Constructs a concurrent card sequence table
+	 * @param tableListener - observer that will capture events that
+	 * cannot be handled by the card sequence table class. It may be
+	 * called concurrently by writer threads.
+	 * @param concurrencyLevel - number of lock stripes
+	 * @throws IllegalArgumentException if concurrency level is not positive
+	 */
+	public ConcurrentCardSequenceTable(CardSequenceTableListener tableListener, int concurrencyLevel) {
+		if (concurrencyLevel <= 0) throw new IllegalArgumentException("Non-positive concurrency level");
+		this.tableListener = tableListener;
+		this.stripes = new ReentrantLock[concurrencyLevel];
+		for (int i = 0; i < concurrencyLevel; i++) stripes[i] = new ReentrantLock();
+	}
+
+	/**
+	 * Tries to add a card sequence to the table. The card sequence
+	 * must not be referenced by other threads until it is added.
+	 * @param sequence - card sequence to be added
+	 * @return {@code true} if card sequence could be added,
+	 * or {@code false} if else.
+	 * @see CardSequenceTable#addSequence(CardSequence)
+	 */
+	public boolean addSequence(CardSequence sequence) {
+		if (!sequence.isStable()) return false;
+		Entry entry = newEntry(sequence);
+		ReentrantLock lock = stripes[entry.stripe];
+		lock.lock();
+		try {
+			if (getEntry(sequence) != null) return false; // no duplicates
+			sequence.addListener(thisListener);
+			entries.add(entry);
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Tries to remove a card sequence from the table.
+	 * @param sequence - card sequence to be removed
+	 * @return {@code true} if card sequence could be removed,
+	 * or {@code false} if else.
+	 */
+	public boolean removeSequence(CardSequence sequence) {
+		Entry entry = getEntry(sequence);
+		if (entry == null) return false;
+		ReentrantLock lock = stripes[entry.stripe];
+		lock.lock();
+		try {
+			return entries.remove(entry);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Tries to add a card to a card sequence on the table.
+	 * @param sequence - card sequence on the table
+	 * @param card - card to be added
+	 * @return {@code true} if card could be added,
+	 * or {@code false} if else.
+	 * @see CardSequence#addCard(Card)
+	 */
+	public boolean addCard(CardSequence sequence, Card card) {
+		Entry entry = getEntry(sequence);
+		if (entry == null) return false;
+		ReentrantLock lock = stripes[entry.stripe];
+		lock.lock();
+		try {
+			if (!entries.contains(entry) || !sequence.addCard(card)) return false;
+			entry.publish();
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Tries to remove a card from a card sequence on the table.
+	 * @param sequence - card sequence on the table
+	 * @param card - card to be removed
+	 * @return {@code true} if card could be removed,
+	 * or {@code false} if else.
+	 * @see CardSequence#removeCard(Card)
+	 */
+	public boolean removeCard(CardSequence sequence, Card card) {
+		Entry entry = getEntry(sequence);
+		if (entry == null) return false;
+		ReentrantLock lock = stripes[entry.stripe];
+		lock.lock();
+		try {
+			if (!entries.contains(entry) || !sequence.removeCard(card)) return false;
+			entry.publish();
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Tries to split a card sequence on the table. The new card sequence
+	 * is added to the table while the lock of the split one is held, thus
+	 * atomically for writers. Readers do not take locks: they may see the
+	 * new card sequence before the split one is published again, and thus
+	 * see its cards twice.
+	 * @param sequence - card sequence on the table
+	 * @param index - index of the first card of the second sequence
+	 * @return {@code true} if card sequence could be split,
+	 * or {@code false} if else.
+	 * @see CardSequence#split(int)
+	 */
+	public boolean split(CardSequence sequence, int index) {
+		Entry entry = getEntry(sequence);
+		if (entry == null) return false;
+		ReentrantLock lock = stripes[entry.stripe];
+		lock.lock();
+		try {
+			if (!entries.contains(entry) || !sequence.split(index)) return false;
+			entry.publish();
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Moves a card from one card sequence to another while holding the locks
+	 * of both, thus atomically for writers. Readers do not take locks: they may
+	 * see the card leave the first card sequence before it joins the second.
+	 * The card is not reported to the {@link CardSequenceTableListener} as removed.
+	 * @param from - card sequence that holds the card
+	 * @param to - card sequence that will receive the card
+	 * @param card - card to be moved
+	 * @return {@code true} if card could be moved, or {@code false}
+	 * if else, in which case neither card sequence is changed.
+	 */
+	public boolean moveCard(CardSequence from, CardSequence to, Card card) {
+		if (from == to) return false;
+		Entry fromEntry = getEntry(from), toEntry = getEntry(to);
+		if (fromEntry == null || toEntry == null) return false;
+		ReentrantLock firstLock = stripes[Math.min(fromEntry.stripe, toEntry.stripe)];
+		ReentrantLock secondLock = stripes[Math.max(fromEntry.stripe, toEntry.stripe)];
+		firstLock.lock();
+		secondLock.lock(); // reentrant, in case both share the same stripe
+		try {
+			if (!entries.contains(fromEntry) || !entries.contains(toEntry)) return false;
+			if (!from.canRemove(card) || !to.canAdd(card)) return false;
+			moving.set(true);
+			try {
+				from.removeCard(card);
+				to.addCard(card);
+			} finally {
+				moving.set(false);
+			}
+			if (entries.contains(fromEntry)) fromEntry.publish();
+			toEntry.publish();
+			return true;
+		} finally {
+			secondLock.unlock();
+			firstLock.unlock();
+		}
+	}
+
+	/**
+	 * Obtains the cards of a card sequence on the table without blocking.
+	 * @param sequence - card sequence on the table
+	 * @return immutable list of the cards as of the last change,
+	 * or {@code null} if the card sequence is not on the table.
+	 */
+	public List<Card> getCards(CardSequence sequence) {
+		Entry entry = getEntry(sequence);
+		return entry == null ? null : entry.cards;
+	}
+
+	/**
+	 * @return card sequences currently on the table, in a list that does
+	 * not reflect later changes. Their cards must be read through
+	 * {@link #getCards(CardSequence)}.
+	 */
+	public List<CardSequence> getSequences() {
+		ArrayList<CardSequence> sequences = new ArrayList<CardSequence>();
+		for (Entry entry : entries) sequences.add(entry.sequence);
+		return sequences;
+	}
+
+	/**
+	 * @return number of card sequences
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return {@code true} if no card sequences are on table,
+	 * or {@code false} if else.
+	 */
+	public boolean isEmpty() {
+		return entries.isEmpty();
+	}
+
+	/**
+	 * Checks, without blocking, whether there is an unstable card sequence on the table.
+	 * @return {@code true} if there isn't, or {@code false} if there is.
+	 */
+	public boolean isStable() {
+		for (Entry entry : entries) {
+			if (!entry.stable) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return iterator that iterates through the cards of each card
+	 * sequence in the table, without blocking and without ever throwing
+	 * {@link java.util.ConcurrentModificationException}:
+	 * <p>{@code for (List<Card> cards : concurrentTable) {...}}
+	 */
+	public Iterator<List<Card>> iterator() {
+		final Iterator<Entry> iterator = entries.iterator();
+		return new Iterator<List<Card>>() {
+			public boolean hasNext() { return iterator.hasNext(); }
+			public List<Card> next() { return iterator.next().cards; }
+		};
+	}
+
+	/**
+	 * @param sequence - card sequence
+	 * @return entry of the card sequence, or {@code null} if
+	 * the card sequence is not on the table
+	 */
+	private Entry getEntry(CardSequence sequence) {
+		for (Entry entry : entries) if (entry.sequence == sequence) return entry;
+		return null;
+	}
+
+	/**
+	 * @param sequence - card sequence
+	 * @return new entry for the card sequence, assigned to the next stripe
+	 */
+	private Entry newEntry(CardSequence sequence) {
+		int stripe = Math.floorMod(nextStripe.getAndIncrement(), stripes.length);
+		return new Entry(sequence, stripe);
+	}
+
+}
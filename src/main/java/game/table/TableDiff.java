@@ -0,0 +1,327 @@
+package game.table;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import game.card.Card;
+import game.sequence.CardSequence;
+import game.sequence.CardSequenceBuilder;
+import game.sequence.types.RankCardSequenceType;
+import game.sequence.types.SuitCardSequenceType;
+
+/**
+ *
+ * <p>A table diff is the set of changes that turns a {@link CardSequenceTable}
+ * into another, so that a client mirroring a table only needs to receive what
+ * changed after a move, instead of the whole table.
+ *
+ * <p>Card sequences are identified by their content: their type and the bitset
+ * of their card codes (see {@link Card#getCode()}). Those found on both tables
+ * are kept, and those that only lost or gained some cards are updated in place.
+ * The remaining ones are removed from the first table or inserted into the
+ * second one. The diff keeps the order of the card sequences, so positions on
+ * the mirrored table match the ones on the original table.
+ *
+ * <p>A diff can be sent through {@link #writeTo(ByteBuffer)} and received
+ * through {@link #readFrom(ByteBuffer)}. It consists of three lists, each one
+ * preceded by its 2-byte length:
+ * <ul>
+ * <li>removals - 2-byte position on the first table</li>
+ * <li>insertions - 2-byte position on the second table, 1 byte with the
+ * type on the highest bit and the number of cards on the others, and the
+ * card codes, 1 byte each</li>
+ * <li>updates - 2-byte position on the second table, 1 byte with the number
+ * of cards added, 1 byte with the number of cards removed, and the card codes
+ * added and removed, 1 byte each</li>
+ * </ul>
+ *
+ * @author guidanoli
+ * @see CardSequenceTable
+ *
+ */
+public class TableDiff {
+
+	/* bit of the key of a set, above the bits of the card codes */
+	private final static long setBit = 1L << 63;
+	private final static long cardBits = ~setBit;
+	private final static int setTag = 0x80;
+
+	private final int [] removals;
+	private final int [] insertions;
+	private final long [] insertedKeys;
+	private final int [] updates;
+	private final long [] addedCards;
+	private final long [] removedCards;
+
+	private TableDiff(int [] removals, int [] insertions, long [] insertedKeys,
+			int [] updates, long [] addedCards, long [] removedCards) {
+		this.removals = removals;
+		this.insertions = insertions;
+		this.insertedKeys = insertedKeys;
+		this.updates = updates;
+		this.addedCards = addedCards;
+		this.removedCards = removedCards;
+	}
+
+	/**
+	 * Computes the changes that turn a table into another
+	 * @param before - card sequence table in its previous state
+	 * @param after - card sequence table in its current state
+	 * @return table diff
+	 * @throws IllegalStateException if a card sequence is of an unknown type
+	 */
+	public static TableDiff compute(CardSequenceTable before, CardSequenceTable after) {
+		long [] oldKeys = keysOf(before);
+		long [] newKeys = keysOf(after);
+		int [] pairs = new int[newKeys.length]; // position on the first table, or -1
+		boolean [] paired = new boolean[oldKeys.length];
+
+		// pairs the card sequences found on both tables
+		HashMap<Long, Integer> positions = new HashMap<Long, Integer>();
+		for (int i = oldKeys.length - 1; i >= 0; i--) positions.put(oldKeys[i], i);
+		for (int j = 0; j < newKeys.length; j++) {
+			Integer i = positions.remove(newKeys[j]);
+			pairs[j] = i == null ? -1 : i;
+			if (i != null) paired[i] = true;
+		}
+
+		// pairs the card sequences that are cheaper to update than to insert
+		for (int j = 0; j < newKeys.length; j++) {
+			if (pairs[j] != -1) continue;
+			int best = -1, bestOverlap = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (paired[i] || ((oldKeys[i] ^ newKeys[j]) & setBit) != 0) continue;
+				int overlap = Long.bitCount(oldKeys[i] & newKeys[j] & cardBits);
+				if (overlap > bestOverlap) {
+					best = i;
+					bestOverlap = overlap;
+				}
+			}
+			if (best != -1 && Long.bitCount(oldKeys[best] ^ newKeys[j]) <= Long.bitCount(newKeys[j] & cardBits)) {
+				pairs[j] = best;
+				paired[best] = true;
+			}
+		}
+
+		// keeps the most pairs whose card sequences are in the same order on both tables
+		boolean [] kept = longestIncreasing(pairs);
+		boolean [] keptOld = new boolean[oldKeys.length];
+		int removalCount = oldKeys.length, insertionCount = 0, updateCount = 0;
+		for (int j = 0; j < newKeys.length; j++) {
+			if (kept[j]) {
+				keptOld[pairs[j]] = true;
+				removalCount--;
+				if (oldKeys[pairs[j]] != newKeys[j]) updateCount++;
+			} else {
+				insertionCount++;
+			}
+		}
+		int [] removals = new int[removalCount];
+		for (int i = 0, r = 0; i < oldKeys.length; i++) {
+			if (!keptOld[i]) removals[r++] = i;
+		}
+		int [] insertions = new int[insertionCount];
+		long [] insertedKeys = new long[insertionCount];
+		int [] updates = new int[updateCount];
+		long [] addedCards = new long[updateCount];
+		long [] removedCards = new long[updateCount];
+		for (int j = 0, n = 0, u = 0; j < newKeys.length; j++) {
+			if (!kept[j]) {
+				insertions[n] = j;
+				insertedKeys[n++] = newKeys[j];
+			} else if (oldKeys[pairs[j]] != newKeys[j]) {
+				updates[u] = j;
+				addedCards[u] = newKeys[j] & ~oldKeys[pairs[j]];
+				removedCards[u++] = oldKeys[pairs[j]] & ~newKeys[j];
+			}
+		}
+		return new TableDiff(removals, insertions, insertedKeys, updates, addedCards, removedCards);
+	}
+
+	/**
+	 * Applies the changes to a table, which is left untouched if they
+	 * cannot be applied. Card sequences are restored even if unstable.
+	 * No card is reported as removed, and no operation listener is notified.
+	 * @param table - card sequence table in the state the diff was computed from
+	 * @throws IllegalStateException if the diff does not match the table
+	 */
+	public void apply(CardSequenceTable table) {
+		ArrayList<CardSequence> sequences = new ArrayList<CardSequence>(table.size() + insertions.length);
+		for (CardSequence sequence : table) sequences.add(sequence);
+		try {
+			for (int r = removals.length - 1; r >= 0; r--) sequences.remove(removals[r]);
+			for (int n = 0; n < insertions.length; n++) sequences.add(insertions[n], toSequence(insertedKeys[n]));
+			for (int u = 0; u < updates.length; u++) {
+				long key = keyOf(sequences.get(updates[u]));
+				if ((key & removedCards[u]) != removedCards[u] || (key & addedCards[u]) != 0) {
+					throw new IllegalStateException("Diff does not match table");
+				}
+				sequences.set(updates[u], toSequence(key & ~removedCards[u] | addedCards[u]));
+			}
+		} catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+			throw new IllegalStateException("Diff does not match table", e);
+		}
+		table.setSequences(sequences);
+	}
+
+	/**
+	 * @return {@code true} if both tables have the same card sequences
+	 * in the same order, or {@code false} if else.
+	 */
+	public boolean isEmpty() {
+		return removals.length == 0 && insertions.length == 0 && updates.length == 0;
+	}
+
+	/**
+	 * @return number of bytes taken by the diff
+	 * @see #writeTo(ByteBuffer)
+	 */
+	public int size() {
+		int size = 6 + 2 * removals.length + 3 * insertions.length + 4 * updates.length;
+		for (long key : insertedKeys) size += Long.bitCount(key & cardBits);
+		for (int u = 0; u < updates.length; u++) size += Long.bitCount(addedCards[u]) + Long.bitCount(removedCards[u]);
+		return size;
+	}
+
+	/**
+	 * Writes the diff at the current position of the buffer,
+	 * advancing it by {@link #size()} bytes.
+	 * @param buffer - byte buffer with enough remaining space
+	 * @throws java.nio.BufferOverflowException if there is not enough space
+	 * @see #readFrom(ByteBuffer)
+	 */
+	public void writeTo(ByteBuffer buffer) {
+		buffer.putShort((short) removals.length);
+		for (int index : removals) buffer.putShort((short) index);
+		buffer.putShort((short) insertions.length);
+		for (int n = 0; n < insertions.length; n++) {
+			long key = insertedKeys[n];
+			buffer.putShort((short) insertions[n]);
+			buffer.put((byte) (((key & setBit) != 0 ? setTag : 0) | Long.bitCount(key & cardBits)));
+			putCodes(buffer, key & cardBits);
+		}
+		buffer.putShort((short) updates.length);
+		for (int u = 0; u < updates.length; u++) {
+			buffer.putShort((short) updates[u]);
+			buffer.put((byte) Long.bitCount(addedCards[u]));
+			buffer.put((byte) Long.bitCount(removedCards[u]));
+			putCodes(buffer, addedCards[u]);
+			putCodes(buffer, removedCards[u]);
+		}
+	}
+
+	/**
+	 * Reads a diff from the current position of the buffer
+	 * @param buffer - byte buffer positioned at a diff
+	 * @return table diff
+	 * @throws java.nio.BufferUnderflowException if the diff is truncated
+	 * @throws IllegalArgumentException if a card code is invalid
+	 * @see #writeTo(ByteBuffer)
+	 */
+	public static TableDiff readFrom(ByteBuffer buffer) {
+		int [] removals = new int[buffer.getShort() & 0xFFFF];
+		for (int r = 0; r < removals.length; r++) removals[r] = buffer.getShort() & 0xFFFF;
+		int insertionCount = buffer.getShort() & 0xFFFF;
+		int [] insertions = new int[insertionCount];
+		long [] insertedKeys = new long[insertionCount];
+		for (int n = 0; n < insertionCount; n++) {
+			insertions[n] = buffer.getShort() & 0xFFFF;
+			int head = buffer.get() & 0xFF;
+			insertedKeys[n] = ((head & setTag) != 0 ? setBit : 0) | getCodes(buffer, head & ~setTag);
+		}
+		int updateCount = buffer.getShort() & 0xFFFF;
+		int [] updates = new int[updateCount];
+		long [] addedCards = new long[updateCount];
+		long [] removedCards = new long[updateCount];
+		for (int u = 0; u < updateCount; u++) {
+			updates[u] = buffer.getShort() & 0xFFFF;
+			int added = buffer.get() & 0xFF;
+			int removed = buffer.get() & 0xFF;
+			addedCards[u] = getCodes(buffer, added);
+			removedCards[u] = getCodes(buffer, removed);
+		}
+		return new TableDiff(removals, insertions, insertedKeys, updates, addedCards, removedCards);
+	}
+
+	/**
+	 * @param table - card sequence table
+	 * @return key of every card sequence on the table, in order
+	 */
+	private static long [] keysOf(CardSequenceTable table) {
+		long [] keys = new long[table.size()];
+		int i = 0;
+		for (CardSequence sequence : table) keys[i++] = keyOf(sequence);
+		return keys;
+	}
+
+	/**
+	 * @param sequence - card sequence
+	 * @return bitset of the codes of its cards, with {@link #setBit}
+	 * set if it is a set
+	 * @throws IllegalStateException if the card sequence is of an unknown type
+	 */
+	private static long keyOf(CardSequence sequence) {
+		long key;
+		if (sequence.isOfType(SuitCardSequenceType.class)) key = setBit;
+		else if (sequence.isOfType(RankCardSequenceType.class)) key = 0;
+		else throw new IllegalStateException("Unknown card sequence type");
+		return key | sequence.getMask();
+	}
+
+	/**
+	 * @param key - card sequence key
+	 * @return unstable or stable card sequence
+	 * @throws IllegalArgumentException if the cards do not make up
+	 * a card sequence of such type
+	 * @see #keyOf(CardSequence)
+	 */
+	private static CardSequence toSequence(long key) {
+		return CardSequenceBuilder.fromMask((key & setBit) != 0, key & cardBits);
+	}
+
+	/**
+	 * Marks the pairs that make up a longest chain of ascending positions
+	 * on the first table, so that they need not be moved
+	 * @param pairs - position on the first table of each card sequence
+	 * of the second table, or -1 if unpaired
+	 * @return whether each card sequence of the second table is kept
+	 */
+	private static boolean [] longestIncreasing(int [] pairs) {
+		int [] tails = new int[pairs.length]; // index in pairs of the smallest tail of each length
+		int [] previous = new int[pairs.length];
+		int length = 0;
+		for (int j = 0; j < pairs.length; j++) {
+			if (pairs[j] == -1) continue;
+			int low = 0, high = length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (pairs[tails[middle]] < pairs[j]) low = middle + 1;
+				else high = middle;
+			}
+			previous[j] = low > 0 ? tails[low - 1] : -1;
+			tails[low] = j;
+			if (low == length) length++;
+		}
+		boolean [] kept = new boolean[pairs.length];
+		for (int j = length > 0 ? tails[length - 1] : -1; j != -1; j = previous[j]) kept[j] = true;
+		return kept;
+	}
+
+	private static void putCodes(ByteBuffer buffer, long mask) {
+		for (; mask != 0; mask &= mask - 1) buffer.put((byte) Long.numberOfTrailingZeros(mask));
+	}
+
+	private static long getCodes(ByteBuffer buffer, int count) {
+		long mask = 0;
+		for (int i = 0; i < count; i++) mask |= Card.fromCode(buffer.get() & 0xFF).getMask();
+		return mask;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("[%d removed, %d inserted, %d updated]",
+				removals.length, insertions.length, updates.length);
+	}
+
+}
@@ -0,0 +1,388 @@
+package game.table;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import game.card.Card;
+import game.sequence.CardSequence;
+import game.util.SplitMix64;
+
+/**
+ *
+ * <p>A table state store keeps the states of a search, each one a
+ * {@link CardSequenceTable} and a hand, outside of the Java heap, so that
+ * millions of them cost the garbage collector nothing to trace. States are
+ * encoded as table snapshots (see {@link CardSequenceTable#writeTo(ByteBuffer)})
+ * whose records are sorted, thus tables with the same card sequences in a
+ * different order are the same state.
+ *
+ * <p>States are appended to direct byte buffers, the chunks of an arena, and
+ * addressed by {@code long} handles. Each entry holds the hash of the state,
+ * the bitset of the codes of the cards in the hand, the length of the
+ * snapshot and the snapshot itself, aligned to 8 bytes.
+ *
+ * <p>States are indexed by their Zobrist hash (see {@link #hash(CardSequenceTable, long)})
+ * in an open-addressing table with linear probing, which only holds the hashes
+ * and handles as arrays of primitives. Adding a state already stored returns its
+ * handle instead of storing it again, thus the store also detects transpositions.
+ * A search may keep the hash of its state up to date move by move, and hand it
+ * to {@link #add(CardSequenceTable, long, long)} and {@link #find(CardSequenceTable, long, long)},
+ * which then only encode the state when it has to be stored or compared.
+ *
+ * <p>The arena is released in bulk at the end of a search through {@link #clear()},
+ * which keeps the chunks for the next search, or through {@link #release()}, which
+ * drops them. Either way, every handle given before is invalidated.
+ * A store is not thread-safe.
+ *
+ * @author guidanoli
+ * @see CardSequenceTable#readFrom(ByteBuffer)
+ *
+ */
+public class TableStateStore {
+
+	/**
+	 * Handle returned when a state is not stored
+	 */
+	public final static long NO_HANDLE = -1;
+
+	/* entry layout */
+	private final static int hashOffset = 0;
+	private final static int handOffset = 8;
+	private final static int lengthOffset = 16;
+	private final static int snapshotOffset = 20;
+	private final static int alignment = 8;
+
+	/* snapshot layout, see CardSequenceTable */
+	private final static int snapshotHeaderSize = 5;
+	private final static int snapshotRecordSize = 2;
+
+	/* Zobrist keys of the records, indexed by a compacted head and the body */
+	private final static long [] recordKeys = new long[1 << 13];
+	private final static long [] cardKeys = new long[Card.NUM_OF_CODES];
+
+	static {
+		long state = 0x5254535453544F52L; // fixed, so that hashes are stable across runs
+		for (int i = 0; i < recordKeys.length; i++) recordKeys[i] = SplitMix64.mix(state += SplitMix64.GOLDEN_GAMMA);
+		for (int i = 0; i < cardKeys.length; i++) cardKeys[i] = SplitMix64.mix(state += SplitMix64.GOLDEN_GAMMA);
+	}
+
+	/* Builder */
+
+	public static class Builder {
+
+		private int chunkSize = 1 << 20;
+		private int initialCapacity = 1 << 12;
+
+		public Builder() {} // can instantiate directly
+		public static Builder newInstance() { return new Builder(); } // or indirectly
+
+		public Builder chunkSize(int bytes) { this.chunkSize = bytes; return this; }
+		public Builder initialCapacity(int states) { this.initialCapacity = states; return this; }
+
+		/**
+		 * @return table state store
+		 * @throws IllegalArgumentException if the chunks are smaller than 1 KiB,
+		 * or if the initial capacity is not positive
+		 */
+		public TableStateStore build() {
+			if (chunkSize < 1 << 10) throw new IllegalArgumentException("Chunks smaller than 1 KiB");
+			if (initialCapacity <= 0) throw new IllegalArgumentException("Non-positive initial capacity");
+			return new TableStateStore(this);
+		}
+
+	}
+
+	private final int chunkSize;
+	private final int initialSlots;
+	private final ArrayList<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+	private int chunk = 0;
+	private int offset = 0;
+	private long [] slotHashes;
+	private long [] slotHandles;
+	private int size = 0;
+	private ByteBuffer scratch = ByteBuffer.allocate(1 << 8);
+	private int [] records = new int[16];
+
+	private TableStateStore(Builder builder) {
+		this.chunkSize = builder.chunkSize;
+		int slots = Integer.highestOneBit(Math.max(builder.initialCapacity * 2 - 1, 1)) << 1;
+		this.initialSlots = slots;
+		this.slotHashes = new long[slots];
+		this.slotHandles = new long[slots];
+		Arrays.fill(slotHandles, NO_HANDLE);
+	}
+
+	/**
+	 * Calculates the Zobrist hash of a state: the XOR of fixed pseudo-random keys,
+	 * one for each card sequence and one for each card in the hand. Hence, it does
+	 * not depend on the order of the card sequences on the table, and a move changes
+	 * it by the XOR of the keys of what it takes and of what it puts
+	 * (see {@link #sequenceKey(CardSequence)} and {@link #cardKey(int)}).
+	 * @param table - card sequence table
+	 * @param hand - bitset of the codes of the cards in the hand
+	 * @return hash of the state
+	 * @throws IllegalStateException if a card sequence cannot be encoded
+	 */
+	public static long hash(CardSequenceTable table, long hand) {
+		long hash = 0;
+		for (long mask = hand; mask != 0; mask &= mask - 1) hash ^= cardKeys[Long.numberOfTrailingZeros(mask)];
+		for (CardSequence sequence : table) hash ^= sequenceKey(sequence);
+		return hash;
+	}
+
+	/**
+	 * @param sequence - card sequence
+	 * @return Zobrist key of the card sequence, which only depends on its cards
+	 * @throws IllegalStateException if the card sequence cannot be encoded
+	 * @see #hash(CardSequenceTable, long)
+	 */
+	public static long sequenceKey(CardSequence sequence) {
+		return recordKey(CardSequenceTable.recordOf(sequence));
+	}
+
+	/**
+	 * @param code - card code
+	 * @return Zobrist key of the card in the hand
+	 * @throws IllegalArgumentException if code is out of range
+	 * @see #hash(CardSequenceTable, long)
+	 */
+	public static long cardKey(int code) {
+		if (code < 0 || code >= Card.NUM_OF_CODES) throw new IllegalArgumentException("Invalid card code");
+		return cardKeys[code];
+	}
+
+	private static long recordKey(int record) {
+		int head = record >>> 8;
+		return recordKeys[((head >>> 3 & 0x10) | (head & 0xF)) << 8 | (record & 0xFF)];
+	}
+
+	/**
+	 * Encodes a state into the scratch buffer, with sorted records
+	 */
+	private void encode(CardSequenceTable table) {
+		int length = table.snapshotSize();
+		if (scratch.capacity() < length) scratch = ByteBuffer.allocate(Integer.highestOneBit(length) << 1);
+		scratch.clear();
+		table.writeTo(scratch);
+		int count = (length - snapshotHeaderSize) / snapshotRecordSize;
+		if (records.length < count) records = new int[Integer.highestOneBit(count) << 1];
+		for (int i = 0; i < count; i++) records[i] = scratch.getShort(snapshotHeaderSize + i * snapshotRecordSize) & 0xFFFF;
+		Arrays.sort(records, 0, count);
+		for (int i = 0; i < count; i++) scratch.putShort(snapshotHeaderSize + i * snapshotRecordSize, (short) records[i]);
+		scratch.flip();
+	}
+
+	/**
+	 * Stores a state, unless it is already stored
+	 * @param table - card sequence table
+	 * @param hand - bitset of the codes of the cards in the hand
+	 * @return handle of the state
+	 * @throws IllegalStateException if a card sequence cannot be encoded
+	 * @throws IllegalArgumentException if the state does not fit in a chunk
+	 */
+	public long add(CardSequenceTable table, long hand) {
+		return add(table, hand, hash(table, hand));
+	}
+
+	/**
+	 * Stores a state whose hash is known, unless it is already stored
+	 * @param table - card sequence table
+	 * @param hand - bitset of the codes of the cards in the hand
+	 * @param hash - hash of the state (see {@link #hash(CardSequenceTable, long)})
+	 * @return handle of the state
+	 * @throws IllegalStateException if a card sequence cannot be encoded
+	 * @throws IllegalArgumentException if the state does not fit in a chunk
+	 */
+	public long add(CardSequenceTable table, long hand, long hash) {
+		encode(table);
+		int slot = probe(hash, hand, null);
+		if (slotHandles[slot] != NO_HANDLE) return slotHandles[slot];
+		long handle = append(hash, hand);
+		slotHashes[slot] = hash;
+		slotHandles[slot] = handle;
+		if (++size * 2 > slotHandles.length) grow();
+		return handle;
+	}
+
+	/**
+	 * @param table - card sequence table
+	 * @param hand - bitset of the codes of the cards in the hand
+	 * @return handle of the state, or {@link #NO_HANDLE} if it is not stored
+	 * @throws IllegalStateException if a card sequence cannot be encoded
+	 */
+	public long find(CardSequenceTable table, long hand) {
+		return find(table, hand, hash(table, hand));
+	}
+
+	/**
+	 * Finds a state whose hash is known. The state is only encoded if
+	 * a stored state has the same hash and hand.
+	 * @param table - card sequence table
+	 * @param hand - bitset of the codes of the cards in the hand
+	 * @param hash - hash of the state (see {@link #hash(CardSequenceTable, long)})
+	 * @return handle of the state, or {@link #NO_HANDLE} if it is not stored
+	 * @throws IllegalStateException if a card sequence cannot be encoded
+	 */
+	public long find(CardSequenceTable table, long hand, long hash) {
+		return slotHandles[probe(hash, hand, table)];
+	}
+
+	/**
+	 * Finds the slot of a state, or the empty slot where it would go
+	 * @param table - table of the state, to be encoded into the scratch buffer
+	 * once a stored state has the same hash and hand, or {@code null} if it
+	 * is encoded already
+	 */
+	private int probe(long hash, long hand, CardSequenceTable table) {
+		int mask = slotHandles.length - 1;
+		for (int slot = (int) SplitMix64.mix(hash) & mask;; slot = (slot + 1) & mask) {
+			long handle = slotHandles[slot];
+			if (handle == NO_HANDLE) return slot;
+			if (slotHashes[slot] != hash || getHand(handle) != hand) continue;
+			if (table != null) {
+				encode(table);
+				table = null;
+			}
+			if (matches(handle)) return slot;
+		}
+	}
+
+	private boolean matches(long handle) {
+		ByteBuffer buffer = chunks.get((int) (handle >>> 32));
+		int position = (int) handle;
+		int length = scratch.limit();
+		if (buffer.getInt(position + lengthOffset) != length) return false;
+		int start = position + snapshotOffset;
+		for (int i = 0; i < length; i++) {
+			if (buffer.get(start + i) != scratch.get(i)) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Appends the encoded state to the arena
+	 * @return handle of the entry
+	 */
+	private long append(long hash, long hand) {
+		int length = scratch.limit();
+		int entrySize = (snapshotOffset + length + alignment - 1) & -alignment;
+		if (entrySize > chunkSize) throw new IllegalArgumentException("State does not fit in a chunk");
+		if (chunks.isEmpty()) {
+			chunks.add(ByteBuffer.allocateDirect(chunkSize));
+		} else if (offset + entrySize > chunkSize) {
+			if (++chunk == chunks.size()) chunks.add(ByteBuffer.allocateDirect(chunkSize));
+			offset = 0;
+		}
+		ByteBuffer buffer = chunks.get(chunk);
+		buffer.putLong(offset + hashOffset, hash);
+		buffer.putLong(offset + handOffset, hand);
+		buffer.putInt(offset + lengthOffset, length);
+		for (int i = 0; i < length; i++) buffer.put(offset + snapshotOffset + i, scratch.get(i));
+		long handle = (long) chunk << 32 | offset;
+		offset += entrySize;
+		return handle;
+	}
+
+	private void grow() {
+		long [] hashes = slotHashes;
+		long [] handles = slotHandles;
+		slotHashes = new long[handles.length * 2];
+		slotHandles = new long[handles.length * 2];
+		Arrays.fill(slotHandles, NO_HANDLE);
+		int mask = slotHandles.length - 1;
+		for (int i = 0; i < handles.length; i++) {
+			if (handles[i] == NO_HANDLE) continue;
+			int slot = (int) SplitMix64.mix(hashes[i]) & mask;
+			while (slotHandles[slot] != NO_HANDLE) slot = (slot + 1) & mask;
+			slotHashes[slot] = hashes[i];
+			slotHandles[slot] = handles[i];
+		}
+	}
+
+	private ByteBuffer entry(long handle) {
+		int index = (int) (handle >>> 32);
+		int position = (int) handle;
+		if (handle < 0 || index > chunk || index == chunk && position >= offset || chunks.isEmpty()) {
+			throw new IllegalArgumentException("Unknown handle");
+		}
+		return chunks.get(index);
+	}
+
+	/**
+	 * @param handle - handle of a state
+	 * @return hash of the state
+	 * @throws IllegalArgumentException if the handle is not of a stored state
+	 */
+	public long getHash(long handle) {
+		return entry(handle).getLong((int) handle + hashOffset);
+	}
+
+	/**
+	 * @param handle - handle of a state
+	 * @return bitset of the codes of the cards in the hand of the state
+	 * @throws IllegalArgumentException if the handle is not of a stored state
+	 */
+	public long getHand(long handle) {
+		return entry(handle).getLong((int) handle + handOffset);
+	}
+
+	/**
+	 * Replaces the card sequences on a table by the ones of a state
+	 * (see {@link CardSequenceTable#readFrom(ByteBuffer)})
+	 * @param handle - handle of a state
+	 * @param table - card sequence table
+	 * @throws IllegalArgumentException if the handle is not of a stored state
+	 */
+	public void readTable(long handle, CardSequenceTable table) {
+		ByteBuffer buffer = entry(handle).duplicate();
+		int position = (int) handle;
+		buffer.limit(position + snapshotOffset + buffer.getInt(position + lengthOffset));
+		buffer.position(position + snapshotOffset);
+		table.readFrom(buffer);
+	}
+
+	/**
+	 * @return number of states stored
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return number of bytes taken by the stored states
+	 */
+	public long getUsedBytes() {
+		return chunks.isEmpty() ? 0 : (long) chunk * chunkSize + offset;
+	}
+
+	/**
+	 * @return number of bytes allocated outside of the heap
+	 */
+	public long getAllocatedBytes() {
+		return (long) chunks.size() * chunkSize;
+	}
+
+	/**
+	 * Removes every state at once, keeping the allocated chunks
+	 * for the states stored from then on
+	 */
+	public void clear() {
+		chunk = 0;
+		offset = 0;
+		size = 0;
+		slotHashes = new long[initialSlots];
+		slotHandles = new long[initialSlots];
+		Arrays.fill(slotHandles, NO_HANDLE);
+	}
+
+	/**
+	 * Removes every state at once and drops the allocated chunks,
+	 * whose memory is given back once they are collected
+	 */
+	public void release() {
+		clear();
+		chunks.clear();
+	}
+
+}
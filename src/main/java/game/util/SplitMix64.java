@@ -0,0 +1,44 @@
+package game.util;
+
+/**
+ *
+ * <p>Functions of SplitMix64, the generator of {@link java.util.SplittableRandom},
+ * for hashing and for deriving seeds. Its finalizer spreads every bit of its
+ * input over the whole output, thus close inputs (e.g. consecutive indices)
+ * give unrelated outputs.
+ *
+ * @author guidanoli
+ *
+ */
+public final class SplitMix64 {
+
+	/**
+	 * Increment of the state of the generator (the golden ratio)
+	 */
+	public final static long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	private SplitMix64() {}
+
+	/**
+	 * Applies the finalizer of SplitMix64
+	 * @param z - value
+	 * @return mixed value
+	 */
+	public static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Derives a seed from another, such that the seeds derived from the
+	 * same seed with distinct indices are unrelated
+	 * @param seed - seed
+	 * @param index - index of the derived seed
+	 * @return derived seed
+	 */
+	public static long derive(long seed, long index) {
+		return mix(seed * GOLDEN_GAMMA + index + 1);
+	}
+
+}
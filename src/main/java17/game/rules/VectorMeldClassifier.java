@@ -0,0 +1,86 @@
+package game.rules;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import game.card.Card;
+import game.card.CardRank;
+
+/**
+ *
+ * <p>A vector meld classifier classifies batches of candidates as
+ * {@link MeldClassifier} does, but a whole vector of candidates at a time,
+ * through the Vector API. The SWAR operations become lane-wise operations,
+ * and the rule tables are looked up by gathering their words.
+ *
+ * <p>It is compiled for Java 17 and only loaded by {@link MeldClassifier}
+ * when the {@code jdk.incubator.vector} module is present.
+ *
+ * @author guidanoli
+ *
+ */
+final class VectorMeldClassifier implements MeldClassifier.Batch {
+
+	private final static VectorSpecies<Long> species = LongVector.SPECIES_PREFERRED;
+
+	/* auxiliary constants */
+	private final static int numOfRanks = CardRank.values().length;
+	private final static long suitMask = RuleTables.SUIT_MASK;
+
+	private final long [] runTable;
+	private final int setTable;
+	private final MeldClassifier scalar;
+
+	VectorMeldClassifier(RuleTables rules, MeldClassifier scalar) {
+		if (species.length() < 2) throw new UnsupportedOperationException("No vector of many longs");
+		this.runTable = rules.getRunTable();
+		this.setTable = rules.getSetTable();
+		this.scalar = scalar;
+	}
+
+	public void classify(long [] cards, int from, int to, byte [] kinds) {
+		int length = species.length();
+		int [] words = new int[2 * length]; // converted in place, in the lower half
+		long [] lanes = new long[length];
+		LongVector zero = LongVector.zero(species);
+		LongVector sets = LongVector.broadcast(species, setTable);
+		int i = from;
+		for (int bound = from + species.loopBound(to - from); i < bound; i += length) {
+			LongVector v = LongVector.fromArray(species, cards, i);
+			LongVector s0 = v.and(suitMask);
+			LongVector s1 = v.lanewise(VectorOperators.LSHR, numOfRanks).and(suitMask);
+			LongVector s2 = v.lanewise(VectorOperators.LSHR, 2 * numOfRanks).and(suitMask);
+			LongVector s3 = v.lanewise(VectorOperators.LSHR, 3 * numOfRanks).and(suitMask);
+			LongVector ranks = s0.or(s1).or(s2).or(s3);
+			LongVector suits = hasCards(s0)
+					.or(hasCards(s1).lanewise(VectorOperators.LSHL, 1))
+					.or(hasCards(s2).lanewise(VectorOperators.LSHL, 2))
+					.or(hasCards(s3).lanewise(VectorOperators.LSHL, 3));
+			VectorMask<Long> singleSuit = suits.and(suits.sub(1)).compare(VectorOperators.EQ, 0);
+			VectorMask<Long> singleRank = ranks.and(ranks.sub(1)).compare(VectorOperators.EQ, 0);
+			((IntVector) ranks.lanewise(VectorOperators.LSHR, 6).convert(VectorOperators.L2I, 0)).intoArray(words, 0);
+			LongVector run = LongVector.fromArray(species, runTable, 0, words, 0)
+					.lanewise(VectorOperators.LSHR, ranks.and(63)).and(1);
+			LongVector set = sets.lanewise(VectorOperators.LSHR, suits).and(1);
+			/* no bit above the last card code may be set */
+			VectorMask<Long> valid = v.lanewise(VectorOperators.LSHR, Card.NUM_OF_CODES).compare(VectorOperators.EQ, 0);
+			zero.blend(run.mul(MeldClassifier.RUN), singleSuit.and(valid))
+					.or(zero.blend(set.mul(MeldClassifier.SET), singleRank.and(valid)))
+					.intoArray(lanes, 0);
+			for (int j = 0; j < length; j++) kinds[i + j] = (byte) lanes[j];
+		}
+		for (; i < to; i++) kinds[i] = scalar.classify(cards[i]);
+	}
+
+	/**
+	 * @return 1 in the lanes with cards, and 0 in the others,
+	 * since (x | -x) is negative for x != 0
+	 */
+	private static LongVector hasCards(LongVector suit) {
+		return suit.or(suit.neg()).lanewise(VectorOperators.LSHR, 63);
+	}
+
+}
@@ -0,0 +1,123 @@
+package game.card;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("On the CardList class")
+class CardListTest {
+
+	private CardList list;
+
+	@BeforeEach
+	void init() {
+		list = new CardList(0);
+	}
+
+	/**
+	 * Adds cards in ascending order of code
+	 */
+	void addCodes(long mask) {
+		for ( ; mask != 0; mask &= mask - 1 ) list.addCode(Long.numberOfTrailingZeros(mask));
+	}
+
+	@Nested
+	@DisplayName("the addCode method")
+	class AddCodeTest {
+
+		@Test
+		@DisplayName("when adding cards at any position")
+		void testAdd() {
+			for ( int code = 0; code < Card.NUM_OF_CODES; code++ ) list.addCode(code);
+			list.addCode(0, 51);
+			list.addCode(10, 7);
+			assertEquals(Card.NUM_OF_CODES + 2, list.size(), () -> "should grow");
+			assertEquals(51, list.getCode(0), () -> "should insert at the start");
+			assertEquals(7, list.getCode(10), () -> "should insert in the middle");
+			assertEquals(9, list.getCode(11), () -> "should shift the following cards");
+			assertEquals(51, list.getCode(list.size() - 1), () -> "should keep the last card");
+		}
+
+		@Test
+		@DisplayName("when adding invalid cards")
+		void testInvalid() {
+			assertThrows(IllegalArgumentException.class, () -> list.addCode(Card.NUM_OF_CODES),
+					() -> "should reject codes out of range");
+			assertThrows(IndexOutOfBoundsException.class, () -> list.addCode(1, 0),
+					() -> "should reject positions out of range");
+			assertTrue(list.isEmpty(), () -> "should not change");
+		}
+
+	}
+
+	@Nested
+	@DisplayName("the removeCode method")
+	class RemoveCodeTest {
+
+		@Test
+		@DisplayName("when removing cards")
+		void testRemove() {
+			addCodes(0b10110L);
+			assertEquals(2, list.removeCode(1), () -> "should return the code removed");
+			assertEquals(1, list.getCode(0), () -> "should keep the previous cards");
+			assertEquals(4, list.getCode(1), () -> "should shift the following cards");
+			assertEquals(0b10010L, list.getMask(), () -> "should drop the card");
+			assertThrows(IndexOutOfBoundsException.class, () -> list.removeCode(2),
+					() -> "should reject positions out of range");
+		}
+
+	}
+
+	@Nested
+	@DisplayName("the asList method")
+	class AsListTest {
+
+		@Test
+		@DisplayName("when changing the view")
+		void testWriteThrough() {
+			List<Card> cards = list.asList();
+			Card ace = Card.valueOf(CardRank.ACE, CardSuit.SPADES);
+			Card king = Card.valueOf(CardRank.KING, CardSuit.SPADES);
+			cards.add(king);
+			cards.add(ace);
+			assertEquals(2, list.size(), () -> "should write through");
+			assertTrue(cards.contains(new Card(CardRank.ACE, CardSuit.SPADES)), () -> "should compare cards");
+			Collections.sort(cards, (a, b) -> a.compareRanks(b));
+			assertEquals(ace.getCode(), list.getCode(0), () -> "should be sortable");
+			cards.remove(ace);
+			assertEquals(Arrays.asList(king), cards, () -> "should remove through");
+			list.clear();
+			assertTrue(cards.isEmpty(), () -> "should see changes to the card list");
+		}
+
+		@Test
+		@DisplayName("when changing the card list while iterating")
+		void testFailFast() {
+			addCodes(0b111L);
+			assertSame(list.asList(), list.asList(), () -> "should return the same view");
+			Iterator<Card> iterator = list.asList().iterator();
+			iterator.next();
+			list.removeCode(0);
+			assertThrows(ConcurrentModificationException.class, () -> iterator.next(),
+					() -> "should fail fast on removals");
+			Iterator<Card> another = list.asList().iterator();
+			list.addCode(5);
+			assertThrows(ConcurrentModificationException.class, () -> another.next(),
+					() -> "should fail fast on additions");
+			Iterator<Card> unchanged = list.asList().iterator();
+			list.asList().set(0, Card.fromCode(9));
+			assertEquals(9, unchanged.next().getCode(), () -> "should not fail on replacements");
+		}
+
+	}
+
+}
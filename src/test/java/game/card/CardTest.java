@@ -296,4 +296,37 @@ class CardTest {
 		
 	}
 
+	@Nested
+	@DisplayName("the getCode method")
+	class GetCodeTest {
+		
+		@Test
+		@DisplayName("when operating on every card")
+		void testUniqueCodes() {
+			boolean [] used = new boolean[Card.NUM_OF_CODES];
+			for ( CardRank rank : CardRank.values() ) {
+				for ( CardSuit suit : CardSuit.values() ) {
+					int code = new Card(rank, suit).getCode();
+					assertTrue(code >= 0 && code < Card.NUM_OF_CODES,
+							() -> "should return a code within range");
+					assertFalse(used[code],
+							() -> "should return a unique code");
+					used[code] = true;
+				}
+			}
+		}
+		
+		@Test
+		@DisplayName("when converting back with fromCode")
+		void testFromCode() {
+			for ( int code = 0; code < Card.NUM_OF_CODES; code++ ) {
+				assertEquals(code, Card.fromCode(code).getCode(),
+						() -> "should return the card of the same code");
+			}
+			assertThrows(IllegalArgumentException.class,
+					() -> Card.fromCode(Card.NUM_OF_CODES));
+		}
+		
+	}
+
 }
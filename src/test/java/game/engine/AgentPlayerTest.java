@@ -0,0 +1,86 @@
+package game.engine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import game.host.GameHost;
+
+@DisplayName("On the AgentPlayer class")
+class AgentPlayerTest {
+
+	/**
+	 * Agent that blocks for a while before each move, then draws and discards
+	 */
+	final PlayerAgent sleeper = (turns) -> {
+		while (true) {
+			Turn turn = turns.next();
+			Thread.sleep(1);
+			turn.drawFromStock();
+			turn.discard(turn.getHand().getCards().get(0));
+		}
+	};
+
+	@Nested
+	@DisplayName("the playTurn method")
+	class PlayTurnTest {
+
+		@Test
+		@DisplayName("when agents block between moves")
+		void testBlockingAgents() throws Exception {
+			int games = 100;
+			List<AgentPlayer> players = new ArrayList<AgentPlayer>();
+			try (GameHost host = GameHost.Builder.newInstance().virtualThreads().build()) {
+				List<CompletableFuture<GameResult>> results = new ArrayList<CompletableFuture<GameResult>>();
+				for (int g = 0; g < games; g++) {
+					AgentPlayer first = new AgentPlayer(sleeper), second = new AgentPlayer(sleeper);
+					players.add(first);
+					players.add(second);
+					Game game = new Game(Arrays.asList(first, second), new Random(g));
+					game.setMaxTurns(20);
+					results.add(host.submit(host.addGame(game), (hosted) -> hosted.play()));
+				}
+				for (CompletableFuture<GameResult> result : results) {
+					assertEquals(20, result.get().getTurnCount(), () -> "should play every turn");
+				}
+			} finally {
+				for (AgentPlayer player : players) player.close();
+			}
+		}
+
+		@Test
+		@DisplayName("when the agent throws")
+		void testFailure() {
+			try (AgentPlayer player = new AgentPlayer((turns) -> {
+				turns.next();
+				throw new UnsupportedOperationException();
+			})) {
+				Game game = new Game(Arrays.asList(player, player), new Random(0));
+				IllegalStateException e = assertThrows(IllegalStateException.class, () -> game.playTurn());
+				assertTrue(e.getCause() instanceof UnsupportedOperationException,
+						() -> "should report what the agent threw");
+				assertTrue(player.isStopped(), () -> "should stop the agent");
+			}
+		}
+
+		@Test
+		@DisplayName("when the agent is closed")
+		void testClosed() {
+			AgentPlayer player = new AgentPlayer(sleeper);
+			player.close();
+			Game game = new Game(Arrays.asList(player, player), new Random(0));
+			assertThrows(IllegalStateException.class, () -> game.playTurn());
+			assertTrue(player.isStopped(), () -> "should stop the agent");
+		}
+
+	}
+
+}
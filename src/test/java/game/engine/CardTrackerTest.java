@@ -0,0 +1,101 @@
+package game.engine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import game.card.Card;
+import game.solver.SearchBudget;
+
+@DisplayName("On the CardTracker class")
+class CardTrackerTest {
+
+	List<Player> solverPlayers(int count) {
+		return Collections.nCopies(count, new SolverPlayer(SearchBudget.nodes(2000)));
+	}
+
+	@Nested
+	@DisplayName("when following a game")
+	class FollowTest {
+
+		@Test
+		@DisplayName("every card tracked")
+		void testConsistent() {
+			for (int seed = 0; seed < 20; seed++) {
+				Game game = new Game(solverPlayers(2 + seed % 3), new Random(seed));
+				CardTracker tracker = new CardTracker(game, seed % 2);
+				do {
+					assertEquals(game.getDiscardPile().getMask(), tracker.getDiscardedCards(),
+							() -> "should track the discard pile");
+					for (int i = 0; i < game.getPlayerCount(); i++) {
+						long hand = game.getHand(i).getMask();
+						assertEquals(game.getHand(i).size(), tracker.getHandSize(i),
+								() -> "should track the size of every hand");
+						assertEquals(tracker.getKnownCards(i), hand & tracker.getKnownCards(i),
+								() -> "should only know cards in the hand");
+						assertEquals(0, hand & tracker.getLackingCards(i),
+								() -> "should only lack cards not in the hand");
+						assertEquals(CardTracker.DECK, tracker.getKnownCards(i) | tracker.getLackingCards(i)
+								| tracker.getUnknownCards(i), () -> "should account for every card");
+					}
+					assertEquals(game.getHand(tracker.getObserver()).getMask(),
+							tracker.getKnownCards(tracker.getObserver()),
+							() -> "should know the hand of the observer");
+				} while (game.playTurn());
+			}
+		}
+
+		@Test
+		@DisplayName("a card drawn from the discard pile")
+		void testDrawnFromDiscardPile() {
+			Player taker = (turn) -> {
+				Card drawn = turn.drawFromDiscardPile();
+				for (Card card : turn.getHand().getCards()) {
+					if (!card.equals(drawn)) {
+						turn.discard(card);
+						return;
+					}
+				}
+			};
+			Player drawer = (turn) -> {
+				turn.drawFromStock();
+				turn.discard(turn.getHand().getCards().get(0));
+			};
+			Game game = new Game(Arrays.asList(drawer, taker), new Random(0));
+			CardTracker tracker = new CardTracker(game, 0);
+			game.playTurn();
+			Card discarded = game.getDiscardPile().peek();
+			assertEquals(0, tracker.getProbability(1, discarded), () -> "should lack a discarded card");
+			game.playTurn();
+			assertEquals(1, tracker.getProbability(1, discarded), () -> "should know a card drawn from the discard pile");
+			assertNotEquals(0, tracker.getKnownCards(1) & discarded.getMask(), () -> "should know the card");
+		}
+
+	}
+
+	@Test
+	@DisplayName("when estimating probabilities")
+	void testProbability() {
+		Game game = new Game(solverPlayers(3), new Random(3));
+		CardTracker tracker = new CardTracker(game, 0);
+		long unseen = tracker.getUnseenCards();
+		assertEquals(Card.NUM_OF_CODES - Game.DEFAULT_HAND_SIZE - 1, Long.bitCount(unseen),
+				() -> "should not see the other hands nor the stock");
+		for (int player = 1; player < 3; player++) {
+			double sum = 0;
+			for (long cards = unseen; cards != 0; cards &= cards - 1) {
+				sum += tracker.getProbability(player, Card.fromCode(Long.numberOfTrailingZeros(cards)));
+			}
+			assertEquals(Game.DEFAULT_HAND_SIZE, sum, 1e-9, () -> "should expect as many cards as the hand has");
+		}
+		assertThrows(IllegalArgumentException.class, () -> new CardTracker(game, 3));
+	}
+
+}
@@ -0,0 +1,269 @@
+package game.engine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import game.card.Card;
+import game.card.CardRank;
+import game.card.CardSuit;
+import game.sequence.CardSequence;
+import game.sequence.CardSequenceBuilder;
+import game.sequence.types.RankCardSequenceType;
+import game.solver.SearchBudget;
+import game.table.CardSequenceTable;
+import game.table.CardSequenceTableOperationListener;
+
+@DisplayName("On the Game class")
+class GameTest {
+
+	List<Player> solverPlayers(int count) {
+		return Collections.nCopies(count, new SolverPlayer(SearchBudget.nodes(10000)));
+	}
+
+	/**
+	 * @return number of cards in the hands, on the table and in the piles
+	 */
+	int countCards(Game game) {
+		int count = game.getStock().size() + game.getDiscardPile().size();
+		for (int i = 0; i < game.getPlayerCount(); i++) count += game.getHand(i).size();
+		for (CardSequence sequence : game.getTable()) count += sequence.size();
+		return count;
+	}
+
+	@Nested
+	@DisplayName("the play method")
+	class PlayTest {
+
+		@Test
+		@DisplayName("when playing many games")
+		void testManyGames() {
+			for (int seed = 0; seed < 50; seed++) {
+				Game game = new Game(solverPlayers(2 + seed % 3), new Random(seed));
+				GameResult result = game.play();
+				assertTrue(game.isOver(), () -> "should be over");
+				assertEquals(Card.NUM_OF_CODES, countCards(game),
+						() -> "should neither lose nor create cards");
+				assertTrue(game.getTable().isStable(),
+						() -> "should leave the table stable");
+				if (result.hasWinner()) {
+					assertEquals(0, result.getHandSize(result.getWinner()),
+							() -> "should let the winner go out");
+				}
+			}
+		}
+
+		@Test
+		@DisplayName("when playing with the same seed")
+		void testDeterministic() {
+			GameResult first = new Game(solverPlayers(3), new Random(42)).play();
+			GameResult second = new Game(solverPlayers(3), new Random(42)).play();
+			assertEquals(first.getWinner(), second.getWinner(),
+					() -> "should have the same winner");
+			assertEquals(first.getTurnCount(), second.getTurnCount(),
+					() -> "should last as many turns");
+		}
+
+		@Test
+		@DisplayName("when no player goes out")
+		void testMaxTurns() {
+			Player drawer = (turn) -> {
+				turn.drawFromStock();
+				turn.discard(turn.getHand().getCards().get(0));
+			};
+			Game game = new Game(Arrays.asList(drawer, drawer), new Random(0));
+			game.setMaxTurns(500);
+			GameResult result = game.play();
+			assertTrue(result.getTurnCount() <= 500, () -> "should not exceed the maximum number of turns");
+			assertEquals(Card.NUM_OF_CODES, countCards(game),
+					() -> "should neither lose nor create cards");
+		}
+
+		@Test
+		@DisplayName("when a player does not finish its turn")
+		void testUnfinishedTurn() {
+			Player idle = (turn) -> turn.drawFromStock();
+			Game game = new Game(Arrays.asList(idle, idle), new Random(0));
+			assertThrows(IllegalStateException.class, () -> game.play());
+		}
+
+	}
+
+	@Nested
+	@DisplayName("the turn")
+	class TurnTest {
+
+		void playFirstTurn(Player player) {
+			new Game(Arrays.asList(player, player), new Random(0)).playTurn();
+		}
+
+		@Test
+		@DisplayName("when moves are out of order")
+		void testOrder() {
+			playFirstTurn((turn) -> {
+				Card card = turn.getHand().getCards().get(0);
+				assertThrows(IllegalStateException.class, () -> turn.discard(card));
+				assertThrows(IllegalStateException.class,
+						() -> turn.meld(Collections.<CardSequence>emptyList()));
+				turn.drawFromStock();
+				assertThrows(IllegalStateException.class, () -> turn.drawFromDiscardPile());
+				turn.discard(card);
+				assertThrows(IllegalStateException.class, () -> turn.discard(card));
+			});
+		}
+
+		@Test
+		@DisplayName("when melding cards not in hand")
+		void testMeldNotInHand() {
+			playFirstTurn((turn) -> {
+				turn.drawFromStock();
+				CardSequenceBuilder builder = new CardSequenceBuilder()
+						.setType(() -> new RankCardSequenceType());
+				for (CardRank rank : CardRank.values()) builder.addCard(new Card(rank, CardSuit.HEARTS));
+				int size = turn.getHand().size();
+				assertThrows(IllegalArgumentException.class,
+						() -> turn.meld(Collections.singletonList(builder.build())));
+				assertEquals(size, turn.getHand().size(), () -> "should leave the hand untouched");
+				assertTrue(turn.getTable().isEmpty(), () -> "should leave the table untouched");
+				turn.discard(turn.getHand().getCards().get(0));
+			});
+		}
+
+		CardSequence run(CardSuit suit, int first, int last) {
+			CardSequenceBuilder builder = new CardSequenceBuilder()
+					.setType(() -> new RankCardSequenceType());
+			for (int rank = first; rank <= last; rank++) builder.addCard(new Card(CardRank.values()[rank - 1], suit));
+			return builder.build();
+		}
+
+		@Test
+		@DisplayName("when melding next to the card sequences on the table")
+		void testMeldChanges() {
+			CardSequenceTable table = new CardSequenceTable((card) -> {});
+			table.addSequence(run(CardSuit.HEARTS, 1, 3));
+			ByteBuffer snapshot = ByteBuffer.allocate(table.snapshotSize());
+			table.writeTo(snapshot);
+			snapshot.flip();
+			long hand = run(CardSuit.SPADES, 4, 6).getMask() | new Card(CardRank.FOUR, CardSuit.HEARTS).getMask()
+					| new Card(CardRank.KING, CardSuit.CLUBS).getMask();
+			Card other = new Card(CardRank.KING, CardSuit.DIAMONDS);
+			Card discarded = new Card(CardRank.QUEEN, CardSuit.DIAMONDS);
+			long rest = ~(hand | other.getMask() | discarded.getMask() | table.getSequence(0).getMask())
+					& ((1L << Card.NUM_OF_CODES) - 1);
+			byte [] stock = new byte[Long.bitCount(rest)];
+			for (int i = 0; rest != 0; rest &= rest - 1) stock[i++] = (byte) Long.numberOfTrailingZeros(rest);
+			List<String> operations = new ArrayList<String>();
+			Player player = (turn) -> {
+				turn.getTable().addOperationListener(new CardSequenceTableOperationListener() {
+					public void sequenceAdded(CardSequence sequence) { operations.add("added " + sequence); }
+					public void sequenceRemoved(int index) { operations.add("removed " + index); }
+					public void cardAdded(int index, Card card) { operations.add("card added"); }
+					public void cardRemoved(int index, Card card) { operations.add("card removed"); }
+					public void sequenceSplit(int index, int cardIndex) { operations.add("split"); }
+					public void tableCleared() { operations.add("cleared"); }
+				});
+				turn.drawFromDiscardPile();
+				CardSequence spades = run(CardSuit.SPADES, 4, 6);
+				turn.meld(Arrays.asList(run(CardSuit.HEARTS, 1, 3), spades));
+				assertEquals(Arrays.asList("added " + spades), operations,
+						() -> "should only add the new card sequence");
+				operations.clear();
+				CardSequence hearts = run(CardSuit.HEARTS, 1, 4);
+				turn.meld(Arrays.asList(spades, hearts));
+				assertEquals(Arrays.asList("removed 0", "added " + hearts), operations,
+						() -> "should only replace the changed card sequence");
+				assertEquals(2, turn.getTable().size(), () -> "should keep the other card sequence");
+				turn.discard(new Card(CardRank.KING, CardSuit.CLUBS));
+			};
+			new Game(Arrays.asList(player, player), 0, new long [] { hand, other.getMask() }, snapshot,
+					stock, new byte [] { (byte) discarded.getCode() }, new Random(0)).playTurn();
+			assertEquals(2, operations.size(), () -> "should have played the turn");
+		}
+
+		@Test
+		@DisplayName("when discarding the card drawn from the discard pile")
+		void testDiscardDrawn() {
+			playFirstTurn((turn) -> {
+				Card card = turn.drawFromDiscardPile();
+				assertThrows(IllegalArgumentException.class, () -> turn.discard(card));
+				for (Card other : turn.getHand().getCards()) {
+					if (!other.equals(card)) {
+						turn.discard(other);
+						break;
+					}
+				}
+			});
+		}
+
+	}
+
+	@Nested
+	@DisplayName("the position constructor")
+	class PositionTest {
+
+		byte [] codes(CardPile pile) {
+			List<Card> cards = pile.getCards();
+			byte [] codes = new byte[cards.size()];
+			for (int i = 0; i < codes.length; i++) codes[i] = (byte) cards.get(i).getCode();
+			return codes;
+		}
+
+		ByteBuffer snapshot(Game game) {
+			ByteBuffer buffer = ByteBuffer.allocate(game.getTable().snapshotSize());
+			game.getTable().writeTo(buffer);
+			buffer.flip();
+			return buffer;
+		}
+
+		@Test
+		@DisplayName("when resuming a game")
+		void testResume() {
+			Game game = new Game(solverPlayers(3), new Random(7));
+			for (int i = 0; i < 10; i++) game.playTurn();
+			long [] hands = new long[3];
+			for (int i = 0; i < hands.length; i++) hands[i] = game.getHand(i).getMask();
+			Game resumed = new Game(solverPlayers(3), game.getCurrentPlayer(), hands, snapshot(game),
+					codes(game.getStock()), codes(game.getDiscardPile()), new Random(7));
+			assertEquals(game.getCurrentPlayer(), resumed.getCurrentPlayer(), () -> "should resume with the same player");
+			assertEquals(game.getTable().size(), resumed.getTable().size(), () -> "should restore the table");
+			assertEquals(game.getStock().getCards(), resumed.getStock().getCards(), () -> "should restore the stock");
+			assertEquals(game.getDiscardPile().peek(), resumed.getDiscardPile().peek(),
+					() -> "should restore the discard pile");
+			resumed.play();
+			assertEquals(Card.NUM_OF_CODES, countCards(resumed),
+					() -> "should neither lose nor create cards");
+		}
+
+		@Test
+		@DisplayName("when the cards are not one deck")
+		void testNotOneDeck() {
+			Game game = new Game(solverPlayers(2), new Random(7));
+			long [] hands = { game.getHand(0).getMask(), game.getHand(0).getMask() };
+			assertThrows(IllegalArgumentException.class, () -> new Game(solverPlayers(2), 0, hands, snapshot(game),
+					codes(game.getStock()), codes(game.getDiscardPile()), new Random(7)));
+			long [] missing = { game.getHand(0).getMask(), 0 };
+			assertThrows(IllegalArgumentException.class, () -> new Game(solverPlayers(2), 0, missing, snapshot(game),
+					codes(game.getStock()), codes(game.getDiscardPile()), new Random(7)));
+		}
+
+	}
+
+	@Test
+	@DisplayName("when there are not enough cards to deal")
+	void testTooManyPlayers() {
+		assertThrows(IllegalArgumentException.class,
+				() -> new Game(solverPlayers(6), new Random(0)));
+		assertThrows(IllegalArgumentException.class,
+				() -> new Game(solverPlayers(1), new Random(0)));
+	}
+
+}
@@ -0,0 +1,137 @@
+package game.host;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import game.engine.Game;
+import game.engine.Player;
+
+@DisplayName("On the GameHost class")
+class GameHostTest {
+
+	final Player drawer = (turn) -> {
+		turn.drawFromStock();
+		turn.discard(turn.getHand().getCards().get(0));
+	};
+
+	Game newGame(int seed) {
+		return new Game(Arrays.asList(drawer, drawer), new Random(seed));
+	}
+
+	@Nested
+	@DisplayName("the submit method")
+	class SubmitTest {
+
+		@Test
+		@DisplayName("when many threads submit to many games")
+		void testConfinement() throws Exception {
+			int games = 10000, commands = 20;
+			int [] counts = new int[games];
+			AtomicBoolean [] busy = new AtomicBoolean[games];
+			AtomicInteger overlaps = new AtomicInteger();
+			try (GameHost host = GameHost.Builder.newInstance().workers(4).build()) {
+				long [] ids = new long[games];
+				for (int g = 0; g < games; g++) {
+					ids[g] = host.addGame(newGame(g));
+					busy[g] = new AtomicBoolean();
+				}
+				List<CompletableFuture<Boolean>> futures = new ArrayList<CompletableFuture<Boolean>>();
+				Thread [] submitters = new Thread[4];
+				for (int t = 0; t < submitters.length; t++) {
+					submitters[t] = new Thread(() -> {
+						for (int c = 0; c < commands / submitters.length; c++) {
+							for (int g = 0; g < games; g++) {
+								int game = g;
+								CompletableFuture<Boolean> future = host.submit(ids[g], (hosted) -> {
+									if (!busy[game].compareAndSet(false, true)) overlaps.incrementAndGet();
+									counts[game]++; // not atomic on purpose
+									boolean played = hosted.playTurn();
+									busy[game].set(false);
+									return played;
+								});
+								synchronized (futures) {
+									futures.add(future);
+								}
+							}
+						}
+					});
+					submitters[t].start();
+				}
+				for (Thread submitter : submitters) submitter.join();
+				CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+				assertEquals(0, overlaps.get(), () -> "should never run two commands of a game at once");
+				for (int g = 0; g < games; g++) {
+					assertEquals(commands, counts[g], () -> "should run every command once");
+				}
+				assertEquals((long) games * commands, host.getLatency().getCount(),
+						() -> "should measure every command");
+			}
+		}
+
+		@Test
+		@DisplayName("when a command throws")
+		void testFailure() throws InterruptedException {
+			try (GameHost host = GameHost.Builder.newInstance().workers(1).build()) {
+				long id = host.addGame(newGame(0));
+				CompletableFuture<Object> future = host.submit(id, (game) -> {
+					throw new IllegalStateException();
+				});
+				ExecutionException e = assertThrows(ExecutionException.class, () -> future.get());
+				assertTrue(e.getCause() instanceof IllegalStateException,
+						() -> "should complete with the exception thrown");
+				assertEquals(0, (int) host.submit(id, (game) -> game.getTurnCount()).join(),
+						() -> "should keep running the commands of the game");
+			}
+		}
+
+		@Test
+		@DisplayName("when the game is unknown")
+		void testUnknownGame() {
+			try (GameHost host = GameHost.Builder.newInstance().workers(1).build()) {
+				assertThrows(IllegalArgumentException.class, () -> host.submit(1, (game) -> null));
+				long id = host.addGame(newGame(0));
+				assertTrue(host.removeGame(id), () -> "should remove a hosted game");
+				assertThrows(IllegalArgumentException.class, () -> host.submit(id, (game) -> null));
+			}
+		}
+
+	}
+
+	@Nested
+	@DisplayName("the statistics")
+	class StatsTest {
+
+		@Test
+		@DisplayName("when commands are waiting")
+		void testQueueDepth() {
+			List<Runnable> tasks = new ArrayList<Runnable>();
+			try (GameHost host = GameHost.Builder.newInstance().executor(tasks::add).maxBatchSize(2).build()) {
+				long id = host.addGame(newGame(0));
+				for (int i = 0; i < 3; i++) host.submit(id, (game) -> game.playTurn());
+				assertEquals(3, host.getQueueDepth(id), () -> "should count the commands waiting");
+				assertEquals(1, tasks.size(), () -> "should schedule the game once");
+				tasks.remove(0).run();
+				assertEquals(1, host.getQueueDepth(id), () -> "should run a batch at a time");
+				assertEquals(1, tasks.size(), () -> "should schedule the game again");
+				tasks.remove(0).run();
+				assertEquals(0, host.getQueueDepth(id), () -> "should run every command");
+				assertEquals(3, host.getLatency(id).getCount(), () -> "should measure every command");
+				assertTrue(tasks.isEmpty(), () -> "should leave an idle game unscheduled");
+			}
+		}
+
+	}
+
+}
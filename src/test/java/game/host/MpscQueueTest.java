@@ -0,0 +1,50 @@
+package game.host;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("On the MpscQueue class")
+class MpscQueueTest {
+
+	@Test
+	@DisplayName("when the queue is full")
+	void testFull() {
+		MpscQueue<Integer> queue = new MpscQueue<Integer>(3);
+		for (int i = 0; i < 4; i++) assertTrue(queue.offer(i), () -> "should round the capacity up");
+		assertFalse(queue.offer(4), () -> "should refuse elements beyond its capacity");
+		assertEquals(0, (int) queue.poll(), () -> "should be first in, first out");
+		assertTrue(queue.offer(4), () -> "should reuse the slot freed");
+		for (int i = 1; i <= 4; i++) assertEquals(i, (int) queue.poll(), () -> "should be first in, first out");
+		assertNull(queue.poll(), () -> "should be empty");
+	}
+
+	@Test
+	@DisplayName("when many threads produce")
+	void testProducers() throws InterruptedException {
+		int producers = 4, count = 10000;
+		MpscQueue<Integer> queue = new MpscQueue<Integer>(1024);
+		Thread [] threads = new Thread[producers];
+		for (int p = 0; p < producers; p++) {
+			int producer = p;
+			threads[p] = new Thread(() -> {
+				for (int i = 0; i < count; i++) {
+					while (!queue.offer(producer * count + i)) Thread.yield();
+				}
+			});
+			threads[p].start();
+		}
+		int [] next = new int[producers];
+		for (int received = 0; received < producers * count; ) {
+			Integer element = queue.poll();
+			if (element == null) continue;
+			int producer = element / count;
+			assertEquals(next[producer]++, element % count, () -> "should keep the order of each producer");
+			received++;
+		}
+		for (Thread thread : threads) thread.join();
+		assertTrue(queue.isEmpty(), () -> "should be empty");
+	}
+
+}
@@ -0,0 +1,170 @@
+package game.host;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import game.engine.Game;
+import game.engine.Player;
+
+@DisplayName("On the ShardedScheduler class")
+class ShardedSchedulerTest {
+
+	final Player drawer = (turn) -> {
+		turn.drawFromStock();
+		turn.discard(turn.getHand().getCards().get(0));
+	};
+
+	Game newGame(int seed) {
+		return new Game(Arrays.asList(drawer, drawer), new Random(seed));
+	}
+
+	/**
+	 * Waits until every command submitted so far to the games has run
+	 */
+	void await(ShardedScheduler scheduler, long [] ids) {
+		for (long id : ids) scheduler.submit(id, (game) -> null).join();
+	}
+
+	@Nested
+	@DisplayName("the submit method")
+	class SubmitTest {
+
+		@Test
+		@DisplayName("when submitting to many games")
+		void testPinning() {
+			int games = 1000, commands = 50;
+			try (ShardedScheduler scheduler = ShardedScheduler.Builder.newInstance()
+					.shards(4).queueCapacity(256).build()) {
+				long [] ids = new long[games];
+				Thread [] threads = new Thread[games];
+				int [] last = new int[games];
+				List<CompletableFuture<Boolean>> futures = new ArrayList<CompletableFuture<Boolean>>();
+				for (int g = 0; g < games; g++) ids[g] = scheduler.addGame(newGame(g));
+				for (int c = 1; c <= commands; c++) {
+					for (int g = 0; g < games; g++) {
+						int game = g, command = c;
+						futures.add(scheduler.submit(ids[g], (hosted) -> {
+							if (threads[game] == null) threads[game] = Thread.currentThread();
+							boolean ok = threads[game] == Thread.currentThread() && last[game] == command - 1;
+							last[game] = command;
+							hosted.playTurn();
+							return ok;
+						}));
+					}
+				}
+				for (CompletableFuture<Boolean> future : futures) {
+					assertTrue(future.join(), () -> "should run the commands of a game in order on one thread");
+				}
+				assertEquals(1.0, scheduler.getImbalance(), 1e-9,
+						() -> "should spread new games evenly");
+			}
+		}
+
+	}
+
+	@Nested
+	@DisplayName("the moveGame and rebalance methods")
+	class MoveTest {
+
+		@Test
+		@DisplayName("when moving a game while submitting to it")
+		void testMoveInOrder() {
+			try (ShardedScheduler scheduler = ShardedScheduler.Builder.newInstance().shards(2).build()) {
+				long id = scheduler.addGame(newGame(0));
+				int from = scheduler.getShardOf(id);
+				int [] last = new int[1];
+				List<CompletableFuture<Boolean>> futures = new ArrayList<CompletableFuture<Boolean>>();
+				CompletableFuture<Void> move = null;
+				for (int c = 1; c <= 1000; c++) {
+					int command = c;
+					futures.add(scheduler.submit(id, (game) -> {
+						boolean ok = last[0] == command - 1;
+						last[0] = command;
+						return ok;
+					}));
+					if (c == 500) move = scheduler.moveGame(id, 1 - from);
+				}
+				for (CompletableFuture<Boolean> future : futures) {
+					assertTrue(future.join(), () -> "should keep the order of the commands");
+				}
+				move.join();
+				assertEquals(1 - from, scheduler.getShardOf(id), () -> "should route to the new shard");
+				assertEquals(1, scheduler.getGameCount(1 - from), () -> "should count the game on the new shard");
+				assertEquals(0, scheduler.getGameCount(from), () -> "should not count it on the old shard");
+			}
+		}
+
+		@Test
+		@DisplayName("when moving a game over and over while many threads submit to it")
+		void testMoveStress() throws InterruptedException {
+			int submitters = 4, commands = 5000;
+			try (ShardedScheduler scheduler = ShardedScheduler.Builder.newInstance()
+					.shards(4).queueCapacity(16).build()) {
+				long id = scheduler.addGame(newGame(0));
+				int [] last = new int[submitters];
+				List<List<CompletableFuture<Boolean>>> futures = new ArrayList<List<CompletableFuture<Boolean>>>();
+				Thread [] threads = new Thread[submitters];
+				for (int t = 0; t < submitters; t++) {
+					int submitter = t;
+					List<CompletableFuture<Boolean>> submitted = new ArrayList<CompletableFuture<Boolean>>(commands);
+					futures.add(submitted);
+					threads[t] = new Thread(() -> {
+						for (int c = 1; c <= commands; c++) {
+							int command = c;
+							submitted.add(scheduler.submit(id, (game) -> {
+								boolean ok = last[submitter] == command - 1;
+								last[submitter] = command;
+								return ok;
+							}));
+						}
+					});
+					threads[t].start();
+				}
+				Random random = new Random(0);
+				for (boolean submitting = true; submitting; ) {
+					scheduler.moveGame(id, random.nextInt(scheduler.getShardCount())).join();
+					submitting = false;
+					for (Thread thread : threads) submitting |= thread.isAlive();
+				}
+				for (Thread thread : threads) thread.join();
+				for (List<CompletableFuture<Boolean>> submitted : futures) {
+					for (CompletableFuture<Boolean> future : submitted) {
+						assertTrue(future.join(), () -> "should keep the order of the commands of each submitter");
+					}
+				}
+				await(scheduler, new long [] { id });
+				assertEquals(1, scheduler.getGameCount(scheduler.getShardOf(id)),
+						() -> "should count the game on its last shard only");
+			}
+		}
+
+		@Test
+		@DisplayName("when every game is on the same shard")
+		void testRebalance() {
+			int games = 40;
+			try (ShardedScheduler scheduler = ShardedScheduler.Builder.newInstance().shards(4).build()) {
+				long [] ids = new long[games];
+				for (int g = 0; g < games; g++) ids[g] = scheduler.addGame(newGame(g));
+				for (long id : ids) scheduler.moveGame(id, 0);
+				await(scheduler, ids);
+				assertEquals(4.0, scheduler.getImbalance(), 1e-9,
+						() -> "should report the imbalance");
+				assertEquals(30, scheduler.rebalance(), () -> "should move the fewest games");
+				await(scheduler, ids);
+				assertEquals(1.0, scheduler.getImbalance(), 1e-9,
+						() -> "should spread the games evenly");
+			}
+		}
+
+	}
+
+}
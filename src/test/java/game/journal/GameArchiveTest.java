@@ -0,0 +1,175 @@
+package game.journal;
+
+import static game.table.TableTestHelper.assertSameTable;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import game.card.Card;
+import game.card.CardRank;
+import game.card.CardSuit;
+import game.sequence.CardSequence;
+import game.sequence.CardSequenceBuilder;
+import game.sequence.types.RankCardSequenceType;
+import game.sequence.types.SuitCardSequenceType;
+import game.table.CardSequenceTable;
+import game.table.CardSequenceTableListener;
+
+@DisplayName("On the game archive classes")
+class GameArchiveTest implements CardSequenceTableListener {
+
+	/**
+	 * Deals a set of queens of the given suits
+	 */
+	void deal(CardSequenceTable table) {
+		table.addSequence(new CardSequenceBuilder()
+				.setType(() -> new SuitCardSequenceType())
+				.addCard(new Card(CardRank.QUEEN, CardSuit.HEARTS))
+				.addCard(new Card(CardRank.QUEEN, CardSuit.SPADES))
+				.addCard(new Card(CardRank.QUEEN, CardSuit.CLUBS))
+				.build());
+	}
+
+	/**
+	 * Plays a game from the deal, whose moves depend on the seed
+	 */
+	void play(CardSequenceTable table, int seed) {
+		CardSuit suit = CardSuit.values()[seed % 4];
+		CardSequence run = new CardSequenceBuilder()
+				.setType(() -> new RankCardSequenceType())
+				.addCard(new Card(CardRank.TWO, suit))
+				.addCard(new Card(CardRank.THREE, suit))
+				.addCard(new Card(CardRank.FOUR, suit))
+				.addCard(new Card(CardRank.FIVE, suit))
+				.addCard(new Card(CardRank.SIX, suit))
+				.addCard(new Card(CardRank.SEVEN, suit))
+				.build();
+		table.addSequence(run);
+		table.addCard(table.getSequence(0), new Card(CardRank.QUEEN, CardSuit.DIAMONDS));
+		if (seed % 2 == 0) table.split(run, 3);
+		table.removeCard(run, new Card(CardRank.TWO, suit));
+		if (seed % 3 == 0) table.removeSequence(table.getSequence(0));
+	}
+
+	/**
+	 * Archives a number of games
+	 * @return archive bytes
+	 */
+	byte [] archive(int games, boolean compress, List<CardSequenceTable> tables) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GameArchiveWriter writer = GameArchiveWriter.open(out, compress)) {
+			for (int seed = 0; seed < games; seed++) {
+				CardSequenceTable table = new CardSequenceTable(this);
+				deal(table);
+				writer.beginGame(1000 + seed, table);
+				table.addOperationListener(writer);
+				play(table, seed);
+				table.removeOperationListener(writer);
+				writer.endGame();
+				tables.add(table);
+			}
+		}
+		return out.toByteArray();
+	}
+
+	@Nested
+	@DisplayName("the replay method")
+	class ReplayTest {
+
+		void testReplay(boolean compress) throws IOException {
+			List<CardSequenceTable> tables = new ArrayList<CardSequenceTable>();
+			byte [] bytes = archive(20000, compress, tables);
+			try (GameArchiveReader reader = GameArchiveReader.open(new ByteArrayInputStream(bytes))) {
+				CardSequenceTable table = new CardSequenceTable(GameArchiveTest.this);
+				for (int seed = 0; seed < tables.size(); seed++) {
+					assertTrue(reader.nextGame(), () -> "should have every game");
+					assertEquals(1000 + seed, reader.getGameId(),
+							() -> "should keep the order of the games");
+					if (seed % 7 == 0) {
+						reader.replay(table);
+						assertSameTable(tables.get(seed), table);
+					}
+				}
+				assertFalse(reader.nextGame(), () -> "should end after the last game");
+			}
+		}
+
+		@Test
+		@DisplayName("when blocks are not compressed")
+		void testUncompressed() throws IOException {
+			testReplay(false);
+		}
+
+		@Test
+		@DisplayName("when blocks are compressed")
+		void testCompressed() throws IOException {
+			testReplay(true);
+		}
+
+		@Test
+		@DisplayName("when replaying a game twice")
+		void testTwice() throws IOException {
+			byte [] bytes = archive(1, false, new ArrayList<CardSequenceTable>());
+			try (GameArchiveReader reader = GameArchiveReader.open(new ByteArrayInputStream(bytes))) {
+				assertThrows(IllegalStateException.class, () -> reader.getGameId());
+				assertTrue(reader.nextGame(), () -> "should have a game");
+				assertEquals(5, reader.getMoveCount(), () -> "should count every move");
+				reader.replay(new CardSequenceTable(GameArchiveTest.this));
+				assertThrows(IllegalStateException.class,
+						() -> reader.replay(new CardSequenceTable(GameArchiveTest.this)));
+			}
+		}
+
+	}
+
+	@Nested
+	@DisplayName("the archive size")
+	class SizeTest {
+
+		@Test
+		@DisplayName("when compressing similar games")
+		void testCompression() throws IOException {
+			byte [] raw = archive(1000, false, new ArrayList<CardSequenceTable>());
+			byte [] compressed = archive(1000, true, new ArrayList<CardSequenceTable>());
+			assertTrue(raw.length < 1000 * 32,
+					() -> "should take few bytes per game");
+			assertTrue(compressed.length < raw.length,
+					() -> "should be smaller when compressed");
+		}
+
+	}
+
+	@Nested
+	@DisplayName("the writer")
+	class WriterTest {
+
+		@Test
+		@DisplayName("when recording moves outside of a game")
+		void testNoGame() throws IOException {
+			try (GameArchiveWriter writer = GameArchiveWriter.open(new ByteArrayOutputStream(), false)) {
+				assertThrows(IllegalStateException.class, () -> writer.tableCleared());
+				assertThrows(IllegalStateException.class, () -> writer.endGame());
+			}
+		}
+
+		@Test
+		@DisplayName("when the stream is not an archive")
+		void testNotArchive() {
+			assertThrows(IllegalArgumentException.class,
+					() -> GameArchiveReader.open(new ByteArrayInputStream(new byte[16])));
+		}
+
+	}
+
+	@Override
+	public void cardRemoved(Card card) {}
+
+}
@@ -0,0 +1,183 @@
+package game.journal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import game.card.Card;
+import game.card.CardRank;
+import game.card.CardSuit;
+import game.sequence.CardSequence;
+import game.sequence.CardSequenceBuilder;
+import game.sequence.types.RankCardSequenceType;
+import game.table.CardSequenceTable;
+import game.table.CardSequenceTableListener;
+
+@DisplayName("On the GroupCommitJournal class")
+class GroupCommitJournalTest implements CardSequenceTableListener {
+
+	private Path path;
+
+	@BeforeEach
+	void init() throws IOException {
+		path = Files.createTempFile("games", ".journal");
+		Files.delete(path); // journal files are created on demand
+	}
+
+	@AfterEach
+	void cleanUp() throws IOException {
+		Files.deleteIfExists(path);
+	}
+
+	/**
+	 * Plays a game in which a run of the given suit is laid down and
+	 * then has its cards taken one by one, from the highest rank
+	 */
+	void playGame(CardSequenceTable table, CardSuit suit) {
+		CardSequenceBuilder builder = new CardSequenceBuilder()
+				.setType(() -> new RankCardSequenceType());
+		for (CardRank rank : CardRank.values()) builder.addCard(new Card(rank, suit));
+		CardSequence run = builder.build();
+		table.addSequence(run);
+		for (int i = CardRank.values().length; i > 3; i--) {
+			table.removeCard(run, new Card(CardRank.fromIndex(i), suit));
+		}
+	}
+
+	@Nested
+	@DisplayName("the group commit")
+	class CommitTest {
+
+		@Test
+		@DisplayName("when many games write concurrently")
+		void testConcurrentGames() throws Exception {
+			CardSuit [] suits = CardSuit.values();
+			List<CardSequenceTable> tables = new ArrayList<CardSequenceTable>();
+			try (GroupCommitJournal journal = new GroupCommitJournal.Builder()
+					.path(path)
+					.maxBatchSize(64)
+					.maxLatency(5, TimeUnit.MILLISECONDS)
+					.build()) {
+				List<Thread> games = new ArrayList<Thread>();
+				for (int game = 0; game < suits.length; game++) {
+					CardSequenceTable table = new CardSequenceTable(GroupCommitJournalTest.this);
+					GroupCommitJournal.GameJournal gameJournal = journal.forGame(game);
+					table.addOperationListener(gameJournal);
+					tables.add(table);
+					CardSuit suit = suits[game];
+					games.add(new Thread(() -> {
+						playGame(table, suit);
+						gameJournal.lastCommit().join(); // end of turn
+					}));
+				}
+				for (Thread game : games) game.start();
+				for (Thread game : games) game.join();
+				assertEquals(suits.length * 11, journal.getRecordCount(),
+						() -> "should commit every record once its game waits for it");
+				assertTrue(journal.getCommitCount() < journal.getRecordCount(),
+						() -> "should commit records in batches");
+			}
+			for (int game = 0; game < suits.length; game++) {
+				CardSequenceTable mirror = new CardSequenceTable(GroupCommitJournalTest.this);
+				assertEquals(11, GroupCommitJournal.replay(path, game, mirror),
+						() -> "should replay the records of a single game");
+				Iterator<CardSequence> expected = tables.get(game).iterator();
+				for (CardSequence sequence : mirror) {
+					assertEquals(expected.next(), sequence,
+							() -> "should rebuild the table of the game");
+				}
+			}
+		}
+
+		@Test
+		@DisplayName("when submitting to a closed journal")
+		void testClosed() throws IOException {
+			GroupCommitJournal journal = new GroupCommitJournal.Builder()
+					.path(path)
+					.build();
+			journal.close();
+			assertThrows(IllegalStateException.class,
+					() -> journal.submit(0, JournalRecord.CLEAR, (byte) 0, 0, 0, 0));
+		}
+
+		@Test
+		@DisplayName("when the writer thread is interrupted")
+		void testInterrupted() throws Exception {
+			try (GroupCommitJournal journal = new GroupCommitJournal.Builder().path(path).build()) {
+				for (Thread thread : Thread.getAllStackTraces().keySet()) {
+					if (thread.getName().equals("group-commit-journal")) {
+						thread.interrupt();
+						thread.join();
+					}
+				}
+				assertThrows(IllegalStateException.class,
+						() -> journal.submit(0, JournalRecord.CLEAR, (byte) 0, 0, 0, 0),
+						() -> "should reject records that would never be committed");
+			}
+		}
+
+		@Test
+		@DisplayName("when closing while games are submitting")
+		void testCloseWhileSubmitting() throws Exception {
+			GroupCommitJournal journal = new GroupCommitJournal.Builder().path(path).build();
+			List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+			List<Thread> games = new ArrayList<Thread>();
+			for (int game = 0; game < 4; game++) {
+				long gameId = game;
+				Thread thread = new Thread(() -> {
+					try {
+						while (true) {
+							CompletableFuture<Void> future = journal.submit(gameId, JournalRecord.CLEAR, (byte) 0, 0, 0, 0);
+							synchronized (futures) {
+								futures.add(future);
+							}
+						}
+					} catch (IllegalStateException e) {
+						// closed
+					}
+				});
+				games.add(thread);
+				thread.start();
+			}
+			Thread.sleep(20);
+			journal.close();
+			for (Thread thread : games) thread.join();
+			for (CompletableFuture<Void> future : futures) {
+				assertTrue(future.isDone(), () -> "should complete every record accepted");
+				assertFalse(future.isCompletedExceptionally(), () -> "should commit every record accepted");
+			}
+			assertEquals(futures.size(), journal.getRecordCount(), () -> "should commit them all");
+		}
+
+	}
+
+	@Nested
+	@DisplayName("the builder")
+	class BuilderTest {
+
+		@Test
+		@DisplayName("when the batch size is not positive")
+		void testInvalidBatchSize() {
+			assertThrows(IllegalArgumentException.class,
+					() -> new GroupCommitJournal.Builder().path(path).maxBatchSize(0).build());
+		}
+
+	}
+
+	@Override
+	public void cardRemoved(Card card) {}
+
+}
@@ -0,0 +1,144 @@
+package game.journal;
+
+import static game.table.TableTestHelper.assertSameTable;
+import static game.table.TableTestHelper.playSomeMoves;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import game.card.Card;
+import game.table.CardSequenceTable;
+import game.table.CardSequenceTableListener;
+
+@DisplayName("On the TableJournal class")
+class TableJournalTest implements CardSequenceTableListener {
+
+	private Path path;
+	private CardSequenceTable table;
+
+	@BeforeEach
+	void init() throws IOException {
+		path = Files.createTempFile("table", ".journal");
+		Files.delete(path); // journal files are created on demand
+		table = new CardSequenceTable(this);
+	}
+
+	@AfterEach
+	void cleanUp() throws IOException {
+		Files.deleteIfExists(path);
+	}
+
+	@Nested
+	@DisplayName("the replay method")
+	class ReplayTest {
+
+		@Test
+		@DisplayName("when replaying every operation on a table")
+		void testReplay() throws IOException {
+			try (TableJournal journal = TableJournal.open(path)) {
+				table.addOperationListener(journal);
+				playSomeMoves(table);
+				assertEquals(7, journal.getPosition(),
+						() -> "should append a record per operation");
+			}
+			CardSequenceTable mirror = new CardSequenceTable(TableJournalTest.this);
+			try (TableJournalReader reader = TableJournalReader.open(path)) {
+				assertEquals(7, reader.replay(mirror),
+						() -> "should apply every record");
+			}
+			assertSameTable(table, mirror);
+		}
+
+		@Test
+		@DisplayName("when appending to an existing journal")
+		void testAppend() throws IOException {
+			try (TableJournal journal = TableJournal.open(path)) {
+				table.addOperationListener(journal);
+				playSomeMoves(table);
+				table.removeOperationListener(journal);
+			}
+			try (TableJournal journal = TableJournal.open(path)) {
+				assertEquals(7, journal.getPosition(),
+						() -> "should resume after the last record");
+				table.addOperationListener(journal);
+				table.clearTable();
+			}
+			CardSequenceTable mirror = new CardSequenceTable(TableJournalTest.this);
+			try (TableJournalReader reader = TableJournalReader.open(path)) {
+				assertEquals(8, reader.replay(mirror),
+						() -> "should apply the records of both sessions");
+			}
+			assertTrue(mirror.isEmpty(),
+					() -> "should end with a cleared table");
+		}
+
+		@Test
+		@DisplayName("when the table does not match the journal")
+		void testMismatch() throws IOException {
+			try (TableJournal journal = TableJournal.open(path)) {
+				table.addOperationListener(journal);
+				playSomeMoves(table);
+			}
+			try (TableJournalReader reader = TableJournalReader.open(path)) {
+				reader.seek(2);
+				assertThrows(IllegalStateException.class,
+						() -> reader.replay(new CardSequenceTable(TableJournalTest.this)));
+			}
+		}
+
+	}
+
+	@Nested
+	@DisplayName("the tail method")
+	class TailTest {
+
+		@Test
+		@DisplayName("when following a journal being written")
+		void testTail() throws Exception {
+			CardSequenceTable mirror = new CardSequenceTable(TableJournalTest.this);
+			try (TableJournal journal = TableJournal.open(path);
+					TableJournalReader reader = TableJournalReader.open(path)) {
+				assertEquals(0, reader.tail(mirror, 1, TimeUnit.MILLISECONDS),
+						() -> "should time out on an empty journal");
+				table.addOperationListener(journal);
+				Thread writer = new Thread(() -> playSomeMoves(table));
+				writer.start();
+				for (int i = 0; i < 10 && reader.getPosition() < 7; i++) {
+					reader.tail(mirror, 1, TimeUnit.SECONDS);
+				}
+				writer.join();
+			}
+			assertSameTable(table, mirror);
+		}
+
+		@Test
+		@DisplayName("when following the position of a journal being written")
+		void testPublishedPosition() throws Exception {
+			CardSequenceTable mirror = new CardSequenceTable(TableJournalTest.this);
+			try (TableJournal journal = TableJournal.open(path);
+					TableJournalReader reader = TableJournalReader.open(path)) {
+				table.addOperationListener(journal);
+				Thread writer = new Thread(() -> playSomeMoves(table));
+				writer.start();
+				while (reader.getPosition() < 7) reader.replay(mirror, journal.getPosition());
+				writer.join();
+				assertEquals(0, reader.replay(mirror, 3), () -> "should not go past the given position");
+			}
+			assertSameTable(table, mirror);
+		}
+
+	}
+
+	@Override
+	public void cardRemoved(Card card) {}
+
+}
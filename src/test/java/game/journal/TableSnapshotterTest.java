@@ -0,0 +1,137 @@
+package game.journal;
+
+import static game.table.TableTestHelper.assertSameTable;
+import static game.table.TableTestHelper.playSomeMoves;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import game.card.Card;
+import game.table.CardSequenceTable;
+import game.table.CardSequenceTableListener;
+
+@DisplayName("On the TableSnapshotter class")
+class TableSnapshotterTest implements CardSequenceTableListener {
+
+	private Path journalPath;
+	private Path snapshotPath;
+	private CardSequenceTable table;
+
+	@BeforeEach
+	void init() throws IOException {
+		journalPath = Files.createTempFile("table", ".journal");
+		snapshotPath = Files.createTempFile("table", ".snapshot");
+		Files.delete(journalPath); // journal files are created on demand
+		Files.delete(snapshotPath);
+		table = new CardSequenceTable(this);
+	}
+
+	@AfterEach
+	void cleanUp() throws IOException {
+		Files.deleteIfExists(journalPath);
+		Files.deleteIfExists(snapshotPath);
+	}
+
+	@Nested
+	@DisplayName("the recover method")
+	class RecoverTest {
+
+		@Test
+		@DisplayName("when there are snapshots")
+		void testSnapshots() throws IOException {
+			try (TableJournal journal = TableJournal.open(journalPath)) {
+				TableSnapshotter snapshotter = new TableSnapshotter.Builder()
+						.table(table)
+						.journal(journal)
+						.path(snapshotPath)
+						.maxOperations(3)
+						.build();
+				table.addOperationListener(journal);
+				table.addOperationListener(snapshotter);
+				playSomeMoves(table);
+				snapshotter.lastSnapshot().join();
+			}
+			CardSequenceTable recovered = new CardSequenceTable(TableSnapshotterTest.this);
+			assertEquals(1, TableSnapshotter.recover(snapshotPath, journalPath, recovered),
+					() -> "should replay only the records after the latest snapshot");
+			assertSameTable(table, recovered);
+		}
+
+		@Test
+		@DisplayName("when the journal was lost below the snapshot position")
+		void testJournalBehind() throws IOException {
+			long kept;
+			try (TableJournal journal = TableJournal.open(journalPath)) {
+				TableSnapshotter snapshotter = new TableSnapshotter.Builder()
+						.table(table)
+						.journal(journal)
+						.path(snapshotPath)
+						.maxOperations(3)
+						.build();
+				table.addOperationListener(journal);
+				table.addOperationListener(snapshotter);
+				playSomeMoves(table);
+				snapshotter.lastSnapshot().join();
+				kept = journal.getPosition() - 3; // below the last snapshot, taken after 6 records
+			}
+			try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+				channel.truncate(TableJournal.offsetOf(kept)); // as if the last pages were lost
+			}
+			try (TableJournal journal = TableJournal.open(journalPath)) {
+				assertEquals(kept, journal.getPosition(),
+						() -> "should append after the last record left");
+			}
+			CardSequenceTable recovered = new CardSequenceTable(TableSnapshotterTest.this);
+			assertThrows(IllegalStateException.class,
+					() -> TableSnapshotter.recover(snapshotPath, journalPath, recovered),
+					() -> "should not skip the records lost");
+		}
+
+		@Test
+		@DisplayName("when there is no snapshot")
+		void testNoSnapshot() throws IOException {
+			try (TableJournal journal = TableJournal.open(journalPath)) {
+				table.addOperationListener(journal);
+				playSomeMoves(table);
+			}
+			CardSequenceTable recovered = new CardSequenceTable(TableSnapshotterTest.this);
+			assertEquals(7, TableSnapshotter.recover(snapshotPath, journalPath, recovered),
+					() -> "should replay the whole journal");
+			assertSameTable(table, recovered);
+		}
+
+	}
+
+	@Nested
+	@DisplayName("the builder")
+	class BuilderTest {
+
+		@Test
+		@DisplayName("when the arguments are invalid")
+		void testInvalid() throws IOException {
+			try (TableJournal journal = TableJournal.open(journalPath)) {
+				assertThrows(IllegalArgumentException.class,
+						() -> new TableSnapshotter.Builder().journal(journal).path(snapshotPath).build());
+				assertThrows(IllegalArgumentException.class,
+						() -> new TableSnapshotter.Builder().table(table).journal(journal)
+							.path(snapshotPath).maxInterval(0, TimeUnit.SECONDS).build());
+			}
+		}
+
+	}
+
+	@Override
+	public void cardRemoved(Card card) {}
+
+}
@@ -0,0 +1,109 @@
+package game.rules;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import game.card.Card;
+import game.card.CardRank;
+import game.card.CardSuit;
+
+@DisplayName("On the MeldClassifier class")
+class MeldClassifierTest {
+
+	final MeldClassifier classifier = new MeldClassifier(VariantRules.CLASSIC.compile());
+
+	static long cards(Card... cards) {
+		long mask = 0;
+		for (Card card : cards) mask |= card.getMask();
+		return mask;
+	}
+
+	@Nested
+	@DisplayName("the classify method")
+	class ClassifyTest {
+
+		@Test
+		@DisplayName("when classifying a single candidate")
+		void testSingle() {
+			assertEquals(MeldClassifier.RUN, classifier.classify(cards(Card.valueOf(CardRank.TEN, CardSuit.CLUBS),
+					Card.valueOf(CardRank.JACK, CardSuit.CLUBS), Card.valueOf(CardRank.QUEEN, CardSuit.CLUBS))),
+					() -> "should classify a run");
+			assertEquals(MeldClassifier.SET, classifier.classify(cards(Card.valueOf(CardRank.TEN, CardSuit.CLUBS),
+					Card.valueOf(CardRank.TEN, CardSuit.HEARTS), Card.valueOf(CardRank.TEN, CardSuit.DIAMONDS))),
+					() -> "should classify a set");
+			assertEquals(MeldClassifier.INVALID, classifier.classify(cards(Card.valueOf(CardRank.TEN, CardSuit.CLUBS),
+					Card.valueOf(CardRank.JACK, CardSuit.HEARTS), Card.valueOf(CardRank.QUEEN, CardSuit.CLUBS))),
+					() -> "should reject mixed cards");
+			assertEquals(MeldClassifier.INVALID, classifier.classify(0), () -> "should reject no cards");
+			assertEquals(MeldClassifier.INVALID, classifier.classify(0x7L | 1L << 60),
+					() -> "should reject bits that are not card codes");
+			assertEquals(MeldClassifier.INVALID, classifier.classify(0x7L | 1L << 63),
+					() -> "should reject the sign bit");
+		}
+
+		@Test
+		@DisplayName("when compared to the rule tables")
+		void testBatch() {
+			RuleTables tables = VariantRules.RUMMY_500.compile();
+			MeldClassifier classifier = new MeldClassifier(tables);
+			Random random = new Random(0);
+			long [] cards = new long[4000];
+			for (int i = 0; i < cards.length; i++) {
+				/* half of the candidates are melds */
+				long [] melds = tables.getMelds();
+				if (i % 2 == 0) cards[i] = melds[random.nextInt(melds.length)];
+				else for (int j = random.nextInt(6); j >= 0; j--) cards[i] |= 1L << random.nextInt(Card.NUM_OF_CODES);
+			}
+			byte [] kinds = new byte[cards.length];
+			classifier.classify(cards, 0, cards.length, kinds);
+			for (int i = 0; i < cards.length; i++) {
+				final long candidate = cards[i];
+				assertEquals(tables.isMeld(candidate), kinds[i] != MeldClassifier.INVALID,
+						() -> "should classify " + Long.toHexString(candidate));
+			}
+			long [] melds = new long[cards.length];
+			int count = classifier.filter(cards, cards.length, melds);
+			int expected = 0;
+			for (int i = 0; i < cards.length; i++) {
+				if (kinds[i] != MeldClassifier.INVALID) assertEquals(cards[i], melds[expected++], () -> "should keep melds");
+			}
+			assertEquals(expected, count, () -> "should count melds");
+		}
+
+		@Test
+		@DisplayName("when classifying batches through the Vector API")
+		void testVector() {
+			assumeTrue(classifier.isVectorized(), () -> "needs Java 17 and the jdk.incubator.vector module");
+			RuleTables tables = VariantRules.RUMMY_500.compile();
+			MeldClassifier classifier = new MeldClassifier(tables);
+			Random random = new Random(0);
+			long [] cards = new long[1003];
+			for (int i = 0; i < cards.length; i++) {
+				long [] melds = tables.getMelds();
+				if (i % 3 == 0) cards[i] = melds[random.nextInt(melds.length)];
+				else if (i % 3 == 1) cards[i] = random.nextLong();
+				else for (int j = random.nextInt(6); j >= 0; j--) cards[i] |= 1L << random.nextInt(Card.NUM_OF_CODES);
+			}
+			byte [] kinds = new byte[cards.length];
+			Arrays.fill(kinds, (byte) -1);
+			classifier.classify(cards, 1, cards.length - 1, kinds);
+			assertEquals(-1, kinds[0], () -> "should not classify before the batch");
+			assertEquals(-1, kinds[cards.length - 1], () -> "should not classify after the batch");
+			for (int i = 1; i < cards.length - 1; i++) {
+				final long candidate = cards[i];
+				assertEquals(classifier.classify(candidate), kinds[i],
+						() -> "should classify " + Long.toHexString(candidate) + " as the SWAR loop does");
+			}
+			assertThrows(ArrayIndexOutOfBoundsException.class, () -> classifier.classify(cards, 0, cards.length + 1, kinds));
+		}
+
+	}
+
+}
@@ -0,0 +1,109 @@
+package game.rules;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import game.card.Card;
+import game.card.CardRank;
+import game.card.CardSuit;
+
+@DisplayName("On the RuleTables class")
+class RuleTablesTest {
+
+	static long cards(CardSuit suit, CardRank... ranks) {
+		long mask = 0;
+		for (CardRank rank : ranks) mask |= Card.valueOf(rank, suit).getMask();
+		return mask;
+	}
+
+	static long cards(CardRank rank, CardSuit... suits) {
+		long mask = 0;
+		for (CardSuit suit : suits) mask |= Card.valueOf(rank, suit).getMask();
+		return mask;
+	}
+
+	@Nested
+	@DisplayName("the isMeld method")
+	class IsMeldTest {
+
+		@Test
+		@DisplayName("when following the classic rules")
+		void testClassic() {
+			RuleTables tables = VariantRules.CLASSIC.compile();
+			assertTrue(tables.isMeld(cards(CardSuit.HEARTS, CardRank.ACE, CardRank.TWO, CardRank.THREE)),
+					() -> "should accept a run with a low ace");
+			assertFalse(tables.isMeld(cards(CardSuit.HEARTS, CardRank.QUEEN, CardRank.KING, CardRank.ACE)),
+					() -> "should reject a run with a high ace");
+			assertFalse(tables.isMeld(cards(CardSuit.HEARTS, CardRank.TWO, CardRank.THREE, CardRank.FIVE)),
+					() -> "should reject a run with a gap");
+			assertTrue(tables.isMeld(cards(CardRank.SEVEN, CardSuit.HEARTS, CardSuit.CLUBS, CardSuit.SPADES)),
+					() -> "should accept a set");
+			assertFalse(tables.isMeld(cards(CardRank.SEVEN, CardSuit.HEARTS, CardSuit.CLUBS)),
+					() -> "should reject a small set");
+			assertFalse(tables.isMeld(cards(CardRank.SEVEN, CardSuit.HEARTS, CardSuit.CLUBS)
+					| cards(CardRank.EIGHT, CardSuit.SPADES)), () -> "should reject mixed cards");
+			assertFalse(tables.isMeld(0), () -> "should reject no cards");
+		}
+
+		@Test
+		@DisplayName("when the ace goes low or high")
+		void testAceHigh() {
+			RuleTables tables = VariantRules.RUMMY_500.compile();
+			assertTrue(tables.isMeld(cards(CardSuit.CLUBS, CardRank.QUEEN, CardRank.KING, CardRank.ACE)),
+					() -> "should accept a run with a high ace");
+			assertTrue(tables.isMeld(cards(CardSuit.CLUBS, CardRank.ACE, CardRank.TWO, CardRank.THREE)),
+					() -> "should accept a run with a low ace");
+			assertFalse(tables.isMeld(cards(CardSuit.CLUBS, CardRank.KING, CardRank.ACE, CardRank.TWO)),
+					() -> "should not wrap around");
+			assertTrue(tables.isMeld(cards(CardSuit.CLUBS, CardRank.values())),
+					() -> "should accept the whole suit");
+		}
+
+		@Test
+		@DisplayName("when melds must be larger")
+		void testMinMeldSize() {
+			RuleTables tables = VariantRules.Builder.newInstance().minMeldSize(4).build().compile();
+			assertFalse(tables.isMeld(cards(CardSuit.HEARTS, CardRank.ACE, CardRank.TWO, CardRank.THREE)),
+					() -> "should reject a run of 3");
+			assertTrue(tables.isMeld(cards(CardRank.SEVEN, CardSuit.values())), () -> "should accept a set of 4");
+			assertEquals(1, tables.getSetSuits().length, () -> "should only have sets of every suit");
+		}
+
+	}
+
+	@Test
+	@DisplayName("when listing melds")
+	void testMelds() {
+		RuleTables classic = VariantRules.CLASSIC.compile();
+		assertEquals(4 * 66 + 13 * 5, classic.getMelds().length, () -> "should list every classic meld");
+		RuleTables aceHigh = VariantRules.RUMMY_500.compile();
+		assertEquals(4 * 76 + 13 * 5, aceHigh.getMelds().length,
+				() -> "should list the runs with a high ace too");
+		for (RuleTables tables : new RuleTables[] { classic, aceHigh }) {
+			assertEquals(tables.getMelds().length, Arrays.stream(tables.getMelds()).distinct().count(),
+					() -> "should list every meld once");
+			for (int code = 0; code < Card.NUM_OF_CODES; code++) {
+				long [] melds = tables.getMeldsWith(code);
+				assertEquals(melds.length, Arrays.stream(melds).distinct().count(),
+						() -> "should list every meld with a card once");
+			}
+			for (int rank = 0; rank < CardRank.values().length; rank++) {
+				int [] runs = tables.getRunsWith(rank);
+				assertEquals(runs.length, Arrays.stream(runs).distinct().count(),
+						() -> "should list every run with a rank once");
+			}
+		}
+		for (int code = 0; code < Card.NUM_OF_CODES; code++) {
+			for (long meld : classic.getMeldsWith(code)) {
+				assertTrue(classic.isMeld(meld), () -> "should list melds only");
+				assertNotEquals(0, meld & (1L << code), () -> "should list melds with the card");
+			}
+		}
+	}
+
+}
@@ -0,0 +1,41 @@
+package game.rules;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import game.card.Card;
+import game.card.CardRank;
+import game.card.CardSuit;
+
+@DisplayName("On the VariantRules class")
+class VariantRulesTest {
+
+	@Test
+	@DisplayName("when describing the presets")
+	void testPresets() {
+		assertEquals(3, VariantRules.CLASSIC.getMinMeldSize(), () -> "should meld 3 cards or more");
+		assertEquals(AceRule.LOW_OR_HIGH, VariantRules.RUMMY_500.getAceRule(),
+				() -> "should play the ace high in rummy 500");
+		assertEquals(15, VariantRules.RUMMY_500.getPoints().getPoints(Card.valueOf(CardRank.ACE, CardSuit.CLUBS)),
+				() -> "should count aces as 15 in rummy 500");
+	}
+
+	@Test
+	@DisplayName("when compiling")
+	void testCompile() {
+		assertSame(VariantRules.CLASSIC.compile(), VariantRules.CLASSIC.compile(), () -> "should compile once");
+		assertSame(VariantRules.CLASSIC, VariantRules.CLASSIC.compile().getRules(), () -> "should keep the rules");
+	}
+
+	@Test
+	@DisplayName("when building invalid rules")
+	void testBuild() {
+		assertThrows(IllegalArgumentException.class, () -> VariantRules.Builder.newInstance().minMeldSize(1).build());
+		assertThrows(IllegalArgumentException.class, () -> VariantRules.Builder.newInstance().minMeldSize(14).build());
+		assertThrows(IllegalArgumentException.class,
+				() -> VariantRules.Builder.newInstance().openingThreshold(-1).build());
+	}
+
+}
@@ -0,0 +1,141 @@
+package game.scoring;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import game.card.Card;
+import game.card.CardRank;
+import game.card.CardSuit;
+import game.rules.VariantRules;
+
+@DisplayName("On the DeadwoodCalculator class")
+class DeadwoodCalculatorTest {
+
+	final DeadwoodCalculator calculator = new DeadwoodCalculator(PointTable.STANDARD);
+
+	static long cards(Card... cards) {
+		long mask = 0;
+		for (Card card : cards) mask |= card.getMask();
+		return mask;
+	}
+
+	static Card card(CardRank rank, CardSuit suit) {
+		return Card.valueOf(rank, suit);
+	}
+
+	/**
+	 * @return every run and set of a deck
+	 */
+	static List<Long> melds() {
+		List<Long> melds = new ArrayList<Long>();
+		for (int suit = 0; suit < 4; suit++) {
+			for (int first = 0; first < 13; first++) {
+				long run = 0;
+				for (int last = first; last < 13; last++) {
+					run |= 1L << (suit * 13 + last);
+					if (last - first >= 2) melds.add(run);
+				}
+			}
+		}
+		for (int rank = 0; rank < 13; rank++) {
+			for (int suits = 0; suits < 16; suits++) {
+				if (Integer.bitCount(suits) < 3) continue;
+				long set = 0;
+				for (int suit = 0; suit < 4; suit++) if ((suits & (1 << suit)) != 0) set |= 1L << (suit * 13 + rank);
+				melds.add(set);
+			}
+		}
+		return melds;
+	}
+
+	/**
+	 * Either leaves the lowest card out or melds it, in every possible way
+	 */
+	static int bruteForce(long hand, List<Long> melds) {
+		if (hand == 0) return 0;
+		int code = Long.numberOfTrailingZeros(hand);
+		int best = PointTable.STANDARD.getPoints(code) + bruteForce(hand & (hand - 1), melds);
+		for (long meld : melds) {
+			if ((meld & (1L << code)) != 0 && (meld & ~hand) == 0) best = Math.min(best, bruteForce(hand & ~meld, melds));
+		}
+		return best;
+	}
+
+	@Nested
+	@DisplayName("the getDeadwood method")
+	class GetDeadwoodTest {
+
+		@Test
+		@DisplayName("when melding runs and sets")
+		void testExamples() {
+			assertEquals(0, calculator.getDeadwood(0), () -> "should have no deadwood without cards");
+			long run = cards(card(CardRank.FIVE, CardSuit.HEARTS), card(CardRank.SIX, CardSuit.HEARTS),
+					card(CardRank.SEVEN, CardSuit.HEARTS));
+			assertEquals(0, calculator.getDeadwood(run), () -> "should meld a run");
+			long set = cards(card(CardRank.KING, CardSuit.HEARTS), card(CardRank.KING, CardSuit.SPADES),
+					card(CardRank.KING, CardSuit.CLUBS));
+			assertEquals(10, calculator.getDeadwood(set | card(CardRank.JACK, CardSuit.CLUBS).getMask()),
+					() -> "should meld a set and leave the rest");
+			/* the seven of hearts goes either in the run or in the set */
+			long shared = run | cards(card(CardRank.SEVEN, CardSuit.SPADES), card(CardRank.SEVEN, CardSuit.CLUBS));
+			assertEquals(11, calculator.getDeadwood(shared), () -> "should share no card");
+			assertEquals(0, calculator.getDeadwood((1L << Card.NUM_OF_CODES) - 1), () -> "should meld the whole deck");
+		}
+
+		@Test
+		@DisplayName("when compared to a brute force search")
+		void testBruteForce() {
+			List<Long> melds = melds();
+			Random random = new Random(0);
+			for (int i = 0; i < 300; i++) {
+				long hand = 0;
+				int size = 7 + random.nextInt(8);
+				while (Long.bitCount(hand) < size) hand |= 1L << random.nextInt(Card.NUM_OF_CODES);
+				/* favour melds by drawing from half of the ranks */
+				if (i % 2 == 0) hand &= 0x0F0F0F0F0F0FFL;
+				final long h = hand;
+				assertEquals(bruteForce(hand, melds), calculator.getDeadwood(hand),
+						() -> "should find the least deadwood of " + Long.toHexString(h));
+			}
+		}
+
+	}
+
+	@Test
+	@DisplayName("when following other rules")
+	void testRules() {
+		DeadwoodCalculator rummy500 = new DeadwoodCalculator(VariantRules.RUMMY_500.compile());
+		long run = cards(card(CardRank.QUEEN, CardSuit.HEARTS), card(CardRank.KING, CardSuit.HEARTS),
+				card(CardRank.ACE, CardSuit.HEARTS));
+		assertEquals(0, rummy500.getDeadwood(run), () -> "should meld a run with a high ace");
+		assertEquals(21, calculator.getDeadwood(run), () -> "should not meld it in the classic rules");
+		DeadwoodCalculator large = new DeadwoodCalculator(VariantRules.Builder.newInstance().minMeldSize(4).build().compile());
+		assertEquals(5 + 6 + 7, large.getDeadwood(cards(card(CardRank.FIVE, CardSuit.HEARTS),
+				card(CardRank.SIX, CardSuit.HEARTS), card(CardRank.SEVEN, CardSuit.HEARTS))),
+				() -> "should not meld a run of 3");
+	}
+
+	@Test
+	@DisplayName("when evaluating every discard")
+	void testDiscards() {
+		long hand = cards(card(CardRank.FIVE, CardSuit.HEARTS), card(CardRank.SIX, CardSuit.HEARTS),
+				card(CardRank.SEVEN, CardSuit.HEARTS), card(CardRank.TWO, CardSuit.CLUBS),
+				card(CardRank.QUEEN, CardSuit.SPADES));
+		int [] deadwood = new int[Card.NUM_OF_CODES];
+		int best = calculator.getDeadwoodByDiscard(hand, deadwood);
+		assertEquals(card(CardRank.QUEEN, CardSuit.SPADES).getCode(), best, () -> "should discard the highest deadwood");
+		assertEquals(2, deadwood[best], () -> "should leave the other card as deadwood");
+		assertEquals(6 + 7 + 2 + 10, deadwood[card(CardRank.FIVE, CardSuit.HEARTS).getCode()],
+				() -> "should break the run");
+		assertEquals(-1, calculator.getDeadwoodByDiscard(0, deadwood), () -> "should not discard from an empty hand");
+		assertEquals(12 + 18, calculator.getPenalty(hand), () -> "should penalize every card");
+	}
+
+}
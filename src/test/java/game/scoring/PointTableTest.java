@@ -0,0 +1,42 @@
+package game.scoring;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import game.card.Card;
+import game.card.CardRank;
+import game.card.CardSuit;
+
+@DisplayName("On the PointTable class")
+class PointTableTest {
+
+	@Test
+	@DisplayName("when looking up the standard points")
+	void testStandard() {
+		PointTable table = PointTable.STANDARD;
+		assertEquals(1, table.getPoints(Card.valueOf(CardRank.ACE, CardSuit.SPADES)), () -> "should count aces as 1");
+		assertEquals(7, table.getPoints(Card.valueOf(CardRank.SEVEN, CardSuit.CLUBS)), () -> "should count pips");
+		assertEquals(10, table.getPoints(Card.valueOf(CardRank.QUEEN, CardSuit.HEARTS)), () -> "should count faces as 10");
+		long hand = Card.valueOf(CardRank.ACE, CardSuit.SPADES).getMask()
+				| Card.valueOf(CardRank.KING, CardSuit.DIAMONDS).getMask();
+		assertEquals(11, table.getPoints(hand), () -> "should sum the points of a hand");
+		assertEquals(0, table.getPoints(0L), () -> "should count no cards as 0");
+	}
+
+	@Test
+	@DisplayName("when constructing a point table")
+	void testConstruct() {
+		int [] points = new int[Card.NUM_OF_CODES];
+		for (int i = 0; i < points.length; i++) points[i] = i;
+		PointTable table = PointTable.byCode(points);
+		points[5] = 0;
+		assertEquals(5, table.getPoints(5), () -> "should copy the points");
+		assertEquals(PointTable.STANDARD, PointTable.byRank(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 10, 10, 10),
+				() -> "should compare points");
+		assertThrows(IllegalArgumentException.class, () -> PointTable.byRank(1, 2, 3));
+		assertThrows(IllegalArgumentException.class, () -> PointTable.byRank(-1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 10, 10, 10));
+	}
+
+}
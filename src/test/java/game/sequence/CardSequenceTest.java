@@ -14,6 +14,29 @@ import game.sequence.types.*;
 @DisplayName("On the CardSequence class")
 class CardSequenceTest {
 
+	@Nested
+	@DisplayName("The isStable method")
+	class StableTest {
+		
+		@Test
+		@DisplayName("when checking sequences against the classic rules")
+		void testClassicRules() {
+			
+			CardSequenceBuilder builder = new CardSequenceBuilder()
+					.setType(() -> new SuitCardSequenceType())
+					.addCard(new Card(CardRank.KING, CardSuit.SPADES))
+					.addCard(new Card(CardRank.KING, CardSuit.HEARTS))
+					.allowInstability(true);
+			
+			assertFalse(builder.build().isStable(),
+					() -> "should not meld two cards");
+			assertTrue(builder.addCard(new Card(CardRank.KING, CardSuit.CLUBS)).build().isStable(),
+					() -> "should meld a set of three suits");
+			
+		}
+		
+	}
+	
 	@Nested
 	@DisplayName("The equals method")
 	class ComparingDifferentTypesTest {
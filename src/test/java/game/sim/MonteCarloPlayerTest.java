@@ -0,0 +1,119 @@
+package game.sim;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import game.card.Card;
+import game.engine.CardTracker;
+import game.engine.Game;
+import game.engine.GameResult;
+import game.engine.Player;
+import game.solver.SearchBudget;
+
+@DisplayName("On the MonteCarloPlayer class")
+class MonteCarloPlayerTest {
+
+	MonteCarloPlayer.Builder builder() {
+		return MonteCarloPlayer.Builder.newInstance()
+				.rollouts(24)
+				.rolloutTurns(40)
+				.rolloutBudget(SearchBudget.nodes(200));
+	}
+
+	/**
+	 * Draws from the stock and discards a random card
+	 */
+	Player randomPlayer(long seed) {
+		Random random = new Random(seed);
+		return (turn) -> {
+			turn.drawFromStock();
+			List<Card> cards = turn.getHand().getCards();
+			turn.discard(cards.get(random.nextInt(cards.size())));
+		};
+	}
+
+	GameResult play(Player player, long seed) {
+		Game game = new Game(Arrays.asList(player, randomPlayer(seed)), 7, new Random(seed));
+		game.setMaxTurns(100);
+		return game.play();
+	}
+
+	@Nested
+	@DisplayName("the playTurn method")
+	class PlayTurnTest {
+
+		@Test
+		@DisplayName("when playing against a random player")
+		void testWins() {
+			int wins = 0;
+			for (long seed = 0; seed < 6; seed++) {
+				if (play(builder().seed(seed).build(), seed).getWinner() == 0) wins++;
+			}
+			assertTrue(wins >= 4, () -> "should win most games");
+		}
+
+		@Test
+		@DisplayName("when playing with different parallelism")
+		void testDeterministic() {
+			for (long seed = 0; seed < 3; seed++) {
+				GameResult serial = play(builder().seed(seed).parallelism(1).build(), seed);
+				GameResult parallel = play(builder().seed(seed).parallelism(4).build(), seed);
+				assertEquals(serial.getWinner(), parallel.getWinner(), () -> "should have the same winner");
+				assertEquals(serial.getTurnCount(), parallel.getTurnCount(), () -> "should last as long");
+			}
+		}
+
+		@Test
+		@DisplayName("when given a card tracker")
+		void testTracker() {
+			MonteCarloPlayer player = builder().build();
+			Game game = new Game(Arrays.asList(player, randomPlayer(0)), 7, new Random(0));
+			game.setMaxTurns(100);
+			player.setTracker(new CardTracker(game, 0));
+			assertNotNull(game.play(), () -> "should play to the end");
+			player.setTracker(new CardTracker(new Game(Arrays.asList(player, player), 7, new Random(0)), 1));
+			assertThrows(IllegalStateException.class, () -> play(player, 0),
+					() -> "should not take the tracker of another player");
+		}
+
+		@Test
+		@DisplayName("when running rollouts")
+		void testThroughput() {
+			MonteCarloPlayer player = builder().build();
+			assertEquals(0, player.getThroughput(), () -> "should have no throughput before playing");
+			play(player, 0);
+			assertTrue(player.getRolloutCount() > 0, () -> "should count rollouts");
+			assertTrue(player.getThroughput() > 0, () -> "should measure its throughput");
+		}
+
+		@Test
+		@DisplayName("when bounded by a rate of rollouts")
+		void testRate() {
+			MonteCarloPlayer player = builder()
+					.rollouts(1000)
+					.rolloutRate(200)
+					.thinkTime(50, TimeUnit.MILLISECONDS)
+					.build();
+			play(player, 0);
+			assertTrue(player.getThroughput() <= 200, () -> "should not exceed the rate of rollouts: " + player.getThroughput());
+		}
+
+	}
+
+	@Test
+	@DisplayName("when building with invalid parameters")
+	void testBuild() {
+		assertThrows(IllegalArgumentException.class, () -> builder().rollouts(0).build());
+		assertThrows(IllegalArgumentException.class, () -> builder().parallelism(0).build());
+		assertThrows(IllegalArgumentException.class, () -> builder().rolloutRate(-1).build());
+	}
+
+}
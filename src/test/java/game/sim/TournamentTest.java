@@ -0,0 +1,94 @@
+package game.sim;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import game.card.Card;
+import game.engine.GameResult;
+import game.engine.SolverPlayer;
+import game.solver.SearchBudget;
+
+@DisplayName("On the Tournament class")
+class TournamentTest {
+
+	final Strategy solver = Strategy.of("solver", (seed) -> new SolverPlayer(SearchBudget.nodes(2000)));
+
+	/**
+	 * Draws from the stock and discards a random card
+	 */
+	final Strategy random = Strategy.of("random", (seed) -> {
+		Random random = new Random(seed);
+		return (turn) -> {
+			turn.drawFromStock();
+			List<Card> cards = turn.getHand().getCards();
+			turn.discard(cards.get(random.nextInt(cards.size())));
+		};
+	});
+
+	Tournament.Builder builder() {
+		return Tournament.Builder.newInstance()
+				.strategy(solver)
+				.strategy(random)
+				.games(300)
+				.firstSeed(1000)
+				.maxTurns(200);
+	}
+
+	@Nested
+	@DisplayName("the run method")
+	class RunTest {
+
+		@Test
+		@DisplayName("when running with different parallelism")
+		void testDeterministic() {
+			TournamentResult serial = builder().parallelism(1).build().run();
+			TournamentResult parallel = builder().parallelism(4).build().run();
+			assertEquals(300, serial.getGames(), () -> "should play every game");
+			assertEquals(serial.getGames(), serial.getWins(0) + serial.getWins(1) + serial.getDraws(),
+					() -> "should account for every game");
+			assertEquals(serial.getTurns(), parallel.getTurns(),
+					() -> "should play the same games");
+			for (int i = 0; i < 2; i++) {
+				assertEquals(serial.getWins(i), parallel.getWins(i),
+						() -> "should have the same winners");
+			}
+			assertTrue(serial.getWins(0) > serial.getWins(1),
+					() -> "should let the better strategy win more");
+		}
+
+	}
+
+	@Nested
+	@DisplayName("the replay method")
+	class ReplayTest {
+
+		@Test
+		@DisplayName("when replaying a game twice")
+		void testReplay() {
+			Tournament tournament = builder().build();
+			for (long seed = 0; seed < 20; seed++) {
+				GameResult first = tournament.replay(seed).play();
+				GameResult second = tournament.replay(seed).play();
+				assertEquals(first.getWinner(), second.getWinner(), () -> "should have the same winner");
+				assertEquals(first.getTurnCount(), second.getTurnCount(), () -> "should last as long");
+			}
+		}
+
+		@Test
+		@DisplayName("when rotating seats")
+		void testSeats() {
+			Tournament tournament = builder().build();
+			assertEquals(0, tournament.strategyAt(0, 0), () -> "should seat the first strategy first");
+			assertEquals(1, tournament.strategyAt(1, 0), () -> "should rotate seats every game");
+			assertEquals(-1, tournament.strategyAt(1, -1), () -> "should map no winner to no strategy");
+		}
+
+	}
+
+}
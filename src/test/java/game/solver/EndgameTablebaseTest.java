@@ -0,0 +1,129 @@
+package game.solver;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import game.card.Card;
+
+@DisplayName("On the EndgameTablebase class")
+class EndgameTablebaseTest {
+
+	private Path path;
+
+	@BeforeEach
+	void init() throws IOException {
+		path = Files.createTempFile("endgame", ".tablebase");
+	}
+
+	@AfterEach
+	void cleanup() throws IOException {
+		Files.deleteIfExists(path);
+	}
+
+	EndgameTablebase generate(int parallelism) throws IOException {
+		int count = EndgameTablebaseGenerator.Builder.newInstance()
+				.maxMelds(1)
+				.maxTableCards(4)
+				.maxHandCards(2)
+				.parallelism(parallelism)
+				.build()
+				.generate(path);
+		EndgameTablebase tablebase = EndgameTablebase.open(path);
+		assertEquals(count, tablebase.size(), () -> "should hold every position generated");
+		return tablebase;
+	}
+
+	@Nested
+	@DisplayName("the lookup method")
+	class LookupTest {
+
+		@Test
+		@DisplayName("when looking up random positions")
+		void testRandom() throws IOException {
+			EndgameTablebase tablebase = generate(2);
+			Random random = new Random(48);
+			int found = 0;
+			for (int n = 0; n < 2000; n++) {
+				long table = 0;
+				while (table == 0 || Long.bitCount(table) > 4) {
+					table = MeldIndex.CLASSIC.getCards(random.nextInt(MeldIndex.CLASSIC.size()));
+				}
+				long hand = 0;
+				for (int i = random.nextInt(6); i > 0; i--) hand |= 1L << random.nextInt(Card.NUM_OF_CODES);
+				hand &= ~table;
+				long played = tablebase.lookup(table, hand);
+				long playable = TableSolver.playableCards(MeldIndex.CLASSIC, table, hand);
+				if (Long.bitCount(playable) > 2) {
+					assertEquals(EndgameTablebase.NOT_FOUND, played, () -> "should not hold larger hands");
+					continue;
+				}
+				found++;
+				TableSolution expected = new TableSolver(table, hand, MeldIndex.CLASSIC).solve();
+				assertEquals(expected.getPlayedCount(), Long.bitCount(played),
+						() -> "should play as many cards as the solver");
+				assertEquals(0, played & ~hand, () -> "should only play cards from the hand");
+				assertEquals(Long.bitCount(played), new TableSolver(table, played, MeldIndex.CLASSIC).solve().getPlayedCount(),
+						() -> "should play cards that can be played together");
+			}
+			assertTrue(found > 1000, () -> "should hold most small positions");
+		}
+
+		@Test
+		@DisplayName("when looking up larger tables")
+		void testLarger() throws IOException {
+			EndgameTablebase tablebase = generate(1);
+			long run = 0b11111L; // ace to five of hearts
+			assertEquals(EndgameTablebase.NOT_FOUND, tablebase.lookup(run, 0),
+					() -> "should not hold tables with more cards");
+			long set = 1L | 1L << 13 | 1L << 26; // three aces
+			assertEquals(0, tablebase.lookup(set, 1L << 30),
+					() -> "should hold tables with as many cards");
+		}
+
+	}
+
+	@Nested
+	@DisplayName("the canonicalize method")
+	class CanonicalizeTest {
+
+		@Test
+		@DisplayName("when moving a position to other suits and ranks")
+		void testSymmetry() {
+			long table = 0b0111_0000L << 13; // five to seven of the second suit
+			long hand = 1L << 4 | 1L << (39 + 7); // five of the first suit and eight of the last suit
+			long [] canonical = new long[2];
+			int transform = EndgameTablebase.canonicalize(table, hand, canonical);
+			assertEquals(table, EndgameTablebase.restore(canonical[0], transform), () -> "should restore the table");
+			assertEquals(hand, EndgameTablebase.restore(canonical[1], transform), () -> "should restore the hand");
+			long [] moved = new long[2];
+			EndgameTablebase.canonicalize(table >>> 13 << 26 >>> 2, 1L << 2 | 1L << (13 + 5), moved);
+			assertArrayEquals(canonical, moved, () -> "should not depend on suits and ranks");
+		}
+
+	}
+
+	@Nested
+	@DisplayName("the open method")
+	class OpenTest {
+
+		@Test
+		@DisplayName("when opening a file that is not a tablebase")
+		void testMalformed() throws IOException {
+			Files.write(path, new byte[EndgameTablebase.PAGE_SIZE]);
+			assertThrows(IllegalArgumentException.class, () -> EndgameTablebase.open(path),
+					() -> "should reject it");
+		}
+
+	}
+
+}
@@ -0,0 +1,88 @@
+package game.solver;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import game.card.Card;
+import game.card.CardRank;
+import game.card.CardSuit;
+import game.rules.VariantRules;
+import game.scoring.PointTable;
+
+@DisplayName("On the MeldIndex class")
+class MeldIndexTest {
+
+	final MeldIndex index = MeldIndex.CLASSIC;
+
+	@Test
+	@DisplayName("when enumerating every meld")
+	void testMelds() {
+		assertEquals(4 * 66 + 13 * 5, index.size(), () -> "should hold every run and every set");
+		int runs = 0;
+		for (int meld = 0; meld < index.size(); meld++) {
+			long cards = index.getCards(meld);
+			assertTrue(VariantRules.CLASSIC.compile().isMeld(cards), () -> "should only hold valid melds");
+			assertEquals(PointTable.STANDARD.getPoints(cards), index.getPoints(meld), () -> "should carry the points");
+			if (index.isRun(meld)) runs++;
+			if (meld > 0) {
+				assertTrue(Long.numberOfTrailingZeros(index.getCards(meld - 1)) <= Long.numberOfTrailingZeros(cards),
+						() -> "should sort melds by their lowest card");
+			}
+		}
+		assertEquals(4 * 66, runs, () -> "should tell runs from sets");
+	}
+
+	@Test
+	@DisplayName("when listing the melds of a card")
+	void testMeldsWith() {
+		int code = Card.valueOf(CardRank.SEVEN, CardSuit.HEARTS).getCode();
+		int count = 0;
+		for (int meld = 0; meld < index.size(); meld++) if ((index.getCards(meld) & (1L << code)) != 0) count++;
+		long [] melds = index.getMeldsWith(code);
+		assertEquals(count, melds.length, () -> "should list every meld with the card");
+		for (long meld : melds) assertNotEquals(0, meld & (1L << code), () -> "should list melds with the card");
+		assertSame(index.getRules().getMeldsWith(code), melds, () -> "should share the list of the rule tables");
+	}
+
+	@Nested
+	@DisplayName("the findMelds method")
+	class FindMeldsTest {
+
+		@Test
+		@DisplayName("when compared to a scan of every meld")
+		void testScan() {
+			Random random = new Random(0);
+			int [] melds = new int[index.size()];
+			for (int i = 0; i < 200; i++) {
+				long hand = 0;
+				int size = random.nextInt(25);
+				while (Long.bitCount(hand) < size) hand |= 1L << random.nextInt(Card.NUM_OF_CODES);
+				int count = index.findMelds(hand, melds);
+				int expected = 0;
+				for (int meld = 0; meld < index.size(); meld++) {
+					if ((index.getCards(meld) & ~hand) == 0) {
+						assertTrue(expected < count, () -> "should find every meld");
+						assertEquals(meld, melds[expected++], () -> "should find melds in order");
+					}
+				}
+				assertEquals(expected, count, () -> "should find only melds of the hand");
+			}
+		}
+
+		@Test
+		@DisplayName("when the hand is the whole deck")
+		void testDeck() {
+			int [] melds = new int[index.size()];
+			assertEquals(index.size(), index.findMelds((1L << Card.NUM_OF_CODES) - 1, melds),
+					() -> "should find every meld");
+			assertEquals(0, index.findMelds(0, melds), () -> "should find nothing in an empty hand");
+		}
+
+	}
+
+}
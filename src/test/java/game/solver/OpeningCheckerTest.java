@@ -0,0 +1,147 @@
+package game.solver;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import game.card.Card;
+import game.card.CardRank;
+import game.card.CardSuit;
+import game.rules.AceRule;
+import game.rules.VariantRules;
+import game.scoring.PointTable;
+import game.sequence.CardSequence;
+
+@DisplayName("On the OpeningChecker class")
+class OpeningCheckerTest {
+
+	final OpeningChecker checker = new OpeningChecker(PointTable.STANDARD, 30);
+
+	static Card card(CardRank rank, CardSuit suit) {
+		return Card.valueOf(rank, suit);
+	}
+
+	/**
+	 * @return greatest sum of the points of disjoint melds of the hand
+	 */
+	static int bruteForce(long hand) {
+		if ( hand == 0 ) return 0;
+		int code = Long.numberOfTrailingZeros(hand);
+		int best = bruteForce(hand & (hand - 1));
+		for ( long meld : MeldIndex.CLASSIC.getMeldsWith(code) ) {
+			if ( (meld & ~hand) == 0 ) {
+				best = Math.max(best, PointTable.STANDARD.getPoints(meld) + bruteForce(hand & ~meld));
+			}
+		}
+		return best;
+	}
+
+	@Nested
+	@DisplayName("the check method")
+	class CheckTest {
+
+		@Test
+		@DisplayName("when the hand can open")
+		void testOpens() {
+			OpeningSolution solution = checker.check(Arrays.asList(
+					card(CardRank.JACK, CardSuit.HEARTS), card(CardRank.QUEEN, CardSuit.HEARTS),
+					card(CardRank.KING, CardSuit.HEARTS), card(CardRank.TWO, CardSuit.CLUBS),
+					card(CardRank.TWO, CardSuit.SPADES), card(CardRank.TWO, CardSuit.DIAMONDS),
+					card(CardRank.FIVE, CardSuit.CLUBS)), SearchBudget.unlimited());
+			assertTrue(solution.isFound(), () -> "should open");
+			assertTrue(solution.isOptimal(), () -> "should be certain");
+			assertEquals(30, solution.getPoints(), () -> "should meld the run of faces");
+			for ( CardSequence sequence : solution.getSequences() ) {
+				assertTrue(sequence.isStable(), () -> "should meld stable card sequences");
+			}
+		}
+
+		@Test
+		@DisplayName("when the hand cannot open")
+		void testCannotOpen() {
+			OpeningSolution solution = checker.check(Arrays.asList(
+					card(CardRank.ACE, CardSuit.HEARTS), card(CardRank.TWO, CardSuit.HEARTS),
+					card(CardRank.THREE, CardSuit.HEARTS), card(CardRank.FOUR, CardSuit.CLUBS),
+					card(CardRank.FOUR, CardSuit.SPADES), card(CardRank.FOUR, CardSuit.DIAMONDS),
+					card(CardRank.KING, CardSuit.CLUBS)), SearchBudget.unlimited());
+			assertFalse(solution.isFound(), () -> "should not open with 18 points");
+			assertTrue(solution.isOptimal(), () -> "should prove it");
+			assertTrue(solution.getSequences().isEmpty(), () -> "should meld nothing");
+		}
+
+		@Test
+		@DisplayName("when compared to a brute force search")
+		void testBruteForce() {
+			Random random = new Random(0);
+			for ( int i = 0; i < 300; i++ ) {
+				long hand = 0;
+				int size = 14 + random.nextInt(7);
+				while ( Long.bitCount(hand) < size ) hand |= 1L << random.nextInt(Card.NUM_OF_CODES);
+				OpeningSolution solution = checker.check(hand, SearchBudget.unlimited());
+				final long h = hand;
+				assertEquals(bruteForce(hand) >= 30, solution.isFound(),
+						() -> "should tell whether " + Long.toHexString(h) + " can open");
+				if ( solution.isFound() ) {
+					long melded = 0;
+					for ( CardSequence sequence : solution.getSequences() ) {
+						for ( Card card : sequence ) {
+							assertEquals(0, melded & card.getMask(), () -> "should not repeat cards");
+							melded |= card.getMask();
+						}
+					}
+					final long m = melded;
+					assertEquals(0, melded & ~hand, () -> "should only meld cards of the hand");
+					assertTrue(PointTable.STANDARD.getPoints(m) >= 30, () -> "should reach the threshold");
+				}
+			}
+		}
+
+		@Test
+		@DisplayName("when the budget runs out")
+		void testBudget() {
+			/* the ace of hearts is either in the run or in the set, which is worth 7 at most */
+			OpeningChecker checker = new OpeningChecker(PointTable.STANDARD, 7);
+			long hand = 0;
+			for ( Card card : Arrays.asList(card(CardRank.ACE, CardSuit.HEARTS), card(CardRank.TWO, CardSuit.HEARTS),
+					card(CardRank.THREE, CardSuit.HEARTS), card(CardRank.ACE, CardSuit.SPADES),
+					card(CardRank.ACE, CardSuit.CLUBS)) ) hand |= card.getMask();
+			assertFalse(checker.check(hand, SearchBudget.unlimited()).isFound(), () -> "should not open");
+			OpeningSolution solution = checker.check(hand, SearchBudget.nodes(1));
+			assertFalse(solution.isFound(), () -> "should not open");
+			assertFalse(solution.isOptimal(), () -> "should not be certain");
+			assertTrue(solution.getNodes() <= 1, () -> "should respect the budget");
+		}
+
+	}
+
+	@Test
+	@DisplayName("when following other rules")
+	void testRules() {
+		OpeningChecker checker = new OpeningChecker(VariantRules.Builder.newInstance()
+				.aceRule(AceRule.LOW_OR_HIGH)
+				.openingThreshold(21)
+				.build().compile());
+		long hand = 0;
+		for ( Card card : Arrays.asList(card(CardRank.QUEEN, CardSuit.HEARTS), card(CardRank.KING, CardSuit.HEARTS),
+				card(CardRank.ACE, CardSuit.HEARTS), card(CardRank.TWO, CardSuit.CLUBS)) ) hand |= card.getMask();
+		OpeningSolution solution = checker.check(hand, SearchBudget.unlimited());
+		assertTrue(solution.isFound(), () -> "should open with a high ace");
+		assertEquals(21, solution.getPoints(), () -> "should count the ace");
+		assertArrayEquals(new long[] { hand & ~card(CardRank.TWO, CardSuit.CLUBS).getMask() }, solution.getMelds(),
+				() -> "should give the meld as a bitset");
+		assertFalse(new OpeningChecker(PointTable.STANDARD, 21).check(hand, SearchBudget.unlimited()).isFound(),
+				() -> "should not open in the classic rules");
+	}
+
+	@Test
+	@DisplayName("when constructing with a negative threshold")
+	void testNegativeThreshold() {
+		assertThrows(IllegalArgumentException.class, () -> new OpeningChecker(PointTable.STANDARD, -1));
+	}
+
+}
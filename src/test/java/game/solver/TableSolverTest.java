@@ -0,0 +1,203 @@
+package game.solver;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import game.card.Card;
+import game.card.CardRank;
+import game.card.CardSuit;
+import game.rules.VariantRules;
+import game.sequence.CardSequence;
+import game.sequence.CardSequenceBuilder;
+import game.sequence.types.RankCardSequenceType;
+import game.sequence.types.SuitCardSequenceType;
+import game.table.CardSequenceTable;
+import game.table.CardSequenceTableListener;
+
+@DisplayName("On the TableSolver class")
+class TableSolverTest implements CardSequenceTableListener {
+
+	private CardSequenceTable table;
+	private List<Card> hand;
+
+	@BeforeEach
+	void init() {
+		table = new CardSequenceTable(this);
+		hand = new ArrayList<Card>();
+	}
+
+	CardSequence newRun(CardSuit suit, CardRank ... ranks) {
+		CardSequenceBuilder builder = new CardSequenceBuilder()
+				.setType(() -> new RankCardSequenceType());
+		for (CardRank rank : ranks) builder.addCard(new Card(rank, suit));
+		return builder.build();
+	}
+
+	CardSequence newSet(CardRank rank, CardSuit ... suits) {
+		CardSequenceBuilder builder = new CardSequenceBuilder()
+				.setType(() -> new SuitCardSequenceType());
+		for (CardSuit suit : suits) builder.addCard(new Card(rank, suit));
+		return builder.build();
+	}
+
+	Set<Card> cardsOf(List<CardSequence> sequences) {
+		Set<Card> cards = new HashSet<Card>();
+		for (CardSequence sequence : sequences) {
+			assertTrue(sequence.isStable(),
+					() -> "every sequence of the solution should be stable");
+			for (Card card : sequence) {
+				assertTrue(cards.add(card),
+						() -> "no card should be in two sequences");
+			}
+		}
+		return cards;
+	}
+
+	@Nested
+	@DisplayName("the solve method")
+	class SolveTest {
+
+		@Test
+		@DisplayName("on an empty table and an empty hand")
+		void testEmpty() {
+			TableSolution solution = new TableSolver(table, hand).solve();
+			assertTrue(solution.isFound(),
+					() -> "should find the empty rearrangement");
+			assertTrue(solution.isOptimal(),
+					() -> "should prove it optimal");
+			assertEquals(0, solution.getPlayedCount(),
+					() -> "should not play any card");
+		}
+
+		@Test
+		@DisplayName("when a hand card extends a sequence on the table")
+		void testExtension() {
+			table.addSequence(newRun(CardSuit.HEARTS, CardRank.TWO, CardRank.THREE, CardRank.FOUR));
+			hand.add(new Card(CardRank.FIVE, CardSuit.HEARTS));
+			hand.add(new Card(CardRank.KING, CardSuit.CLUBS));
+			TableSolution solution = new TableSolver(table, hand).solve();
+			assertTrue(solution.isOptimal(),
+					() -> "should prove it optimal");
+			assertEquals(1, solution.getPlayedCount(),
+					() -> "should play a single card");
+			assertTrue(solution.getPlayedCards().contains(new Card(CardRank.FIVE, CardSuit.HEARTS)),
+					() -> "should play the card that extends the run");
+			assertEquals(4, cardsOf(solution.getSequences()).size(),
+					() -> "should keep every table card and add the played one");
+		}
+
+		@Test
+		@DisplayName("when playing cards requires breaking up table sequences")
+		void testRearrangement() {
+			table.addSequence(newRun(CardSuit.SPADES, CardRank.FIVE, CardRank.SIX, CardRank.SEVEN, CardRank.EIGHT));
+			table.addSequence(newSet(CardRank.SEVEN, CardSuit.HEARTS, CardSuit.DIAMONDS, CardSuit.CLUBS));
+			hand.add(new Card(CardRank.EIGHT, CardSuit.HEARTS));
+			hand.add(new Card(CardRank.EIGHT, CardSuit.DIAMONDS));
+			TableSolution solution = new TableSolver(table, hand).solve();
+			assertTrue(solution.isOptimal(),
+					() -> "should prove it optimal");
+			assertEquals(2, solution.getPlayedCount(),
+					() -> "should play both cards by forming a set of eights");
+			assertEquals(9, cardsOf(solution.getSequences()).size(),
+					() -> "should cover every card of the table and the played ones");
+		}
+
+		@Test
+		@DisplayName("when no hand card can be played")
+		void testNothingToPlay() {
+			table.addSequence(newRun(CardSuit.CLUBS, CardRank.ACE, CardRank.TWO, CardRank.THREE));
+			hand.add(new Card(CardRank.TEN, CardSuit.HEARTS));
+			TableSolution solution = new TableSolver(table, hand).solve();
+			assertTrue(solution.isFound(),
+					() -> "should keep the current arrangement");
+			assertTrue(solution.isOptimal(),
+					() -> "should prove it optimal");
+			assertEquals(0, solution.getPlayedCount(),
+					() -> "should not play any card");
+		}
+
+		@Test
+		@DisplayName("when the ace goes after the king")
+		void testAceHigh() {
+			hand.add(new Card(CardRank.QUEEN, CardSuit.HEARTS));
+			hand.add(new Card(CardRank.KING, CardSuit.HEARTS));
+			hand.add(new Card(CardRank.ACE, CardSuit.HEARTS));
+			assertEquals(0, new TableSolver(table, hand).solve().getPlayedCount(),
+					() -> "should not play the run with the classic rules");
+			MeldIndex meldIndex = new MeldIndex(VariantRules.RUMMY_500.compile());
+			TableSolution solution = new TableSolver(table, hand, meldIndex).solve();
+			assertTrue(solution.isOptimal(),
+					() -> "should prove it optimal");
+			assertEquals(3, solution.getPlayedCount(),
+					() -> "should play the run with the rules of the variant");
+			assertEquals(1, solution.getMelds().length,
+					() -> "should play a single meld");
+			assertThrows(IllegalArgumentException.class, () -> solution.getSequences(),
+					() -> "should not build a run with a high ace as a card sequence");
+		}
+
+		@Test
+		@DisplayName("when the budget runs out right away")
+		void testExhaustedBudget() {
+			table.addSequence(newRun(CardSuit.CLUBS, CardRank.ACE, CardRank.TWO, CardRank.THREE));
+			hand.add(new Card(CardRank.FOUR, CardSuit.CLUBS));
+			hand.add(new Card(CardRank.FIVE, CardSuit.HEARTS));
+			hand.add(new Card(CardRank.FIVE, CardSuit.SPADES));
+			hand.add(new Card(CardRank.FIVE, CardSuit.DIAMONDS));
+			TableSolution solution = new TableSolver(table, hand).solve(SearchBudget.nodes(0));
+			assertTrue(solution.isFound(),
+					() -> "should answer with the current arrangement");
+			assertFalse(solution.isOptimal(),
+					() -> "should not claim optimality");
+			assertEquals(0, solution.getPlayedCount(),
+					() -> "should not play any card");
+			TableSolution fullSolution = new TableSolver(table, hand).solve();
+			assertEquals(4, fullSolution.getPlayedCount(),
+					() -> "should play the whole hand when unbounded");
+		}
+
+		@Test
+		@DisplayName("when the table is unstable and cannot be rearranged")
+		void testUnsolvable() {
+			CardSequence sequence = newRun(CardSuit.CLUBS, CardRank.ACE, CardRank.TWO, CardRank.THREE);
+			table.addSequence(sequence);
+			sequence.removeCard(new Card(CardRank.ACE, CardSuit.CLUBS));
+			TableSolution solution = new TableSolver(table, hand).solve();
+			assertFalse(solution.isFound(),
+					() -> "should not find any rearrangement");
+			assertTrue(solution.isOptimal(),
+					() -> "should prove that there is none");
+			assertTrue(solution.getSequences().isEmpty(),
+					() -> "should not build any sequence");
+		}
+
+	}
+
+	@Nested
+	@DisplayName("the constructor")
+	class ConstructorTest {
+
+		@Test
+		@DisplayName("when a card is both on the table and in hand")
+		void testRepeatedCard() {
+			table.addSequence(newRun(CardSuit.CLUBS, CardRank.ACE, CardRank.TWO, CardRank.THREE));
+			hand.add(new Card(CardRank.TWO, CardSuit.CLUBS));
+			assertThrows(IllegalArgumentException.class,
+					() -> new TableSolver(table, hand));
+		}
+
+	}
+
+	@Override
+	public void cardRemoved(Card card) {}
+
+}
@@ -2,8 +2,10 @@ package game.table;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.function.Supplier;
 
@@ -20,6 +22,7 @@ import game.card.CardSuit;
 import game.sequence.CardSequence;
 import game.sequence.CardSequenceBuilder;
 import game.sequence.types.RankCardSequenceType;
+import game.sequence.types.SuitCardSequenceType;
 
 @DisplayName("On the CardSequenceTable class")
 class CardSequenceTableTest implements CardSequenceTableListener {
@@ -549,6 +552,241 @@ class CardSequenceTableTest implements CardSequenceTableListener {
 		
 	}
 	
+	@Nested
+	@DisplayName("the validateDirty method")
+	class ValidateDirtyTest {
+		
+		private Supplier<CardSequence> sequenceSupplier = () -> new CardSequenceBuilder()
+				.setType(() -> new RankCardSequenceType())
+				.addCard(new Card(CardRank.ACE, CardSuit.SPADES))
+				.addCard(new Card(CardRank.TWO, CardSuit.SPADES))
+				.addCard(new Card(CardRank.THREE, CardSuit.SPADES))
+				.addCard(new Card(CardRank.FOUR, CardSuit.SPADES))
+				.build();
+		
+		@Test
+		@DisplayName("without a checkpoint")
+		void testNoCheckpoint() {
+			CardSequence sequence = sequenceSupplier.get();
+			table.addSequence(sequence);
+			sequence.removeCard(new Card(CardRank.ACE, CardSuit.SPADES));
+			sequence.removeCard(new Card(CardRank.TWO, CardSuit.SPADES));
+			assertFalse(table.validateDirty(),
+					() -> "should check every sequence on the table");
+			assertEquals(2, removedCardsQueue.size(),
+					() -> "should notify removed cards right away");
+		}
+		
+		@Test
+		@DisplayName("when a card is taken and never put back")
+		void testCardTaken() {
+			CardSequence sequence = sequenceSupplier.get();
+			table.addSequence(sequence);
+			table.checkpoint();
+			Card card = new Card(CardRank.FOUR, CardSuit.SPADES);
+			assertTrue(table.removeCard(sequence, card),
+					() -> "should allow the removal");
+			assertTrue(removedCardsQueue.isEmpty(),
+					() -> "should hold the notification until validation");
+			assertTrue(table.validateDirty(),
+					() -> "should validate the turn");
+			assertEquals(1, removedCardsQueue.size(),
+					() -> "should notify that a single card has been taken");
+			assertEquals(card, removedCardsQueue.get(0),
+					() -> "should notify the card that was taken");
+		}
+		
+		@Test
+		@DisplayName("when a card is taken and put back")
+		void testCardPutBack() {
+			CardSequence sequence = sequenceSupplier.get();
+			table.addSequence(sequence);
+			table.checkpoint();
+			Card card = new Card(CardRank.FOUR, CardSuit.SPADES);
+			table.removeCard(sequence, card);
+			assertTrue(table.addCard(sequence, card),
+					() -> "should allow the card to be put back");
+			assertTrue(table.validateDirty(),
+					() -> "should validate the turn");
+			assertTrue(removedCardsQueue.isEmpty(),
+					() -> "should not notify that a card has been removed");
+		}
+		
+		@Test
+		@DisplayName("when a split leaves an unstable sequence")
+		void testUnstableSplit() {
+			CardSequence sequence = sequenceSupplier.get();
+			table.addSequence(sequence);
+			table.checkpoint();
+			assertTrue(table.split(sequence, 2),
+					() -> "should allow the splitting");
+			assertEquals(2, table.size(),
+					() -> "should add the new sequence to the table");
+			assertFalse(table.validateDirty(),
+					() -> "should find both halves unstable");
+			CardSequence newSequence = null;
+			for (CardSequence cs : table) if (cs != sequence) newSequence = cs;
+			assertTrue(table.addCard(newSequence, new Card(CardRank.FIVE, CardSuit.SPADES)),
+					() -> "should allow adding to the new sequence");
+			assertFalse(table.addCard(sequence, new Card(CardRank.THREE, CardSuit.HEARTS)),
+					() -> "should not allow adding a card of another suit");
+			assertFalse(table.validateDirty(),
+					() -> "should still find the first half unstable");
+		}
+		
+		@Test
+		@DisplayName("when only a new stable sequence is laid down")
+		void testNewSequence() {
+			CardSequence unstable = new CardSequenceBuilder()
+					.setType(() -> new RankCardSequenceType())
+					.addCard(new Card(CardRank.TEN, CardSuit.HEARTS))
+					.addCard(new Card(CardRank.JACK, CardSuit.HEARTS))
+					.addCard(new Card(CardRank.QUEEN, CardSuit.HEARTS))
+					.build();
+			table.addSequence(unstable);
+			unstable.removeCard(new Card(CardRank.TEN, CardSuit.HEARTS));
+			removedCardsQueue.clear();
+			table.checkpoint();
+			assertTrue(table.addSequence(sequenceSupplier.get()),
+					() -> "should add the new sequence");
+			assertTrue(table.validateDirty(),
+					() -> "should only re-check the new sequence");
+			assertFalse(table.isStable(),
+					() -> "should leave untouched sequences as they were");
+		}
+		
+		@Test
+		@DisplayName("when a card cannot be added")
+		void testFailedAddition() {
+			CardSequence unstable = new CardSequenceBuilder()
+					.setType(() -> new RankCardSequenceType())
+					.addCard(new Card(CardRank.TEN, CardSuit.HEARTS))
+					.addCard(new Card(CardRank.JACK, CardSuit.HEARTS))
+					.addCard(new Card(CardRank.QUEEN, CardSuit.HEARTS))
+					.build();
+			table.addSequence(unstable);
+			unstable.removeCard(new Card(CardRank.TEN, CardSuit.HEARTS));
+			table.checkpoint();
+			assertFalse(table.addCard(unstable, new Card(CardRank.TWO, CardSuit.CLUBS)),
+					() -> "should not add the card");
+			assertTrue(table.validateDirty(),
+					() -> "should not mark the sequence as dirty");
+		}
+		
+		@Test
+		@DisplayName("when a whole sequence is taken")
+		void testSequenceTaken() {
+			CardSequence sequence = sequenceSupplier.get();
+			table.addSequence(sequence);
+			table.checkpoint();
+			assertTrue(table.removeSequence(sequence),
+					() -> "should remove the sequence");
+			assertTrue(removedCardsQueue.isEmpty(),
+					() -> "should hold the notification until validation");
+			assertTrue(table.validateDirty(),
+					() -> "should validate the turn");
+			assertEquals(4, removedCardsQueue.size(),
+					() -> "should notify every card of the sequence");
+		}
+		
+		@Test
+		@DisplayName("when the card sequence is not on the table")
+		void testForeignSequence() {
+			CardSequence sequence = sequenceSupplier.get();
+			table.checkpoint();
+			assertFalse(table.removeCard(sequence, new Card(CardRank.ACE, CardSuit.SPADES)),
+					() -> "should not remove the card");
+			assertEquals(4, sequence.size(),
+					() -> "should leave the sequence untouched");
+		}
+		
+	}
+	
+	@Nested
+	@DisplayName("the writeTo and readFrom methods")
+	class SnapshotTest {
+		
+		void fillTable(CardSequenceTable table) {
+			table.addSequence(new CardSequenceBuilder()
+					.setType(() -> new RankCardSequenceType())
+					.addCard(new Card(CardRank.NINE, CardSuit.CLUBS))
+					.addCard(new Card(CardRank.TEN, CardSuit.CLUBS))
+					.addCard(new Card(CardRank.JACK, CardSuit.CLUBS))
+					.addCard(new Card(CardRank.QUEEN, CardSuit.CLUBS))
+					.build());
+			table.addSequence(new CardSequenceBuilder()
+					.setType(() -> new SuitCardSequenceType())
+					.addCard(new Card(CardRank.FIVE, CardSuit.CLUBS))
+					.addCard(new Card(CardRank.FIVE, CardSuit.HEARTS))
+					.addCard(new Card(CardRank.FIVE, CardSuit.SPADES))
+					.build());
+		}
+		
+		@Test
+		@DisplayName("when round-tripping a table through a direct buffer")
+		void testRoundTrip() {
+			fillTable(table);
+			ByteBuffer buffer = ByteBuffer.allocateDirect(table.snapshotSize());
+			table.writeTo(buffer);
+			assertFalse(buffer.hasRemaining(),
+					() -> "should write exactly snapshotSize bytes");
+			buffer.flip();
+			CardSequenceTable copy = new CardSequenceTable(CardSequenceTableTest.this);
+			copy.readFrom(buffer);
+			assertEquals(table.size(), copy.size(),
+					() -> "should restore every sequence");
+			Iterator<CardSequence> expected = table.iterator();
+			for (CardSequence cs : copy) {
+				assertEquals(expected.next(), cs,
+						() -> "should restore the same sequences in the same order");
+			}
+			assertTrue(removedCardsQueue.isEmpty(),
+					() -> "should not notify that a card has been removed");
+		}
+		
+		@Test
+		@DisplayName("when restoring an unstable sequence")
+		void testUnstable() {
+			fillTable(table);
+			for (CardSequence cs : table) cs.removeCard(new Card(CardRank.NINE, CardSuit.CLUBS));
+			ByteBuffer buffer = ByteBuffer.allocate(table.snapshotSize());
+			table.writeTo(buffer);
+			buffer.flip();
+			CardSequenceTable copy = new CardSequenceTable(CardSequenceTableTest.this);
+			copy.readFrom(buffer);
+			assertEquals(2, copy.size(),
+					() -> "should restore every sequence");
+			assertTrue(copy.isStable(),
+					() -> "should keep a three-card run stable");
+			CardSequence restored = copy.iterator().next();
+			assertTrue(restored.addCard(new Card(CardRank.NINE, CardSuit.CLUBS)),
+					() -> "should restore a sequence that can still be extended");
+		}
+		
+		@Test
+		@DisplayName("when reading a buffer that is not a snapshot")
+		void testMalformed() {
+			ByteBuffer buffer = ByteBuffer.allocate(8);
+			assertThrows(IllegalArgumentException.class,
+					() -> table.readFrom(buffer));
+		}
+		
+		@Test
+		@DisplayName("when reading a snapshot with a malformed record")
+		void testMalformedRecord() {
+			fillTable(table);
+			ByteBuffer buffer = ByteBuffer.allocate(table.snapshotSize());
+			table.writeTo(buffer);
+			buffer.put(buffer.limit() - 2, (byte) 0x0F); // no such suit
+			buffer.flip();
+			assertThrows(IllegalArgumentException.class,
+					() -> table.readFrom(buffer));
+			assertEquals(2, table.size(),
+					() -> "should keep the table as it was");
+		}
+		
+	}
+	
 	@Override
 	public void cardRemoved(Card card) {
 		assertNotNull(card,
@@ -0,0 +1,174 @@
+package game.table;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import game.card.Card;
+import game.card.CardRank;
+import game.card.CardSuit;
+import game.sequence.CardSequence;
+import game.sequence.CardSequenceBuilder;
+import game.sequence.types.RankCardSequenceType;
+import game.sequence.types.SuitCardSequenceType;
+
+@DisplayName("On the ConcurrentCardSequenceTable class")
+class ConcurrentCardSequenceTableTest implements CardSequenceTableListener {
+
+	private final List<Card> removedCardsQueue = new ArrayList<Card>();
+	private ConcurrentCardSequenceTable table;
+
+	@BeforeEach
+	void init() {
+		removedCardsQueue.clear();
+		table = new ConcurrentCardSequenceTable(this);
+	}
+
+	CardSequence newRun(CardSuit suit, int first, int last) {
+		CardSequenceBuilder builder = new CardSequenceBuilder()
+				.setType(() -> new RankCardSequenceType());
+		for (int i = first; i <= last; i++) builder.addCard(new Card(CardRank.fromIndex(i), suit));
+		return builder.build();
+	}
+
+	@Nested
+	@DisplayName("the split method")
+	class SplitTest {
+
+		@Test
+		@DisplayName("when splitting a sequence on the table")
+		void testSplit() {
+			CardSequence sequence = newRun(CardSuit.SPADES, 1, 6);
+			assertTrue(table.addSequence(sequence),
+					() -> "should add a stable sequence");
+			assertTrue(table.split(sequence, 3),
+					() -> "should allow the splitting");
+			assertEquals(2, table.size(),
+					() -> "should add the new sequence to the table");
+			assertEquals(3, table.getCards(sequence).size(),
+					() -> "should publish the new state of the split sequence");
+			assertTrue(table.isStable(),
+					() -> "should leave the table stable");
+		}
+
+		@Test
+		@DisplayName("when splitting a sequence that is not on the table")
+		void testForeignSequence() {
+			CardSequence sequence = newRun(CardSuit.SPADES, 1, 6);
+			assertFalse(table.split(sequence, 3),
+					() -> "should return false");
+			assertTrue(table.isEmpty(),
+					() -> "should leave the table empty");
+		}
+
+	}
+
+	@Nested
+	@DisplayName("the moveCard method")
+	class MoveCardTest {
+
+		@Test
+		@DisplayName("when moving a card between two sequences")
+		void testMove() {
+			CardSequence from = newRun(CardSuit.HEARTS, 1, 4);
+			CardSequence to = newRun(CardSuit.HEARTS, 5, 7);
+			table.addSequence(from);
+			table.addSequence(to);
+			Card card = new Card(CardRank.FOUR, CardSuit.HEARTS);
+			assertTrue(table.moveCard(from, to, card),
+					() -> "should move the card");
+			assertEquals(3, table.getCards(from).size(),
+					() -> "should take the card from the first sequence");
+			assertTrue(table.getCards(to).contains(card),
+					() -> "should put the card in the second sequence");
+			assertTrue(removedCardsQueue.isEmpty(),
+					() -> "should not notify that a card has been removed");
+		}
+
+		@Test
+		@DisplayName("when the card cannot be added to the target sequence")
+		void testInvalidMove() {
+			CardSequence from = newRun(CardSuit.HEARTS, 1, 4);
+			CardSequence to = new CardSequenceBuilder()
+					.setType(() -> new SuitCardSequenceType())
+					.addCard(new Card(CardRank.NINE, CardSuit.HEARTS))
+					.addCard(new Card(CardRank.NINE, CardSuit.SPADES))
+					.addCard(new Card(CardRank.NINE, CardSuit.CLUBS))
+					.build();
+			table.addSequence(from);
+			table.addSequence(to);
+			assertFalse(table.moveCard(from, to, new Card(CardRank.FOUR, CardSuit.HEARTS)),
+					() -> "should not move the card");
+			assertEquals(4, table.getCards(from).size(),
+					() -> "should leave the first sequence untouched");
+			assertEquals(3, table.getCards(to).size(),
+					() -> "should leave the second sequence untouched");
+		}
+
+	}
+
+	@Nested
+	@DisplayName("the iterator")
+	class IteratorTest {
+
+		@Test
+		@DisplayName("when writers mutate the table concurrently")
+		void testConcurrentReaders() throws InterruptedException {
+			CardSequence first = newRun(CardSuit.CLUBS, 1, 6);
+			CardSequence second = newRun(CardSuit.CLUBS, 7, 9);
+			table.addSequence(first);
+			table.addSequence(second);
+			Card card = new Card(CardRank.SIX, CardSuit.CLUBS);
+			AtomicBoolean running = new AtomicBoolean(true);
+			AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+			Thread writer = new Thread(() -> {
+				try {
+					for (int i = 0; i < 10000; i++) {
+						table.moveCard(first, second, card);
+						table.moveCard(second, first, card);
+					}
+				} catch (Throwable t) {
+					failure.set(t);
+				} finally {
+					running.set(false);
+				}
+			});
+			Thread reader = new Thread(() -> {
+				try {
+					while (running.get()) {
+						for (List<Card> cards : table) {
+							for (Card c : cards) assertNotNull(c);
+						}
+					}
+				} catch (Throwable t) {
+					failure.set(t);
+				}
+			});
+			writer.start();
+			reader.start();
+			writer.join();
+			reader.join();
+			assertNull(failure.get(),
+					() -> "should never fail while iterating");
+			assertEquals(6, table.getCards(first).size(),
+					() -> "should leave the card back in the first sequence");
+			assertEquals(3, table.getCards(second).size(),
+					() -> "should leave the second sequence as it was");
+		}
+
+	}
+
+	@Override
+	public synchronized void cardRemoved(Card card) {
+		removedCardsQueue.add(card);
+	}
+
+}
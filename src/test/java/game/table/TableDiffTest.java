@@ -0,0 +1,142 @@
+package game.table;
+
+import static game.table.TableTestHelper.assertSameTable;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import game.card.Card;
+import game.card.CardRank;
+import game.card.CardSuit;
+import game.sequence.CardSequence;
+import game.sequence.CardSequenceBuilder;
+import game.sequence.types.RankCardSequenceType;
+import game.sequence.types.SuitCardSequenceType;
+
+@DisplayName("On the TableDiff class")
+class TableDiffTest implements CardSequenceTableListener {
+
+	private CardSequenceTable before;
+	private CardSequenceTable after;
+
+	@BeforeEach
+	void init() {
+		before = new CardSequenceTable(this);
+		after = new CardSequenceTable(this);
+		deal(before);
+		deal(after);
+	}
+
+	/**
+	 * Deals a run of spades and a set of kings
+	 */
+	void deal(CardSequenceTable table) {
+		table.addSequence(run(CardSuit.SPADES, 2, 7));
+		table.addSequence(new CardSequenceBuilder()
+				.setType(() -> new SuitCardSequenceType())
+				.addCard(new Card(CardRank.KING, CardSuit.HEARTS))
+				.addCard(new Card(CardRank.KING, CardSuit.SPADES))
+				.addCard(new Card(CardRank.KING, CardSuit.CLUBS))
+				.build());
+	}
+
+	CardSequence run(CardSuit suit, int first, int last) {
+		CardSequenceBuilder builder = new CardSequenceBuilder()
+				.setType(() -> new RankCardSequenceType());
+		for (int rank = first; rank <= last; rank++) builder.addCard(new Card(CardRank.fromIndex(rank), suit));
+		return builder.build();
+	}
+
+	/**
+	 * Computes the diff, sends it through a buffer and applies it to the previous table
+	 * @return diff received
+	 */
+	TableDiff sync() {
+		TableDiff diff = TableDiff.compute(before, after);
+		ByteBuffer buffer = ByteBuffer.allocate(diff.size());
+		diff.writeTo(buffer);
+		assertFalse(buffer.hasRemaining(), () -> "should take as many bytes as its size");
+		buffer.flip();
+		TableDiff received = TableDiff.readFrom(buffer);
+		received.apply(before);
+		assertSameTable(after, before);
+		return received;
+	}
+
+	@Nested
+	@DisplayName("the compute and apply methods")
+	class ComputeTest {
+
+		@Test
+		@DisplayName("when nothing changed")
+		void testUnchanged() {
+			TableDiff diff = sync();
+			assertTrue(diff.isEmpty(), () -> "should have no changes");
+			assertEquals(6, diff.size(), () -> "should only take the list lengths");
+		}
+
+		@Test
+		@DisplayName("when a card is added")
+		void testCardAdded() {
+			after.addCard(after.getSequence(1), new Card(CardRank.KING, CardSuit.DIAMONDS));
+			TableDiff diff = sync();
+			assertEquals(6 + 4 + 1, diff.size(), () -> "should only send the card added");
+		}
+
+		@Test
+		@DisplayName("when a sequence is split")
+		void testSplit() {
+			after.split(after.getSequence(0), 3);
+			sync();
+		}
+
+		@Test
+		@DisplayName("when a card moves between sequences")
+		void testCardMoved() {
+			after.addSequence(run(CardSuit.HEARTS, 3, 5));
+			before.addSequence(run(CardSuit.HEARTS, 3, 5));
+			after.removeCard(after.getSequence(0), new Card(CardRank.SEVEN, CardSuit.SPADES));
+			after.addCard(after.getSequence(1), new Card(CardRank.KING, CardSuit.DIAMONDS));
+			TableDiff diff = sync();
+			assertEquals(6 + 2 * (4 + 1), diff.size(), () -> "should only send the cards moved");
+		}
+
+		@Test
+		@DisplayName("when sequences are removed and added")
+		void testReplaced() {
+			after.removeSequence(after.getSequence(0));
+			after.addSequence(run(CardSuit.CLUBS, 9, 11));
+			after.addSequence(run(CardSuit.SPADES, 2, 7));
+			sync();
+		}
+
+		@Test
+		@DisplayName("when the table is cleared")
+		void testCleared() {
+			after.clearTable();
+			TableDiff diff = sync();
+			assertEquals(6 + 2 * 2, diff.size(), () -> "should only send the positions removed");
+		}
+
+		@Test
+		@DisplayName("when applied to another table")
+		void testMismatch() {
+			after.addCard(after.getSequence(1), new Card(CardRank.KING, CardSuit.DIAMONDS));
+			TableDiff diff = TableDiff.compute(before, after);
+			CardSequenceTable other = new CardSequenceTable(TableDiffTest.this);
+			other.addSequence(run(CardSuit.HEARTS, 3, 5));
+			assertThrows(IllegalStateException.class, () -> diff.apply(other));
+			assertEquals(1, other.size(), () -> "should leave the table untouched");
+		}
+
+	}
+
+	@Override
+	public void cardRemoved(Card card) {}
+
+}
@@ -0,0 +1,171 @@
+package game.table;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Iterator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import game.card.Card;
+import game.card.CardRank;
+import game.card.CardSuit;
+import game.sequence.CardSequence;
+import game.sequence.CardSequenceBuilder;
+import game.sequence.types.RankCardSequenceType;
+import game.sequence.types.SuitCardSequenceType;
+
+@DisplayName("On the TableStateStore class")
+class TableStateStoreTest implements CardSequenceTableListener {
+
+	private TableStateStore store;
+	private CardSequenceTable table;
+
+	@BeforeEach
+	void init() {
+		store = TableStateStore.Builder.newInstance().chunkSize(1 << 10).initialCapacity(4).build();
+		table = new CardSequenceTable(this);
+	}
+
+	CardSequence run(CardSuit suit, int first, int last) {
+		CardSequenceBuilder builder = new CardSequenceBuilder()
+				.setType(() -> new RankCardSequenceType());
+		for (int rank = first; rank <= last; rank++) builder.addCard(new Card(CardRank.fromIndex(rank), suit));
+		return builder.build();
+	}
+
+	CardSequence set(int rank, CardSuit... suits) {
+		CardSequenceBuilder builder = new CardSequenceBuilder()
+				.setType(() -> new SuitCardSequenceType());
+		for (CardSuit suit : suits) builder.addCard(new Card(CardRank.fromIndex(rank), suit));
+		return builder.build();
+	}
+
+	/**
+	 * Replaces the table by a run of spades of the given length and a set of kings
+	 */
+	void deal(int runLength, boolean setFirst) {
+		table.clearTable();
+		if (setFirst) table.addSequence(set(13, CardSuit.HEARTS, CardSuit.DIAMONDS, CardSuit.CLUBS));
+		table.addSequence(run(CardSuit.SPADES, 1, runLength));
+		if (!setFirst) table.addSequence(set(13, CardSuit.HEARTS, CardSuit.DIAMONDS, CardSuit.CLUBS));
+	}
+
+	@Nested
+	@DisplayName("the add method")
+	class AddTest {
+
+		@Test
+		@DisplayName("when adding a state twice")
+		void testTwice() {
+			deal(5, false);
+			long handle = store.add(table, 0b1011);
+			assertEquals(handle, store.add(table, 0b1011), () -> "should return the same handle");
+			assertEquals(1, store.size(), () -> "should store it once");
+			assertNotEquals(handle, store.add(table, 0b1111), () -> "should tell hands apart");
+			assertEquals(2, store.size(), () -> "should store the other hand");
+		}
+
+		@Test
+		@DisplayName("when adding the same sequences in another order")
+		void testOrder() {
+			deal(5, false);
+			long handle = store.add(table, 0);
+			deal(5, true);
+			assertEquals(handle, store.add(table, 0), () -> "should be the same state");
+			assertEquals(TableStateStore.hash(table, 0), store.getHash(handle),
+					() -> "should hash regardless of the order");
+		}
+
+		@Test
+		@DisplayName("when adding many states")
+		void testMany() {
+			long [] handles = new long[14 * 200];
+			for (int length = 3; length <= 13; length++) {
+				deal(length, false);
+				for (int hand = 0; hand < 200; hand++) handles[length * 200 + hand] = store.add(table, hand);
+			}
+			assertEquals(11 * 200, store.size(), () -> "should store every state");
+			assertTrue(store.getAllocatedBytes() > 1 << 10, () -> "should allocate more chunks");
+			CardSequenceTable copy = new CardSequenceTable(TableStateStoreTest.this);
+			for (int length = 3; length <= 13; length++) {
+				deal(length, false);
+				for (int hand = 0; hand < 200; hand++) {
+					long handle = handles[length * 200 + hand];
+					assertEquals(handle, store.find(table, hand), () -> "should find every state");
+					assertEquals(hand, store.getHand(handle), () -> "should keep the hand");
+					store.readTable(handle, copy);
+					assertSameSequences(table, copy);
+				}
+			}
+		}
+
+	}
+
+	@Nested
+	@DisplayName("the hash method")
+	class HashTest {
+
+		@Test
+		@DisplayName("when keeping the hash up to date move by move")
+		void testIncremental() {
+			deal(5, false);
+			Card six = new Card(CardRank.SIX, CardSuit.SPADES);
+			long hand = 1L << 40 | six.getMask();
+			long hash = TableStateStore.hash(table, hand);
+			CardSequence run = table.getSequence(0);
+			/* plays the six from the hand */
+			hash ^= TableStateStore.sequenceKey(run) ^ TableStateStore.cardKey(six.getCode());
+			table.addCard(run, six);
+			hash ^= TableStateStore.sequenceKey(run);
+			hand &= ~six.getMask();
+			assertEquals(TableStateStore.hash(table, hand), hash,
+					() -> "should match the hash of the new state");
+			long handle = store.add(table, hand, hash);
+			assertEquals(handle, store.find(table, hand), () -> "should find the state");
+			assertEquals(TableStateStore.NO_HANDLE, store.find(table, 1L << 40 | six.getMask()),
+					() -> "should not find another hand");
+		}
+
+	}
+
+	void assertSameSequences(CardSequenceTable expected, CardSequenceTable actual) {
+		assertEquals(expected.size(), actual.size(), () -> "should have the same number of sequences");
+		for (CardSequence sequence : expected) {
+			boolean found = false;
+			for (Iterator<CardSequence> it = actual.iterator(); it.hasNext() && !found;) {
+				found = sequence.equals(it.next());
+			}
+			assertTrue(found, () -> "should have the same sequences");
+		}
+	}
+
+	@Nested
+	@DisplayName("the clear method")
+	class ClearTest {
+
+		@Test
+		@DisplayName("when clearing the store")
+		void testClear() {
+			deal(4, false);
+			long handle = store.add(table, 1);
+			long allocated = store.getAllocatedBytes();
+			store.clear();
+			assertEquals(0, store.size(), () -> "should remove every state");
+			assertEquals(TableStateStore.NO_HANDLE, store.find(table, 1), () -> "should not find the state");
+			assertThrows(IllegalArgumentException.class, () -> store.getHand(handle),
+					() -> "should invalidate handles");
+			assertEquals(allocated, store.getAllocatedBytes(), () -> "should keep the chunks");
+			store.release();
+			assertEquals(0, store.getAllocatedBytes(), () -> "should drop the chunks");
+			assertEquals(store.add(table, 1), store.find(table, 1), () -> "should be reusable");
+		}
+
+	}
+
+	@Override
+	public void cardRemoved(Card card) {}
+
+}
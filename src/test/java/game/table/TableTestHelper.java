@@ -0,0 +1,71 @@
+package game.table;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Iterator;
+
+import game.card.Card;
+import game.card.CardRank;
+import game.card.CardSuit;
+import game.sequence.CardSequence;
+import game.sequence.CardSequenceBuilder;
+import game.sequence.types.RankCardSequenceType;
+import game.sequence.types.SuitCardSequenceType;
+
+/**
+ *
+ * <p>Moves and assertions shared by the tests of card sequence tables
+ * and of what keeps track of them (e.g. journals and snapshots).
+ *
+ * @author guidanoli
+ *
+ */
+public final class TableTestHelper {
+
+	private TableTestHelper() {}
+
+	/**
+	 * Plays seven operations on a table
+	 * @param table - card sequence table
+	 */
+	public static void playSomeMoves(CardSequenceTable table) {
+		CardSequence run = new CardSequenceBuilder()
+				.setType(() -> new RankCardSequenceType())
+				.addCard(new Card(CardRank.TWO, CardSuit.HEARTS))
+				.addCard(new Card(CardRank.THREE, CardSuit.HEARTS))
+				.addCard(new Card(CardRank.FOUR, CardSuit.HEARTS))
+				.addCard(new Card(CardRank.FIVE, CardSuit.HEARTS))
+				.addCard(new Card(CardRank.SIX, CardSuit.HEARTS))
+				.addCard(new Card(CardRank.SEVEN, CardSuit.HEARTS))
+				.build();
+		CardSequence set = new CardSequenceBuilder()
+				.setType(() -> new SuitCardSequenceType())
+				.addCard(new Card(CardRank.KING, CardSuit.HEARTS))
+				.addCard(new Card(CardRank.KING, CardSuit.SPADES))
+				.addCard(new Card(CardRank.KING, CardSuit.CLUBS))
+				.build();
+		table.addSequence(run);
+		table.addSequence(set);
+		table.addCard(set, new Card(CardRank.KING, CardSuit.DIAMONDS));
+		table.split(run, 3);
+		table.removeCard(run, new Card(CardRank.THREE, CardSuit.HEARTS)); // splits again
+		table.addCard(run, new Card(CardRank.ACE, CardSuit.HEARTS));
+		table.removeSequence(set);
+	}
+
+	/**
+	 * Asserts that two tables have the same card sequences in the same order
+	 * @param expected - expected table
+	 * @param actual - actual table
+	 */
+	public static void assertSameTable(CardSequenceTable expected, CardSequenceTable actual) {
+		assertEquals(expected.size(), actual.size(),
+				() -> "should have the same number of sequences");
+		Iterator<CardSequence> iterator = expected.iterator();
+		for (CardSequence sequence : actual) {
+			assertEquals(iterator.next(), sequence,
+					() -> "should have the same sequences in the same order");
+		}
+	}
+
+}
@@ -0,0 +1,48 @@
+package game.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("On the SplitMix64 class")
+class SplitMix64Test {
+
+	@Nested
+	@DisplayName("the mix method")
+	class MixTest {
+
+		@Test
+		@DisplayName("when compared to the generator of the JDK")
+		void testReference() {
+			SplittableRandom random = new SplittableRandom(0);
+			for (int i = 1; i <= 8; i++) {
+				assertEquals(random.nextLong(), SplitMix64.mix(i * SplitMix64.GOLDEN_GAMMA),
+						() -> "should match the outputs of SplittableRandom");
+			}
+		}
+
+	}
+
+	@Nested
+	@DisplayName("the derive method")
+	class DeriveTest {
+
+		@Test
+		@DisplayName("when deriving seeds from consecutive indices")
+		void testDistinct() {
+			Set<Long> seeds = new HashSet<Long>();
+			for (int i = 0; i < 1000; i++) seeds.add(SplitMix64.derive(42, i));
+			assertEquals(1000, seeds.size(), () -> "should derive distinct seeds");
+			assertNotEquals(SplitMix64.derive(42, 0), SplitMix64.derive(43, 0),
+					() -> "should depend on the seed");
+		}
+
+	}
+
+}